@@ -22,6 +22,7 @@ import io.qameta.allure.Allure;
 import io.qameta.allure.AllureLifecycle;
 import io.qameta.allure.model.Parameter;
 import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StatusDetails;
 import io.qameta.allure.model.StepResult;
 import io.qameta.allure.util.ResultsUtils;
 
@@ -35,6 +36,7 @@ import java.util.UUID;
 public class XtepsAllure implements StepListener {
   private final String emptyNameReplacement;
   private final String descAttachmentName;
+  private final String nestedStepFailureMessage;
 
   /**
    * Zero-argument public ctor.
@@ -42,6 +44,7 @@ public class XtepsAllure implements StepListener {
   public XtepsAllure() {
     this.emptyNameReplacement = "Step";
     this.descAttachmentName = "Description";
+    this.nestedStepFailureMessage = "Nested step failed";
   }
 
   @Override
@@ -84,6 +87,17 @@ public class XtepsAllure implements StepListener {
     allureLifecycle.stopStep();
   }
 
+  @Override
+  public final void stepFailedByNestedStep(final Throwable exception) {
+    final AllureLifecycle allureLifecycle = Allure.getLifecycle();
+    allureLifecycle.updateStep(stepResult -> {
+      this.attachStepDescIfPresent(stepResult);
+      stepResult.setStatus(ResultsUtils.getStatus(exception).orElse(Status.BROKEN))
+        .setStatusDetails(new StatusDetails().setMessage(this.nestedStepFailureMessage));
+    });
+    allureLifecycle.stopStep();
+  }
+
   private void attachStepDescIfPresent(final StepResult stepResult) {
     final String stepDescription = stepResult.getDescription();
     if (stepDescription != null && !stepDescription.isEmpty()) {
@@ -46,12 +46,14 @@ public class XtepsExtentReports implements StepListener {
     }
   };
   private final String emptyNameReplacement;
+  private final String nestedStepFailureMessage;
 
   /**
    * Zero-argument public ctor.
    */
   public XtepsExtentReports() {
     this.emptyNameReplacement = "Step";
+    this.nestedStepFailureMessage = "Nested step failed";
   }
 
   /**
@@ -127,8 +129,16 @@ public class XtepsExtentReports implements StepListener {
 
   @Override
   public final void stepFailed(final Throwable exception) {
+    removeCurrentStepNode(exception).fail(exception);
+  }
+
+  @Override
+  public final void stepFailedByNestedStep(final Throwable exception) {
+    removeCurrentStepNode(exception).fail(this.nestedStepFailureMessage);
+  }
+
+  private static ExtentTest removeCurrentStepNode(final Throwable exception) {
     final LinkedList<ExtentTest> nodes = NODES.get();
-    final ExtentTest stepNode;
     switch (nodes.size()) {
       case 0: {
         final XtepsException baseException = new XtepsException("Not found current test");
@@ -141,9 +151,8 @@ public class XtepsExtentReports implements StepListener {
         throw baseException;
       }
       default:
-        stepNode = nodes.removeLast();
+        return nodes.removeLast();
     }
-    stepNode.fail(exception);
   }
 
   private String[][] descAndParamsAsArray(final String desc,
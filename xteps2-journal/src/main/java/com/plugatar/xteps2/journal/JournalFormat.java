@@ -0,0 +1,63 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.journal;
+
+/**
+ * Journal segment binary format.
+ * <p>
+ * Segment header:
+ * <pre>
+ * int   magic
+ * short version
+ * long  thread id
+ * int   segment index
+ * long  epoch millis at segment creation
+ * long  {@link System#nanoTime()} at segment creation
+ * int   thread name bytes count, UTF-8 bytes
+ * </pre>
+ * The header is followed by records. Each record starts with a type byte, zero type byte means the end of segment.
+ * The type byte is written after the record body, so an incomplete record is never visible to a reader.
+ * <pre>
+ * STRING          int id, int bytes count, UTF-8 bytes
+ * STEP_STARTED    long nanos, int depth, int keyword id, int name id, int description id,
+ *                 int params count, (int param name id, int param value id) * params count
+ * STEP_PASSED     long nanos, int depth
+ * STEP_FAILED     long nanos, int depth, int exception class name id, int exception message id
+ * STEP_FAILED_BY_NESTED_STEP  same as STEP_FAILED
+ * </pre>
+ * Strings are dictionary-encoded within a segment: each string is written once as STRING record before the first
+ * record referencing it. String id 0 is reserved for the empty string, string id -1 is reserved for the absent exception message. Nanos are relative to the segment
+ * {@link System#nanoTime()} value.
+ */
+final class JournalFormat {
+  static final int MAGIC = 0x58544A4C;
+  static final short VERSION = 1;
+  static final String FILE_EXTENSION = ".xtj";
+  static final byte END = 0;
+  static final byte STRING = 1;
+  static final byte STEP_STARTED = 2;
+  static final byte STEP_PASSED = 3;
+  static final byte STEP_FAILED = 4;
+  static final byte STEP_FAILED_BY_NESTED_STEP = 5;
+  static final int EMPTY_STRING_ID = 0;
+  static final int NULL_STRING_ID = -1;
+
+  /**
+   * Utility class ctor.
+   */
+  private JournalFormat() {
+  }
+}
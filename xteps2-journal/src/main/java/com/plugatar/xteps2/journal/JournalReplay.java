@@ -0,0 +1,359 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.journal;
+
+import com.plugatar.xteps2.Artifacts;
+import com.plugatar.xteps2.core.Keyword;
+import com.plugatar.xteps2.core.StepListener;
+import com.plugatar.xteps2.core.XtepsException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays journal files written by {@link XtepsJournal} into any {@link StepListener}.
+ * <p>
+ * Segments of one thread are replayed sequentially in one worker thread, so listeners that keep the current step in
+ * thread-local state get the same events order as during the test run. Segments of different threads are replayed in
+ * parallel. Steps that were not finished because the journal is incomplete (for example, the test JVM crashed) are
+ * failed with {@link RecordedException}.
+ * <p>
+ * {@link StepListener} methods have no time argument, so the recorded time of the event being replayed is available
+ * via {@link #eventTime()} in the listener methods. Listeners that use the current time get replay time instead.
+ * <p>
+ * The journal contains only step events, test start and finish events are not recorded. Listeners that attach steps to
+ * the current test of the thread (for example, {@code XtepsAllure}, {@code XtepsExtentReports} and {@code XtepsTestIT}
+ * listeners) need the test context to be opened in the replay thread before the steps, otherwise the steps are not
+ * reported. The replay is intended for listeners that don't depend on the test context, such as custom exporters or
+ * listener benchmarks.
+ * <p>
+ * Can be used as a command line tool:
+ * <pre>
+ * java -cp ... com.plugatar.xteps2.journal.JournalReplay {journal dir} {listener class name}...
+ * </pre>
+ */
+public final class JournalReplay {
+  private static final ThreadLocal<Instant> EVENT_TIME = new ThreadLocal<>();
+  private final Path dir;
+  private final int parallelism;
+
+  /**
+   * Ctor.
+   *
+   * @param dir         the journal directory
+   * @param parallelism the max number of threads replayed in parallel
+   * @throws XtepsException if {@code dir} arg is null
+   *                        or if {@code parallelism} arg is not positive
+   */
+  public JournalReplay(final Path dir,
+                       final int parallelism) {
+    if (dir == null) { throw new XtepsException("dir arg is null"); }
+    if (parallelism <= 0) { throw new XtepsException("parallelism arg is not positive"); }
+    this.dir = dir;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Replays journal files into given listener.
+   *
+   * @param listener the listener
+   * @return the number of replayed events
+   * @throws XtepsException if {@code listener} arg is null
+   *                        or if journal files cannot be read
+   *                        or if listener throws an exception
+   */
+  public long replay(final StepListener listener) {
+    if (listener == null) { throw new XtepsException("listener arg is null"); }
+    final List<List<Path>> threadSegments = this.threadSegments();
+    if (threadSegments.isEmpty()) {
+      return 0L;
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parallelism, threadSegments.size()));
+    try {
+      final List<Future<Long>> futures = new ArrayList<>(threadSegments.size());
+      for (final List<Path> segments : threadSegments) {
+        futures.add(executor.submit(() -> replaySegments(segments, listener)));
+      }
+      long eventsCount = 0L;
+      XtepsException replayException = null;
+      for (final Future<Long> future : futures) {
+        try {
+          eventsCount += future.get();
+        } catch (final ExecutionException ex) {
+          if (replayException == null) {
+            replayException = new XtepsException("Journal replay failed", ex.getCause());
+          } else {
+            replayException.addSuppressed(ex.getCause());
+          }
+        } catch (final InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new XtepsException("Journal replay interrupted", ex);
+        }
+      }
+      if (replayException != null) {
+        throw replayException;
+      }
+      return eventsCount;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the recorded time of the event being replayed in the current thread.
+   *
+   * @return the recorded time of the event or null if the current thread doesn't replay events
+   */
+  public static Instant eventTime() {
+    return EVENT_TIME.get();
+  }
+
+  /**
+   * Returns segment files grouped by run and thread, each group is sorted by segment index.
+   */
+  private List<List<Path>> threadSegments() {
+    final List<Path> files;
+    try (Stream<Path> stream = Files.list(this.dir)) {
+      files = stream
+        .filter(file -> file.getFileName().toString().endsWith(JournalFormat.FILE_EXTENSION))
+        .collect(Collectors.toList());
+    } catch (final IOException ex) {
+      throw new XtepsException("Cannot read journal dir " + this.dir, ex);
+    }
+    final Map<String, List<Path>> groups = new LinkedHashMap<>();
+    for (final Path file : files) {
+      final String fileName = file.getFileName().toString();
+      final String groupKey = fileName.substring(0, fileName.lastIndexOf('-'));
+      groups.computeIfAbsent(groupKey, key -> new ArrayList<>()).add(file);
+    }
+    for (final List<Path> group : groups.values()) {
+      group.sort(Comparator.comparingInt(JournalReplay::segmentIndex));
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  private static int segmentIndex(final Path file) {
+    final String fileName = file.getFileName().toString();
+    return Integer.parseInt(fileName.substring(
+      fileName.lastIndexOf('-') + 1, fileName.length() - JournalFormat.FILE_EXTENSION.length()
+    ));
+  }
+
+  private static long replaySegments(final List<Path> segments,
+                                     final StepListener listener) {
+    final ReplayState state = new ReplayState();
+    try {
+      for (final Path segment : segments) {
+        replaySegment(segment, listener, state);
+      }
+      while (state.depth > 0) {
+        --state.depth;
+        listener.stepFailed(new RecordedException(
+          XtepsException.class.getName(), "Step was not finished, the journal is incomplete"
+        ));
+        ++state.eventsCount;
+      }
+      return state.eventsCount;
+    } finally {
+      EVENT_TIME.remove();
+    }
+  }
+
+  private static void replaySegment(final Path segment,
+                                    final StepListener listener,
+                                    final ReplayState state) {
+    final ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (final IOException ex) {
+      throw new XtepsException("Cannot read journal segment " + segment, ex);
+    }
+    if (buffer.remaining() < 4 || buffer.getInt() != JournalFormat.MAGIC) {
+      throw new XtepsException("Journal segment " + segment + " has incorrect format");
+    }
+    final short version = buffer.getShort();
+    if (version != JournalFormat.VERSION) {
+      throw new XtepsException("Journal segment " + segment + " has unsupported version " + version);
+    }
+    /* thread id, segment index */
+    buffer.position(buffer.position() + 8 + 4);
+    final long epochMillis = buffer.getLong();
+    /* base nanos, event nanos are relative to it */
+    buffer.position(buffer.position() + 8);
+    buffer.position(buffer.position() + 4 + buffer.getInt(buffer.position()));
+    String[] dictionary = new String[64];
+    dictionary[JournalFormat.EMPTY_STRING_ID] = "";
+    try {
+      while (buffer.hasRemaining()) {
+        final byte type = buffer.get();
+        if (type == JournalFormat.END) {
+          break;
+        }
+        switch (type) {
+          case JournalFormat.STRING: {
+            final int id = buffer.getInt();
+            final byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            if (id >= dictionary.length) {
+              dictionary = Arrays.copyOf(dictionary, Math.max(id + 1, dictionary.length * 2));
+            }
+            dictionary[id] = new String(bytes, StandardCharsets.UTF_8);
+            break;
+          }
+          case JournalFormat.STEP_STARTED: {
+            EVENT_TIME.set(Instant.ofEpochMilli(epochMillis).plusNanos(buffer.getLong()));
+            buffer.getInt();
+            final String keyword = dictionary[buffer.getInt()];
+            final String name = dictionary[buffer.getInt()];
+            final String desc = dictionary[buffer.getInt()];
+            final int paramsCount = buffer.getInt();
+            final Map<String, Object> artifacts = new HashMap<>();
+            if (!keyword.isEmpty()) {
+              artifacts.put(Artifacts.keywordArtifact(), new Keyword.Of(keyword));
+            }
+            artifacts.put(Artifacts.nameArtifact(), name);
+            artifacts.put(Artifacts.descArtifact(), desc);
+            if (paramsCount != 0) {
+              final Map<String, Object> params = new LinkedHashMap<>();
+              for (int idx = 0; idx < paramsCount; ++idx) {
+                params.put(dictionary[buffer.getInt()], dictionary[buffer.getInt()]);
+              }
+              artifacts.put(Artifacts.paramsArtifact(), params);
+            }
+            ++state.depth;
+            listener.stepStarted(artifacts);
+            ++state.eventsCount;
+            break;
+          }
+          case JournalFormat.STEP_PASSED: {
+            EVENT_TIME.set(Instant.ofEpochMilli(epochMillis).plusNanos(buffer.getLong()));
+            buffer.getInt();
+            --state.depth;
+            listener.stepPassed();
+            ++state.eventsCount;
+            break;
+          }
+          case JournalFormat.STEP_FAILED:
+          case JournalFormat.STEP_FAILED_BY_NESTED_STEP: {
+            EVENT_TIME.set(Instant.ofEpochMilli(epochMillis).plusNanos(buffer.getLong()));
+            buffer.getInt();
+            final String exceptionClass = dictionary[buffer.getInt()];
+            final int messageId = buffer.getInt();
+            final String exceptionMessage = messageId == JournalFormat.NULL_STRING_ID ? null : dictionary[messageId];
+            --state.depth;
+            if (type == JournalFormat.STEP_FAILED || state.lastException == null) {
+              state.lastException = new RecordedException(exceptionClass, exceptionMessage);
+              listener.stepFailed(state.lastException);
+            } else {
+              listener.stepFailedByNestedStep(state.lastException);
+            }
+            ++state.eventsCount;
+            break;
+          }
+          default:
+            throw new XtepsException("Journal segment " + segment + " contains unknown record type " + type);
+        }
+      }
+    } catch (final BufferUnderflowException ex) {
+      throw new XtepsException("Journal segment " + segment + " is truncated", ex);
+    }
+  }
+
+  /**
+   * Replays journal files into listeners with given class names.
+   *
+   * @param args the journal directory and listener class names
+   */
+  public static void main(final String[] args) {
+    if (args.length < 2) {
+      System.out.println("Usage: JournalReplay {journal dir} {listener class name}...");
+      return;
+    }
+    final Path dir = Paths.get(args[0]);
+    for (int idx = 1; idx < args.length; ++idx) {
+      final StepListener listener;
+      try {
+        listener = (StepListener) Class.forName(args[idx]).getConstructor().newInstance();
+      } catch (final Exception ex) {
+        throw new XtepsException("Cannot instantiate StepListener " + args[idx], ex);
+      }
+      final long eventsCount = new JournalReplay(dir, Runtime.getRuntime().availableProcessors()).replay(listener);
+      System.out.println("Replayed " + eventsCount + " events to " + args[idx]);
+    }
+  }
+
+  private static final class ReplayState {
+    private int depth = 0;
+    private long eventsCount = 0L;
+    private RecordedException lastException = null;
+  }
+
+  /**
+   * Exception recorded in the journal. Contains the origin exception class name and message.
+   */
+  public static final class RecordedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final String exceptionClassName;
+
+    /**
+     * Ctor.
+     *
+     * @param exceptionClassName the origin exception class name
+     * @param message            the origin exception message
+     */
+    public RecordedException(final String exceptionClassName,
+                             final String message) {
+      super(message, null, false, false);
+      this.exceptionClassName = exceptionClassName;
+    }
+
+    /**
+     * Returns the origin exception class name.
+     *
+     * @return the origin exception class name
+     */
+    public String exceptionClassName() {
+      return this.exceptionClassName;
+    }
+
+    @Override
+    public String toString() {
+      final String message = this.getLocalizedMessage();
+      return message == null ? this.exceptionClassName : this.exceptionClassName + ": " + message;
+    }
+  }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.journal;
+
+import com.plugatar.xteps2.XtepsBase;
+import com.plugatar.xteps2.core.StepListener;
+import com.plugatar.xteps2.core.XtepsException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link StepListener} implementation that appends compact binary step events to the memory-mapped journal files.
+ * <p>
+ * Each thread writes its own segment files, so writes don't need any synchronization. Segment files are
+ * memory-mapped and written pages are owned by the operating system, so the journal survives the test JVM crash.
+ * See {@link JournalFormat} for the binary format details and {@link JournalReplay} to replay journal files into
+ * other listeners.
+ * <p>
+ * Each segment is flushed to the storage device when the next segment of the thread is created, on JVM shutdown or on
+ * {@link #close()} call. Segments of finished threads are released when a new thread starts writing, segments of all
+ * threads are released after {@link #close()} call, events reported after it are ignored.
+ * <p>
+ * Properties:
+ * <ul>
+ * <li>{@code xteps.journal.dir} - journal directory, default {@code xteps2-journal}</li>
+ * <li>{@code xteps.journal.segmentSize} - segment file size in bytes, default 16 MiB</li>
+ * <li>{@code xteps.journal.maxStringLength} - max length of strings, longer strings are truncated, default 1024</li>
+ * </ul>
+ */
+public class XtepsJournal implements StepListener, AutoCloseable {
+  private static final int MAX_PARAMS_COUNT = 64;
+  private static final String[] NO_PARAMS = new String[0];
+  private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+  private static final int MAX_HEADER_SIZE = 4096;
+  private final Path dir;
+  private final int segmentSize;
+  private final int maxStringLength;
+  private final String runId;
+  private final ThreadLocal<SegmentWriter> writer;
+  private final Set<SegmentWriter> writers;
+  private final Thread shutdownHook;
+  private volatile boolean closed;
+
+  /**
+   * Zero-argument public ctor.
+   *
+   * @throws XtepsException if properties are incorrect
+   */
+  public XtepsJournal() {
+    this(
+      Paths.get(property("xteps.journal.dir", "xteps2-journal")),
+      intProperty("xteps.journal.segmentSize", 16 * 1024 * 1024),
+      intProperty("xteps.journal.maxStringLength", 1024)
+    );
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param dir             the journal directory
+   * @param segmentSize     the segment file size in bytes
+   * @param maxStringLength the max length of strings, longer strings are truncated
+   * @throws XtepsException if {@code dir} arg is null
+   *                        or if {@code maxStringLength} arg is not positive
+   *                        or if {@code segmentSize} arg is too small for given {@code maxStringLength}
+   */
+  public XtepsJournal(final Path dir,
+                      final int segmentSize,
+                      final int maxStringLength) {
+    if (dir == null) { throw new XtepsException("dir arg is null"); }
+    if (maxStringLength <= 0) { throw new XtepsException("maxStringLength arg is not positive"); }
+    if ((long) segmentSize < MAX_HEADER_SIZE + maxStepStartedSize(maxStringLength)) {
+      throw new XtepsException("segmentSize arg is too small, min value is "
+        + (MAX_HEADER_SIZE + maxStepStartedSize(maxStringLength)));
+    }
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    this.maxStringLength = maxStringLength;
+    this.runId = Long.toHexString(System.currentTimeMillis()) + "-"
+      + Integer.toHexString(ThreadLocalRandom.current().nextInt() & Integer.MAX_VALUE);
+    this.writers = ConcurrentHashMap.newKeySet();
+    this.writer = ThreadLocal.withInitial(() -> {
+      this.releaseFinishedThreadWriters();
+      final SegmentWriter newWriter = new SegmentWriter(this);
+      this.writers.add(newWriter);
+      return newWriter;
+    });
+    this.closed = false;
+    this.shutdownHook = new Thread(this::force);
+    Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+  }
+
+  /**
+   * Returns journal directory.
+   *
+   * @return journal directory
+   */
+  public final Path dir() {
+    return this.dir;
+  }
+
+  /**
+   * Flushes segments of all threads to the storage device and releases them. Events reported after this call are
+   * ignored.
+   */
+  @Override
+  public final void close() {
+    this.closed = true;
+    try {
+      Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+    } catch (final IllegalStateException ignored) {
+      /* JVM shutdown is in progress, the hook flushes segments */
+    }
+    this.force();
+    this.writers.clear();
+    this.writer.remove();
+  }
+
+  @Override
+  public final void stepStarted(final Map<String, ?> artifacts) {
+    final SegmentWriter currentWriter = this.currentWriter();
+    if (currentWriter == null) {
+      return;
+    }
+    final Map<String, Object> params = Utils.getParams(artifacts);
+    final String[] paramsArray = params.isEmpty()
+      ? NO_PARAMS
+      : new String[Math.min(params.size(), MAX_PARAMS_COUNT) * 2];
+    if (paramsArray.length != 0) {
+      int idx = 0;
+      for (final Map.Entry<String, Object> entry : params.entrySet()) {
+        if (idx == paramsArray.length) {
+          break;
+        }
+        paramsArray[idx++] = this.truncated(entry.getKey());
+        paramsArray[idx++] = this.truncated(XtepsBase.textFormatter().format(entry.getValue()));
+      }
+    }
+    currentWriter.stepStarted(
+      this.truncated(Utils.getKeyword(artifacts).toString()),
+      this.truncated(Utils.getName(artifacts)),
+      this.truncated(Utils.getDesc(artifacts)),
+      paramsArray
+    );
+  }
+
+  @Override
+  public final void stepPassed() {
+    final SegmentWriter currentWriter = this.currentWriter();
+    if (currentWriter != null) {
+      currentWriter.stepPassed();
+    }
+  }
+
+  @Override
+  public final void stepFailed(final Throwable exception) {
+    this.stepFailed(JournalFormat.STEP_FAILED, exception);
+  }
+
+  @Override
+  public final void stepFailedByNestedStep(final Throwable exception) {
+    this.stepFailed(JournalFormat.STEP_FAILED_BY_NESTED_STEP, exception);
+  }
+
+  private void stepFailed(final byte type,
+                          final Throwable exception) {
+    final SegmentWriter currentWriter = this.currentWriter();
+    if (currentWriter != null) {
+      final String message = exception.getMessage();
+      currentWriter.stepFailed(type,
+        this.truncated(exception.getClass().getName()), message == null ? null : this.truncated(message));
+    }
+  }
+
+  private SegmentWriter currentWriter() {
+    if (this.closed) {
+      this.writer.remove();
+      return null;
+    }
+    return this.writer.get();
+  }
+
+  private void force() {
+    for (final SegmentWriter segmentWriter : this.writers) {
+      segmentWriter.force();
+    }
+  }
+
+  private void releaseFinishedThreadWriters() {
+    for (final SegmentWriter segmentWriter : this.writers) {
+      if (!segmentWriter.thread.isAlive()) {
+        segmentWriter.force();
+        this.writers.remove(segmentWriter);
+      }
+    }
+  }
+
+  private String truncated(final String value) {
+    return value.length() > this.maxStringLength ? value.substring(0, this.maxStringLength) : value;
+  }
+
+  private static long maxStringSize(final int maxStringLength) {
+    return 1 + 4 + 4 + 3L * maxStringLength;
+  }
+
+  private static long maxStepStartedSize(final int maxStringLength) {
+    return (3 + MAX_PARAMS_COUNT * 2) * maxStringSize(maxStringLength) + 1 + 8 + 4 * 5 + MAX_PARAMS_COUNT * 8;
+  }
+
+  private static String property(final String name,
+                                 final String defaultValue) {
+    final String value = XtepsBase.properties().get(name);
+    return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+  }
+
+  private static int intProperty(final String name,
+                                 final int defaultValue) {
+    final String value = property(name, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (final NumberFormatException ex) {
+      throw new XtepsException("Illegal int property value, property: " + name + ", value: " + value, ex);
+    }
+  }
+
+  /**
+   * Segment writer. Used by one thread only, except {@link #force()} method.
+   */
+  private static final class SegmentWriter {
+    private static final int[] NO_PARAM_IDS = new int[0];
+    private final XtepsJournal journal;
+    private final Thread thread;
+    private final Map<String, Integer> dictionary;
+    private volatile MappedByteBuffer buffer;
+    private int segmentIndex;
+    private long baseNanos;
+    private int depth;
+
+    private SegmentWriter(final XtepsJournal journal) {
+      this.journal = journal;
+      this.thread = Thread.currentThread();
+      this.dictionary = new HashMap<>();
+      this.buffer = null;
+      this.segmentIndex = -1;
+      this.depth = 0;
+    }
+
+    private void stepStarted(final String keyword,
+                             final String name,
+                             final String desc,
+                             final String[] params) {
+      long requiredSize = 1 + 8 + 4 * 5 + params.length * 4L
+        + stringSize(keyword) + stringSize(name) + stringSize(desc);
+      for (final String param : params) {
+        requiredSize += stringSize(param);
+      }
+      final long nanos = this.ensureCapacity(requiredSize);
+      final int keywordId = this.stringId(keyword);
+      final int nameId = this.stringId(name);
+      final int descId = this.stringId(desc);
+      final int[] paramIds = params.length == 0 ? NO_PARAM_IDS : new int[params.length];
+      for (int idx = 0; idx < params.length; ++idx) {
+        paramIds[idx] = this.stringId(params[idx]);
+      }
+      final MappedByteBuffer buf = this.buffer;
+      final int recordPosition = buf.position();
+      buf.position(recordPosition + 1);
+      buf.putLong(nanos);
+      buf.putInt(++this.depth);
+      buf.putInt(keywordId);
+      buf.putInt(nameId);
+      buf.putInt(descId);
+      buf.putInt(paramIds.length / 2);
+      for (final int paramId : paramIds) {
+        buf.putInt(paramId);
+      }
+      buf.put(recordPosition, JournalFormat.STEP_STARTED);
+    }
+
+    private void stepPassed() {
+      final long nanos = this.ensureCapacity(1 + 8 + 4);
+      final MappedByteBuffer buf = this.buffer;
+      final int recordPosition = buf.position();
+      buf.position(recordPosition + 1);
+      buf.putLong(nanos);
+      buf.putInt(this.depth > 0 ? this.depth-- : 0);
+      buf.put(recordPosition, JournalFormat.STEP_PASSED);
+    }
+
+    private void stepFailed(final byte type,
+                            final String exceptionClass,
+                            final String exceptionMessage) {
+      final long nanos = this.ensureCapacity(1 + 8 + 4 * 3 + stringSize(exceptionClass)
+        + (exceptionMessage == null ? 0 : stringSize(exceptionMessage)));
+      final int classId = this.stringId(exceptionClass);
+      final int messageId = exceptionMessage == null ? JournalFormat.NULL_STRING_ID : this.stringId(exceptionMessage);
+      final MappedByteBuffer buf = this.buffer;
+      final int recordPosition = buf.position();
+      buf.position(recordPosition + 1);
+      buf.putLong(nanos);
+      buf.putInt(this.depth > 0 ? this.depth-- : 0);
+      buf.putInt(classId);
+      buf.putInt(messageId);
+      buf.put(recordPosition, type);
+    }
+
+    /**
+     * Flushes the current segment to the storage device.
+     */
+    private void force() {
+      final MappedByteBuffer buf = this.buffer;
+      if (buf != null) {
+        buf.force();
+      }
+    }
+
+    private static long stringSize(final String value) {
+      return 1 + 4 + 4 + 3L * value.length();
+    }
+
+    /**
+     * Makes sure that the record of given max size and all its strings can be written to the current segment.
+     *
+     * @param requiredSize the max size of the record and its strings
+     * @return current time relative to the segment base time
+     */
+    private long ensureCapacity(final long requiredSize) {
+      if (this.buffer == null
+        || this.buffer.remaining() < requiredSize + 1
+        || this.dictionary.size() >= MAX_DICTIONARY_SIZE) {
+        this.newSegment();
+      }
+      return System.nanoTime() - this.baseNanos;
+    }
+
+    private int stringId(final String value) {
+      if (value.isEmpty()) {
+        return JournalFormat.EMPTY_STRING_ID;
+      }
+      final Integer id = this.dictionary.get(value);
+      if (id != null) {
+        return id;
+      }
+      final int newId = this.dictionary.size() + 1;
+      this.dictionary.put(value, newId);
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      final MappedByteBuffer buf = this.buffer;
+      final int recordPosition = buf.position();
+      buf.position(recordPosition + 1);
+      buf.putInt(newId);
+      buf.putInt(bytes.length);
+      buf.put(bytes);
+      buf.put(recordPosition, JournalFormat.STRING);
+      return newId;
+    }
+
+    private void newSegment() {
+      this.force();
+      ++this.segmentIndex;
+      final Path file = this.journal.dir.resolve(
+        this.journal.runId + "-" + this.thread.getId() + "-" + this.segmentIndex + JournalFormat.FILE_EXTENSION
+      );
+      try {
+        Files.createDirectories(this.journal.dir);
+        try (FileChannel channel = FileChannel.open(file,
+          StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+          this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.journal.segmentSize);
+        }
+      } catch (final IOException ex) {
+        throw new XtepsException("Cannot create journal segment file " + file, ex);
+      }
+      this.dictionary.clear();
+      this.baseNanos = System.nanoTime();
+      final byte[] threadName = this.journal.truncated(this.thread.getName()).getBytes(StandardCharsets.UTF_8);
+      final MappedByteBuffer buf = this.buffer;
+      buf.putInt(JournalFormat.MAGIC);
+      buf.putShort(JournalFormat.VERSION);
+      buf.putLong(this.thread.getId());
+      buf.putInt(this.segmentIndex);
+      buf.putLong(System.currentTimeMillis());
+      buf.putLong(this.baseNanos);
+      buf.putInt(Math.min(threadName.length, MAX_HEADER_SIZE - 64));
+      buf.put(threadName, 0, Math.min(threadName.length, MAX_HEADER_SIZE - 64));
+    }
+  }
+}
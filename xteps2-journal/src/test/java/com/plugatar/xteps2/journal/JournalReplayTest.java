@@ -0,0 +1,156 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.journal;
+
+import com.plugatar.xteps2.Artifacts;
+import com.plugatar.xteps2.core.StepListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JournalReplay}.
+ */
+final class JournalReplayTest {
+
+  @Test
+  void replayEmptyDir(@TempDir final Path dir) {
+    assertThat(new JournalReplay(dir, 2).replay(new RecordingListener())).isZero();
+  }
+
+  @Test
+  void replayStepsOfSeveralThreads(@TempDir final Path dir) throws InterruptedException {
+    final XtepsJournal journal = new XtepsJournal(dir, 1024 * 1024, 256);
+    final Runnable steps = () -> {
+      journal.stepStarted(stepArtifacts("step 1"));
+      journal.stepStarted(stepArtifacts("step 2"));
+      journal.stepPassed();
+      journal.stepFailed(new IllegalStateException("test ex"));
+    };
+    final Thread thread1 = new Thread(steps);
+    final Thread thread2 = new Thread(steps);
+    thread1.start();
+    thread2.start();
+    thread1.join();
+    thread2.join();
+    final RecordingListener listener = new RecordingListener();
+
+    assertThat(new JournalReplay(dir, 2).replay(listener)).isEqualTo(8);
+    assertThat(listener.events).hasSize(8);
+    assertThat(Collections.frequency(listener.events, "started step 1")).isEqualTo(2);
+    assertThat(Collections.frequency(listener.events, "passed")).isEqualTo(2);
+    assertThat(Collections.frequency(listener.events, "failed java.lang.IllegalStateException: test ex"))
+      .isEqualTo(2);
+  }
+
+  @Test
+  void replayFailsNotFinishedSteps(@TempDir final Path dir) {
+    final XtepsJournal journal = new XtepsJournal(dir, 1024 * 1024, 256);
+    journal.stepStarted(stepArtifacts("step"));
+    final RecordingListener listener = new RecordingListener();
+
+    assertThat(new JournalReplay(dir, 1).replay(listener)).isEqualTo(2);
+    assertThat(listener.events).hasSize(2);
+    assertThat(listener.events.get(0)).isEqualTo("started step");
+    assertThat(listener.events.get(1)).startsWith("failed");
+  }
+
+  @Test
+  void replayKeepsAbsentExceptionMessage(@TempDir final Path dir) {
+    final XtepsJournal journal = new XtepsJournal(dir, 1024 * 1024, 256);
+    journal.stepStarted(stepArtifacts("step 1"));
+    journal.stepFailed(new IllegalStateException());
+    journal.stepStarted(stepArtifacts("step 2"));
+    journal.stepFailed(new IllegalStateException("null"));
+    final RecordingListener listener = new RecordingListener();
+
+    assertThat(new JournalReplay(dir, 1).replay(listener)).isEqualTo(4);
+    assertThat(listener.events).containsExactly(
+      "started step 1",
+      "failed java.lang.IllegalStateException",
+      "started step 2",
+      "failed java.lang.IllegalStateException: null"
+    );
+  }
+
+  @Test
+  void replayPassesRecordedEventTime(@TempDir final Path dir) throws InterruptedException {
+    final XtepsJournal journal = new XtepsJournal(dir, 1024 * 1024, 256);
+    final Instant recordingStart = Instant.now();
+    journal.stepStarted(stepArtifacts("step"));
+    Thread.sleep(50L);
+    journal.stepPassed();
+    final Instant recordingEnd = Instant.now();
+    Thread.sleep(50L);
+    final List<Instant> eventTimes = Collections.synchronizedList(new ArrayList<>());
+    final StepListener listener = new StepListener() {
+      @Override
+      public void stepStarted(final Map<String, ?> artifacts) {
+        eventTimes.add(JournalReplay.eventTime());
+      }
+
+      @Override
+      public void stepPassed() {
+        eventTimes.add(JournalReplay.eventTime());
+      }
+
+      @Override
+      public void stepFailed(final Throwable exception) {
+        eventTimes.add(JournalReplay.eventTime());
+      }
+    };
+
+    assertThat(new JournalReplay(dir, 1).replay(listener)).isEqualTo(2);
+    assertThat(eventTimes).hasSize(2);
+    assertThat(eventTimes.get(0)).isBetween(recordingStart.minusMillis(1), recordingEnd);
+    assertThat(eventTimes.get(1)).isBetween(eventTimes.get(0).plusMillis(50), recordingEnd.plusMillis(1));
+    assertThat(JournalReplay.eventTime()).isNull();
+  }
+
+  private static Map<String, ?> stepArtifacts(final String name) {
+    final Map<String, Object> artifacts = new HashMap<>();
+    artifacts.put(Artifacts.nameArtifact(), name);
+    return artifacts;
+  }
+
+  private static final class RecordingListener implements StepListener {
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void stepStarted(final Map<String, ?> artifacts) {
+      this.events.add("started " + Utils.getName(artifacts));
+    }
+
+    @Override
+    public void stepPassed() {
+      this.events.add("passed");
+    }
+
+    @Override
+    public void stepFailed(final Throwable exception) {
+      this.events.add("failed " + exception);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.journal;
+
+import com.plugatar.xteps2.Artifacts;
+import com.plugatar.xteps2.core.XtepsException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link XtepsJournal}.
+ */
+final class XtepsJournalTest {
+
+  @Test
+  void ctorThrowsExceptionForTooSmallSegmentSize(@TempDir final Path dir) {
+    assertThatCode(() -> new XtepsJournal(dir, 1024, 1024))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void stepsAreWrittenToSegmentFile(@TempDir final Path dir) throws IOException {
+    final XtepsJournal listener = new XtepsJournal(dir, 1024 * 1024, 256);
+
+    listener.stepStarted(stepArtifacts("step name"));
+    listener.stepStarted(stepArtifacts("step name"));
+    listener.stepPassed();
+    listener.stepFailed(new RuntimeException("test ex"));
+
+    final List<Path> files;
+    try (Stream<Path> stream = Files.list(dir)) {
+      files = stream.collect(Collectors.toList());
+    }
+    assertThat(files).hasSize(1);
+    assertThat(files.get(0).getFileName().toString()).endsWith(JournalFormat.FILE_EXTENSION);
+    final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(files.get(0)));
+    assertThat(buffer.getInt()).isEqualTo(JournalFormat.MAGIC);
+    assertThat(buffer.getShort()).isEqualTo(JournalFormat.VERSION);
+    assertThat(buffer.getLong()).isEqualTo(Thread.currentThread().getId());
+    assertThat(buffer.getInt()).isZero();
+    buffer.position(buffer.position() + 16);
+    buffer.position(buffer.position() + 4 + buffer.getInt(buffer.position()));
+
+    /* "step name" string and the first STEP_STARTED record */
+    assertThat(buffer.get()).isEqualTo(JournalFormat.STRING);
+    assertThat(buffer.getInt()).isEqualTo(1);
+    buffer.position(buffer.position() + 4 + buffer.getInt(buffer.position()));
+    assertThat(buffer.get()).isEqualTo(JournalFormat.STEP_STARTED);
+    buffer.getLong();
+    assertThat(buffer.getInt()).isEqualTo(1);
+    assertThat(buffer.getInt()).isEqualTo(JournalFormat.EMPTY_STRING_ID);
+    assertThat(buffer.getInt()).isEqualTo(1);
+    buffer.position(buffer.position() + 8);
+
+    /* the second STEP_STARTED record reuses the string */
+    assertThat(buffer.get()).isEqualTo(JournalFormat.STEP_STARTED);
+    buffer.getLong();
+    assertThat(buffer.getInt()).isEqualTo(2);
+    buffer.position(buffer.position() + 4);
+    assertThat(buffer.getInt()).isEqualTo(1);
+    buffer.position(buffer.position() + 8);
+
+    assertThat(buffer.get()).isEqualTo(JournalFormat.STEP_PASSED);
+    buffer.position(buffer.position() + 12);
+    assertThat(buffer.get()).isEqualTo(JournalFormat.STRING);
+    buffer.position(buffer.position() + 4);
+    buffer.position(buffer.position() + 4 + buffer.getInt(buffer.position()));
+    assertThat(buffer.get()).isEqualTo(JournalFormat.STRING);
+    buffer.position(buffer.position() + 4);
+    buffer.position(buffer.position() + 4 + buffer.getInt(buffer.position()));
+    assertThat(buffer.get()).isEqualTo(JournalFormat.STEP_FAILED);
+    buffer.position(buffer.position() + 20);
+    assertThat(buffer.get()).isEqualTo(JournalFormat.END);
+  }
+
+  @Test
+  void eventsAfterCloseAreIgnored(@TempDir final Path dir) throws IOException, InterruptedException {
+    final XtepsJournal listener = new XtepsJournal(dir, 1024 * 1024, 256);
+    listener.stepStarted(stepArtifacts("step name"));
+    listener.close();
+    final byte[] closedSegment;
+    try (Stream<Path> stream = Files.list(dir)) {
+      closedSegment = Files.readAllBytes(stream.findFirst().orElseThrow(AssertionError::new));
+    }
+
+    listener.stepPassed();
+    listener.stepFailed(new RuntimeException("test ex"));
+    final Thread thread = new Thread(() -> listener.stepStarted(stepArtifacts("step name")));
+    thread.start();
+    thread.join();
+
+    final List<Path> files;
+    try (Stream<Path> stream = Files.list(dir)) {
+      files = stream.collect(Collectors.toList());
+    }
+    assertThat(files).hasSize(1);
+    assertThat(Files.readAllBytes(files.get(0))).isEqualTo(closedSegment);
+  }
+
+  private static Map<String, ?> stepArtifacts(final String name) {
+    final Map<String, Object> artifacts = new HashMap<>();
+    artifacts.put(Artifacts.nameArtifact(), name);
+    return artifacts;
+  }
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.otel;
+
+import com.plugatar.xteps2.XtepsBase;
+import com.plugatar.xteps2.core.Keyword;
+import com.plugatar.xteps2.core.StepListener;
+import com.plugatar.xteps2.core.TextFormatter;
+import com.plugatar.xteps2.core.XtepsException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link StepListener} implementation that exports steps as OpenTelemetry spans in the OTLP/JSON format.
+ * <p>
+ * Each top-level step starts a new trace, nested steps are child spans. Steps of other threads are not linked to the
+ * current step implicitly, use {@link #context()} to capture the current step span and {@link Context#wrap(Runnable)}
+ * to make it the parent of the steps performed by the wrapped action in another thread. Step keyword, description and params are span attributes, failed steps
+ * have the error status and the {@code exception} event. Spans are exported by batches either to the file (one
+ * {@code ExportTraceServiceRequest} JSON per line) or to the collector OTLP/HTTP endpoint, for example
+ * {@code http://localhost:4318/v1/traces}.
+ * <p>
+ * Use {@link #currentTraceparent()} or {@link #traceparent()} to pass the current step span to the services under
+ * test.
+ * <p>
+ * Properties:
+ * <ul>
+ * <li>{@code xteps.otel.endpoint} - collector OTLP/HTTP traces endpoint</li>
+ * <li>{@code xteps.otel.file} - file for the spans if the endpoint is not specified, default
+ * {@code xteps2-otel/spans.jsonl}</li>
+ * <li>{@code xteps.otel.serviceName} - {@code service.name} resource attribute, default {@code xteps2}</li>
+ * <li>{@code xteps.otel.batchSize} - max spans count in one batch, default 512</li>
+ * <li>{@code xteps.otel.flushInterval} - interval of batches export in milliseconds, default 1000</li>
+ * </ul>
+ */
+public class XtepsOtel implements StepListener {
+  private static volatile XtepsOtel lastInstance = null;
+  private static final int STATUS_CODE_OK = 1;
+  private static final int STATUS_CODE_ERROR = 2;
+  private static final int SPAN_KIND_INTERNAL = 1;
+  private final String serviceName;
+  private final Path file;
+  private final URI endpoint;
+  private final int batchSize;
+  private final long baseEpochNanos;
+  private final long baseNanos;
+  private final Queue<String> spans;
+  private final AtomicInteger spansCount;
+  private final ScheduledExecutorService scheduler;
+  private final Object exportLock;
+  private final ThreadLocal<OpenSpan> currentSpan;
+
+  /**
+   * Zero-argument public ctor.
+   *
+   * @throws XtepsException if properties are incorrect
+   */
+  public XtepsOtel() {
+    this(
+      property("xteps.otel.serviceName", "xteps2"),
+      property("xteps.otel.endpoint", null) == null
+        ? Paths.get(property("xteps.otel.file", "xteps2-otel/spans.jsonl"))
+        : null,
+      property("xteps.otel.endpoint", null) == null
+        ? null
+        : URI.create(property("xteps.otel.endpoint", null)),
+      (int) longProperty("xteps.otel.batchSize", 512L),
+      longProperty("xteps.otel.flushInterval", 1000L)
+    );
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param serviceName   the {@code service.name} resource attribute
+   * @param file          the file for the spans, null if {@code endpoint} is specified
+   * @param endpoint      the collector OTLP/HTTP traces endpoint, null if {@code file} is specified
+   * @param batchSize     the max spans count in one batch
+   * @param flushInterval the interval of batches export in milliseconds, zero or negative value to export batches
+   *                      only when the batch is full, on {@link #flush()} call and on JVM shutdown
+   * @throws XtepsException if {@code serviceName} arg is null
+   *                        or if both {@code file} and {@code endpoint} args are null or not null
+   *                        or if {@code batchSize} arg is not positive
+   */
+  public XtepsOtel(final String serviceName,
+                   final Path file,
+                   final URI endpoint,
+                   final int batchSize,
+                   final long flushInterval) {
+    if (serviceName == null) { throw new XtepsException("serviceName arg is null"); }
+    if ((file == null) == (endpoint == null)) {
+      throw new XtepsException("Exactly one of file and endpoint args should be specified");
+    }
+    if (batchSize <= 0) { throw new XtepsException("batchSize arg is not positive"); }
+    this.serviceName = serviceName;
+    this.file = file;
+    this.endpoint = endpoint;
+    this.batchSize = batchSize;
+    this.baseEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    this.baseNanos = System.nanoTime();
+    this.spans = new ConcurrentLinkedQueue<>();
+    this.spansCount = new AtomicInteger();
+    this.exportLock = new Object();
+    this.currentSpan = new ThreadLocal<>();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "xteps2-otel-export");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (flushInterval > 0) {
+      this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly));
+    lastInstance = this;
+  }
+
+  /**
+   * Returns the W3C {@code traceparent} header value of the current thread step span of the last created
+   * {@code XtepsOtel} instance, for example, the instance created by Xteps via the zero-argument ctor.
+   *
+   * @return the {@code traceparent} header value or null if there is no instance or no current step
+   * @see #currentTraceparent()
+   */
+  public static String traceparent() {
+    final XtepsOtel instance = lastInstance;
+    return instance == null ? null : instance.currentTraceparent();
+  }
+
+  /**
+   * Returns the W3C {@code traceparent} header value of the current thread step span.
+   *
+   * @return the {@code traceparent} header value or null if there is no current step
+   */
+  public final String currentTraceparent() {
+    final OpenSpan span = this.currentSpan.get();
+    return span == null ? null : "00-" + span.traceId + "-" + span.spanId + "-01";
+  }
+
+  /**
+   * Returns the context of the current thread step span.
+   *
+   * @return the context, its span is null if there is no current step
+   */
+  public final Context context() {
+    return new Context(this, this.currentSpan.get());
+  }
+
+  /**
+   * Exports all pending spans.
+   *
+   * @throws XtepsException if spans cannot be exported
+   */
+  public final void flush() {
+    synchronized (this.exportLock) {
+      while (!this.spans.isEmpty()) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+        appendAttribute(sb, "service.name", this.serviceName);
+        sb.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"xteps2\"},\"spans\":[");
+        int count = 0;
+        String span;
+        while (count < this.batchSize && (span = this.spans.poll()) != null) {
+          if (count != 0) {
+            sb.append(',');
+          }
+          sb.append(span);
+          ++count;
+        }
+        this.spansCount.addAndGet(-count);
+        sb.append("]}]}]}");
+        if (count != 0) {
+          this.export(sb.toString());
+        }
+      }
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      this.flush();
+    } catch (final RuntimeException ex) {
+      System.out.println("The Xteps2 framework can not export spans: " + ex);
+    }
+  }
+
+  private void export(final String request) {
+    final byte[] bytes = request.getBytes(StandardCharsets.UTF_8);
+    if (this.file != null) {
+      try {
+        final Path parent = this.file.toAbsolutePath().getParent();
+        if (parent != null) {
+          Files.createDirectories(parent);
+        }
+        Files.write(this.file, (request + "\n").getBytes(StandardCharsets.UTF_8),
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      } catch (final IOException ex) {
+        throw new XtepsException("Cannot write spans to the file " + this.file, ex);
+      }
+    } else {
+      try {
+        final HttpURLConnection connection = (HttpURLConnection) this.endpoint.toURL().openConnection();
+        try {
+          connection.setRequestMethod("POST");
+          connection.setDoOutput(true);
+          connection.setConnectTimeout(5000);
+          connection.setReadTimeout(5000);
+          connection.setRequestProperty("Content-Type", "application/json");
+          connection.setFixedLengthStreamingMode(bytes.length);
+          try (OutputStream out = connection.getOutputStream()) {
+            out.write(bytes);
+          }
+          final int responseCode = connection.getResponseCode();
+          try (InputStream in = responseCode < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+              while (in.read() != -1) {
+                /* drain the response to reuse the connection */
+              }
+            }
+          }
+          if (responseCode < 200 || responseCode > 299) {
+            throw new XtepsException("Collector " + this.endpoint + " responded with code " + responseCode);
+          }
+        } finally {
+          connection.disconnect();
+        }
+      } catch (final IOException ex) {
+        throw new XtepsException("Cannot export spans to the collector " + this.endpoint, ex);
+      }
+    }
+  }
+
+  @Override
+  public final void stepStarted(final Map<String, ?> artifacts) {
+    final OpenSpan parent = this.currentSpan.get();
+    final Keyword keyword = Utils.getKeyword(artifacts);
+    final String name = Utils.getName(artifacts);
+    final String desc = Utils.getDesc(artifacts);
+    final Map<String, Object> params = Utils.getParams(artifacts);
+    final StringBuilder attributes = new StringBuilder();
+    final String keywordName = keyword.toString();
+    if (!keywordName.isEmpty()) {
+      appendAttribute(attributes, "xteps.keyword", keywordName).append(',');
+    }
+    if (!desc.isEmpty()) {
+      appendAttribute(attributes, "xteps.description", desc).append(',');
+    }
+    if (!params.isEmpty()) {
+      final TextFormatter textFormatter = XtepsBase.textFormatter();
+      params.forEach((paramName, paramValue) ->
+        appendAttribute(attributes, "xteps.param." + paramName, textFormatter.format(paramValue)).append(','));
+    }
+    appendAttribute(attributes, "thread.name", Thread.currentThread().getName());
+    this.currentSpan.set(new OpenSpan(
+      parent,
+      Thread.currentThread(),
+      parent == null ? randomHexId(2) : parent.traceId,
+      randomHexId(1),
+      Utils.getNameWithKeyword(name, keyword, "Step"),
+      attributes.toString(),
+      this.epochNanos()
+    ));
+  }
+
+  @Override
+  public final void stepPassed() {
+    this.stepFinished(null);
+  }
+
+  @Override
+  public final void stepFailed(final Throwable exception) {
+    this.stepFinished(exception);
+  }
+
+  private void stepFinished(final Throwable exception) {
+    final long endNanos = this.epochNanos();
+    final OpenSpan span = this.currentSpan.get();
+    if (span == null || span.thread != Thread.currentThread()) {
+      return;
+    }
+    if (span.parent == null) {
+      this.currentSpan.remove();
+    } else {
+      this.currentSpan.set(span.parent);
+    }
+    final StringBuilder sb = new StringBuilder(256 + span.attributes.length());
+    sb.append("{\"traceId\":\"").append(span.traceId)
+      .append("\",\"spanId\":\"").append(span.spanId).append('"');
+    if (span.parent != null) {
+      sb.append(",\"parentSpanId\":\"").append(span.parent.spanId).append('"');
+    }
+    appendString(sb.append(",\"name\":"), span.name);
+    sb.append(",\"kind\":").append(SPAN_KIND_INTERNAL)
+      .append(",\"startTimeUnixNano\":\"").append(span.startNanos)
+      .append("\",\"endTimeUnixNano\":\"").append(endNanos)
+      .append("\",\"attributes\":[").append(span.attributes).append(']');
+    if (exception == null) {
+      sb.append(",\"status\":{\"code\":").append(STATUS_CODE_OK).append('}');
+    } else {
+      final String message = String.valueOf(exception.getMessage());
+      sb.append(",\"events\":[{\"timeUnixNano\":\"").append(endNanos).append("\",\"name\":\"exception\",\"attributes\":[");
+      appendAttribute(sb, "exception.type", exception.getClass().getName()).append(',');
+      appendAttribute(sb, "exception.message", message);
+      sb.append("]}]");
+      appendString(sb.append(",\"status\":{\"code\":").append(STATUS_CODE_ERROR).append(",\"message\":"), message)
+        .append('}');
+    }
+    sb.append('}');
+    this.spans.add(sb.toString());
+    if (this.spansCount.incrementAndGet() >= this.batchSize) {
+      this.scheduler.execute(this::flushQuietly);
+    }
+  }
+
+  private long epochNanos() {
+    return this.baseEpochNanos + (System.nanoTime() - this.baseNanos);
+  }
+
+  private static String randomHexId(final int longsCount) {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final StringBuilder sb = new StringBuilder(longsCount * 16);
+    for (int idx = 0; idx < longsCount; ++idx) {
+      long value;
+      do {
+        value = random.nextLong();
+      } while (value == 0L);
+      final String hex = Long.toHexString(value);
+      for (int pad = hex.length(); pad < 16; ++pad) {
+        sb.append('0');
+      }
+      sb.append(hex);
+    }
+    return sb.toString();
+  }
+
+  private static StringBuilder appendAttribute(final StringBuilder sb,
+                                               final String key,
+                                               final String value) {
+    appendString(sb.append("{\"key\":"), key);
+    return appendString(sb.append(",\"value\":{\"stringValue\":"), value).append("}}");
+  }
+
+  private static StringBuilder appendString(final StringBuilder sb,
+                                            final String value) {
+    sb.append('"');
+    for (int idx = 0; idx < value.length(); ++idx) {
+      final char ch = value.charAt(idx);
+      switch (ch) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (ch < 0x20) {
+            sb.append(String.format("\\u%04x", (int) ch));
+          } else {
+            sb.append(ch);
+          }
+      }
+    }
+    return sb.append('"');
+  }
+
+  private static String property(final String name,
+                                 final String defaultValue) {
+    final String value = XtepsBase.properties().get(name);
+    return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+  }
+
+  private static long longProperty(final String name,
+                                   final long defaultValue) {
+    final String value = property(name, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (final NumberFormatException ex) {
+      throw new XtepsException("Illegal long property value, property: " + name + ", value: " + value, ex);
+    }
+  }
+
+  /**
+   * Captured step span context.
+   */
+  public static final class Context {
+    private final XtepsOtel otel;
+    private final OpenSpan span;
+
+    private Context(final XtepsOtel otel,
+                    final OpenSpan span) {
+      this.otel = otel;
+      this.span = span;
+    }
+
+    /**
+     * Returns given action wrapper that performs the action with the captured span as the parent of its steps and
+     * restores the previous span of the performing thread after the action.
+     *
+     * @param action the action
+     * @return the wrapper
+     * @throws XtepsException if {@code action} arg is null
+     */
+    public Runnable wrap(final Runnable action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return () -> {
+        final ThreadLocal<OpenSpan> currentSpan = this.otel.currentSpan;
+        final OpenSpan previousSpan = currentSpan.get();
+        currentSpan.set(this.span);
+        try {
+          action.run();
+        } finally {
+          if (previousSpan == null) {
+            currentSpan.remove();
+          } else {
+            currentSpan.set(previousSpan);
+          }
+        }
+      };
+    }
+  }
+
+  private static final class OpenSpan {
+    private final OpenSpan parent;
+    private final Thread thread;
+    private final String traceId;
+    private final String spanId;
+    private final String name;
+    private final String attributes;
+    private final long startNanos;
+
+    private OpenSpan(final OpenSpan parent,
+                     final Thread thread,
+                     final String traceId,
+                     final String spanId,
+                     final String name,
+                     final String attributes,
+                     final long startNanos) {
+      this.parent = parent;
+      this.thread = thread;
+      this.traceId = traceId;
+      this.spanId = spanId;
+      this.name = name;
+      this.attributes = attributes;
+      this.startNanos = startNanos;
+    }
+  }
+}
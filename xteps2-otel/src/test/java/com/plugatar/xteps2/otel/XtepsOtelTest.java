@@ -0,0 +1,185 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.otel;
+
+import com.plugatar.xteps2.Artifacts;
+import com.plugatar.xteps2.core.XtepsException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link XtepsOtel}.
+ */
+final class XtepsOtelTest {
+
+  @Test
+  void ctorThrowsExceptionIfFileAndEndpointAreNull() {
+    assertThatCode(() -> new XtepsOtel("service", null, null, 10, 0))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void spansAreWrittenToFile(@TempDir final Path dir) throws IOException {
+    final Path file = dir.resolve("spans.jsonl");
+    final XtepsOtel listener = new XtepsOtel("test-service", file, null, 10, 0);
+
+    listener.stepStarted(stepArtifacts("step 1"));
+    final String parentTraceparent = listener.currentTraceparent();
+    listener.stepStarted(stepArtifacts("step 2"));
+    final String childTraceparent = listener.currentTraceparent();
+    listener.stepPassed();
+    listener.stepFailed(new RuntimeException("test ex"));
+    listener.flush();
+
+    assertThat(listener.currentTraceparent()).isNull();
+    assertThat(parentTraceparent).matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01");
+    assertThat(childTraceparent.substring(0, 35)).isEqualTo(parentTraceparent.substring(0, 35));
+    final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertThat(lines).hasSize(1);
+    assertThat(lines.get(0)).contains(
+      "{\"key\":\"service.name\",\"value\":{\"stringValue\":\"test-service\"}}",
+      "\"name\":\"step 2\"",
+      "\"parentSpanId\":\"" + parentTraceparent.substring(36, 52) + "\"",
+      "\"status\":{\"code\":2,\"message\":\"test ex\"}"
+    );
+  }
+
+  @Test
+  void spansAreExportedToCollector() throws Exception {
+    final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    final AtomicReference<String> contentType = new AtomicReference<>();
+    final HttpServer collector = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    collector.createContext("/v1/traces", exchange -> {
+      contentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+      requests.add(readAll(exchange.getRequestBody()));
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    collector.start();
+    try {
+      final XtepsOtel listener = new XtepsOtel("test-service", null,
+        URI.create("http://localhost:" + collector.getAddress().getPort() + "/v1/traces"), 2, 0);
+
+      for (int idx = 0; idx < 3; ++idx) {
+        listener.stepStarted(stepArtifacts("step " + idx));
+        listener.stepPassed();
+      }
+      listener.flush();
+
+      assertThat(contentType.get()).isEqualTo("application/json");
+      assertThat(String.join("", requests)).contains("\"name\":\"step 0\"", "\"name\":\"step 1\"", "\"name\":\"step 2\"");
+    } finally {
+      collector.stop(0);
+    }
+  }
+
+  @Test
+  void staticTraceparentUsesLastCreatedInstance(@TempDir final Path dir) {
+    new XtepsOtel("test-service", dir.resolve("spans1.jsonl"), null, 10, 0);
+    final XtepsOtel listener = new XtepsOtel("test-service", dir.resolve("spans2.jsonl"), null, 10, 0);
+
+    listener.stepStarted(stepArtifacts("step"));
+    assertThat(XtepsOtel.traceparent()).isEqualTo(listener.currentTraceparent()).isNotNull();
+    listener.stepPassed();
+    assertThat(XtepsOtel.traceparent()).isNull();
+  }
+
+  @Test
+  void threadStartedInsideStepDoesNotInheritSpan(@TempDir final Path dir) throws InterruptedException {
+    final XtepsOtel listener = new XtepsOtel("test-service", dir.resolve("spans.jsonl"), null, 10, 0);
+    final AtomicReference<String> threadTraceparent = new AtomicReference<>();
+
+    listener.stepStarted(stepArtifacts("parent step"));
+    final Thread thread = new Thread(() -> threadTraceparent.set(String.valueOf(listener.currentTraceparent())));
+    thread.start();
+    thread.join();
+    listener.stepPassed();
+
+    assertThat(threadTraceparent.get()).isEqualTo("null");
+  }
+
+  @Test
+  void wrappedActionUsesCapturedSpanAsParent(@TempDir final Path dir) throws Exception {
+    final Path file = dir.resolve("spans.jsonl");
+    final XtepsOtel listener = new XtepsOtel("test-service", file, null, 10, 0);
+    final XtepsOtel otherListener = new XtepsOtel("test-service", dir.resolve("other.jsonl"), null, 10, 0);
+    final AtomicReference<String> childTraceparent = new AtomicReference<>();
+    final AtomicReference<String> afterActionTraceparent = new AtomicReference<>();
+    final AtomicReference<String> otherTraceparent = new AtomicReference<>();
+
+    listener.stepStarted(stepArtifacts("parent step"));
+    final String parentTraceparent = listener.currentTraceparent();
+    final Runnable action = listener.context().wrap(() -> {
+      listener.stepStarted(stepArtifacts("child step"));
+      childTraceparent.set(listener.currentTraceparent());
+      otherTraceparent.set(String.valueOf(otherListener.currentTraceparent()));
+      listener.stepPassed();
+    });
+    final Thread thread = new Thread(() -> {
+      action.run();
+      afterActionTraceparent.set(String.valueOf(listener.currentTraceparent()));
+    });
+    thread.start();
+    thread.join();
+    listener.stepPassed();
+    listener.flush();
+
+    assertThat(childTraceparent.get().substring(0, 35)).isEqualTo(parentTraceparent.substring(0, 35));
+    assertThat(afterActionTraceparent.get()).isEqualTo("null");
+    assertThat(otherTraceparent.get()).isEqualTo("null");
+    assertThat(listener.currentTraceparent()).isNull();
+    assertThat(Files.readAllLines(file, StandardCharsets.UTF_8).get(0)).contains(
+      "\"name\":\"child step\"",
+      "\"parentSpanId\":\"" + parentTraceparent.substring(36, 52) + "\""
+    );
+  }
+
+  private static String readAll(final InputStream in) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+    int count;
+    while ((count = in.read(buffer)) != -1) {
+      out.write(buffer, 0, count);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static Map<String, ?> stepArtifacts(final String name) {
+    final Map<String, Object> artifacts = new HashMap<>();
+    artifacts.put(Artifacts.nameArtifact(), name);
+    return artifacts;
+  }
+}
@@ -62,4 +62,10 @@ public class XtepsQase implements StepListener {
       .addAttachmentsItem(IntegrationUtils.getStacktrace(exception));
     StepStorage.stopStep();
   }
+
+  @Override
+  public final void stepFailedByNestedStep(final Throwable exception) {
+    StepStorage.getCurrentStep().status(ResultCreateStepsInner.StatusEnum.FAILED);
+    StepStorage.stopStep();
+  }
 }
@@ -15,6 +15,7 @@
  */
 package com.plugatar.xteps2.reportportal;
 
+import com.epam.reportportal.listeners.ItemStatus;
 import com.epam.reportportal.service.Launch;
 import com.epam.reportportal.service.step.StepRequestUtils;
 import com.epam.reportportal.utils.ParameterUtils;
@@ -82,4 +83,12 @@ public class XtepsReportPortal implements StepListener {
       launch.getStepReporter().finishNestedStep(exception);
     }
   }
+
+  @Override
+  public final void stepFailedByNestedStep(final Throwable exception) {
+    final Launch launch = Launch.currentLaunch();
+    if (launch != null) {
+      launch.getStepReporter().finishNestedStep(ItemStatus.FAILED);
+    }
+  }
 }
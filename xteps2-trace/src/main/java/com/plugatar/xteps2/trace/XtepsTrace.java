@@ -0,0 +1,375 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.trace;
+
+import com.plugatar.xteps2.XtepsBase;
+import com.plugatar.xteps2.core.Keyword;
+import com.plugatar.xteps2.core.StepListener;
+import com.plugatar.xteps2.core.TextFormatter;
+import com.plugatar.xteps2.core.XtepsException;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StepListener} implementation that writes steps as
+ * <a href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">Trace Event Format</a>
+ * JSON. The file can be opened in Perfetto UI or chrome://tracing.
+ * <p>
+ * Each step is written as a complete event of the current thread when the step is finished, nested steps are nested
+ * events. Step keyword is the event category, step params, description and status are the event args.
+ * Events are written in the JSON Array Format: the file is appended by batches and is readable at any moment, even if
+ * the test JVM crashed. Timestamps are epoch based, so several processes (for example, forked test JVMs) can append
+ * events to the same file, appends are guarded by the file lock.
+ * <p>
+ * Periodic writes of all instances are performed by one shared daemon thread, a failed periodic write is logged and
+ * doesn't stop the next writes. Pending events are written on JVM shutdown or on {@link #close()} call, which also
+ * stops periodic writes of the instance.
+ * <p>
+ * Properties:
+ * <ul>
+ * <li>{@code xteps.trace.file} - trace file, default {@code xteps2-trace/trace-{pid}.json}</li>
+ * <li>{@code xteps.trace.flushInterval} - interval of writes to the file in milliseconds, default 1000</li>
+ * </ul>
+ */
+public class XtepsTrace implements StepListener, AutoCloseable {
+  private final Path file;
+  private final long pid;
+  private final long baseEpochNanos;
+  private final long baseNanos;
+  private final Queue<String> events;
+  private final ThreadLocal<Deque<OpenStep>> openSteps;
+  private final Object flushLock;
+  private final Thread shutdownHook;
+  private final ScheduledFuture<?> flushTask;
+  private volatile boolean scheduledFlushFailed;
+
+  /**
+   * Zero-argument public ctor.
+   *
+   * @throws XtepsException if properties are incorrect
+   */
+  public XtepsTrace() {
+    this(
+      Paths.get(property("xteps.trace.file", "xteps2-trace/trace-" + currentPid() + ".json")),
+      longProperty("xteps.trace.flushInterval", 1000L)
+    );
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param file          the trace file
+   * @param flushInterval the interval of writes to the file in milliseconds, zero or negative value to write events
+   *                      only on {@link #flush()} call and on JVM shutdown
+   * @throws XtepsException if {@code file} arg is null
+   */
+  public XtepsTrace(final Path file,
+                    final long flushInterval) {
+    if (file == null) { throw new XtepsException("file arg is null"); }
+    this.file = file;
+    this.pid = currentPid();
+    this.baseEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    this.baseNanos = System.nanoTime();
+    this.events = new ConcurrentLinkedQueue<>();
+    this.openSteps = ThreadLocal.withInitial(() -> {
+      final Thread thread = Thread.currentThread();
+      this.events.add(metadataEvent("thread_name", thread.getId(), thread.getName()));
+      return new ArrayDeque<>();
+    });
+    this.flushLock = new Object();
+    this.events.add(metadataEvent("process_name", 0L, ManagementFactory.getRuntimeMXBean().getName()));
+    this.scheduledFlushFailed = false;
+    this.shutdownHook = new Thread(this::flush);
+    Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    if (flushInterval > 0) {
+      this.flushTask = FlushScheduler.INSTANCE.scheduleWithFixedDelay(
+        this::scheduledFlush, flushInterval, flushInterval, TimeUnit.MILLISECONDS
+      );
+    } else {
+      this.flushTask = null;
+    }
+  }
+
+  /**
+   * Returns trace file.
+   *
+   * @return trace file
+   */
+  public final Path file() {
+    return this.file;
+  }
+
+  /**
+   * Appends all pending events to the trace file.
+   *
+   * @throws XtepsException if events cannot be written
+   */
+  public final void flush() {
+    synchronized (this.flushLock) {
+      final StringBuilder sb = new StringBuilder();
+      String event;
+      while ((event = this.events.poll()) != null) {
+        sb.append(event).append(",\n");
+      }
+      if (sb.length() == 0) {
+        return;
+      }
+      try {
+        final Path parent = this.file.toAbsolutePath().getParent();
+        if (parent != null) {
+          Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(this.file,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+          final FileLock lock = channel.lock();
+          try {
+            if (channel.size() == 0L) {
+              sb.insert(0, "[\n");
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+              channel.write(buffer);
+            }
+          } finally {
+            lock.release();
+          }
+        }
+      } catch (final IOException ex) {
+        throw new XtepsException("Cannot write trace file " + this.file, ex);
+      }
+    }
+  }
+
+  /**
+   * Stops periodic writes and appends all pending events to the trace file.
+   *
+   * @throws XtepsException if events cannot be written
+   */
+  @Override
+  public final void close() {
+    if (this.flushTask != null) {
+      this.flushTask.cancel(false);
+    }
+    try {
+      Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+    } catch (final IllegalStateException ignored) {
+      /* JVM shutdown is in progress, the hook flushes events */
+    }
+    this.flush();
+  }
+
+  private void scheduledFlush() {
+    try {
+      this.flush();
+      this.scheduledFlushFailed = false;
+    } catch (final Exception ex) {
+      if (!this.scheduledFlushFailed) {
+        this.scheduledFlushFailed = true;
+        System.out.println("The Xteps2 framework cannot write trace file " + this.file + " cause " + ex);
+      }
+    }
+  }
+
+  @Override
+  public final void stepStarted(final Map<String, ?> artifacts) {
+    final Deque<OpenStep> steps = this.openSteps.get();
+    final Keyword keyword = Utils.getKeyword(artifacts);
+    final String name = Utils.getName(artifacts);
+    final String desc = Utils.getDesc(artifacts);
+    final Map<String, Object> params = Utils.getParams(artifacts);
+    final StringBuilder args = new StringBuilder();
+    if (!desc.isEmpty()) {
+      appendString(args.append("\"description\":"), desc).append(',');
+    }
+    if (!params.isEmpty()) {
+      final TextFormatter textFormatter = XtepsBase.textFormatter();
+      params.forEach((paramName, paramValue) ->
+        appendString(appendString(args, paramName).append(':'), textFormatter.format(paramValue)).append(','));
+    }
+    final String keywordName = keyword.toString();
+    steps.push(new OpenStep(
+      Utils.getNameWithKeyword(name, keyword, "Step"),
+      keywordName.isEmpty() ? "step" : keywordName,
+      args.toString(),
+      System.nanoTime()
+    ));
+  }
+
+  @Override
+  public final void stepPassed() {
+    this.stepFinished("passed", null);
+  }
+
+  @Override
+  public final void stepFailed(final Throwable exception) {
+    this.stepFinished("failed", exception);
+  }
+
+  private void stepFinished(final String status,
+                            final Throwable exception) {
+    final long endNanos = System.nanoTime();
+    final OpenStep step = this.openSteps.get().poll();
+    if (step == null) {
+      return;
+    }
+    final StringBuilder sb = new StringBuilder(128 + step.args.length());
+    appendString(sb.append("{\"name\":"), step.name);
+    appendString(sb.append(",\"cat\":"), step.category);
+    sb.append(",\"ph\":\"X\",\"ts\":");
+    appendMicros(sb, this.baseEpochNanos + (step.startNanos - this.baseNanos));
+    sb.append(",\"dur\":");
+    appendMicros(sb, endNanos - step.startNanos);
+    sb.append(",\"pid\":").append(this.pid)
+      .append(",\"tid\":").append(Thread.currentThread().getId())
+      .append(",\"args\":{").append(step.args)
+      .append("\"status\":\"").append(status).append('"');
+    if (exception != null) {
+      appendString(sb.append(",\"exception\":"), exception.toString());
+    }
+    sb.append("}}");
+    this.events.add(sb.toString());
+  }
+
+  private String metadataEvent(final String name,
+                               final long tid,
+                               final String value) {
+    final StringBuilder sb = new StringBuilder(96);
+    sb.append("{\"name\":\"").append(name).append("\",\"ph\":\"M\",\"pid\":").append(this.pid)
+      .append(",\"tid\":").append(tid).append(",\"args\":{\"name\":");
+    return appendString(sb, value).append("}}").toString();
+  }
+
+  private static void appendMicros(final StringBuilder sb,
+                                   final long nanos) {
+    final long absNanos = Math.abs(nanos);
+    if (nanos < 0) {
+      sb.append('-');
+    }
+    sb.append(absNanos / 1000).append('.');
+    final long fraction = absNanos % 1000;
+    if (fraction < 100) {
+      sb.append('0');
+    }
+    if (fraction < 10) {
+      sb.append('0');
+    }
+    sb.append(fraction);
+  }
+
+  private static StringBuilder appendString(final StringBuilder sb,
+                                            final String value) {
+    sb.append('"');
+    for (int idx = 0; idx < value.length(); ++idx) {
+      final char ch = value.charAt(idx);
+      switch (ch) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (ch < 0x20) {
+            sb.append(String.format("\\u%04x", (int) ch));
+          } else {
+            sb.append(ch);
+          }
+      }
+    }
+    return sb.append('"');
+  }
+
+  private static long currentPid() {
+    final String name = ManagementFactory.getRuntimeMXBean().getName();
+    final int atIdx = name.indexOf('@');
+    try {
+      return Long.parseLong(atIdx == -1 ? name : name.substring(0, atIdx));
+    } catch (final NumberFormatException ex) {
+      return name.hashCode() & Integer.MAX_VALUE;
+    }
+  }
+
+  private static String property(final String name,
+                                 final String defaultValue) {
+    final String value = XtepsBase.properties().get(name);
+    return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+  }
+
+  private static long longProperty(final String name,
+                                   final long defaultValue) {
+    final String value = property(name, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (final NumberFormatException ex) {
+      throw new XtepsException("Illegal long property value, property: " + name + ", value: " + value, ex);
+    }
+  }
+
+  private static final class FlushScheduler {
+    private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "xteps2-trace-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static final class OpenStep {
+    private final String name;
+    private final String category;
+    private final String args;
+    private final long startNanos;
+
+    private OpenStep(final String name,
+                     final String category,
+                     final String args,
+                     final long startNanos) {
+      this.name = name;
+      this.category = category;
+      this.args = args;
+      this.startNanos = startNanos;
+    }
+  }
+}
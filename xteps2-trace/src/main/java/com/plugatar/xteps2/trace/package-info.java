@@ -0,0 +1,22 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * Xteps2 Trace Event Format export.
+ *
+ * @see <a href="https://github.com/evpl/xteps2">GitHub repository</a>
+ * @see <a href="https://github.com/evpl/xteps2/blob/master/README.md">README</a>
+ */
+package com.plugatar.xteps2.trace;
\ No newline at end of file
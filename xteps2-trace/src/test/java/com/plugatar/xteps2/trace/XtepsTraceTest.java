@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.trace;
+
+import com.plugatar.xteps2.Artifacts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link XtepsTrace}.
+ */
+final class XtepsTraceTest {
+
+  @Test
+  void stepsAreWrittenAsCompleteEvents(@TempDir final Path dir) throws IOException {
+    final Path file = dir.resolve("trace.json");
+    final XtepsTrace listener = new XtepsTrace(file, 0);
+
+    listener.stepStarted(stepArtifacts("step \"1\"", "step description"));
+    listener.stepStarted(stepArtifacts("step 2", ""));
+    listener.stepPassed();
+    listener.stepFailed(new RuntimeException("test ex"));
+    listener.flush();
+
+    final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertThat(lines).hasSize(5);
+    assertThat(lines.get(0)).isEqualTo("[");
+    assertThat(lines.get(1)).contains("\"name\":\"process_name\"", "\"ph\":\"M\"");
+    assertThat(lines.get(2)).contains("\"name\":\"thread_name\"", "\"ph\":\"M\"");
+    assertThat(lines.get(3)).contains("\"name\":\"step 2\"", "\"ph\":\"X\"", "\"status\":\"passed\"")
+      .endsWith(",");
+    assertThat(lines.get(4)).contains("\"name\":\"step \\\"1\\\"\"", "\"ph\":\"X\"",
+      "\"description\":\"step description\"", "\"status\":\"failed\"",
+      "\"exception\":\"java.lang.RuntimeException: test ex\"");
+  }
+
+  @Test
+  void flushAppendsEvents(@TempDir final Path dir) throws IOException {
+    final Path file = dir.resolve("trace.json");
+    final XtepsTrace listener = new XtepsTrace(file, 0);
+
+    listener.stepStarted(stepArtifacts("step 1", ""));
+    listener.stepPassed();
+    listener.flush();
+    listener.stepStarted(stepArtifacts("step 2", ""));
+    listener.stepPassed();
+    listener.flush();
+
+    final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertThat(lines).hasSize(5);
+    assertThat(lines.get(4)).contains("\"name\":\"step 2\"");
+  }
+
+  @Test
+  void scheduledFlushContinuesAfterFailedWrite(@TempDir final Path dir) throws Exception {
+    final Path file = dir.resolve("trace.json");
+    Files.createDirectory(file);
+    try (XtepsTrace listener = new XtepsTrace(file, 10)) {
+      listener.stepStarted(stepArtifacts("lost step", ""));
+      listener.stepPassed();
+      Thread.sleep(100L);
+      Files.delete(file);
+      listener.stepStarted(stepArtifacts("step", ""));
+      listener.stepPassed();
+
+      final long deadline = System.currentTimeMillis() + 5000L;
+      while (!Files.exists(file) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10L);
+      }
+      assertThat(file).exists();
+    }
+    assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).contains("\"name\":\"step\"");
+  }
+
+  @Test
+  void closeStopsScheduledFlushAndWritesPendingEvents(@TempDir final Path dir) throws Exception {
+    final Path file = dir.resolve("trace.json");
+    final XtepsTrace listener = new XtepsTrace(file, 10);
+    listener.stepStarted(stepArtifacts("step 1", ""));
+    listener.stepPassed();
+
+    listener.close();
+    assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).hasSize(4);
+    listener.stepStarted(stepArtifacts("step 2", ""));
+    listener.stepPassed();
+    Thread.sleep(100L);
+    assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).hasSize(4);
+  }
+
+  private static Map<String, ?> stepArtifacts(final String name,
+                                              final String desc) {
+    final Map<String, Object> artifacts = new HashMap<>();
+    artifacts.put(Artifacts.nameArtifact(), name);
+    artifacts.put(Artifacts.descArtifact(), desc);
+    return artifacts;
+  }
+}
@@ -18,6 +18,9 @@ package com.plugatar.xteps2;
 import com.plugatar.xteps2.core.XtepsException;
 import com.plugatar.xteps2.core.sc.BiCtxSC;
 import com.plugatar.xteps2.core.sc.CtxSC;
+import com.plugatar.xteps2.core.sc.DoubleCtxSC;
+import com.plugatar.xteps2.core.sc.IntCtxSC;
+import com.plugatar.xteps2.core.sc.LongCtxSC;
 import com.plugatar.xteps2.core.sc.NoCtxSC;
 import com.plugatar.xteps2.core.sc.TriCtxSC;
 
@@ -30,6 +33,9 @@ import com.plugatar.xteps2.core.sc.TriCtxSC;
  * <li>{@link #stepContext(Object)}</li>
  * <li>{@link #stepContext(Object, Object)}</li>
  * <li>{@link #stepContext(Object, Object, Object)}</li>
+ * <li>{@link #intStepContext(int)}</li>
+ * <li>{@link #longStepContext(long)}</li>
+ * <li>{@link #doubleStepContext(double)}</li>
  * </ul>
  */
 public final class StepContexts {
@@ -94,4 +100,37 @@ public final class StepContexts {
                                                               final C3 context3) {
     return new TriCtxSC.Of<>(context1, context2, context3);
   }
+
+  /**
+   * Returns single {@code int} context step context.
+   *
+   * @param context the context
+   * @return {@code int} context step context
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static IntCtxSC intStepContext(final int context) {
+    return new IntCtxSC.Of(context);
+  }
+
+  /**
+   * Returns single {@code long} context step context.
+   *
+   * @param context the context
+   * @return {@code long} context step context
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static LongCtxSC longStepContext(final long context) {
+    return new LongCtxSC.Of(context);
+  }
+
+  /**
+   * Returns single {@code double} context step context.
+   *
+   * @param context the context
+   * @return {@code double} context step context
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static DoubleCtxSC doubleStepContext(final double context) {
+    return new DoubleCtxSC.Of(context);
+  }
 }
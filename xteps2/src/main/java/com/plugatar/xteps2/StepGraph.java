@@ -0,0 +1,369 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2;
+
+import com.plugatar.xteps2.core.StepRecording;
+import com.plugatar.xteps2.core.StepReporter;
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.function.ThSupplier;
+import com.plugatar.xteps2.core.step.BiFunctionStep;
+import com.plugatar.xteps2.core.step.FunctionStep;
+import com.plugatar.xteps2.core.step.RunnableStep;
+import com.plugatar.xteps2.core.step.StepObject;
+import com.plugatar.xteps2.core.step.SupplierStep;
+import com.plugatar.xteps2.core.step.TriFunctionStep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Step graph. Steps are declared as nodes of a directed acyclic graph, each node depends on previously declared nodes
+ * and receives their results as contexts. The graph is performed as one step, each node is performed as soon as its
+ * dependencies are performed, independent nodes are performed in parallel.
+ * <p>
+ * Nodes are performed in worker threads, their steps are recorded and reported in the nodes declaration order as
+ * nested steps of the graph step, so the steps tree doesn't depend on the nodes completion order. If the node fails,
+ * nodes that depend on it are not performed. The graph step fails with the first failed node exception, exceptions
+ * of other failed nodes are suppressed by it.
+ * <pre>{@code
+ * final StepGraph graph = new StepGraph();
+ * final StepGraph.Node<Tenant> tenant = graph.node(createTenantStep);
+ * final StepGraph.Node<User> user = graph.node(tenant, createUserStep);
+ * final StepGraph.Node<Catalog> catalog = graph.node(tenant, createCatalogStep);
+ * final StepGraph.Node<Order> order = graph.node(user, catalog, createOrderStep);
+ * graph.run("Prepare test data");
+ * final Order createdOrder = order.result();
+ * }</pre>
+ *
+ * @see StepReporter#record(com.plugatar.xteps2.core.function.ThRunnable)
+ */
+public class StepGraph {
+  private final Executor executor;
+  private final int parallelism;
+  private final List<Node<?>> nodes;
+
+  /**
+   * Ctor. All independent nodes are performed in parallel.
+   */
+  public StepGraph() {
+    this(null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param parallelism the max number of nodes performed concurrently
+   * @throws XtepsException if {@code parallelism} arg is not positive
+   */
+  public StepGraph(final int parallelism) {
+    this(null, parallelism);
+    if (parallelism <= 0) { throw new XtepsException("parallelism arg is not positive"); }
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param executor the executor of nodes
+   * @throws XtepsException if {@code executor} arg is null
+   */
+  public StepGraph(final Executor executor) {
+    this(executor, Integer.MAX_VALUE);
+    if (executor == null) { throw new XtepsException("executor arg is null"); }
+  }
+
+  private StepGraph(final Executor executor,
+                    final int parallelism) {
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.nodes = new ArrayList<>();
+  }
+
+  /**
+   * Adds node without result.
+   *
+   * @param step         the node step
+   * @param dependencies the nodes to perform before this node
+   * @return node
+   * @throws XtepsException if {@code step} arg is null
+   *                        or if {@code dependencies} arg is null
+   *                        or if {@code dependencies} arg contains node of other graph
+   */
+  public final Node<Void> node(final RunnableStep step,
+                               final Node<?>... dependencies) {
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    if (dependencies == null) { throw new XtepsException("dependencies arg is null"); }
+    return this.addNode(step, dependencies, () -> {
+      step.run();
+      return null;
+    });
+  }
+
+  /**
+   * Adds node which results are not passed to the step.
+   *
+   * @param step         the node step
+   * @param dependencies the nodes to perform before this node
+   * @param <R>          the type of the node result
+   * @return node
+   * @throws XtepsException if {@code step} arg is null
+   *                        or if {@code dependencies} arg is null
+   *                        or if {@code dependencies} arg contains node of other graph
+   */
+  public final <R> Node<R> node(final SupplierStep<? extends R> step,
+                                final Node<?>... dependencies) {
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    if (dependencies == null) { throw new XtepsException("dependencies arg is null"); }
+    return this.addNode(step, dependencies, step::get);
+  }
+
+  /**
+   * Adds node with one dependency, the dependency result is the step context.
+   *
+   * @param dependency the dependency
+   * @param step       the node step
+   * @param <C>        the type of the dependency result
+   * @param <R>        the type of the node result
+   * @return node
+   * @throws XtepsException if {@code dependency} arg is null
+   *                        or if {@code step} arg is null
+   *                        or if {@code dependency} arg is node of other graph
+   */
+  public final <C, R> Node<R> node(final Node<? extends C> dependency,
+                                   final FunctionStep<? super C, ? extends R> step) {
+    if (dependency == null) { throw new XtepsException("dependency arg is null"); }
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    return this.addNode(step, new Node<?>[]{dependency}, () -> step.apply(dependency.result));
+  }
+
+  /**
+   * Adds node with two dependencies, the dependencies results are the step contexts.
+   *
+   * @param dependency1 the first dependency
+   * @param dependency2 the second dependency
+   * @param step        the node step
+   * @param <C1>        the type of the first dependency result
+   * @param <C2>        the type of the second dependency result
+   * @param <R>         the type of the node result
+   * @return node
+   * @throws XtepsException if {@code dependency1} arg is null
+   *                        or if {@code dependency2} arg is null
+   *                        or if {@code step} arg is null
+   *                        or if one of dependencies is node of other graph
+   */
+  public final <C1, C2, R> Node<R> node(final Node<? extends C1> dependency1,
+                                        final Node<? extends C2> dependency2,
+                                        final BiFunctionStep<? super C1, ? super C2, ? extends R> step) {
+    if (dependency1 == null) { throw new XtepsException("dependency1 arg is null"); }
+    if (dependency2 == null) { throw new XtepsException("dependency2 arg is null"); }
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    return this.addNode(step, new Node<?>[]{dependency1, dependency2},
+      () -> step.apply(dependency1.result, dependency2.result));
+  }
+
+  /**
+   * Adds node with three dependencies, the dependencies results are the step contexts.
+   *
+   * @param dependency1 the first dependency
+   * @param dependency2 the second dependency
+   * @param dependency3 the third dependency
+   * @param step        the node step
+   * @param <C1>        the type of the first dependency result
+   * @param <C2>        the type of the second dependency result
+   * @param <C3>        the type of the third dependency result
+   * @param <R>         the type of the node result
+   * @return node
+   * @throws XtepsException if {@code dependency1} arg is null
+   *                        or if {@code dependency2} arg is null
+   *                        or if {@code dependency3} arg is null
+   *                        or if {@code step} arg is null
+   *                        or if one of dependencies is node of other graph
+   */
+  public final <C1, C2, C3, R> Node<R> node(final Node<? extends C1> dependency1,
+                                            final Node<? extends C2> dependency2,
+                                            final Node<? extends C3> dependency3,
+                                            final TriFunctionStep<? super C1, ? super C2, ? super C3, ? extends R> step) {
+    if (dependency1 == null) { throw new XtepsException("dependency1 arg is null"); }
+    if (dependency2 == null) { throw new XtepsException("dependency2 arg is null"); }
+    if (dependency3 == null) { throw new XtepsException("dependency3 arg is null"); }
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    return this.addNode(step, new Node<?>[]{dependency1, dependency2, dependency3},
+      () -> step.apply(dependency1.result, dependency2.result, dependency3.result));
+  }
+
+  private <R> Node<R> addNode(final StepObject step,
+                              final Node<?>[] dependencies,
+                              final ThSupplier<? extends R, ?> action) {
+    for (final Node<?> dependency : dependencies) {
+      if (dependency == null) { throw new XtepsException("dependencies arg contains null"); }
+      if (dependency.graph != this) { throw new XtepsException("dependencies arg contains node of other graph"); }
+    }
+    final Node<R> node = new Node<>(this, this.nodes.size(), step, dependencies, action);
+    this.nodes.add(node);
+    return node;
+  }
+
+  /**
+   * Performs the graph as the step with given name.
+   *
+   * @param name the step name
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code name} arg is null
+   */
+  public final void run(final String name) {
+    if (name == null) { throw new XtepsException("name arg is null"); }
+    final Map<String, Object> params = new LinkedHashMap<>();
+    params.put("steps", this.nodes.size());
+    new RunnableStep.Of(name, params, this::perform).run();
+  }
+
+  private void perform() throws Throwable {
+    final StepReporter stepReporter = XtepsBase.stepReporter();
+    for (final Node<?> node : this.nodes) {
+      node.reset();
+    }
+    final ExecutorService ownExecutor = this.executor == null ? this.newExecutor() : null;
+    final Executor nodesExecutor = ownExecutor == null ? this.executor : ownExecutor;
+    try {
+      final List<CompletableFuture<StepRecording>> recordings = new ArrayList<>(this.nodes.size());
+      for (final Node<?> node : this.nodes) {
+        final CompletableFuture<?>[] dependencies = new CompletableFuture<?>[node.dependencies.length];
+        for (int idx = 0; idx < dependencies.length; ++idx) {
+          dependencies[idx] = recordings.get(node.dependencies[idx].index);
+        }
+        recordings.add(CompletableFuture.allOf(dependencies)
+          .thenApplyAsync(ignored -> node.perform(stepReporter), nodesExecutor));
+      }
+      int notPerformedNodes = 0;
+      Throwable exception = null;
+      for (final CompletableFuture<StepRecording> future : recordings) {
+        final StepRecording recording;
+        try {
+          recording = future.get();
+        } catch (final ExecutionException ex) {
+          throw ex.getCause();
+        }
+        if (recording == null) {
+          ++notPerformedNodes;
+          continue;
+        }
+        recording.replay(stepReporter);
+        final Throwable nodeException = recording.exception();
+        if (nodeException != null) {
+          if (exception == null) {
+            exception = nodeException;
+          } else if (exception != nodeException) {
+            exception.addSuppressed(nodeException);
+          }
+        }
+      }
+      if (notPerformedNodes != 0) {
+        final Map<String, Object> artifacts = new HashMap<>();
+        artifacts.put(Artifacts.nameArtifact(), notPerformedNodes + " steps are not performed");
+        artifacts.put(Artifacts.descArtifact(), "Steps depend on failed steps");
+        stepReporter.executeStep(artifacts, () -> null);
+      }
+      if (exception != null) {
+        throw exception;
+      }
+    } finally {
+      if (ownExecutor != null) {
+        ownExecutor.shutdownNow();
+      }
+    }
+  }
+
+  private ExecutorService newExecutor() {
+    return Executors.newFixedThreadPool(Math.max(Math.min(this.parallelism, this.nodes.size()), 1), runnable -> {
+      final Thread thread = new Thread(runnable, "xteps2-step-graph");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Step graph node.
+   *
+   * @param <R> the type of the node result
+   */
+  public static final class Node<R> {
+    private final StepGraph graph;
+    private final int index;
+    private final StepObject step;
+    private final Node<?>[] dependencies;
+    private final ThSupplier<? extends R, ?> action;
+    private volatile boolean performed;
+    private volatile R result;
+
+    private Node(final StepGraph graph,
+                 final int index,
+                 final StepObject step,
+                 final Node<?>[] dependencies,
+                 final ThSupplier<? extends R, ?> action) {
+      this.graph = graph;
+      this.index = index;
+      this.step = step;
+      this.dependencies = dependencies.clone();
+      this.action = action;
+      this.performed = false;
+      this.result = null;
+    }
+
+    /**
+     * Returns the node result.
+     *
+     * @return the node result
+     * @throws XtepsException if the node is not performed successfully
+     */
+    public R result() {
+      if (!this.performed) { throw new XtepsException("Node step " + this.name() + " is not performed"); }
+      return this.result;
+    }
+
+    /**
+     * Returns the node step name.
+     *
+     * @return the node step name
+     */
+    public String name() {
+      return String.valueOf(this.step.artifact(Artifacts.nameArtifact()).orElse(""));
+    }
+
+    private void reset() {
+      this.performed = false;
+      this.result = null;
+    }
+
+    private StepRecording perform(final StepReporter stepReporter) {
+      for (final Node<?> dependency : this.dependencies) {
+        if (!dependency.performed) {
+          return null;
+        }
+      }
+      final StepRecording recording = stepReporter.record(() -> this.result = this.action.get());
+      this.performed = recording.exception() == null;
+      return recording;
+    }
+  }
+}
@@ -15,8 +15,17 @@
  */
 package com.plugatar.xteps2;
 
+import com.plugatar.xteps2.core.Backoff;
+import com.plugatar.xteps2.core.Bulkheads;
 import com.plugatar.xteps2.core.Keyword;
+import com.plugatar.xteps2.core.SharedStepError;
+import com.plugatar.xteps2.core.SingleFlight;
+import com.plugatar.xteps2.core.StepCache;
 import com.plugatar.xteps2.core.StepNotImplementedError;
+import com.plugatar.xteps2.core.StepRecording;
+import com.plugatar.xteps2.core.StepReporter;
+import com.plugatar.xteps2.core.StepTimeoutError;
+import com.plugatar.xteps2.core.StepWatchdog;
 import com.plugatar.xteps2.core.XtepsException;
 import com.plugatar.xteps2.core.function.ThRunnable;
 import com.plugatar.xteps2.core.function.ThSupplier;
@@ -25,11 +34,23 @@ import com.plugatar.xteps2.core.step.BiFunctionStep;
 import com.plugatar.xteps2.core.step.ConsumerStep;
 import com.plugatar.xteps2.core.step.FunctionStep;
 import com.plugatar.xteps2.core.step.RunnableStep;
+import com.plugatar.xteps2.core.step.StepObject;
 import com.plugatar.xteps2.core.step.SupplierStep;
 import com.plugatar.xteps2.core.step.TriConsumerStep;
 import com.plugatar.xteps2.core.step.TriFunctionStep;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class. Contains methods for immediately performing steps.
@@ -89,6 +110,41 @@ import java.util.Map;
  * <li>{@link #step(Keyword, String, Map, String)}</li>
  * <li>{@link #step(Map)}</li>
  * </ul>
+ * Timeout step methods:
+ * <ul>
+ * <li>{@link #step(String, Duration, ThRunnable)}</li>
+ * <li>{@link #step(String, Duration, ThSupplier)}</li>
+ * </ul>
+ * Cached step methods:
+ * <ul>
+ * <li>{@link #cached(String, Duration, SupplierStep)}</li>
+ * </ul>
+ * Shared step methods:
+ * <ul>
+ * <li>{@link #shared(String, SupplierStep)}</li>
+ * </ul>
+ * Limited step methods:
+ * <ul>
+ * <li>{@link #limited(String, int, RunnableStep)}</li>
+ * <li>{@link #limited(String, int, SupplierStep)}</li>
+ * </ul>
+ * Data-driven step methods:
+ * <ul>
+ * <li>{@link #forEach(String, Iterable, FunctionStep)}</li>
+ * <li>{@link #forEach(String, Iterable, int, boolean, FunctionStep)}</li>
+ * </ul>
+ * Retry step methods:
+ * <ul>
+ * <li>{@link #retry(String, Duration, ThRunnable)}</li>
+ * <li>{@link #retry(String, Duration, Backoff, ThRunnable)}</li>
+ * <li>{@link #retry(String, Duration, ThSupplier)}</li>
+ * <li>{@link #retry(String, Duration, Backoff, ThSupplier)}</li>
+ * </ul>
+ * Await step methods:
+ * <ul>
+ * <li>{@link #await(String, Duration, ThSupplier)}</li>
+ * <li>{@link #await(String, Duration, Backoff, ThSupplier)}</li>
+ * </ul>
  * StepObject step methods:
  * <ul>
  * <li>{@link #step(RunnableStep)}</li>
@@ -102,6 +158,9 @@ import java.util.Map;
  * </ul>
  */
 public final class Steps {
+  private static final Backoff DEFAULT_BACKOFF = new Backoff.Jittered(
+    new Backoff.Exponential(Duration.ofMillis(50L), 2.0, Duration.ofSeconds(1L))
+  );
 
   /**
    * Utility class ctor.
@@ -855,6 +914,644 @@ public final class Steps {
 
   //endregion
 
+  //region Timeout step methods
+
+  /**
+   * Performs given action as a step with given timeout. The deadline is monitored by {@link StepWatchdog}, if the
+   * action is not completed in time, the step thread is interrupted and the step fails with {@link StepTimeoutError}
+   * that contains the stack snapshot of the thread at the deadline.
+   *
+   * @param name    the step name
+   * @param timeout the timeout
+   * @param action  the step action
+   * @throws XtepsException   if Xteps configuration is incorrect
+   *                          or if {@code name} arg is null
+   *                          or if {@code timeout} arg is null
+   *                          or if {@code action} arg is null
+   *                          or if {@code timeout} arg is not positive
+   * @throws StepTimeoutError if the action is not completed in time
+   */
+  public static void step(final String name,
+                          final Duration timeout,
+                          final ThRunnable<?> action) {
+    if (action == null) { throw new XtepsException("action arg is null"); }
+    step(name, timeout, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Performs given action as a step with given timeout. The deadline is monitored by {@link StepWatchdog}, if the
+   * action is not completed in time, the step thread is interrupted and the step fails with {@link StepTimeoutError}
+   * that contains the stack snapshot of the thread at the deadline.
+   *
+   * @param name    the step name
+   * @param timeout the timeout
+   * @param action  the step action
+   * @param <R>     the type of the step result
+   * @return step result
+   * @throws XtepsException   if Xteps configuration is incorrect
+   *                          or if {@code name} arg is null
+   *                          or if {@code timeout} arg is null
+   *                          or if {@code action} arg is null
+   *                          or if {@code timeout} arg is not positive
+   * @throws StepTimeoutError if the action is not completed in time
+   */
+  public static <R> R step(final String name,
+                           final Duration timeout,
+                           final ThSupplier<? extends R, ?> action) {
+    if (name == null) { throw new XtepsException("name arg is null"); }
+    if (timeout == null) { throw new XtepsException("timeout arg is null"); }
+    if (action == null) { throw new XtepsException("action arg is null"); }
+    if (timeout.isNegative() || timeout.isZero()) { throw new XtepsException("timeout arg is not positive"); }
+    final Map<String, Object> params = new LinkedHashMap<>();
+    params.put("timeout", timeout);
+    return new SupplierStep.Of<R>(name, params, () -> {
+      final StepWatchdog.Deadline deadline = XtepsBase.stepWatchdog().watch(Thread.currentThread(), timeout);
+      final R result;
+      try {
+        result = action.get();
+      } catch (final Throwable ex) {
+        final StepTimeoutError error = deadline.cancel();
+        if (error != null) {
+          error.initCause(ex);
+          throw error;
+        }
+        throw ex;
+      }
+      final StepTimeoutError error = deadline.cancel();
+      if (error != null) {
+        throw error;
+      }
+      return result;
+    }).get();
+  }
+
+  //endregion
+
+  //region Cached step methods
+
+  /**
+   * Performs given step and puts its result to {@link StepCache} by given key. If the cache contains not expired
+   * result, the step is not performed, instead a cached step with the same keyword and name and with the cache key
+   * and the result age params is reported.
+   *
+   * @param key  the cache key
+   * @param ttl  the time to live of the result, zero means the result doesn't expire
+   * @param step the step
+   * @param <R>  the type of the step result
+   * @return step result or cached result
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code key} arg is null
+   *                        or if {@code ttl} arg is null
+   *                        or if {@code step} arg is null
+   *                        or if {@code ttl} arg is negative
+   */
+  @SuppressWarnings("unchecked")
+  public static <R> R cached(final String key,
+                             final Duration ttl,
+                             final SupplierStep<? extends R> step) {
+    if (key == null) { throw new XtepsException("key arg is null"); }
+    if (ttl == null) { throw new XtepsException("ttl arg is null"); }
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    if (ttl.isNegative()) { throw new XtepsException("ttl arg is negative"); }
+    final StepCache cache = XtepsBase.stepCache();
+    final StepCache.Entry entry = cache.get(key);
+    if (entry != null) {
+      final Map<String, Object> artifacts = new HashMap<>();
+      step.artifact(Artifacts.keywordArtifact()).ifPresent(keyword -> artifacts.put(Artifacts.keywordArtifact(), keyword));
+      step.artifact(Artifacts.nameArtifact()).ifPresent(name -> artifacts.put(Artifacts.nameArtifact(), name));
+      step.artifact(Artifacts.replacementsArtifact())
+        .ifPresent(replacements -> artifacts.put(Artifacts.replacementsArtifact(), replacements));
+      artifacts.put(Artifacts.descArtifact(), "Cached");
+      artifacts.put(Artifacts.paramsArtifact(), entry.hitParams());
+      emptyStep(artifacts);
+      return (R) entry.value();
+    }
+    final R result = step.get();
+    cache.put(key, result, ttl);
+    return result;
+  }
+
+  //endregion
+
+  //region Shared step methods
+
+  /**
+   * Performs given step once for all threads that call this method with the same key at the same time. The first
+   * thread performs the step, other threads wait for its result and report a step with the same keyword and name and
+   * with the shared key and the owner thread params. If the step fails, each waiting thread fails with its own
+   * {@link SharedStepError} caused by its own copy of the owner exception.
+   *
+   * @param key  the shared key
+   * @param step the step
+   * @param <R>  the type of the step result
+   * @return step result
+   * @throws XtepsException  if Xteps configuration is incorrect
+   *                         or if {@code key} arg is null
+   *                         or if {@code step} arg is null
+   * @throws SharedStepError if the step failed in the owner thread
+   * @see SingleFlight
+   */
+  @SuppressWarnings("unchecked")
+  public static <R> R shared(final String key,
+                             final SupplierStep<? extends R> step) {
+    if (key == null) { throw new XtepsException("key arg is null"); }
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    final SingleFlight.Flight flight = XtepsBase.singleFlight().join(key);
+    if (flight.isOwner()) {
+      final R result;
+      try {
+        result = step.get();
+      } catch (final Throwable ex) {
+        flight.fail(ex);
+        throw ex;
+      }
+      flight.complete(result);
+      return result;
+    }
+    final Map<String, Object> artifacts = new HashMap<>();
+    step.artifact(Artifacts.keywordArtifact()).ifPresent(keyword -> artifacts.put(Artifacts.keywordArtifact(), keyword));
+    step.artifact(Artifacts.nameArtifact()).ifPresent(name -> artifacts.put(Artifacts.nameArtifact(), name));
+    step.artifact(Artifacts.replacementsArtifact())
+      .ifPresent(replacements -> artifacts.put(Artifacts.replacementsArtifact(), replacements));
+    artifacts.put(Artifacts.descArtifact(), "Shared");
+    final Map<String, Object> params = new LinkedHashMap<>();
+    params.put("shared key", key);
+    params.put("owner thread", flight.owner().getName());
+    artifacts.put(Artifacts.paramsArtifact(), params);
+    return new SupplierStep.Of<R>(artifacts, () -> (R) flight.await()).get();
+  }
+
+  //endregion
+
+  //region Limited step methods
+
+  /**
+   * Performs given step when the number of steps concurrently using given resource is less than
+   * {@code maxConcurrent}. Waiting steps acquire the resource in the arrival order. The step is reported with
+   * the resource and the queue time params.
+   *
+   * @param resource      the resource
+   * @param maxConcurrent the max number of concurrent resource usages
+   * @param step          the step
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code resource} arg is null
+   *                        or if {@code step} arg is null
+   *                        or if {@code maxConcurrent} arg is not positive
+   *                        or if the resource limit differs from {@code maxConcurrent} arg
+   *                        or if the current thread was interrupted while waiting for the resource
+   * @see Bulkheads
+   */
+  public static void limited(final String resource,
+                             final int maxConcurrent,
+                             final RunnableStep step) {
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    final Bulkheads.Permit permit = XtepsBase.bulkheads().acquire(resource, maxConcurrent);
+    try {
+      step.withArtifact(Artifacts.paramsArtifact(), stepParams(step, permit.params())).run();
+    } finally {
+      permit.release();
+    }
+  }
+
+  /**
+   * Performs given step when the number of steps concurrently using given resource is less than
+   * {@code maxConcurrent}. Waiting steps acquire the resource in the arrival order. The step is reported with
+   * the resource and the queue time params.
+   *
+   * @param resource      the resource
+   * @param maxConcurrent the max number of concurrent resource usages
+   * @param step          the step
+   * @param <R>           the type of the step result
+   * @return step result
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code resource} arg is null
+   *                        or if {@code step} arg is null
+   *                        or if {@code maxConcurrent} arg is not positive
+   *                        or if the resource limit differs from {@code maxConcurrent} arg
+   *                        or if the current thread was interrupted while waiting for the resource
+   * @see Bulkheads
+   */
+  public static <R> R limited(final String resource,
+                              final int maxConcurrent,
+                              final SupplierStep<? extends R> step) {
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    final Bulkheads.Permit permit = XtepsBase.bulkheads().acquire(resource, maxConcurrent);
+    try {
+      return step.withArtifact(Artifacts.paramsArtifact(), stepParams(step, permit.params())).get();
+    } finally {
+      permit.release();
+    }
+  }
+
+  private static Map<String, Object> stepParams(final StepObject step,
+                                                final Map<String, ?> additionalParams) {
+    final Map<String, Object> params = new LinkedHashMap<>();
+    final Object stepParams = step.artifact(Artifacts.paramsArtifact()).orElse(null);
+    if (stepParams instanceof Map) {
+      ((Map<?, ?>) stepParams).forEach((name, value) -> params.put(String.valueOf(name), value));
+    }
+    params.putAll(additionalParams);
+    return params;
+  }
+
+  //endregion
+
+  //region Data-driven step methods
+
+  /**
+   * Performs given step for each data row as nested steps of the step with given name. All rows are performed even if
+   * some of them fail, the step fails with the first row exception, exceptions of other rows are suppressed by it.
+   *
+   * @param name the step name
+   * @param data the data rows
+   * @param step the row step
+   * @param <T>  the type of the data row
+   * @param <R>  the type of the row step result
+   * @return row step results in the data order
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code name} arg is null
+   *                        or if {@code data} arg is null
+   *                        or if {@code step} arg is null
+   */
+  public static <T, R> List<R> forEach(final String name,
+                                       final Iterable<? extends T> data,
+                                       final FunctionStep<? super T, ? extends R> step) {
+    return forEach(name, data, 1, false, step);
+  }
+
+  /**
+   * Performs given step for each data row as nested steps of the step with given name. All rows are performed even if
+   * some of them fail, the step fails with the first row exception, exceptions of other rows are suppressed by it.
+   * <p>
+   * If {@code parallelism} is greater than 1, rows are performed concurrently in worker threads, steps of the rows are
+   * recorded and reported in the data order as nested steps of the step with given name. In compact mode only failed
+   * rows are reported, passed rows are replaced with one summary step.
+   *
+   * @param name        the step name
+   * @param data        the data rows
+   * @param parallelism the max number of rows performed concurrently
+   * @param compact     the compact mode flag
+   * @param step        the row step
+   * @param <T>         the type of the data row
+   * @param <R>         the type of the row step result
+   * @return row step results in the data order
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code name} arg is null
+   *                        or if {@code data} arg is null
+   *                        or if {@code step} arg is null
+   *                        or if {@code parallelism} arg is not positive
+   * @see StepReporter#record(ThRunnable)
+   */
+  public static <T, R> List<R> forEach(final String name,
+                                       final Iterable<? extends T> data,
+                                       final int parallelism,
+                                       final boolean compact,
+                                       final FunctionStep<? super T, ? extends R> step) {
+    if (name == null) { throw new XtepsException("name arg is null"); }
+    if (data == null) { throw new XtepsException("data arg is null"); }
+    if (step == null) { throw new XtepsException("step arg is null"); }
+    if (parallelism <= 0) { throw new XtepsException("parallelism arg is not positive"); }
+    final List<T> rows = new ArrayList<>();
+    data.forEach(rows::add);
+    final Map<String, Object> params = new LinkedHashMap<>();
+    params.put("rows", rows.size());
+    if (parallelism > 1) {
+      params.put("parallelism", parallelism);
+    }
+    return new SupplierStep.Of<List<R>>(name, params, () -> rows(rows, parallelism, compact, step)).get();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T, R> List<R> rows(final List<T> rows,
+                                     final int parallelism,
+                                     final boolean compact,
+                                     final FunctionStep<? super T, ? extends R> step) throws Throwable {
+    final StepReporter stepReporter = XtepsBase.stepReporter();
+    final Object[] results = new Object[rows.size()];
+    final RowsOutcome outcome = new RowsOutcome(stepReporter, compact);
+    if (parallelism == 1 || rows.size() < 2) {
+      for (int idx = 0; idx < rows.size() && !outcome.stopped; ++idx) {
+        final int rowIdx = idx;
+        final FunctionStep<? super T, ? extends R> rowStep = rowStep(step, rowIdx);
+        if (compact) {
+          outcome.add(stepReporter.record(() -> results[rowIdx] = rowStep.apply(rows.get(rowIdx))));
+        } else {
+          try {
+            results[rowIdx] = rowStep.apply(rows.get(rowIdx));
+            outcome.add(StepRecording.empty(null));
+          } catch (final Throwable ex) {
+            outcome.add(StepRecording.empty(ex));
+          }
+        }
+      }
+    } else {
+      final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, rows.size()), runnable -> {
+        final Thread thread = new Thread(runnable, "xteps2-for-each");
+        thread.setDaemon(true);
+        return thread;
+      });
+      try {
+        final List<Future<StepRecording>> recordings = new ArrayList<>(rows.size());
+        for (int idx = 0; idx < rows.size(); ++idx) {
+          final int rowIdx = idx;
+          final FunctionStep<? super T, ? extends R> rowStep = rowStep(step, rowIdx);
+          recordings.add(executor.submit(() ->
+            stepReporter.record(() -> results[rowIdx] = rowStep.apply(rows.get(rowIdx)))
+          ));
+        }
+        for (int idx = 0; idx < recordings.size() && !outcome.stopped; ++idx) {
+          outcome.add(recordings.get(idx).get());
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+    if (compact && outcome.passedRows != 0) {
+      emptyStep(outcome.passedRows + " passed rows are not reported");
+    }
+    if (outcome.exception != null) {
+      throw outcome.exception;
+    }
+    return Arrays.asList((R[]) results);
+  }
+
+  private static <T, R> FunctionStep<T, R> rowStep(final FunctionStep<T, R> step,
+                                                   final int rowIdx) {
+    return step.withArtifact(Artifacts.paramsArtifact(), stepParams(step, Collections.singletonMap("row", rowIdx + 1)));
+  }
+
+  /**
+   * Outcome of the data rows, reports recorded steps of the rows.
+   */
+  private static final class RowsOutcome {
+    private final StepReporter stepReporter;
+    private final boolean compact;
+    private int passedRows;
+    private Throwable exception;
+    private boolean stopped;
+
+    private RowsOutcome(final StepReporter stepReporter,
+                        final boolean compact) {
+      this.stepReporter = stepReporter;
+      this.compact = compact;
+      this.passedRows = 0;
+      this.exception = null;
+      this.stopped = false;
+    }
+
+    private void add(final StepRecording recording) {
+      final Throwable rowException = recording.exception();
+      if (rowException == null) {
+        ++this.passedRows;
+        if (!this.compact) {
+          recording.replay(this.stepReporter);
+        }
+        return;
+      }
+      recording.replay(this.stepReporter);
+      if (this.exception == null) {
+        this.exception = rowException;
+      } else if (this.exception != rowException) {
+        this.exception.addSuppressed(rowException);
+      }
+      this.stopped = rowException instanceof InterruptedException
+        || !(rowException instanceof Exception || rowException instanceof AssertionError);
+    }
+  }
+
+  //endregion
+
+  //region Retry step methods
+
+  /**
+   * Performs given action as a step. The action is repeated with the default jittered exponential backoff until it
+   * completes without exception or the timeout expires. Only steps of the last attempt are reported, attempts
+   * statistics is reported as a nested step.
+   *
+   * @param name    the step name
+   * @param timeout the timeout
+   * @param action  the step action
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code name} arg is null
+   *                        or if {@code timeout} arg is null
+   *                        or if {@code action} arg is null
+   *                        or if {@code timeout} arg is negative
+   */
+  public static void retry(final String name,
+                           final Duration timeout,
+                           final ThRunnable<?> action) {
+    retry(name, timeout, DEFAULT_BACKOFF, action);
+  }
+
+  /**
+   * Performs given action as a step. The action is repeated with given backoff until it completes without exception
+   * or the timeout expires. Only steps of the last attempt are reported, attempts statistics is reported as a nested
+   * step.
+   *
+   * @param name    the step name
+   * @param timeout the timeout
+   * @param backoff the backoff
+   * @param action  the step action
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code name} arg is null
+   *                        or if {@code timeout} arg is null
+   *                        or if {@code backoff} arg is null
+   *                        or if {@code action} arg is null
+   *                        or if {@code timeout} arg is negative
+   */
+  public static void retry(final String name,
+                           final Duration timeout,
+                           final Backoff backoff,
+                           final ThRunnable<?> action) {
+    if (action == null) { throw new XtepsException("action arg is null"); }
+    retry(name, timeout, backoff, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Performs given action as a step. The action is repeated with the default jittered exponential backoff until it
+   * completes without exception or the timeout expires. Only steps of the last attempt are reported, attempts
+   * statistics is reported as a nested step.
+   *
+   * @param name    the step name
+   * @param timeout the timeout
+   * @param action  the step action
+   * @param <R>     the type of the step result
+   * @return step result
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code name} arg is null
+   *                        or if {@code timeout} arg is null
+   *                        or if {@code action} arg is null
+   *                        or if {@code timeout} arg is negative
+   */
+  public static <R> R retry(final String name,
+                            final Duration timeout,
+                            final ThSupplier<? extends R, ?> action) {
+    return retry(name, timeout, DEFAULT_BACKOFF, action);
+  }
+
+  /**
+   * Performs given action as a step. The action is repeated with given backoff until it completes without exception
+   * or the timeout expires. Only steps of the last attempt are reported, attempts statistics is reported as a nested
+   * step.
+   *
+   * @param name    the step name
+   * @param timeout the timeout
+   * @param backoff the backoff
+   * @param action  the step action
+   * @param <R>     the type of the step result
+   * @return step result
+   * @throws XtepsException if Xteps configuration is incorrect
+   *                        or if {@code name} arg is null
+   *                        or if {@code timeout} arg is null
+   *                        or if {@code backoff} arg is null
+   *                        or if {@code action} arg is null
+   *                        or if {@code timeout} arg is negative
+   */
+  public static <R> R retry(final String name,
+                            final Duration timeout,
+                            final Backoff backoff,
+                            final ThSupplier<? extends R, ?> action) {
+    if (action == null) { throw new XtepsException("action arg is null"); }
+    return attemptsStep(name, timeout, backoff, action, false);
+  }
+
+  //endregion
+
+  //region Await step methods
+
+  /**
+   * Performs a step that waits for given condition. The condition is checked with the default jittered exponential
+   * backoff until it returns true or the timeout expires, exceptions of the condition are considered as false
+   * results. Only steps of the last check are reported, attempts statistics is reported as a nested step.
+   *
+   * @param name      the step name
+   * @param timeout   the timeout
+   * @param condition the condition
+   * @throws XtepsException   if Xteps configuration is incorrect
+   *                          or if {@code name} arg is null
+   *                          or if {@code timeout} arg is null
+   *                          or if {@code condition} arg is null
+   *                          or if {@code timeout} arg is negative
+   * @throws StepTimeoutError if the condition is not met in time
+   */
+  public static void await(final String name,
+                           final Duration timeout,
+                           final ThSupplier<Boolean, ?> condition) {
+    await(name, timeout, DEFAULT_BACKOFF, condition);
+  }
+
+  /**
+   * Performs a step that waits for given condition. The condition is checked with given backoff until it returns
+   * true or the timeout expires, exceptions of the condition are considered as false results. Only steps of the last
+   * check are reported, attempts statistics is reported as a nested step.
+   *
+   * @param name      the step name
+   * @param timeout   the timeout
+   * @param backoff   the backoff
+   * @param condition the condition
+   * @throws XtepsException   if Xteps configuration is incorrect
+   *                          or if {@code name} arg is null
+   *                          or if {@code timeout} arg is null
+   *                          or if {@code backoff} arg is null
+   *                          or if {@code condition} arg is null
+   *                          or if {@code timeout} arg is negative
+   * @throws StepTimeoutError if the condition is not met in time
+   */
+  public static void await(final String name,
+                           final Duration timeout,
+                           final Backoff backoff,
+                           final ThSupplier<Boolean, ?> condition) {
+    if (condition == null) { throw new XtepsException("condition arg is null"); }
+    attemptsStep(name, timeout, backoff, condition, true);
+  }
+
+  private static <R> R attemptsStep(final String name,
+                                    final Duration timeout,
+                                    final Backoff backoff,
+                                    final ThSupplier<? extends R, ?> action,
+                                    final boolean condition) {
+    if (name == null) { throw new XtepsException("name arg is null"); }
+    if (timeout == null) { throw new XtepsException("timeout arg is null"); }
+    if (backoff == null) { throw new XtepsException("backoff arg is null"); }
+    if (timeout.isNegative()) { throw new XtepsException("timeout arg is negative"); }
+    final Map<String, Object> params = new LinkedHashMap<>();
+    params.put("timeout", timeout);
+    return new SupplierStep.Of<R>(name, params, () -> attempts(timeout, backoff, action, condition)).get();
+  }
+
+  private static <R> R attempts(final Duration timeout,
+                                final Backoff backoff,
+                                final ThSupplier<? extends R, ?> action,
+                                final boolean condition) throws Throwable {
+    final StepReporter stepReporter = XtepsBase.stepReporter();
+    final long startNanos = System.nanoTime();
+    final long deadlineNanos = startNanos + timeout.toNanos();
+    final Object[] result = new Object[1];
+    int attempts = 0;
+    long waitingNanos = 0L;
+    StepRecording recording;
+    Throwable lastException;
+    while (true) {
+      ++attempts;
+      recording = stepReporter.record(() -> result[0] = action.get());
+      lastException = recording.exception();
+      if (lastException == null) {
+        if (!condition || Boolean.TRUE.equals(result[0])) {
+          recording.replay(stepReporter);
+          reportAttempts(attempts, attempts - 1, startNanos, waitingNanos);
+          @SuppressWarnings("unchecked")
+          final R typedResult = (R) result[0];
+          return typedResult;
+        }
+      } else if (lastException instanceof InterruptedException
+        || !(lastException instanceof Exception || lastException instanceof AssertionError)) {
+        recording.replay(stepReporter);
+        reportAttempts(attempts, attempts, startNanos, waitingNanos);
+        throw lastException;
+      }
+      final long remainingNanos = deadlineNanos - System.nanoTime();
+      if (remainingNanos <= 0L) {
+        break;
+      }
+      final long delayNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(backoff.delayMillis(attempts)), remainingNanos);
+      final long sleepStartNanos = System.nanoTime();
+      try {
+        TimeUnit.NANOSECONDS.sleep(delayNanos);
+      } catch (final InterruptedException ex) {
+        recording.replay(stepReporter);
+        reportAttempts(attempts, attempts, startNanos, waitingNanos + System.nanoTime() - sleepStartNanos);
+        throw ex;
+      }
+      waitingNanos += System.nanoTime() - sleepStartNanos;
+    }
+    recording.replay(stepReporter);
+    reportAttempts(attempts, attempts, startNanos, waitingNanos);
+    if (condition) {
+      throw new StepTimeoutError("Condition is not met within " + timeout + ", attempts: " + attempts, lastException);
+    }
+    throw lastException;
+  }
+
+  private static void reportAttempts(final int attempts,
+                                     final int failedAttempts,
+                                     final long startNanos,
+                                     final long waitingNanos) {
+    final Map<String, Object> params = new LinkedHashMap<>();
+    params.put("attempts", attempts);
+    params.put("failed attempts", failedAttempts);
+    params.put("duration", Duration.ofNanos(System.nanoTime() - startNanos));
+    params.put("waiting time", Duration.ofNanos(waitingNanos));
+    emptyStep("Attempts statistics", params);
+  }
+
+  //endregion
+
   //region StepObject step methods
 
   /**
@@ -15,17 +15,31 @@
  */
 package com.plugatar.xteps2;
 
+import com.plugatar.xteps2.core.Bulkheads;
 import com.plugatar.xteps2.core.ExceptionHandler;
+import com.plugatar.xteps2.core.FilteringStepListener;
+import com.plugatar.xteps2.core.FlightRecorder;
+import com.plugatar.xteps2.core.HangDetector;
+import com.plugatar.xteps2.core.ReportingOverhead;
+import com.plugatar.xteps2.core.SecretMasker;
+import com.plugatar.xteps2.core.SingleFlight;
+import com.plugatar.xteps2.core.StepCache;
 import com.plugatar.xteps2.core.StepListener;
 import com.plugatar.xteps2.core.StepReporter;
+import com.plugatar.xteps2.core.StepWatchdog;
 import com.plugatar.xteps2.core.TextFormatter;
+import com.plugatar.xteps2.core.TypeFormatter;
 import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.sc.ContextHistory;
 
 import java.io.InputStream;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +61,14 @@ import java.util.stream.Collectors;
  * <li>{@link #stepReporter()}</li>
  * <li>{@link #exceptionHandler()}</li>
  * <li>{@link #textFormatter()}</li>
+ * <li>{@link #reportingOverhead()}</li>
+ * <li>{@link #flightRecorder()}</li>
+ * <li>{@link #stepWatchdog()}</li>
+ * <li>{@link #stepCache()}</li>
+ * <li>{@link #singleFlight()}</li>
+ * <li>{@link #bulkheads()}</li>
+ * <li>{@link #contextHistory()}</li>
+ * <li>{@link #stepContextParallelism()}</li>
  * </ul>
  */
 public final class XtepsBase {
@@ -96,6 +118,90 @@ public final class XtepsBase {
     return CONFIG.get().textFormatter;
   }
 
+  /**
+   * Returns {@code ReportingOverhead}.
+   *
+   * @return {@code ReportingOverhead}
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static ReportingOverhead reportingOverhead() {
+    return CONFIG.get().reportingOverhead;
+  }
+
+  /**
+   * Returns {@code FlightRecorder}. If the flight recorder is disabled, it doesn't record any events.
+   *
+   * @return {@code FlightRecorder}
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static FlightRecorder flightRecorder() {
+    return CONFIG.get().flightRecorder;
+  }
+
+  /**
+   * Returns {@code StepWatchdog}.
+   *
+   * @return {@code StepWatchdog}
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static StepWatchdog stepWatchdog() {
+    return CONFIG.get().stepWatchdog;
+  }
+
+  /**
+   * Returns {@code StepCache}.
+   *
+   * @return {@code StepCache}
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static StepCache stepCache() {
+    return CONFIG.get().stepCache;
+  }
+
+  /**
+   * Returns {@code SingleFlight}.
+   *
+   * @return {@code SingleFlight}
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static SingleFlight singleFlight() {
+    return CONFIG.get().singleFlight;
+  }
+
+  /**
+   * Returns {@code Bulkheads}.
+   *
+   * @return {@code Bulkheads}
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static Bulkheads bulkheads() {
+    return CONFIG.get().bulkheads;
+  }
+
+  /**
+   * Returns {@code ContextHistory}.
+   *
+   * @return {@code ContextHistory}
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static ContextHistory contextHistory() {
+    return CONFIG.get().contextHistory;
+  }
+
+  /**
+   * Returns the max number of threads performing parallel actions of one step context call.
+   *
+   * @return the max number of threads
+   * @throws XtepsException if Xteps configuration is incorrect
+   */
+  public static int stepContextParallelism() {
+    return CONFIG.get().stepContextParallelism;
+  }
+
+  private static final List<String> DEFAULT_SECRET_KEYS = Collections.unmodifiableList(Arrays.asList(
+    "password", "passwd", "secret", "token", "accessToken", "access_token", "apiKey", "api_key", "authorization"
+  ));
+
   private static final Supplier<Map<String, String>> PROPERTIES = new Supplier<Map<String, String>>() {
     private volatile Map<String, String> instance = null;
 
@@ -164,17 +270,52 @@ public final class XtepsBase {
 
   private static Config configByProperties() {
     final Map<String, String> properties = PROPERTIES.get();
-    final ExceptionHandler exceptionHandler = booleanProperty(properties, "xteps.exceptionHandler.cleanStackTrace.enabled", true)
+    final ReportingOverhead reportingOverhead;
+    if (booleanProperty(properties, "xteps.reportingOverhead.enabled", false)) {
+      reportingOverhead = new ReportingOverhead.Default();
+      if (booleanProperty(properties, "xteps.reportingOverhead.summary.enabled", true)) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(reportingOverhead.summary())));
+      }
+    } else {
+      reportingOverhead = new ReportingOverhead.Fake();
+    }
+    final ExceptionHandler originExceptionHandler = booleanProperty(properties, "xteps.exceptionHandler.cleanStackTrace.enabled", true)
       ? new ExceptionHandler.CleanStackTrace()
       : new ExceptionHandler.Fake();
-    final StepReporter stepReporter;
-    final TextFormatter textFormatter;
+    final ExceptionHandler exceptionHandler = reportingOverhead.isEnabled()
+      ? new ExceptionHandler.Measured(originExceptionHandler, reportingOverhead)
+      : originExceptionHandler;
+    StepReporter stepReporter;
+    TextFormatter textFormatter;
+    final boolean flightRecorderEnabled = booleanProperty(properties, "xteps.flightRecorder.enabled", false);
+    final FlightRecorder flightRecorder = new FlightRecorder(
+      intProperty(properties, "xteps.flightRecorder.capacity", 256),
+      Paths.get(stringProperty(properties, "xteps.flightRecorder.dir", "xteps2-flight-recorder")),
+      booleanProperty(properties, "xteps.flightRecorder.dumpOnFailure", true)
+    );
+    final boolean hangDetectorEnabled = booleanProperty(properties, "xteps.hangDetector.enabled", false);
+    final SecretMasker secretMasker;
+    if (booleanProperty(properties, "xteps.secretMasker.enabled", true)) {
+      secretMasker = new SecretMasker.Default(
+        stringListProperty(properties, "xteps.secretMasker.keys", ",", DEFAULT_SECRET_KEYS),
+        stringListProperty(properties, "xteps.secretMasker.values", ",", Collections.emptyList()),
+        stringProperty(properties, "xteps.secretMasker.mask", "********"),
+        booleanProperty(properties, "xteps.secretMasker.scanObjects", false)
+      );
+    } else {
+      secretMasker = new SecretMasker.Fake();
+    }
+    /* artifacts are masked once by the outermost reporter */
+    final SecretMasker reporterSecretMasker = flightRecorderEnabled || hangDetectorEnabled
+      ? new SecretMasker.Fake()
+      : secretMasker;
     if (booleanProperty(properties, "xteps.reporter.enabled", true)) {
       final List<StepListener> listeners = new ArrayList<>(
-        listenersByClassNames(stringListProperty(properties, "xteps.listener.list", ",", Collections.emptyList()))
+        instancesByClassNames(StepListener.class,
+          stringListProperty(properties, "xteps.listener.list", ",", Collections.emptyList()))
       );
       if (booleanProperty(properties, "xteps.listener.autodetection", true)) {
-        listeners.addAll(listenersBySPI());
+        listeners.addAll(instancesBySPI(StepListener.class));
       }
       final StepListener[] listenersArray;
       if (listeners.isEmpty()) {
@@ -183,14 +324,55 @@ public final class XtepsBase {
       } else {
         listenersArray = uniqueByClass(listeners).toArray(new StepListener[0]);
       }
-      stepReporter = new StepReporter.Default(exceptionHandler, listenersArray);
+      for (int idx = 0; idx < listenersArray.length; ++idx) {
+        listenersArray[idx] = filteredListener(properties, listenersArray[idx]);
+      }
+      final String bufferingPolicy = stringProperty(properties, "xteps.listener.buffering.policy", "");
+      if (!bufferingPolicy.isEmpty()) {
+        final StepListener.Buffered.FlushPolicy flushPolicy = flushPolicy(bufferingPolicy);
+        final int maxBufferedEvents = intProperty(properties, "xteps.listener.buffering.maxEvents", 100000);
+        for (int idx = 0; idx < listenersArray.length; ++idx) {
+          listenersArray[idx] = new StepListener.Buffered(listenersArray[idx], flushPolicy, maxBufferedEvents);
+        }
+      }
+      if (booleanProperty(properties, "xteps.listener.isolation.enabled", false)) {
+        final long latencyBudget = longProperty(properties, "xteps.listener.isolation.latencyBudget", 1000L);
+        final double maxFailureRate = doubleProperty(properties, "xteps.listener.isolation.maxFailureRate", 0.5);
+        final int windowSize = intProperty(properties, "xteps.listener.isolation.windowSize", 20);
+        final long cooldown = longProperty(properties, "xteps.listener.isolation.cooldown", 30000L);
+        for (int idx = 0; idx < listenersArray.length; ++idx) {
+          if (listenersArray[idx] instanceof FilteringStepListener) {
+            listenersArray[idx] = new StepListener.Isolated.Filtering(
+              (FilteringStepListener) listenersArray[idx], latencyBudget, maxFailureRate, windowSize, cooldown
+            );
+          } else {
+            listenersArray[idx] = new StepListener.Isolated(
+              listenersArray[idx], latencyBudget, maxFailureRate, windowSize, cooldown
+            );
+          }
+        }
+      }
+      final int maxStepsPerTest = intProperty(properties, "xteps.reporter.maxStepsPerTest", 0);
+      stepReporter = new StepReporter.Default(
+        exceptionHandler,
+        reporterSecretMasker,
+        listenersArray,
+        booleanProperty(properties, "xteps.reporter.propagatedFailures.enabled", false),
+        reportingOverhead,
+        booleanProperty(properties, "xteps.reporter.loopFolding.enabled", false),
+        maxStepsPerTest <= 0 ? Integer.MAX_VALUE : maxStepsPerTest
+      );
       if (booleanProperty(properties, "xteps.textFormatter.enabled", true)) {
         textFormatter = new TextFormatter.Default(
-          exceptionHandler,
+          originExceptionHandler,
           patternContainsCapturingGroupsProperty(properties, "xteps.textFormatter.replacementPattern", Pattern.compile("\\{([^}]*)}")),
           booleanProperty(properties, "xteps.textFormatter.field.forceAccess.enabled", true),
-          booleanProperty(properties, "xteps.textFormatter.method.forceAccess.enabled", true)
+          booleanProperty(properties, "xteps.textFormatter.method.forceAccess.enabled", true),
+          typeFormatters(properties)
         );
+        if (reportingOverhead.isEnabled()) {
+          textFormatter = new TextFormatter.Measured(textFormatter, reportingOverhead);
+        }
       } else {
         textFormatter = new TextFormatter.Fake();
       }
@@ -198,7 +380,85 @@ public final class XtepsBase {
       stepReporter = new StepReporter.Fake(exceptionHandler);
       textFormatter = new TextFormatter.Fake();
     }
-    return new Config(stepReporter, exceptionHandler, textFormatter);
+    if (flightRecorderEnabled) {
+      stepReporter = new StepReporter.Recorded(
+        stepReporter, flightRecorder.dumpOnShutdown(), hangDetectorEnabled ? new SecretMasker.Fake() : secretMasker
+      );
+    }
+    if (hangDetectorEnabled) {
+      final HangDetector hangDetector = new HangDetector(
+        Duration.ofMillis(longProperty(properties, "xteps.hangDetector.threshold", 60000L)),
+        Duration.ofMillis(longProperty(properties, "xteps.hangDetector.checkInterval", 1000L)),
+        booleanProperty(properties, "xteps.hangDetector.allThreads", false),
+        Paths.get(stringProperty(properties, "xteps.hangDetector.dir", "xteps2-hang-detector"))
+      );
+      stepReporter = new StepReporter.Recorded(stepReporter, hangDetector.start(), secretMasker);
+    }
+    return new Config(
+      stepReporter, exceptionHandler, textFormatter, reportingOverhead, flightRecorder, new StepWatchdog(flightRecorder),
+      new StepCache(intProperty(properties, "xteps.stepCache.maxSize", 1000)), new SingleFlight(),
+      new Bulkheads(), contextHistory(stringProperty(properties, "xteps.stepContext.history", "unbounded")),
+      stepContextParallelism(intProperty(properties, "xteps.stepContext.parallelism", 8))
+    );
+  }
+
+  private static int stepContextParallelism(final int propertyValue) {
+    if (propertyValue <= 0) {
+      throw new XtepsException("Illegal xteps.stepContext.parallelism property value: " + propertyValue
+        + ", expected positive number");
+    }
+    return propertyValue;
+  }
+
+  private static ContextHistory contextHistory(final String propertyValue) {
+    switch (propertyValue) {
+      case "unbounded":
+        return ContextHistory.unbounded();
+      case "weak":
+        return ContextHistory.weak();
+      default:
+        final int maxAncestors;
+        try {
+          maxAncestors = Integer.parseInt(propertyValue);
+        } catch (final NumberFormatException ex) {
+          throw new XtepsException("Illegal xteps.stepContext.history property value: " + propertyValue
+            + ", allowed values: unbounded, weak or positive number of ancestors", ex);
+        }
+        if (maxAncestors <= 0) {
+          throw new XtepsException("Illegal xteps.stepContext.history property value: " + propertyValue
+            + ", allowed values: unbounded, weak or positive number of ancestors");
+        }
+        return ContextHistory.bounded(maxAncestors);
+    }
+  }
+
+  private static StepListener.Buffered.FlushPolicy flushPolicy(final String propertyValue) {
+    switch (propertyValue) {
+      case "always":
+        return StepListener.Buffered.FlushPolicy.ALWAYS;
+      case "onFailure":
+        return StepListener.Buffered.FlushPolicy.ON_FAILURE;
+      case "summaryOnPass":
+        return StepListener.Buffered.FlushPolicy.SUMMARY_ON_PASS;
+      default:
+        throw new XtepsException("Illegal xteps.listener.buffering.policy property value: " + propertyValue
+          + ", expected values: always, onFailure, summaryOnPass");
+    }
+  }
+
+  private static StepListener filteredListener(final Map<String, String> properties,
+                                               final StepListener listener) {
+    final String prefix = "xteps.listener.filter." + listener.getClass().getTypeName() + ".";
+    final List<String> keywords = stringListProperty(properties, prefix + "keywords", ",", Collections.emptyList());
+    final int maxDepth = intProperty(properties, prefix + "maxDepth", 0);
+    final Pattern namePattern = patternProperty(properties, prefix + "namePattern", null);
+    final List<String> artifacts = stringListProperty(properties, prefix + "artifacts", ",", Collections.emptyList());
+    if (keywords.isEmpty() && maxDepth <= 0 && namePattern == null && artifacts.isEmpty()) {
+      return listener;
+    }
+    return new FilteringStepListener.Of(
+      listener, new HashSet<>(keywords), maxDepth, namePattern, new HashSet<>(artifacts)
+    );
   }
 
   private static boolean booleanProperty(final Map<String, String> properties,
@@ -221,6 +481,71 @@ public final class XtepsBase {
     throw new XtepsException("Illegal boolean property value, property: " + propertyName + ", value: " + propertyValue);
   }
 
+  private static int intProperty(final Map<String, String> properties,
+                                 final String propertyName,
+                                 final int defaultValue) {
+    final String propertyValue = properties.get(propertyName);
+    if (propertyValue == null) {
+      return defaultValue;
+    }
+    final String trimmedPropertyValue = propertyValue.trim();
+    if (trimmedPropertyValue.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(trimmedPropertyValue);
+    } catch (final NumberFormatException ex) {
+      throw new XtepsException("Illegal int property value, property: " + propertyName + ", value: " + propertyValue, ex);
+    }
+  }
+
+  private static long longProperty(final Map<String, String> properties,
+                                   final String propertyName,
+                                   final long defaultValue) {
+    final String propertyValue = properties.get(propertyName);
+    if (propertyValue == null) {
+      return defaultValue;
+    }
+    final String trimmedPropertyValue = propertyValue.trim();
+    if (trimmedPropertyValue.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(trimmedPropertyValue);
+    } catch (final NumberFormatException ex) {
+      throw new XtepsException("Illegal long property value, property: " + propertyName + ", value: " + propertyValue, ex);
+    }
+  }
+
+  private static double doubleProperty(final Map<String, String> properties,
+                                       final String propertyName,
+                                       final double defaultValue) {
+    final String propertyValue = properties.get(propertyName);
+    if (propertyValue == null) {
+      return defaultValue;
+    }
+    final String trimmedPropertyValue = propertyValue.trim();
+    if (trimmedPropertyValue.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Double.parseDouble(trimmedPropertyValue);
+    } catch (final NumberFormatException ex) {
+      throw new XtepsException("Illegal double property value, property: " + propertyName + ", value: " + propertyValue, ex);
+    }
+  }
+
+  private static String stringProperty(final Map<String, String> properties,
+                                       final String propertyName,
+                                       final String defaultValue) {
+    final String propertyValue = properties.get(propertyName);
+    if (propertyValue == null) {
+      return defaultValue;
+    }
+    final String trimmedPropertyValue = propertyValue.trim();
+    return trimmedPropertyValue.isEmpty() ? defaultValue : trimmedPropertyValue;
+  }
+
   private static List<String> stringListProperty(final Map<String, String> properties,
                                                  final String propertyName,
                                                  final String delimiter,
@@ -239,6 +564,24 @@ public final class XtepsBase {
     return stringList;
   }
 
+  private static Pattern patternProperty(final Map<String, String> properties,
+                                         final String propertyName,
+                                         final Pattern defaultValue) {
+    final String propertyValue = properties.get(propertyName);
+    if (propertyValue == null) {
+      return defaultValue;
+    }
+    final String trimmedPropertyValue = propertyValue.trim();
+    if (trimmedPropertyValue.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Pattern.compile(trimmedPropertyValue);
+    } catch (final PatternSyntaxException ex) {
+      throw new XtepsException("Illegal pattern property value, property: " + propertyName + ", value: " + propertyValue, ex);
+    }
+  }
+
   private static Pattern patternContainsCapturingGroupsProperty(final Map<String, String> properties,
                                                                 final String propertyName,
                                                                 final Pattern defaultValue) {
@@ -263,30 +606,44 @@ public final class XtepsBase {
     return defaultValue;
   }
 
-  private static List<StepListener> listenersBySPI() {
-    final List<StepListener> listeners = new ArrayList<>();
+  @SuppressWarnings("unchecked")
+  private static TypeFormatter<?>[] typeFormatters(final Map<String, String> properties) {
+    final Class<TypeFormatter<?>> type = (Class<TypeFormatter<?>>) (Class<?>) TypeFormatter.class;
+    final List<TypeFormatter<?>> typeFormatters = new ArrayList<>(instancesByClassNames(
+      type, stringListProperty(properties, "xteps.textFormatter.typeFormatter.list", ",", Collections.emptyList())
+    ));
+    if (booleanProperty(properties, "xteps.textFormatter.typeFormatter.autodetection", true)) {
+      typeFormatters.addAll(instancesBySPI(type));
+    }
+    typeFormatters.addAll(Arrays.asList(TypeFormatter.builtIn()));
+    return typeFormatters.toArray(new TypeFormatter<?>[0]);
+  }
+
+  private static <T> List<T> instancesBySPI(final Class<T> type) {
+    final List<T> instances = new ArrayList<>();
     try {
-      for (final StepListener listener : ServiceLoader.load(StepListener.class)) {
-        listeners.add(listener);
+      for (final T instance : ServiceLoader.load(type)) {
+        instances.add(instance);
       }
     } catch (final Exception ex) {
-      throw new XtepsException("Cannot instantiate StepListener by SPI cause " + ex, ex);
+      throw new XtepsException("Cannot instantiate " + type.getSimpleName() + " by SPI cause " + ex, ex);
     }
-    return listeners;
+    return instances;
   }
 
-  private static List<StepListener> listenersByClassNames(final List<String> classNames) {
-    final List<StepListener> listeners = new ArrayList<>();
+  private static <T> List<T> instancesByClassNames(final Class<T> type,
+                                                   final List<String> classNames) {
+    final List<T> instances = new ArrayList<>();
     for (final String className : classNames) {
-      final StepListener listener;
+      final T instance;
       try {
-        listener = (StepListener) Class.forName(className).getConstructor().newInstance();
+        instance = type.cast(Class.forName(className).getConstructor().newInstance());
       } catch (final Exception ex) {
-        throw new XtepsException("Cannot instantiate StepListener " + className + " cause " + ex, ex);
+        throw new XtepsException("Cannot instantiate " + type.getSimpleName() + " " + className + " cause " + ex, ex);
       }
-      listeners.add(listener);
+      instances.add(instance);
     }
-    return listeners;
+    return instances;
   }
 
   private static <T> List<T> uniqueByClass(final List<T> listeners) {
@@ -300,13 +657,37 @@ public final class XtepsBase {
     final ExceptionHandler exceptionHandler;
     final StepReporter stepReporter;
     final TextFormatter textFormatter;
+    final ReportingOverhead reportingOverhead;
+    final FlightRecorder flightRecorder;
+    final StepWatchdog stepWatchdog;
+    final StepCache stepCache;
+    final SingleFlight singleFlight;
+    final Bulkheads bulkheads;
+    final ContextHistory contextHistory;
+    final int stepContextParallelism;
 
     private Config(final StepReporter stepReporter,
                    final ExceptionHandler exceptionHandler,
-                   final TextFormatter textFormatter) {
+                   final TextFormatter textFormatter,
+                   final ReportingOverhead reportingOverhead,
+                   final FlightRecorder flightRecorder,
+                   final StepWatchdog stepWatchdog,
+                   final StepCache stepCache,
+                   final SingleFlight singleFlight,
+                   final Bulkheads bulkheads,
+                   final ContextHistory contextHistory,
+                   final int stepContextParallelism) {
       this.stepReporter = stepReporter;
       this.exceptionHandler = exceptionHandler;
       this.textFormatter = textFormatter;
+      this.reportingOverhead = reportingOverhead;
+      this.flightRecorder = flightRecorder;
+      this.stepWatchdog = stepWatchdog;
+      this.stepCache = stepCache;
+      this.singleFlight = singleFlight;
+      this.bulkheads = bulkheads;
+      this.contextHistory = contextHistory;
+      this.stepContextParallelism = stepContextParallelism;
     }
   }
 }
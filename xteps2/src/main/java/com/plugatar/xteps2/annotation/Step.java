@@ -102,6 +102,58 @@ public @interface Step {
    */
   Artifact[] artifacts() default {};
 
+  /**
+   * The step timeout in milliseconds. If the step is not completed in time, the step thread is interrupted and
+   * the step fails with {@link com.plugatar.xteps2.core.StepTimeoutError}. Zero or negative value means no timeout.
+   *
+   * @return step timeout in milliseconds
+   * @see com.plugatar.xteps2.core.StepWatchdog
+   */
+  long timeout() default 0L;
+
+  /**
+   * The cache key of the method step result. If specified, the result is put to
+   * {@link com.plugatar.xteps2.core.StepCache} by the key and the method arguments compared by {@code equals} and
+   * {@code hashCode} (arrays are compared by content), next calls with equal arguments return the cached result and
+   * are reported as cached steps. Only the key is reported, argument values are not. Ignored for constructors and
+   * void methods.
+   * <p>
+   * The cached step is woven with <em>around</em> advice, load-time weaving of such advice on Java 16+ requires
+   * {@code --add-opens java.base/java.lang=ALL-UNNAMED} JVM option.
+   *
+   * @return cache key
+   * @see #cacheTtl()
+   */
+  String cache() default "";
+
+  /**
+   * The time to live of the cached step result in milliseconds, zero means the result doesn't expire.
+   *
+   * @return time to live of the cached step result in milliseconds
+   * @see #cache()
+   */
+  long cacheTtl() default 0L;
+
+  /**
+   * The resource used by the step. If specified, the number of steps concurrently using the resource is limited by
+   * {@link #maxConcurrent()}, the step waits for the resource before it is started and is reported with the resource
+   * and the queue time params.
+   *
+   * @return resource
+   * @see #maxConcurrent()
+   * @see com.plugatar.xteps2.core.Bulkheads
+   */
+  String resource() default "";
+
+  /**
+   * The max number of steps concurrently using the {@link #resource()}. All steps using the same resource should
+   * have the same value.
+   *
+   * @return max number of steps concurrently using the resource
+   * @see #resource()
+   */
+  int maxConcurrent() default 1;
+
   /**
    * Ignore {@link DefaultStep} flag.
    *
@@ -23,8 +23,11 @@ import com.plugatar.xteps2.annotation.DefaultStep;
 import com.plugatar.xteps2.annotation.NotImplemented;
 import com.plugatar.xteps2.annotation.Param;
 import com.plugatar.xteps2.annotation.Step;
+import com.plugatar.xteps2.core.Bulkheads;
 import com.plugatar.xteps2.core.Keyword;
 import com.plugatar.xteps2.core.StepNotImplementedError;
+import com.plugatar.xteps2.core.StepTimeoutError;
+import com.plugatar.xteps2.core.StepWatchdog;
 import com.plugatar.xteps2.core.TextFormatException;
 import com.plugatar.xteps2.core.TextFormatter;
 import com.plugatar.xteps2.core.XtepsException;
@@ -40,6 +43,8 @@ import org.aspectj.lang.reflect.MethodSignature;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -60,6 +65,7 @@ import static com.plugatar.xteps2.XtepsBase.stepReporter;
 public class StepAspects {
   private static final String PARAM_MASK = "********";
   private static final String CTOR_STEP_NAME_PREFIX = "new ";
+  private static final ThreadLocal<Frames> FRAMES = ThreadLocal.withInitial(Frames::new);
 
   /**
    * Pointcut for static method.
@@ -106,6 +112,7 @@ public class StepAspects {
     final Method method = signature.getMethod();
     final Object[] args = joinPoint.getArgs();
     final Step step = method.getAnnotation(Step.class);
+    final Frame frame = Frame.push(step);
     final DefaultStep defaultStep = cls.getAnnotation(DefaultStep.class);
     final Map<String, Object> params = new LinkedHashMap<>();
     final Map<String, Object> replacements = replacements(
@@ -115,6 +122,9 @@ public class StepAspects {
     replacements.putIfAbsent("class", cls);
     replacements.putIfAbsent("method", method);
     replacements.putIfAbsent("args", args);
+    if (frame != null) {
+      frame.start(step, params);
+    }
     stepReporter().startStep(artifactMap(
       step,
       defaultStep,
@@ -124,6 +134,9 @@ public class StepAspects {
       formatter.format(desc(step, defaultStep), replacements),
       replacements
     ));
+    if (frame != null) {
+      frame.started = true;
+    }
     if (method.isAnnotationPresent(NotImplemented.class)) {
       final StepNotImplementedError error = new StepNotImplementedError();
       exceptionHandler().handle(error);
@@ -148,6 +161,7 @@ public class StepAspects {
     final Method method = signature.getMethod();
     final Object[] args = joinPoint.getArgs();
     final Step step = method.getAnnotation(Step.class);
+    final Frame frame = Frame.push(step);
     final DefaultStep defaultStep = cls.getAnnotation(DefaultStep.class);
     final Map<String, Object> params = new LinkedHashMap<>();
     final Map<String, Object> replacements = replacements(
@@ -162,6 +176,9 @@ public class StepAspects {
     replacements.putIfAbsent("method", method);
     replacements.putIfAbsent("args", args);
     replacements.putIfAbsent("this", joinPoint.getThis());
+    if (frame != null) {
+      frame.start(step, params);
+    }
     stepReporter().startStep(artifactMap(
       step,
       defaultStep,
@@ -171,6 +188,9 @@ public class StepAspects {
       formatter.format(desc(step, defaultStep), replacements),
       replacements
     ));
+    if (frame != null) {
+      frame.started = true;
+    }
     if (method.isAnnotationPresent(NotImplemented.class)) {
       final StepNotImplementedError error = new StepNotImplementedError();
       exceptionHandler().handle(error);
@@ -195,6 +215,7 @@ public class StepAspects {
     final Constructor<?> ctor = signature.getConstructor();
     final Object[] args = joinPoint.getArgs();
     final Step step = ctor.getAnnotation(Step.class);
+    final Frame frame = Frame.push(step);
     final DefaultStep defaultStep = cls.getAnnotation(DefaultStep.class);
     final Map<String, Object> params = new LinkedHashMap<>();
     final Map<String, Object> replacements = replacements(
@@ -208,6 +229,9 @@ public class StepAspects {
     replacements.putIfAbsent("class", cls);
     replacements.putIfAbsent("ctor", ctor);
     replacements.putIfAbsent("args", args);
+    if (frame != null) {
+      frame.start(step, params);
+    }
     stepReporter().startStep(artifactMap(
       step,
       defaultStep,
@@ -217,6 +241,9 @@ public class StepAspects {
       formatter.format(desc(step, defaultStep), replacements),
       replacements
     ));
+    if (frame != null) {
+      frame.started = true;
+    }
     if (ctor.isAnnotationPresent(NotImplemented.class)) {
       final StepNotImplementedError error = new StepNotImplementedError();
       exceptionHandler().handle(error);
@@ -227,26 +254,76 @@ public class StepAspects {
   /**
    * <em>AfterReturning</em> advice for any method or constructor annotated with {@link Step} annotation.
    *
-   * @throws XtepsException if Xteps configuration is incorrect
+   * @param step the step annotation
+   * @throws XtepsException   if Xteps configuration is incorrect
+   * @throws StepTimeoutError if the step timeout is expired
    */
-  @AfterReturning(value = "withStepAnnotation() && (staticMethod() || nonStaticMethod() || constructor())")
-  public void stepPassed() {
-    stepReporter().passStep();
+  @AfterReturning(value = "(staticMethod() || nonStaticMethod() || constructor()) && @annotation(step)",
+    argNames = "step")
+  public void stepPassed(final Step step) {
+    if (!Frame.required(step)) {
+      stepReporter().passStep();
+      return;
+    }
+    final Frames frames = FRAMES.get();
+    final Frame frame = frames.pop();
+    if (frame == null) {
+      return;
+    }
+    final StepTimeoutError timeoutError = frame.finish();
+    if (timeoutError == null) {
+      stepReporter().passStep();
+    } else {
+      frames.reportedError = timeoutError;
+      exceptionHandler().handle(timeoutError);
+      stepReporter().failStep(timeoutError);
+      throw timeoutError;
+    }
   }
 
   /**
    * <em>AfterThrowing</em> advice for any method or constructor annotated with {@link Step} annotation.
    *
+   * @param step      the step annotation
    * @param exception the step exception
-   * @throws XtepsException if Xteps configuration is incorrect
+   * @throws XtepsException   if Xteps configuration is incorrect
+   * @throws StepTimeoutError if the step timeout is expired
    */
-  @AfterThrowing(value = "withStepAnnotation() && (staticMethod() || nonStaticMethod() || constructor())", throwing = "exception")
-  public void stepFailed(final Throwable exception) {
-    stepReporter().failStep(exception);
+  @AfterThrowing(value = "(staticMethod() || nonStaticMethod() || constructor()) && @annotation(step)",
+    argNames = "step,exception", throwing = "exception")
+  public void stepFailed(final Step step,
+                         final Throwable exception) {
+    if (!Frame.required(step)) {
+      stepReporter().failStep(exception);
+      return;
+    }
+    final Frames frames = FRAMES.get();
+    if (exception == frames.reportedError) {
+      /* timeout error thrown by the AfterReturning advice of the same step is already reported */
+      frames.reportedError = null;
+      return;
+    }
+    final Frame frame = frames.pop();
+    if (frame == null) {
+      return;
+    }
+    final StepTimeoutError timeoutError = frame.finish();
+    if (!frame.started) {
+      /* exception is thrown by the Before advice before the step is started */
+      return;
+    }
+    if (timeoutError == null) {
+      stepReporter().failStep(exception);
+    } else {
+      timeoutError.initCause(exception);
+      exceptionHandler().handle(timeoutError);
+      stepReporter().failStep(timeoutError);
+      throw timeoutError;
+    }
   }
 
-  private static Keyword keyword(final Step step,
-                                 final DefaultStep defaultStep) {
+  static Keyword keyword(final Step step,
+                         final DefaultStep defaultStep) {
     String keywordStr = step.keywordStr();
     if (keywordStr.isEmpty() && !step.ignoreDefault() && defaultStep != null) {
       keywordStr = defaultStep.keywordStr();
@@ -261,9 +338,9 @@ public class StepAspects {
     return keyword;
   }
 
-  private static String name(final Step step,
-                             final DefaultStep defaultStep,
-                             final String methodName) {
+  static String name(final Step step,
+                     final DefaultStep defaultStep,
+                     final String methodName) {
     String name = step.name();
     if (name.isEmpty()) {
       name = step.value();
@@ -373,4 +450,72 @@ public class StepAspects {
     }
     return map;
   }
+
+  /**
+   * Not finished steps of the current thread.
+   */
+  private static final class Frames {
+    private Frame[] frames = new Frame[16];
+    private int size = 0;
+    private Throwable reportedError = null;
+
+    private Frame push() {
+      this.reportedError = null;
+      if (this.size == this.frames.length) {
+        this.frames = Arrays.copyOf(this.frames, this.size * 2);
+      }
+      final Frame frame = new Frame();
+      this.frames[this.size++] = frame;
+      return frame;
+    }
+
+    private Frame pop() {
+      if (this.size == 0) {
+        return null;
+      }
+      final Frame frame = this.frames[--this.size];
+      this.frames[this.size] = null;
+      return frame;
+    }
+  }
+
+  /**
+   * Not finished step. Holds the step resource permit and the step deadline. Frames are tracked only for steps with
+   * a resource or a timeout, other steps are reported without any per-thread bookkeeping.
+   */
+  private static final class Frame {
+    private Bulkheads.Permit permit = null;
+    private StepWatchdog.Deadline deadline = null;
+    private boolean started = false;
+
+    private static boolean required(final Step step) {
+      return !step.resource().isEmpty() || step.timeout() > 0L;
+    }
+
+    private static Frame push(final Step step) {
+      return required(step) ? FRAMES.get().push() : null;
+    }
+
+    /**
+     * Acquires the step resource and starts the step deadline. The resource is acquired before the step is started,
+     * so the queue time is not included in the step duration.
+     */
+    private void start(final Step step,
+                       final Map<String, Object> params) {
+      if (!step.resource().isEmpty()) {
+        this.permit = XtepsBase.bulkheads().acquire(step.resource(), step.maxConcurrent());
+        params.putAll(this.permit.params());
+      }
+      if (step.timeout() > 0L) {
+        this.deadline = XtepsBase.stepWatchdog().watch(Thread.currentThread(), Duration.ofMillis(step.timeout()));
+      }
+    }
+
+    private StepTimeoutError finish() {
+      if (this.permit != null) {
+        this.permit.release();
+      }
+      return this.deadline == null ? null : this.deadline.cancel();
+    }
+  }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.aspect;
+
+import com.plugatar.xteps2.Artifacts;
+import com.plugatar.xteps2.XtepsBase;
+import com.plugatar.xteps2.annotation.DefaultStep;
+import com.plugatar.xteps2.annotation.Step;
+import com.plugatar.xteps2.core.StepCache;
+import com.plugatar.xteps2.core.XtepsException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.DeclarePrecedence;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Step cache aspects. Have precedence over {@link StepAspects}, so the cached method step is not started and
+ * doesn't wait for its resource on the cache hit. The cache hit replaces the method result, so the aspect uses an
+ * <em>Around</em> advice; load-time weaving of it on Java 16+ requires the
+ * {@code --add-opens java.base/java.lang=ALL-UNNAMED} JVM option.
+ *
+ * @see Step#cache()
+ * @see StepCache
+ */
+@Aspect
+@DeclarePrecedence("com.plugatar.xteps2.aspect.StepCacheAspects, com.plugatar.xteps2.aspect.StepAspects")
+public class StepCacheAspects {
+
+  /**
+   * Pointcut for non-void method.
+   */
+  @Pointcut("execution(!void *(..))")
+  public final void nonVoidMethod() {
+  }
+
+  /**
+   * Pointcut for {@link Step} annotation with specified {@link Step#cache()}.
+   */
+  @Pointcut("execution(@com.plugatar.xteps2.annotation.Step * *(..)) "
+    + "&& !execution(@com.plugatar.xteps2.annotation.Step(cache=\"\") * *(..))")
+  public final void withCachedStepAnnotation() {
+  }
+
+  /**
+   * <em>Around</em> advice for non-void method annotated with {@link Step} annotation with specified
+   * {@link Step#cache()}.
+   *
+   * @param joinPoint the join point
+   * @return method result or cached result
+   * @throws XtepsException if Xteps configuration is incorrect
+   * @throws Throwable      if method threw exception
+   */
+  @Around(value = "withCachedStepAnnotation() && nonVoidMethod()")
+  public final Object cachedStep(final ProceedingJoinPoint joinPoint) throws Throwable {
+    final MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+    final Method method = signature.getMethod();
+    final Step step = method.getAnnotation(Step.class);
+    if (step.cache().isEmpty()) {
+      return joinPoint.proceed();
+    }
+    final Object[] args = joinPoint.getArgs();
+    final CacheKey key = new CacheKey(step.cache(), args);
+    final StepCache cache = XtepsBase.stepCache();
+    final StepCache.Entry entry = cache.get(key);
+    if (entry != null) {
+      final Class<?> cls = signature.getDeclaringType();
+      final DefaultStep defaultStep = cls.getAnnotation(DefaultStep.class);
+      final Map<String, Object> replacements = new HashMap<>();
+      final String[] parameterNames = signature.getParameterNames();
+      for (int idx = 0; idx < args.length; ++idx) {
+        replacements.put(String.valueOf(idx), args[idx]);
+        if (parameterNames != null && idx < parameterNames.length) {
+          replacements.putIfAbsent(parameterNames[idx], args[idx]);
+        }
+      }
+      final Map<String, Object> artifacts = new HashMap<>();
+      artifacts.put(Artifacts.keywordArtifact(), StepAspects.keyword(step, defaultStep));
+      artifacts.put(Artifacts.nameArtifact(), XtepsBase.textFormatter().format(
+        StepAspects.name(step, defaultStep, signature.getName()), replacements
+      ));
+      artifacts.put(Artifacts.descArtifact(), "Cached");
+      artifacts.put(Artifacts.paramsArtifact(), entry.hitParams());
+      XtepsBase.stepReporter().executeStep(artifacts, () -> null);
+      return entry.value();
+    }
+    final Object result = joinPoint.proceed();
+    cache.put(key, result, Duration.ofMillis(Math.max(step.cacheTtl(), 0L)));
+    return result;
+  }
+
+  /**
+   * Cache key of the method step: the {@link Step#cache()} value and the method arguments. The string representation
+   * is the {@link Step#cache()} value only, so argument values are not reported.
+   */
+  private static final class CacheKey {
+    private final String name;
+    private final Object[] args;
+    private final int hash;
+
+    private CacheKey(final String name,
+                     final Object[] args) {
+      this.name = name;
+      this.args = args;
+      this.hash = 31 * name.hashCode() + Arrays.deepHashCode(args);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof CacheKey)) {
+        return false;
+      }
+      final CacheKey other = (CacheKey) obj;
+      return this.hash == other.hash && this.name.equals(other.name) && Arrays.deepEquals(this.args, other.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public String toString() {
+      return this.name;
+    }
+  }
+}
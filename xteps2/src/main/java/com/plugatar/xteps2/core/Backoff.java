@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff of the repeated step attempts.
+ */
+public interface Backoff {
+
+  /**
+   * Returns delay before the next attempt.
+   *
+   * @param failedAttempts the number of failed attempts, greater than 0
+   * @return delay in milliseconds
+   */
+  long delayMillis(int failedAttempts);
+
+  /**
+   * Fixed {@code Backoff} implementation.
+   */
+  class Fixed implements Backoff {
+    private final long delayMillis;
+
+    /**
+     * Ctor.
+     *
+     * @param delay the delay
+     * @throws XtepsException if {@code delay} arg is null
+     *                        or if {@code delay} arg is negative
+     */
+    public Fixed(final Duration delay) {
+      if (delay == null) { throw new XtepsException("delay arg is null"); }
+      if (delay.isNegative()) { throw new XtepsException("delay arg is negative"); }
+      this.delayMillis = delay.toMillis();
+    }
+
+    @Override
+    public final long delayMillis(final int failedAttempts) {
+      return this.delayMillis;
+    }
+  }
+
+  /**
+   * Exponential {@code Backoff} implementation.
+   */
+  class Exponential implements Backoff {
+    private final long initialDelayMillis;
+    private final double multiplier;
+    private final long maxDelayMillis;
+
+    /**
+     * Ctor.
+     *
+     * @param initialDelay the delay after the first failed attempt
+     * @param multiplier   the delay multiplier of each next failed attempt
+     * @param maxDelay     the max delay
+     * @throws XtepsException if {@code initialDelay} arg is null
+     *                        or if {@code maxDelay} arg is null
+     *                        or if {@code initialDelay} arg is negative
+     *                        or if {@code multiplier} arg is less than 1
+     *                        or if {@code maxDelay} arg is less than {@code initialDelay} arg
+     */
+    public Exponential(final Duration initialDelay,
+                       final double multiplier,
+                       final Duration maxDelay) {
+      if (initialDelay == null) { throw new XtepsException("initialDelay arg is null"); }
+      if (maxDelay == null) { throw new XtepsException("maxDelay arg is null"); }
+      if (initialDelay.isNegative()) { throw new XtepsException("initialDelay arg is negative"); }
+      if (!(multiplier >= 1.0)) { throw new XtepsException("multiplier arg is less than 1"); }
+      if (maxDelay.compareTo(initialDelay) < 0) {
+        throw new XtepsException("maxDelay arg is less than initialDelay arg");
+      }
+      this.initialDelayMillis = initialDelay.toMillis();
+      this.multiplier = multiplier;
+      this.maxDelayMillis = maxDelay.toMillis();
+    }
+
+    @Override
+    public final long delayMillis(final int failedAttempts) {
+      final double delay = this.initialDelayMillis * Math.pow(this.multiplier, Math.max(failedAttempts, 1) - 1);
+      return delay >= this.maxDelayMillis ? this.maxDelayMillis : (long) delay;
+    }
+  }
+
+  /**
+   * {@code Backoff} decorator that randomizes delays of the origin backoff in range from the half of the delay to
+   * the full delay. Prevents synchronized attempts of parallel tests.
+   */
+  class Jittered implements Backoff {
+    private final Backoff origin;
+
+    /**
+     * Ctor.
+     *
+     * @param origin the origin backoff
+     * @throws XtepsException if {@code origin} arg is null
+     */
+    public Jittered(final Backoff origin) {
+      if (origin == null) { throw new XtepsException("origin arg is null"); }
+      this.origin = origin;
+    }
+
+    @Override
+    public final long delayMillis(final int failedAttempts) {
+      final long delay = this.origin.delayMillis(failedAttempts);
+      if (delay <= 1L) {
+        return delay;
+      }
+      final long halfDelay = delay / 2;
+      return halfDelay + ThreadLocalRandom.current().nextLong(delay - halfDelay + 1);
+    }
+  }
+}
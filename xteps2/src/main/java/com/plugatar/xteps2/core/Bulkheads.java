@@ -0,0 +1,171 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resource bulkheads. Limits the number of steps concurrently using the same resource by fair semaphores, so
+ * waiting steps acquire the resource in the arrival order. The resource limit is defined by the first acquisition,
+ * all next acquisitions of the resource should use the same limit. Bulkheads are reentrant: a thread that already
+ * holds the resource acquires it again without waiting, the resource is released by the last release of this thread.
+ */
+public class Bulkheads {
+  private final ConcurrentMap<String, Bulkhead> bulkheads;
+
+  /**
+   * Ctor.
+   */
+  public Bulkheads() {
+    this.bulkheads = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Acquires the permit of given resource, waiting if the resource limit is reached. If the current thread already
+   * holds the resource, the permit is acquired without waiting. The permit should be released by the current thread.
+   *
+   * @param resource      the resource
+   * @param maxConcurrent the max number of concurrent resource usages
+   * @return permit
+   * @throws XtepsException if {@code resource} arg is null
+   *                        or if {@code maxConcurrent} arg is not positive
+   *                        or if the resource limit differs from {@code maxConcurrent} arg
+   *                        or if the current thread was interrupted while waiting, the interrupt flag is restored
+   */
+  public final Permit acquire(final String resource,
+                              final int maxConcurrent) {
+    if (resource == null) { throw new XtepsException("resource arg is null"); }
+    if (maxConcurrent <= 0) { throw new XtepsException("maxConcurrent arg is not positive"); }
+    final Bulkhead bulkhead = this.bulkheads.computeIfAbsent(resource, key -> new Bulkhead(maxConcurrent));
+    if (bulkhead.maxConcurrent != maxConcurrent) {
+      throw new XtepsException("Resource " + resource + " limit is " + bulkhead.maxConcurrent
+        + ", but maxConcurrent arg is " + maxConcurrent);
+    }
+    final int[] holds = bulkhead.holds.get();
+    if (holds[0] > 0) {
+      ++holds[0];
+      return new Permit(bulkhead, resource, Duration.ZERO);
+    }
+    final long startNanos = System.nanoTime();
+    try {
+      bulkhead.semaphore.acquire();
+    } catch (final InterruptedException ex) {
+      bulkhead.holds.remove();
+      Thread.currentThread().interrupt();
+      throw new XtepsException("Interrupted while waiting for resource " + resource, ex);
+    }
+    holds[0] = 1;
+    return new Permit(bulkhead, resource, Duration.ofNanos(System.nanoTime() - startNanos));
+  }
+
+  /**
+   * Returns the number of steps waiting for given resource.
+   *
+   * @param resource the resource
+   * @return the number of steps waiting for given resource
+   * @throws XtepsException if {@code resource} arg is null
+   */
+  public final int queueLength(final String resource) {
+    if (resource == null) { throw new XtepsException("resource arg is null"); }
+    final Bulkhead bulkhead = this.bulkheads.get(resource);
+    return bulkhead == null ? 0 : bulkhead.semaphore.getQueueLength();
+  }
+
+  private static final class Bulkhead {
+    private final int maxConcurrent;
+    private final Semaphore semaphore;
+    private final ThreadLocal<int[]> holds;
+
+    private Bulkhead(final int maxConcurrent) {
+      this.maxConcurrent = maxConcurrent;
+      this.semaphore = new Semaphore(maxConcurrent, true);
+      this.holds = ThreadLocal.withInitial(() -> new int[1]);
+    }
+
+    private void release() {
+      final int[] holds = this.holds.get();
+      if (--holds[0] <= 0) {
+        this.holds.remove();
+        this.semaphore.release();
+      }
+    }
+  }
+
+  /**
+   * Resource permit.
+   */
+  public static final class Permit {
+    private final Bulkhead bulkhead;
+    private final String resource;
+    private final Duration queueTime;
+    private final AtomicBoolean released;
+
+    private Permit(final Bulkhead bulkhead,
+                   final String resource,
+                   final Duration queueTime) {
+      this.bulkhead = bulkhead;
+      this.resource = resource;
+      this.queueTime = queueTime;
+      this.released = new AtomicBoolean(false);
+    }
+
+    /**
+     * Returns the resource.
+     *
+     * @return the resource
+     */
+    public String resource() {
+      return this.resource;
+    }
+
+    /**
+     * Returns the time spent waiting for the resource.
+     *
+     * @return the time spent waiting for the resource
+     */
+    public Duration queueTime() {
+      return this.queueTime;
+    }
+
+    /**
+     * Returns step params with the resource and the queue time.
+     *
+     * @return step params
+     */
+    public Map<String, Object> params() {
+      final Map<String, Object> params = new LinkedHashMap<>();
+      params.put("resource", this.resource);
+      params.put("queue time", this.queueTime);
+      return params;
+    }
+
+    /**
+     * Releases this permit. The resource is released by the last permit release of the thread that acquired the
+     * permits. Next calls do nothing.
+     */
+    public void release() {
+      if (this.released.compareAndSet(false, true)) {
+        this.bulkhead.release();
+      }
+    }
+  }
+}
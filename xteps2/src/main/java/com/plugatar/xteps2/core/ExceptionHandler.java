@@ -15,13 +15,16 @@
  */
 package com.plugatar.xteps2.core;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayDeque;
-import java.util.Arrays;
+import java.util.Deque;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
-import java.util.function.Predicate;
 
 /**
  * Exception handler.
@@ -37,76 +40,192 @@ public interface ExceptionHandler {
   void handle(Throwable exception);
 
   /**
-   * Default {@code ExceptionHandler} implementation.
+   * Default {@code ExceptionHandler} implementation. Each exception is cleaned only once. Repeated handling of the same
+   * exception (for example, when it propagates through nested steps) is a single lookup if the exception cause and
+   * suppressed exceptions count are not changed since the previous handling. Otherwise its cause and suppressed
+   * exceptions are walked again and only the ones added after the previous handling are cleaned.
    */
   class CleanStackTrace implements ExceptionHandler {
-    private final ThreadLocal<FixedMaxSizeUniqueQueue<Throwable>> cachedExceptions;
-    private final Predicate<StackTraceElement> cleanStackTraceElementFilter;
+    private static final String XTEPS_CLASS_PREFIX = "com.plugatar.xteps2";
+    private final ThreadLocal<WeakIdentitySet<Throwable>> handledExceptions;
 
     /**
      * Ctor.
      */
     public CleanStackTrace() {
-      final String xtepsClassPrefix = "com.plugatar.xteps2";
-      this.cachedExceptions = ThreadLocal.withInitial(FixedMaxSizeUniqueQueue::new);
-      this.cleanStackTraceElementFilter = element -> !element.getClassName().startsWith(xtepsClassPrefix);
+      this.handledExceptions = ThreadLocal.withInitial(WeakIdentitySet::new);
     }
 
     @Override
     public final void handle(final Throwable exception) {
       if (exception == null) { throw new XtepsException("exception arg is null"); }
-      /* Array size = 32, max count of elements without resizing = 10 */
-      final Set<Throwable> allRelatedExceptions = Collections.newSetFromMap(new IdentityHashMap<>(8));
-      recursivelyAddAllRelatedExceptions(allRelatedExceptions, exception);
-      for (final Throwable currentEx : allRelatedExceptions) {
-        if (!(currentEx instanceof XtepsException) && this.cachedExceptions.get().offer(currentEx)) {
-          final StackTraceElement[] originST = currentEx.getStackTrace();
-          if (originST.length != 0) {
-            final StackTraceElement[] cleanST = Arrays.stream(originST)
-              .filter(this.cleanStackTraceElementFilter)
-              .toArray(StackTraceElement[]::new);
-            if (cleanST.length != originST.length) {
-              currentEx.setStackTrace(cleanST);
+      final WeakIdentitySet<Throwable> handled = this.handledExceptions.get();
+      final IdentityWeakReference<Throwable> handledRef = handled.find(exception);
+      final int graphState = graphState(exception);
+      if (handledRef != null && handledRef.graphState == graphState) {
+        return;
+      }
+      final Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+      final Deque<Throwable> notVisited = new ArrayDeque<>();
+      notVisited.push(exception);
+      while (!notVisited.isEmpty()) {
+        final Throwable currentEx = notVisited.pop();
+        if (visited.add(currentEx)) {
+          if (handled.find(currentEx) == null) {
+            handled.add(currentEx);
+            if (!(currentEx instanceof XtepsException)) {
+              cleanStackTrace(currentEx);
             }
           }
+          final Throwable causeEx = currentEx.getCause();
+          if (causeEx != null) {
+            notVisited.push(causeEx);
+          }
+          for (final Throwable suppressedEx : currentEx.getSuppressed()) {
+            notVisited.push(suppressedEx);
+          }
         }
       }
+      handled.find(exception).graphState = graphState;
     }
 
-    private static void recursivelyAddAllRelatedExceptions(final Set<Throwable> exceptions,
-                                                           final Throwable mainEx) {
-      for (Throwable causeEx = mainEx; causeEx != null; causeEx = causeEx.getCause()) {
-        if (exceptions.contains(causeEx)) {
-          break;
+    private static int graphState(final Throwable exception) {
+      return exception.getSuppressed().length << 1 | (exception.getCause() == null ? 0 : 1);
+    }
+
+    private static void cleanStackTrace(final Throwable exception) {
+      final StackTraceElement[] originST = exception.getStackTrace();
+      int xtepsElementsCount = 0;
+      for (final StackTraceElement element : originST) {
+        if (element.getClassName().startsWith(XTEPS_CLASS_PREFIX)) {
+          ++xtepsElementsCount;
         }
-        exceptions.add(causeEx);
-        for (final Throwable suppressedEx : causeEx.getSuppressed()) {
-          recursivelyAddAllRelatedExceptions(exceptions, suppressedEx);
+      }
+      if (xtepsElementsCount != 0) {
+        final StackTraceElement[] cleanST = new StackTraceElement[originST.length - xtepsElementsCount];
+        int idx = 0;
+        for (final StackTraceElement element : originST) {
+          if (!element.getClassName().startsWith(XTEPS_CLASS_PREFIX)) {
+            cleanST[idx++] = element;
+          }
         }
+        exception.setStackTrace(cleanST);
       }
     }
 
-    private static final class FixedMaxSizeUniqueQueue<T> {
-      private final Set<T> set;
-      private final Queue<T> queue;
+    private static final class WeakIdentitySet<T> {
+      private final ReferenceQueue<T> queue;
+      private final Map<Object, IdentityWeakReference<T>> map;
+      private final LookupKey lookupKey;
 
-      private FixedMaxSizeUniqueQueue() {
-        /* Array size = 32, max count of elements without resizing = 10 */
-        this.set = Collections.newSetFromMap(new IdentityHashMap<>(8));
-        /* Array size = 16, max count of elements without resizing = 15 */
-        this.queue = new ArrayDeque<>(8);
+      private WeakIdentitySet() {
+        this.queue = new ReferenceQueue<>();
+        this.map = new HashMap<>();
+        this.lookupKey = new LookupKey();
       }
 
-      private boolean offer(final T element) {
-        if (this.set.add(element)) {
-          this.queue.add(element);
-          /* To avoid arrays resizing this queue contains only 9 elements, 10th will be removed */
-          if (this.set.size() == 10) {
-            this.set.remove(this.queue.remove());
-          }
+      private IdentityWeakReference<T> find(final T element) {
+        this.lookupKey.referent = element;
+        try {
+          return this.map.get(this.lookupKey);
+        } finally {
+          this.lookupKey.referent = null;
+        }
+      }
+
+      private void add(final T element) {
+        this.expungeStaleReferences();
+        final IdentityWeakReference<T> reference = new IdentityWeakReference<>(element, this.queue);
+        this.map.put(reference, reference);
+      }
+
+      private void expungeStaleReferences() {
+        Reference<? extends T> reference;
+        while ((reference = this.queue.poll()) != null) {
+          this.map.remove(reference);
+        }
+      }
+    }
+
+    /**
+     * Key to find the reference without its allocation.
+     */
+    private static final class LookupKey {
+      private Object referent;
+
+      @Override
+      public int hashCode() {
+        return System.identityHashCode(this.referent);
+      }
+
+      @Override
+      public boolean equals(final Object obj) {
+        return obj instanceof IdentityWeakReference && ((IdentityWeakReference<?>) obj).get() == this.referent;
+      }
+    }
+
+    private static final class IdentityWeakReference<T> extends WeakReference<T> {
+      private final int hashCode;
+      /* cause and suppressed exceptions count of the handled root exception, -1 for not root exceptions */
+      private int graphState;
+
+      private IdentityWeakReference(final T referent,
+                                    final ReferenceQueue<T> queue) {
+        super(referent, queue);
+        this.hashCode = System.identityHashCode(referent);
+        this.graphState = -1;
+      }
+
+      @Override
+      public int hashCode() {
+        return this.hashCode;
+      }
+
+      @Override
+      public boolean equals(final Object obj) {
+        if (this == obj) {
           return true;
         }
-        return false;
+        if (!(obj instanceof IdentityWeakReference)) {
+          return false;
+        }
+        final Object referent = this.get();
+        return referent != null && referent == ((IdentityWeakReference<?>) obj).get();
+      }
+    }
+  }
+
+  /**
+   * {@code ExceptionHandler} decorator that records the time of each call as
+   * {@link ReportingOverhead#EXCEPTION_HANDLER}.
+   */
+  class Measured implements ExceptionHandler {
+    private final ExceptionHandler handler;
+    private final ReportingOverhead overhead;
+
+    /**
+     * Ctor.
+     *
+     * @param handler  the origin handler
+     * @param overhead the reporting overhead
+     * @throws XtepsException if {@code handler} arg is null
+     *                        or if {@code overhead} arg is null
+     */
+    public Measured(final ExceptionHandler handler,
+                    final ReportingOverhead overhead) {
+      if (handler == null) { throw new XtepsException("handler arg is null"); }
+      if (overhead == null) { throw new XtepsException("overhead arg is null"); }
+      this.handler = handler;
+      this.overhead = overhead;
+    }
+
+    @Override
+    public final void handle(final Throwable exception) {
+      final long startNanos = System.nanoTime();
+      try {
+        this.handler.handle(exception);
+      } finally {
+        this.overhead.record(ReportingOverhead.EXCEPTION_HANDLER, System.nanoTime() - startNanos);
       }
     }
   }
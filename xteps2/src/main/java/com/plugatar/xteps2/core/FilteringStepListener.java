@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Step listener that receives only accepted steps. Filtering is performed by {@link StepReporter.Default}: if a step
+ * is not accepted, neither start nor finish events of this step are passed to the listener. Nested steps are checked
+ * independently.
+ */
+public interface FilteringStepListener extends StepListener {
+
+  /**
+   * Returns true if the step should be reported to this listener.
+   *
+   * @param artifacts the step artifacts (not null, may be empty)
+   * @param depth     the step depth, top-level steps have depth 1
+   * @return true if the step should be reported to this listener
+   */
+  boolean isAccepted(Map<String, ?> artifacts,
+                     int depth);
+
+  /**
+   * Default {@code FilteringStepListener} implementation. Accepts the step if it matches all given filters.
+   */
+  class Of implements FilteringStepListener {
+    private final StepListener listener;
+    private final Set<String> keywords;
+    private final int maxDepth;
+    private final Pattern namePattern;
+    private final Set<String> requiredArtifacts;
+
+    /**
+     * Ctor.
+     *
+     * @param listener          the origin listener
+     * @param keywords          the accepted keywords in {@link Keyword#toString()} format, empty set to accept any
+     *                          keyword
+     * @param maxDepth          the max accepted depth, zero or negative value to accept any depth
+     * @param namePattern       the accepted step name pattern, null to accept any name
+     * @param requiredArtifacts the required artifact names, empty set to accept any step
+     * @throws XtepsException if {@code listener} arg is null
+     *                        or if {@code keywords} arg is null
+     *                        or if {@code requiredArtifacts} arg is null
+     */
+    public Of(final StepListener listener,
+              final Set<String> keywords,
+              final int maxDepth,
+              final Pattern namePattern,
+              final Set<String> requiredArtifacts) {
+      if (listener == null) { throw new XtepsException("listener arg is null"); }
+      if (keywords == null) { throw new XtepsException("keywords arg is null"); }
+      if (requiredArtifacts == null) { throw new XtepsException("requiredArtifacts arg is null"); }
+      this.listener = listener;
+      this.keywords = Collections.unmodifiableSet(new HashSet<>(keywords));
+      this.maxDepth = maxDepth;
+      this.namePattern = namePattern;
+      this.requiredArtifacts = Collections.unmodifiableSet(new HashSet<>(requiredArtifacts));
+    }
+
+    /**
+     * Returns origin listener.
+     *
+     * @return origin listener
+     */
+    public final StepListener listener() {
+      return this.listener;
+    }
+
+    @Override
+    public final boolean isAccepted(final Map<String, ?> artifacts,
+                                    final int depth) {
+      if (this.maxDepth > 0 && depth > this.maxDepth) {
+        return false;
+      }
+      if (!this.keywords.isEmpty() && !this.keywords.contains(Utils.getKeyword(artifacts).toString())) {
+        return false;
+      }
+      for (final String artifact : this.requiredArtifacts) {
+        if (!artifacts.containsKey(artifact)) {
+          return false;
+        }
+      }
+      if (this.namePattern != null && !this.namePattern.matcher(Utils.getName(artifacts)).matches()) {
+        return false;
+      }
+      return !(this.listener instanceof FilteringStepListener)
+        || ((FilteringStepListener) this.listener).isAccepted(artifacts, depth);
+    }
+
+    @Override
+    public final void stepStarted(final Map<String, ?> artifacts) {
+      this.listener.stepStarted(artifacts);
+    }
+
+    @Override
+    public final void stepPassed() {
+      this.listener.stepPassed();
+    }
+
+    @Override
+    public final void stepFailed(final Throwable exception) {
+      this.listener.stepFailed(exception);
+    }
+
+    @Override
+    public final void stepFailedByNestedStep(final Throwable exception) {
+      this.listener.stepFailedByNestedStep(exception);
+    }
+  }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Step flight recorder. Keeps the most recent step events of each thread in a fixed-size ring buffer and dumps them
+ * to a text file on the top-level step failure, on {@link #dump(Thread, String)} call and on JVM shutdown for threads
+ * with not finished steps.
+ * <p>
+ * The recorder doesn't allocate memory on step events after the thread ring buffer is created. Ring buffers are
+ * written only by their threads, dumps of other threads are best-effort snapshots.
+ */
+public class FlightRecorder implements StepListener {
+  private static final byte STARTED = 0;
+  private static final byte PASSED = 1;
+  private static final byte FAILED = 2;
+  private static final byte FAILED_BY_NESTED_STEP = 3;
+  private final int capacity;
+  private final Path dir;
+  private final boolean dumpOnFailure;
+  private final long baseEpochNanos;
+  private final long baseNanos;
+  private final List<Ring> rings;
+  private final ThreadLocal<Ring> ring;
+
+  /**
+   * Ctor.
+   *
+   * @param capacity      the number of events kept for each thread
+   * @param dir           the dumps directory
+   * @param dumpOnFailure the top-level step failure dump flag
+   * @throws XtepsException if {@code capacity} arg is not positive
+   *                        or if {@code dir} arg is null
+   */
+  public FlightRecorder(final int capacity,
+                        final Path dir,
+                        final boolean dumpOnFailure) {
+    if (capacity <= 0) { throw new XtepsException("capacity arg is not positive"); }
+    if (dir == null) { throw new XtepsException("dir arg is null"); }
+    this.capacity = capacity;
+    this.dir = dir;
+    this.dumpOnFailure = dumpOnFailure;
+    this.baseEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    this.baseNanos = System.nanoTime();
+    this.rings = new CopyOnWriteArrayList<>();
+    this.ring = ThreadLocal.withInitial(() -> {
+      final Ring newRing = new Ring(Thread.currentThread(), this.capacity);
+      this.rings.removeIf(existingRing -> existingRing.thread.get() == null);
+      this.rings.add(newRing);
+      return newRing;
+    });
+  }
+
+  /**
+   * Dumps the flight recorder of all threads with not finished steps on JVM shutdown.
+   *
+   * @return this flight recorder
+   */
+  public final FlightRecorder dumpOnShutdown() {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      for (final Ring existingRing : this.rings) {
+        final Thread thread = existingRing.thread.get();
+        if (thread != null && existingRing.depth > 0) {
+          this.dumpQuietly(existingRing, "JVM shutdown with not finished steps");
+        }
+      }
+    }));
+    return this;
+  }
+
+  /**
+   * Dumps the flight recorder of given thread.
+   *
+   * @param thread the thread
+   * @param reason the dump reason
+   * @return dump file or null if there are no recorded events of given thread
+   * @throws XtepsException if {@code thread} arg is null
+   *                        or if {@code reason} arg is null
+   *                        or if dump file cannot be written
+   */
+  public final Path dump(final Thread thread,
+                         final String reason) {
+    if (thread == null) { throw new XtepsException("thread arg is null"); }
+    if (reason == null) { throw new XtepsException("reason arg is null"); }
+    for (final Ring existingRing : this.rings) {
+      if (existingRing.thread.get() == thread) {
+        return this.dump(existingRing, reason);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns recorded events of given thread in text format, oldest first.
+   *
+   * @param thread the thread
+   * @return recorded events
+   * @throws XtepsException if {@code thread} arg is null
+   */
+  public final List<String> events(final Thread thread) {
+    if (thread == null) { throw new XtepsException("thread arg is null"); }
+    for (final Ring existingRing : this.rings) {
+      if (existingRing.thread.get() == thread) {
+        return this.events(existingRing);
+      }
+    }
+    return new ArrayList<>();
+  }
+
+  @Override
+  public final void stepStarted(final Map<String, ?> artifacts) {
+    final Ring currentRing = this.ring.get();
+    final Map<String, Object> params = Utils.getParams(artifacts);
+    currentRing.add(STARTED, ++currentRing.depth, Utils.getName(artifacts), params.size());
+  }
+
+  @Override
+  public final void stepPassed() {
+    final Ring currentRing = this.ring.get();
+    currentRing.add(PASSED, currentRing.depth, null, 0);
+    currentRing.finish();
+  }
+
+  @Override
+  public final void stepFailed(final Throwable exception) {
+    this.failed(FAILED, exception);
+  }
+
+  @Override
+  public final void stepFailedByNestedStep(final Throwable exception) {
+    this.failed(FAILED_BY_NESTED_STEP, exception);
+  }
+
+  private void failed(final byte type,
+                      final Throwable exception) {
+    final Ring currentRing = this.ring.get();
+    final boolean topLevelStep = currentRing.depth == 1;
+    currentRing.add(type, currentRing.depth, exception.getClass().getName(), 0);
+    currentRing.finish();
+    if (topLevelStep && this.dumpOnFailure) {
+      this.dumpQuietly(currentRing, "Step failed with " + exception);
+    }
+  }
+
+  private void dumpQuietly(final Ring existingRing,
+                           final String reason) {
+    try {
+      this.dump(existingRing, reason);
+    } catch (final RuntimeException ex) {
+      System.out.println("The Xteps2 framework can not dump the flight recorder: " + ex);
+    }
+  }
+
+  private Path dump(final Ring existingRing,
+                    final String reason) {
+    final List<String> events = this.events(existingRing);
+    if (events.isEmpty()) {
+      return null;
+    }
+    final Thread thread = existingRing.thread.get();
+    final Path file = this.dir.resolve("flight-recorder-" + (thread == null ? "unknown" : thread.getId()) + "-"
+      + System.currentTimeMillis() + "-" + existingRing.dumpsCount++ + ".txt");
+    try {
+      Files.createDirectories(this.dir);
+      try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        writer.write("Thread: " + (thread == null ? "unknown" : thread.getName()) + System.lineSeparator());
+        writer.write("Reason: " + reason + System.lineSeparator());
+        for (final String event : events) {
+          writer.write(event);
+          writer.write(System.lineSeparator());
+        }
+      }
+    } catch (final IOException ex) {
+      throw new XtepsException("Cannot write flight recorder dump " + file, ex);
+    }
+    return file;
+  }
+
+  private List<String> events(final Ring existingRing) {
+    final long count = existingRing.count;
+    final int size = (int) Math.min(count, this.capacity);
+    final List<String> events = new ArrayList<>(size);
+    for (long idx = count - size; idx < count; ++idx) {
+      final int slot = (int) (idx % this.capacity);
+      final StringBuilder sb = new StringBuilder();
+      sb.append(Instant.ofEpochSecond(0L, this.baseEpochNanos + existingRing.nanos[slot] - this.baseNanos))
+        .append(" depth=").append(existingRing.depths[slot]).append(' ');
+      switch (existingRing.types[slot]) {
+        case STARTED:
+          sb.append("STARTED name=\"").append(existingRing.texts[slot]).append('"');
+          if (existingRing.paramsCounts[slot] != 0) {
+            sb.append(" params=").append(existingRing.paramsCounts[slot]);
+          }
+          break;
+        case PASSED:
+          sb.append("PASSED");
+          break;
+        case FAILED:
+          sb.append("FAILED exception=").append(existingRing.texts[slot]);
+          break;
+        default:
+          sb.append("FAILED_BY_NESTED_STEP exception=").append(existingRing.texts[slot]);
+      }
+      events.add(sb.toString());
+    }
+    return events;
+  }
+
+  /**
+   * Ring buffer of one thread.
+   */
+  private static final class Ring {
+    private final WeakReference<Thread> thread;
+    private final int capacity;
+    private final long[] nanos;
+    private final byte[] types;
+    private final int[] depths;
+    private final String[] texts;
+    private final int[] paramsCounts;
+    private volatile long count;
+    private volatile int depth;
+    private int dumpsCount;
+
+    private Ring(final Thread thread,
+                 final int capacity) {
+      this.thread = new WeakReference<>(thread);
+      this.capacity = capacity;
+      this.nanos = new long[capacity];
+      this.types = new byte[capacity];
+      this.depths = new int[capacity];
+      this.texts = new String[capacity];
+      this.paramsCounts = new int[capacity];
+      this.count = 0L;
+      this.depth = 0;
+      this.dumpsCount = 0;
+    }
+
+    private void add(final byte type,
+                     final int eventDepth,
+                     final String text,
+                     final int paramsCount) {
+      final long currentCount = this.count;
+      final int slot = (int) (currentCount % this.capacity);
+      this.nanos[slot] = System.nanoTime();
+      this.types[slot] = type;
+      this.depths[slot] = eventDepth;
+      this.texts[slot] = text;
+      this.paramsCounts[slot] = paramsCount;
+      this.count = currentCount + 1;
+    }
+
+    private void finish() {
+      final int currentDepth = this.depth;
+      if (currentDepth > 0) {
+        this.depth = currentDepth - 1;
+      }
+    }
+  }
+}
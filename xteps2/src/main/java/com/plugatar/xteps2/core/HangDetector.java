@@ -0,0 +1,262 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hang detector. Keeps the registry of currently open steps of all threads and periodically checks it on the
+ * background daemon thread. When the step is running longer than the threshold, the detector writes the open steps
+ * and the stack trace of the step thread (and optionally stack traces of all threads) to a text file. The detector
+ * never interrupts threads, each step is reported once. {@link #close()} stops periodic checks.
+ * <p>
+ * The detector should get all step events before the step reporter decides whether the step is reported, for
+ * example, via {@link StepReporter.Recorded}, otherwise folded, not reported and recorded steps are not checked.
+ */
+public class HangDetector implements StepListener, AutoCloseable {
+  private final long thresholdNanos;
+  private final long checkIntervalMillis;
+  private final boolean allThreads;
+  private final Path dir;
+  private final List<OpenSteps> registry;
+  private final ThreadLocal<OpenSteps> openSteps;
+  private final AtomicReference<ScheduledExecutorService> scheduler;
+
+  /**
+   * Ctor.
+   *
+   * @param threshold     the step duration threshold
+   * @param checkInterval the interval of the open steps checks
+   * @param allThreads    the flag to write stack traces of all threads
+   * @param dir           the reports directory
+   * @throws XtepsException if {@code threshold} arg is null
+   *                        or if {@code checkInterval} arg is null
+   *                        or if {@code dir} arg is null
+   *                        or if {@code threshold} arg is not positive
+   *                        or if {@code checkInterval} arg is not positive
+   */
+  public HangDetector(final Duration threshold,
+                      final Duration checkInterval,
+                      final boolean allThreads,
+                      final Path dir) {
+    if (threshold == null) { throw new XtepsException("threshold arg is null"); }
+    if (checkInterval == null) { throw new XtepsException("checkInterval arg is null"); }
+    if (dir == null) { throw new XtepsException("dir arg is null"); }
+    if (threshold.isNegative() || threshold.isZero()) { throw new XtepsException("threshold arg is not positive"); }
+    if (checkInterval.toMillis() <= 0L) { throw new XtepsException("checkInterval arg is not positive"); }
+    this.thresholdNanos = threshold.toNanos();
+    this.checkIntervalMillis = checkInterval.toMillis();
+    this.allThreads = allThreads;
+    this.dir = dir;
+    this.registry = new CopyOnWriteArrayList<>();
+    this.openSteps = ThreadLocal.withInitial(() -> {
+      final OpenSteps newOpenSteps = new OpenSteps(Thread.currentThread());
+      this.registry.removeIf(existingOpenSteps -> existingOpenSteps.thread.get() == null);
+      this.registry.add(newOpenSteps);
+      return newOpenSteps;
+    });
+    this.scheduler = new AtomicReference<>();
+  }
+
+  /**
+   * Starts periodic checks on the background daemon thread. Does nothing if checks are already started.
+   *
+   * @return this hang detector
+   */
+  public final HangDetector start() {
+    final ScheduledExecutorService newScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "xteps2-hang-detector");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (!this.scheduler.compareAndSet(null, newScheduler)) {
+      newScheduler.shutdown();
+      return this;
+    }
+    newScheduler.scheduleWithFixedDelay(() -> {
+      try {
+        for (final Path report : this.check()) {
+          System.out.println("The Xteps2 framework detected a hung step, report: " + report.toAbsolutePath());
+        }
+      } catch (final RuntimeException ex) {
+        System.out.println("The Xteps2 framework can not write the hung step report: " + ex);
+      }
+    }, this.checkIntervalMillis, this.checkIntervalMillis, TimeUnit.MILLISECONDS);
+    return this;
+  }
+
+  /**
+   * Stops periodic checks and releases the background thread.
+   */
+  @Override
+  public final void close() {
+    final ScheduledExecutorService currentScheduler = this.scheduler.getAndSet(null);
+    if (currentScheduler != null) {
+      currentScheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Checks open steps of all threads and writes reports of the steps that are running longer than the threshold
+   * and were not reported yet. For each thread the deepest of such steps is reported.
+   *
+   * @return written reports
+   * @throws XtepsException if report cannot be written
+   */
+  public final List<Path> check() {
+    final List<Path> reports = new ArrayList<>();
+    final long nowNanos = System.nanoTime();
+    for (final OpenSteps existingOpenSteps : this.registry) {
+      final Thread thread = existingOpenSteps.thread.get();
+      if (thread == null) {
+        continue;
+      }
+      final int depth = existingOpenSteps.depth;
+      final String[] names = existingOpenSteps.names;
+      final long[] startNanos = existingOpenSteps.startNanos;
+      final long[] ids = existingOpenSteps.ids;
+      final int size = Math.min(depth, Math.min(names.length, Math.min(startNanos.length, ids.length)));
+      for (int idx = size - 1; idx >= 0; --idx) {
+        if (nowNanos - startNanos[idx] >= this.thresholdNanos) {
+          if (ids[idx] > existingOpenSteps.lastReportedId) {
+            existingOpenSteps.lastReportedId = ids[idx];
+            reports.add(this.report(thread, Arrays.copyOf(names, idx + 1), Arrays.copyOf(startNanos, idx + 1),
+              nowNanos));
+          }
+          break;
+        }
+      }
+    }
+    return reports;
+  }
+
+  private Path report(final Thread thread,
+                      final String[] names,
+                      final long[] startNanos,
+                      final long nowNanos) {
+    final StackTraceElement[] stackTrace = thread.getStackTrace();
+    final Map<Thread, StackTraceElement[]> allStackTraces = this.allThreads ? Thread.getAllStackTraces() : null;
+    final Path file = this.dir.resolve("hung-step-" + thread.getId() + "-" + System.currentTimeMillis() + ".txt");
+    final String lineSeparator = System.lineSeparator();
+    try {
+      Files.createDirectories(this.dir);
+      try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        writer.write("Thread: " + thread.getName() + lineSeparator);
+        writer.write("Reason: Step is running longer than " + Duration.ofNanos(this.thresholdNanos) + lineSeparator);
+        writer.write("Open steps:" + lineSeparator);
+        for (int idx = 0; idx < names.length; ++idx) {
+          writer.write("  " + Duration.ofNanos(nowNanos - startNanos[idx]) + " " + names[idx] + lineSeparator);
+        }
+        writer.write("Stack trace:" + lineSeparator);
+        writeStackTrace(writer, stackTrace);
+        if (allStackTraces != null) {
+          for (final Map.Entry<Thread, StackTraceElement[]> entry : allStackTraces.entrySet()) {
+            if (entry.getKey() != thread) {
+              final Thread otherThread = entry.getKey();
+              writer.write("Thread \"" + otherThread.getName() + "\" " + otherThread.getState() + ":" + lineSeparator);
+              writeStackTrace(writer, entry.getValue());
+            }
+          }
+        }
+      }
+    } catch (final IOException ex) {
+      throw new XtepsException("Cannot write hung step report " + file, ex);
+    }
+    return file;
+  }
+
+  private static void writeStackTrace(final Writer writer,
+                                      final StackTraceElement[] stackTrace) throws IOException {
+    for (final StackTraceElement element : stackTrace) {
+      writer.write("  at " + element + System.lineSeparator());
+    }
+  }
+
+  @Override
+  public final void stepStarted(final Map<String, ?> artifacts) {
+    final OpenSteps currentOpenSteps = this.openSteps.get();
+    currentOpenSteps.push(Utils.getNameWithKeyword(Utils.getName(artifacts), Utils.getKeyword(artifacts), "Step"));
+  }
+
+  @Override
+  public final void stepPassed() {
+    this.openSteps.get().pop();
+  }
+
+  @Override
+  public final void stepFailed(final Throwable exception) {
+    this.openSteps.get().pop();
+  }
+
+  /**
+   * Open steps of one thread. Written only by the thread, read by the detector thread.
+   */
+  private static final class OpenSteps {
+    private final WeakReference<Thread> thread;
+    private volatile String[] names;
+    private volatile long[] startNanos;
+    private volatile long[] ids;
+    private volatile int depth;
+    private long nextId;
+    private volatile long lastReportedId;
+
+    private OpenSteps(final Thread thread) {
+      this.thread = new WeakReference<>(thread);
+      this.names = new String[16];
+      this.startNanos = new long[16];
+      this.ids = new long[16];
+      this.depth = 0;
+      this.nextId = 0L;
+      this.lastReportedId = -1L;
+    }
+
+    private void push(final String name) {
+      final int currentDepth = this.depth;
+      if (currentDepth == this.names.length) {
+        this.names = Arrays.copyOf(this.names, currentDepth * 2);
+        this.startNanos = Arrays.copyOf(this.startNanos, currentDepth * 2);
+        this.ids = Arrays.copyOf(this.ids, currentDepth * 2);
+      }
+      this.names[currentDepth] = name;
+      this.startNanos[currentDepth] = System.nanoTime();
+      this.ids[currentDepth] = this.nextId++;
+      this.depth = currentDepth + 1;
+    }
+
+    private void pop() {
+      final int currentDepth = this.depth;
+      if (currentDepth > 0) {
+        this.names[currentDepth - 1] = null;
+        this.depth = currentDepth - 1;
+      }
+    }
+  }
+}
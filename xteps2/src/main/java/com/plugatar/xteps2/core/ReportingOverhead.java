@@ -0,0 +1,311 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reporting overhead accounting. Accumulates time spent by the reporting stack (listeners, text formatter, exception
+ * handler) separately from the time of the steps themselves.
+ */
+public interface ReportingOverhead {
+
+  /**
+   * Steps component name. Time of top-level steps including the reporting overhead.
+   */
+  String STEPS = "Steps";
+
+  /**
+   * Text formatter component name.
+   */
+  String TEXT_FORMATTER = "TextFormatter";
+
+  /**
+   * Exception handler component name.
+   */
+  String EXCEPTION_HANDLER = "ExceptionHandler";
+
+  /**
+   * Returns true if the overhead is recorded. Callers may skip time measurement if false.
+   *
+   * @return true if the overhead is recorded
+   */
+  boolean isEnabled();
+
+  /**
+   * Records given time for given component.
+   *
+   * @param component the component name
+   * @param nanos     the time in nanoseconds
+   * @throws XtepsException if {@code component} arg is null
+   */
+  void record(String component,
+              long nanos);
+
+  /**
+   * Returns histograms snapshot by component names.
+   *
+   * @return histograms snapshot by component names
+   */
+  Map<String, Histogram> histograms();
+
+  /**
+   * Returns human-readable summary.
+   *
+   * @return human-readable summary
+   */
+  String summary();
+
+  /**
+   * Histogram of the time values. Values are counted in power of two nanoseconds buckets.
+   */
+  final class Histogram {
+    private static final int BUCKETS_COUNT = Long.SIZE;
+    private final LongAdder count;
+    private final LongAdder totalNanos;
+    private final AtomicLong maxNanos;
+    private final LongAdder[] buckets;
+
+    /**
+     * Ctor.
+     */
+    public Histogram() {
+      this.count = new LongAdder();
+      this.totalNanos = new LongAdder();
+      this.maxNanos = new AtomicLong();
+      this.buckets = new LongAdder[BUCKETS_COUNT];
+      for (int idx = 0; idx < BUCKETS_COUNT; ++idx) {
+        this.buckets[idx] = new LongAdder();
+      }
+    }
+
+    private Histogram(final Histogram origin) {
+      this();
+      this.count.add(origin.count.sum());
+      this.totalNanos.add(origin.totalNanos.sum());
+      this.maxNanos.set(origin.maxNanos.get());
+      for (int idx = 0; idx < BUCKETS_COUNT; ++idx) {
+        this.buckets[idx].add(origin.buckets[idx].sum());
+      }
+    }
+
+    /**
+     * Adds given value.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void add(final long nanos) {
+      final long value = Math.max(nanos, 0L);
+      this.count.increment();
+      this.totalNanos.add(value);
+      this.buckets[BUCKETS_COUNT - Long.numberOfLeadingZeros(value) - (value == 0L ? 0 : 1)].increment();
+      long max = this.maxNanos.get();
+      while (value > max && !this.maxNanos.compareAndSet(max, value)) {
+        max = this.maxNanos.get();
+      }
+    }
+
+    /**
+     * Returns values count.
+     *
+     * @return values count
+     */
+    public long count() {
+      return this.count.sum();
+    }
+
+    /**
+     * Returns sum of values in nanoseconds.
+     *
+     * @return sum of values in nanoseconds
+     */
+    public long totalNanos() {
+      return this.totalNanos.sum();
+    }
+
+    /**
+     * Returns max value in nanoseconds.
+     *
+     * @return max value in nanoseconds
+     */
+    public long maxNanos() {
+      return this.maxNanos.get();
+    }
+
+    /**
+     * Returns buckets counts. Bucket with index {@code i} contains values from {@code 2^i} (inclusive)
+     * to {@code 2^(i+1)} (exclusive) nanoseconds, bucket with index 0 also contains zero values.
+     *
+     * @return buckets counts
+     */
+    public long[] bucketCounts() {
+      final long[] counts = new long[BUCKETS_COUNT];
+      for (int idx = 0; idx < BUCKETS_COUNT; ++idx) {
+        counts[idx] = this.buckets[idx].sum();
+      }
+      return counts;
+    }
+
+    /**
+     * Returns upper bound of given percentile in nanoseconds.
+     *
+     * @param percentile the percentile in the range (0, 100]
+     * @return upper bound of given percentile in nanoseconds or 0 if histogram is empty
+     * @throws XtepsException if {@code percentile} arg is not in the range (0, 100]
+     */
+    public long percentileNanos(final double percentile) {
+      if (!(percentile > 0 && percentile <= 100)) {
+        throw new XtepsException("percentile arg is not in the range (0, 100]");
+      }
+      final long[] counts = this.bucketCounts();
+      long total = 0L;
+      for (final long bucketCount : counts) {
+        total += bucketCount;
+      }
+      if (total == 0L) {
+        return 0L;
+      }
+      final long threshold = (long) Math.ceil(total * percentile / 100);
+      long accumulated = 0L;
+      for (int idx = 0; idx < BUCKETS_COUNT; ++idx) {
+        accumulated += counts[idx];
+        if (accumulated >= threshold) {
+          return idx == BUCKETS_COUNT - 1 ? Long.MAX_VALUE : Math.min((1L << (idx + 1)) - 1, this.maxNanos());
+        }
+      }
+      return this.maxNanos();
+    }
+  }
+
+  /**
+   * Default {@code ReportingOverhead} implementation.
+   */
+  class Default implements ReportingOverhead {
+    private final Map<String, Histogram> histograms;
+
+    /**
+     * Ctor.
+     */
+    public Default() {
+      this.histograms = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public final boolean isEnabled() {
+      return true;
+    }
+
+    @Override
+    public final void record(final String component,
+                             final long nanos) {
+      if (component == null) { throw new XtepsException("component arg is null"); }
+      Histogram histogram = this.histograms.get(component);
+      if (histogram == null) {
+        histogram = this.histograms.computeIfAbsent(component, key -> new Histogram());
+      }
+      histogram.add(nanos);
+    }
+
+    @Override
+    public final Map<String, Histogram> histograms() {
+      final Map<String, Histogram> snapshot = new LinkedHashMap<>();
+      this.histograms.forEach((component, histogram) -> snapshot.put(component, new Histogram(histogram)));
+      return Collections.unmodifiableMap(snapshot);
+    }
+
+    @Override
+    public final String summary() {
+      final Map<String, Histogram> snapshot = this.histograms();
+      final StringBuilder sb = new StringBuilder("Xteps2 reporting overhead:");
+      final Histogram steps = snapshot.get(STEPS);
+      if (steps != null) {
+        sb.append(System.lineSeparator()).append("  ").append(STEPS).append(": ");
+        appendStats(sb, steps);
+      }
+      long overheadNanos = 0L;
+      for (final Map.Entry<String, Histogram> entry : snapshot.entrySet()) {
+        if (!STEPS.equals(entry.getKey())) {
+          final Histogram histogram = entry.getValue();
+          sb.append(System.lineSeparator()).append("  ").append(entry.getKey()).append(": ");
+          appendStats(sb, histogram);
+          if (steps != null && steps.totalNanos() != 0L) {
+            sb.append(", ")
+              .append(String.format(Locale.ROOT, "%.2f", histogram.totalNanos() * 100.0 / steps.totalNanos()))
+              .append("% of steps time");
+          }
+          if (!TEXT_FORMATTER.equals(entry.getKey())) {
+            overheadNanos += histogram.totalNanos();
+          }
+        }
+      }
+      sb.append(System.lineSeparator()).append("  Listeners and exception handler total: ")
+        .append(millis(overheadNanos));
+      return sb.toString();
+    }
+
+    private static void appendStats(final StringBuilder sb,
+                                    final Histogram histogram) {
+      sb.append("count ").append(histogram.count())
+        .append(", total ").append(millis(histogram.totalNanos()))
+        .append(", p50 ").append(millis(histogram.percentileNanos(50)))
+        .append(", p99 ").append(millis(histogram.percentileNanos(99)))
+        .append(", max ").append(millis(histogram.maxNanos()));
+    }
+
+    private static String millis(final long nanos) {
+      return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000.0);
+    }
+  }
+
+  /**
+   * Fake {@code ReportingOverhead} implementation.
+   */
+  class Fake implements ReportingOverhead {
+
+    /**
+     * Ctor.
+     */
+    public Fake() {
+    }
+
+    @Override
+    public final boolean isEnabled() {
+      return false;
+    }
+
+    @Override
+    public final void record(final String component,
+                             final long nanos) {
+      if (component == null) { throw new XtepsException("component arg is null"); }
+    }
+
+    @Override
+    public final Map<String, Histogram> histograms() {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public final String summary() {
+      return "Xteps2 reporting overhead:";
+    }
+  }
+}
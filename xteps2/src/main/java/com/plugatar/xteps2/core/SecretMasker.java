@@ -0,0 +1,490 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import com.plugatar.xteps2.Artifacts;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Secret masker.
+ */
+public interface SecretMasker {
+
+  /**
+   * Returns given text with masked secrets.
+   *
+   * @param text the text
+   * @return text with masked secrets or the same text if it doesn't contain secrets
+   * @throws XtepsException if {@code text} arg is null
+   */
+  String maskText(String text);
+
+  /**
+   * Returns masked parameter value.
+   *
+   * @param name  the parameter name
+   * @param value the parameter value
+   * @return masked parameter value or the same value if it doesn't contain secrets
+   * @throws XtepsException if {@code name} arg is null
+   */
+  Object maskParam(String name,
+                   Object value);
+
+  /**
+   * Returns given step artifacts with masked name, description and params.
+   *
+   * @param artifacts the step artifacts
+   * @return step artifacts copy with masked secrets or the same artifacts if they don't contain secrets
+   * @throws XtepsException if {@code artifacts} arg is null
+   */
+  default Map<String, ?> maskArtifacts(final Map<String, ?> artifacts) {
+    if (artifacts == null) { throw new XtepsException("artifacts arg is null"); }
+    Map<String, Object> copy = null;
+    final String nameArtifact = Artifacts.nameArtifact();
+    final Object name = artifacts.get(nameArtifact);
+    if (name instanceof String) {
+      final String maskedName = this.maskText((String) name);
+      if (maskedName != name) {
+        copy = new HashMap<>(artifacts);
+        copy.put(nameArtifact, maskedName);
+      }
+    }
+    final String descArtifact = Artifacts.descArtifact();
+    final Object desc = artifacts.get(descArtifact);
+    if (desc instanceof String) {
+      final String maskedDesc = this.maskText((String) desc);
+      if (maskedDesc != desc) {
+        if (copy == null) {
+          copy = new HashMap<>(artifacts);
+        }
+        copy.put(descArtifact, maskedDesc);
+      }
+    }
+    final String paramsArtifact = Artifacts.paramsArtifact();
+    final Object params = artifacts.get(paramsArtifact);
+    if (params instanceof Map && !((Map<?, ?>) params).isEmpty()) {
+      Map<Object, Object> paramsCopy = null;
+      for (final Map.Entry<?, ?> entry : ((Map<?, ?>) params).entrySet()) {
+        final Object paramName = entry.getKey();
+        if (paramName instanceof String) {
+          final Object value = entry.getValue();
+          final Object maskedValue = this.maskParam((String) paramName, value);
+          if (maskedValue != value) {
+            if (paramsCopy == null) {
+              paramsCopy = new LinkedHashMap<>((Map<?, ?>) params);
+            }
+            paramsCopy.put(paramName, maskedValue);
+          }
+        }
+      }
+      if (paramsCopy != null) {
+        if (copy == null) {
+          copy = new HashMap<>(artifacts);
+        }
+        copy.put(paramsArtifact, paramsCopy);
+      }
+    }
+    return copy == null ? artifacts : copy;
+    }
+
+  /**
+   * Default {@code SecretMasker} implementation. All secret keys and secret values are compiled into one
+   * Aho-Corasick automaton, so any text is scanned in a single pass regardless of the number of secrets.
+   * <p>
+   * Secret keys are case-insensitive. The value of the parameter with a secret key name is masked completely.
+   * In a text the value following a secret key and {@code =} or {@code :} char is masked up to the first whitespace,
+   * quote, {@code ,}, {@code ;}, {@code &} char or closing square or curly bracket, a quoted value is masked up to the
+   * closing quote. Secret values are case-sensitive and masked everywhere.
+   * <p>
+   * {@link CharSequence} and {@code char[]} parameter values are checked via their text. Other parameter values are
+   * checked via their string representation ({@link Arrays#deepToString(Object[])} for object arrays) only if objects
+   * scanning is enabled, because it calls {@code toString()} of each parameter value on each step. A value is replaced
+   * with the masked string only if it contains secrets, otherwise the origin value is returned.
+   */
+  class Default implements SecretMasker {
+    private static final byte KEY = 1;
+    private static final byte VALUE = 2;
+    private static final int[] NO_PATTERNS = new int[0];
+    private final String mask;
+    private final char[][] transitionChars;
+    private final int[][] transitionStates;
+    private final int[] failStates;
+    private final int[][] outputPatterns;
+    private final int[] dictSuffixStates;
+    private final String[] patterns;
+    private final byte[] patternKinds;
+    private final boolean scanObjects;
+
+    /**
+     * Ctor.
+     *
+     * @param secretKeys   the secret keys (parameter names and text keys)
+     * @param secretValues the secret values
+     * @param mask         the mask
+     * @throws XtepsException if {@code secretKeys} arg is null
+     *                        or if {@code secretValues} arg is null
+     *                        or if {@code mask} arg is null
+     *                        or if one of secret keys or secret values is null
+     */
+    public Default(final List<String> secretKeys,
+                   final List<String> secretValues,
+                   final String mask) {
+      this(secretKeys, secretValues, mask, false);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param secretKeys   the secret keys (parameter names and text keys)
+     * @param secretValues the secret values
+     * @param mask         the mask
+     * @param scanObjects  the objects scanning flag, if true then parameter values other than {@link CharSequence}
+     *                     and {@code char[]} are checked via their string representation
+     * @throws XtepsException if {@code secretKeys} arg is null
+     *                        or if {@code secretValues} arg is null
+     *                        or if {@code mask} arg is null
+     *                        or if one of secret keys or secret values is null
+     */
+    public Default(final List<String> secretKeys,
+                   final List<String> secretValues,
+                   final String mask,
+                   final boolean scanObjects) {
+      if (secretKeys == null) { throw new XtepsException("secretKeys arg is null"); }
+      if (secretValues == null) { throw new XtepsException("secretValues arg is null"); }
+      if (mask == null) { throw new XtepsException("mask arg is null"); }
+      this.mask = mask;
+      this.scanObjects = scanObjects;
+      final List<String> patternList = new ArrayList<>();
+      final List<Byte> kindList = new ArrayList<>();
+      for (final String key : secretKeys) {
+        if (key == null) { throw new XtepsException("One of secret keys is null"); }
+        if (!key.isEmpty()) {
+          patternList.add(key);
+          kindList.add(KEY);
+        }
+      }
+      for (final String value : secretValues) {
+        if (value == null) { throw new XtepsException("One of secret values is null"); }
+        if (!value.isEmpty()) {
+          patternList.add(value);
+          kindList.add(VALUE);
+        }
+      }
+      this.patterns = patternList.toArray(new String[0]);
+      this.patternKinds = new byte[kindList.size()];
+      for (int idx = 0; idx < this.patternKinds.length; ++idx) {
+        this.patternKinds[idx] = kindList.get(idx);
+      }
+      /* Trie */
+      final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+      final List<int[]> outputs = new ArrayList<>();
+      trie.add(new TreeMap<>());
+      outputs.add(NO_PATTERNS);
+      for (int patternIdx = 0; patternIdx < this.patterns.length; ++patternIdx) {
+        final String pattern = this.patterns[patternIdx];
+        int state = 0;
+        for (int charIdx = 0; charIdx < pattern.length(); ++charIdx) {
+          final char ch = Character.toLowerCase(pattern.charAt(charIdx));
+          Integer next = trie.get(state).get(ch);
+          if (next == null) {
+            next = trie.size();
+            trie.add(new TreeMap<>());
+            outputs.add(NO_PATTERNS);
+            trie.get(state).put(ch, next);
+          }
+          state = next;
+        }
+        /* Keys and values share the lowercase trie, so one state may be the end of several patterns */
+        final int[] statePatterns = outputs.get(state);
+        if (!this.containsPattern(statePatterns, patternIdx)) {
+          final int[] newStatePatterns = Arrays.copyOf(statePatterns, statePatterns.length + 1);
+          newStatePatterns[statePatterns.length] = patternIdx;
+          outputs.set(state, newStatePatterns);
+        }
+      }
+      final int statesCount = trie.size();
+      this.transitionChars = new char[statesCount][];
+      this.transitionStates = new int[statesCount][];
+      this.outputPatterns = new int[statesCount][];
+      for (int state = 0; state < statesCount; ++state) {
+        final TreeMap<Character, Integer> transitions = trie.get(state);
+        final char[] chars = new char[transitions.size()];
+        final int[] states = new int[transitions.size()];
+        int idx = 0;
+        for (final Map.Entry<Character, Integer> entry : transitions.entrySet()) {
+          chars[idx] = entry.getKey();
+          states[idx] = entry.getValue();
+          ++idx;
+        }
+        this.transitionChars[state] = chars;
+        this.transitionStates[state] = states;
+        this.outputPatterns[state] = outputs.get(state);
+      }
+      /* Failure and dictionary suffix links */
+      this.failStates = new int[statesCount];
+      this.dictSuffixStates = new int[statesCount];
+      Arrays.fill(this.dictSuffixStates, -1);
+      final Queue<Integer> queue = new ArrayDeque<>();
+      for (final int child : this.transitionStates[0]) {
+        queue.add(child);
+      }
+      while (!queue.isEmpty()) {
+        final int state = queue.remove();
+        final char[] chars = this.transitionChars[state];
+        final int[] states = this.transitionStates[state];
+        for (int idx = 0; idx < chars.length; ++idx) {
+          final int child = states[idx];
+          int fail = this.failStates[state];
+          int next;
+          while ((next = this.transition(fail, chars[idx])) == -1 && fail != 0) {
+            fail = this.failStates[fail];
+          }
+          this.failStates[child] = next == -1 || next == child ? 0 : next;
+          final int childFail = this.failStates[child];
+          this.dictSuffixStates[child] = this.outputPatterns[childFail].length != 0
+            ? childFail
+            : this.dictSuffixStates[childFail];
+          queue.add(child);
+        }
+      }
+    }
+
+    private boolean containsPattern(final int[] statePatterns,
+                                    final int patternIdx) {
+      final String pattern = this.patterns[patternIdx];
+      final byte kind = this.patternKinds[patternIdx];
+      for (final int statePatternIdx : statePatterns) {
+        if (this.patternKinds[statePatternIdx] == kind && (kind == KEY
+          ? this.patterns[statePatternIdx].equalsIgnoreCase(pattern)
+          : this.patterns[statePatternIdx].equals(pattern))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private int transition(final int state,
+                           final char ch) {
+      final int idx = Arrays.binarySearch(this.transitionChars[state], ch);
+      return idx < 0 ? -1 : this.transitionStates[state][idx];
+    }
+
+    @Override
+    public final String maskText(final String text) {
+      if (text == null) { throw new XtepsException("text arg is null"); }
+      if (text.isEmpty() || this.patterns.length == 0) {
+        return text;
+      }
+      int[] ranges = null;
+      int rangesSize = 0;
+      int state = 0;
+      final int length = text.length();
+      for (int charIdx = 0; charIdx < length; ++charIdx) {
+        final char ch = Character.toLowerCase(text.charAt(charIdx));
+        int next;
+        while ((next = this.transition(state, ch)) == -1 && state != 0) {
+          state = this.failStates[state];
+        }
+        state = next == -1 ? 0 : next;
+        for (int outState = this.outputPatterns[state].length != 0 ? state : this.dictSuffixStates[state];
+             outState != -1;
+             outState = this.dictSuffixStates[outState]) {
+          for (final int patternIdx : this.outputPatterns[outState]) {
+            final String pattern = this.patterns[patternIdx];
+            final int start = charIdx - pattern.length() + 1;
+            final int end = charIdx + 1;
+            final int rangeStart;
+            final int rangeEnd;
+            if (this.patternKinds[patternIdx] == VALUE) {
+              if (!text.regionMatches(start, pattern, 0, pattern.length())) {
+                continue;
+              }
+              rangeStart = start;
+              rangeEnd = end;
+            } else {
+              if (start > 0 && Character.isLetterOrDigit(text.charAt(start - 1))) {
+                continue;
+              }
+              int valueStart = skipSpaces(text, end);
+              if (valueStart == length || (text.charAt(valueStart) != '=' && text.charAt(valueStart) != ':')) {
+                continue;
+              }
+              valueStart = skipSpaces(text, valueStart + 1);
+              int valueEnd;
+              if (valueStart < length && isQuote(text.charAt(valueStart))) {
+                final char quote = text.charAt(valueStart++);
+                valueEnd = valueStart;
+                while (valueEnd < length && text.charAt(valueEnd) != quote) {
+                  ++valueEnd;
+                }
+              } else {
+                valueEnd = valueStart;
+                while (valueEnd < length && !isValueDelimiter(text.charAt(valueEnd))) {
+                  ++valueEnd;
+                }
+              }
+              if (valueEnd == valueStart) {
+                continue;
+              }
+              rangeStart = valueStart;
+              rangeEnd = valueEnd;
+            }
+            if (ranges == null) {
+              ranges = new int[8];
+            } else if (rangesSize == ranges.length) {
+              ranges = Arrays.copyOf(ranges, rangesSize * 2);
+            }
+            ranges[rangesSize++] = rangeStart;
+            ranges[rangesSize++] = rangeEnd;
+          }
+        }
+      }
+      return ranges == null ? text : this.applyMask(text, ranges, rangesSize);
+    }
+
+    private String applyMask(final String text,
+                             final int[] ranges,
+                             final int rangesSize) {
+      final long[] sortedRanges = new long[rangesSize / 2];
+      for (int idx = 0; idx < sortedRanges.length; ++idx) {
+        sortedRanges[idx] = ((long) ranges[idx * 2] << 32) | ranges[idx * 2 + 1];
+      }
+      Arrays.sort(sortedRanges);
+      final StringBuilder sb = new StringBuilder(text.length());
+      int position = 0;
+      for (final long range : sortedRanges) {
+        final int start = (int) (range >>> 32);
+        final int end = (int) range;
+        if (end <= position) {
+          continue;
+        }
+        if (start >= position) {
+          sb.append(text, position, start).append(this.mask);
+        }
+        position = end;
+      }
+      return sb.append(text, position, text.length()).toString();
+    }
+
+    private static int skipSpaces(final String text,
+                                  final int from) {
+      int idx = from;
+      while (idx < text.length() && text.charAt(idx) == ' ') {
+        ++idx;
+      }
+      return idx;
+    }
+
+    private static boolean isValueDelimiter(final char ch) {
+      return Character.isWhitespace(ch) || ch == ',' || ch == ';' || ch == '&' || ch == ']' || ch == '}' ||
+        isQuote(ch);
+    }
+
+    private static boolean isQuote(final char ch) {
+      return ch == '"' || ch == '\'';
+    }
+
+    @Override
+    public final Object maskParam(final String name,
+                                  final Object value) {
+      if (name == null) { throw new XtepsException("name arg is null"); }
+      if (this.isSecretKey(name)) {
+        return this.mask;
+      }
+      if (value == null || this.patterns.length == 0) {
+        return value;
+      }
+      if (value instanceof String) {
+        return this.maskText((String) value);
+      }
+      final String text;
+      if (value instanceof CharSequence) {
+        text = value.toString();
+      } else if (value instanceof char[]) {
+        text = new String((char[]) value);
+      } else if (!this.scanObjects) {
+        return value;
+      } else {
+        try {
+          text = value instanceof Object[] ? Arrays.deepToString((Object[]) value) : value.toString();
+        } catch (final Exception ex) {
+          return value;
+        }
+      }
+      if (text == null) {
+        return value;
+      }
+      final String maskedText = this.maskText(text);
+      return maskedText == text ? value : maskedText;
+    }
+
+    private boolean isSecretKey(final String name) {
+      int state = 0;
+      for (int charIdx = 0; charIdx < name.length(); ++charIdx) {
+        state = this.transition(state, Character.toLowerCase(name.charAt(charIdx)));
+        if (state == -1) {
+          return false;
+        }
+      }
+      for (final int patternIdx : this.outputPatterns[state]) {
+        if (this.patternKinds[patternIdx] == KEY) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Fake {@code SecretMasker} implementation.
+   */
+  class Fake implements SecretMasker {
+
+    /**
+     * Ctor.
+     */
+    public Fake() {
+    }
+
+    @Override
+    public final String maskText(final String text) {
+      if (text == null) { throw new XtepsException("text arg is null"); }
+      return text;
+    }
+
+    @Override
+    public final Object maskParam(final String name,
+                                  final Object value) {
+      if (name == null) { throw new XtepsException("name arg is null"); }
+      return value;
+    }
+
+    @Override
+    public final Map<String, ?> maskArtifacts(final Map<String, ?> artifacts) {
+      if (artifacts == null) { throw new XtepsException("artifacts arg is null"); }
+      return artifacts;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+/**
+ * Shared step error. Thrown in the thread waiting for the shared step if the step failed in the owner thread, the
+ * copy of the owner exception is the cause.
+ */
+public class SharedStepError extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Ctor.
+   */
+  public SharedStepError() {
+    super();
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param message the message
+   */
+  public SharedStepError(final String message) {
+    super(message);
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param cause the cause
+   */
+  public SharedStepError(final Throwable cause) {
+    super(cause);
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param message the message
+   * @param cause   the cause
+   */
+  public SharedStepError(final String message,
+                          final Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Single-flight registry. Deduplicates concurrent executions with the same key: the first thread owns the flight
+ * and executes the action, other threads wait for the owner result. The flight is removed when the owner completes
+ * it, next calls with the same key start a new flight. The owner exception is never shared: waiters get their own
+ * copies of it.
+ */
+public class SingleFlight {
+  private final ConcurrentMap<String, Flight> flights;
+
+  /**
+   * Ctor.
+   */
+  public SingleFlight() {
+    this.flights = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Joins the flight with given key or starts a new flight owned by the current thread.
+   *
+   * @param key the key
+   * @return flight
+   * @throws XtepsException if {@code key} arg is null
+   */
+  public final Flight join(final String key) {
+    if (key == null) { throw new XtepsException("key arg is null"); }
+    final Thread currentThread = Thread.currentThread();
+    final Flight newFlight = new Flight(this.flights, key, currentThread);
+    final Flight existingFlight = this.flights.putIfAbsent(key, newFlight);
+    if (existingFlight == null) {
+      return newFlight;
+    }
+    /* the flight owner repeats the same key in the nested step, the nested step is executed independently */
+    return existingFlight.owner == currentThread ? new Flight(null, key, currentThread) : existingFlight;
+  }
+
+  /**
+   * Returns the number of active flights.
+   *
+   * @return the number of active flights
+   */
+  public final int size() {
+    return this.flights.size();
+  }
+
+  /**
+   * Flight.
+   */
+  public static final class Flight {
+    private final ConcurrentMap<String, Flight> flights;
+    private final String key;
+    private final Thread owner;
+    private final CountDownLatch completion;
+    private volatile Object result;
+    private volatile Snapshot exception;
+
+    private Flight(final ConcurrentMap<String, Flight> flights,
+                   final String key,
+                   final Thread owner) {
+      this.flights = flights;
+      this.key = key;
+      this.owner = owner;
+      this.completion = new CountDownLatch(1);
+      this.result = null;
+      this.exception = null;
+    }
+
+    /**
+     * Returns the flight owner thread.
+     *
+     * @return the flight owner thread
+     */
+    public Thread owner() {
+      return this.owner;
+    }
+
+    /**
+     * Returns true if the current thread owns this flight.
+     *
+     * @return true if the current thread owns this flight
+     */
+    public boolean isOwner() {
+      return Thread.currentThread() == this.owner;
+    }
+
+    /**
+     * Completes this flight with given result. Should be called by the owner.
+     *
+     * @param result the result
+     */
+    public void complete(final Object result) {
+      this.result = result;
+      this.finish();
+    }
+
+    /**
+     * Completes this flight with given exception. Should be called by the owner. The exception is copied before
+     * the flight is completed, so next changes of the exception are not visible to waiters.
+     *
+     * @param exception the exception
+     * @throws XtepsException if {@code exception} arg is null
+     */
+    public void fail(final Throwable exception) {
+      if (exception == null) { throw new XtepsException("exception arg is null"); }
+      this.exception = Snapshot.of(exception, new IdentityHashMap<>());
+      this.finish();
+    }
+
+    /**
+     * Waits for the owner result. The owner exception is not rethrown, each waiter gets its own error caused by its
+     * own copy of the owner exception, so exceptions are not shared between threads.
+     *
+     * @return the owner result
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     * @throws SharedStepError      if the owner failed, the copy of the owner exception is the cause
+     */
+    public Object await() throws InterruptedException {
+      this.completion.await();
+      final Snapshot ownerException = this.exception;
+      if (ownerException != null) {
+        throw new SharedStepError("Shared step " + this.key + " failed in " + this.owner.getName() + " thread",
+          ownerException.copy(new IdentityHashMap<>()));
+      }
+      return this.result;
+    }
+
+    private void finish() {
+      if (this.flights != null) {
+        this.flights.remove(this.key, this);
+      }
+      this.completion.countDown();
+    }
+  }
+
+  /**
+   * Immutable snapshot of the owner exception graph: types, messages, stack traces, causes and suppressed exceptions.
+   */
+  private static final class Snapshot {
+    private final String className;
+    private final String message;
+    private final StackTraceElement[] stackTrace;
+    private Snapshot cause;
+    private Snapshot[] suppressed;
+
+    private Snapshot(final Throwable exception) {
+      this.className = exception.getClass().getName();
+      this.message = exception.getMessage();
+      this.stackTrace = exception.getStackTrace();
+      this.cause = null;
+      this.suppressed = null;
+    }
+
+    private static Snapshot of(final Throwable exception,
+                               final Map<Throwable, Snapshot> snapshots) {
+      Snapshot snapshot = snapshots.get(exception);
+      if (snapshot == null) {
+        snapshot = new Snapshot(exception);
+        snapshots.put(exception, snapshot);
+        final Throwable cause = exception.getCause();
+        if (cause != null) {
+          snapshot.cause = of(cause, snapshots);
+        }
+        final Throwable[] suppressed = exception.getSuppressed();
+        snapshot.suppressed = new Snapshot[suppressed.length];
+        for (int idx = 0; idx < suppressed.length; ++idx) {
+          snapshot.suppressed[idx] = of(suppressed[idx], snapshots);
+        }
+      }
+      return snapshot;
+    }
+
+    private Throwable copy(final Map<Snapshot, Throwable> copies) {
+      Throwable copy = copies.get(this);
+      if (copy == null) {
+        copy = new OwnerException(this.className, this.message);
+        copy.setStackTrace(this.stackTrace);
+        copies.put(this, copy);
+        if (this.cause != null) {
+          final Throwable causeCopy = this.cause.copy(copies);
+          if (causeCopy != copy) {
+            copy.initCause(causeCopy);
+          }
+        }
+        for (final Snapshot suppressedSnapshot : this.suppressed) {
+          final Throwable suppressedCopy = suppressedSnapshot.copy(copies);
+          if (suppressedCopy != copy) {
+            copy.addSuppressed(suppressedCopy);
+          }
+        }
+      }
+      return copy;
+    }
+  }
+
+  /**
+   * Copy of the owner exception. Keeps the owner exception type name in the string representation.
+   */
+  private static final class OwnerException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final String className;
+
+    private OwnerException(final String className,
+                           final String message) {
+      super(message);
+      this.className = className;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+
+    @Override
+    public String toString() {
+      final String message = this.getLocalizedMessage();
+      return message == null ? this.className : this.className + ": " + message;
+    }
+  }
+}
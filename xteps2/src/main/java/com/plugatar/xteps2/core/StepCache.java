@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of step results. Entries expire after their TTL, the least recently used entry is evicted when the
+ * cache is full. Keys are compared by {@code equals} and {@code hashCode}, the string representation of the key is
+ * reported as the {@code "cache key"} step param of the cache hit.
+ */
+public class StepCache {
+  private final LinkedHashMap<Object, Entry> entries;
+
+  /**
+   * Ctor.
+   *
+   * @param maxSize the max number of entries
+   * @throws XtepsException if {@code maxSize} arg is not positive
+   */
+  public StepCache(final int maxSize) {
+    if (maxSize <= 0) { throw new XtepsException("maxSize arg is not positive"); }
+    this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Object, StepCache.Entry> eldest) {
+        return this.size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns not expired entry by given key.
+   *
+   * @param key the key
+   * @return entry or null if there is no such entry
+   * @throws XtepsException if {@code key} arg is null
+   */
+  public final synchronized Entry get(final Object key) {
+    if (key == null) { throw new XtepsException("key arg is null"); }
+    final Entry entry = this.entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.isExpired(System.nanoTime())) {
+      this.entries.remove(key);
+      return null;
+    }
+    return entry;
+  }
+
+  /**
+   * Puts given value to the cache.
+   *
+   * @param key   the key
+   * @param value the value
+   * @param ttl   the time to live, zero means the entry doesn't expire
+   * @throws XtepsException if {@code key} arg is null
+   *                        or if {@code ttl} arg is null
+   *                        or if {@code ttl} arg is negative
+   */
+  public final synchronized void put(final Object key,
+                                     final Object value,
+                                     final Duration ttl) {
+    if (key == null) { throw new XtepsException("key arg is null"); }
+    if (ttl == null) { throw new XtepsException("ttl arg is null"); }
+    if (ttl.isNegative()) { throw new XtepsException("ttl arg is negative"); }
+    this.entries.put(key, new Entry(key, value, System.nanoTime(), ttl.isZero() ? Long.MAX_VALUE : ttl.toNanos()));
+  }
+
+  /**
+   * Removes entry by given key.
+   *
+   * @param key the key
+   * @throws XtepsException if {@code key} arg is null
+   */
+  public final synchronized void invalidate(final Object key) {
+    if (key == null) { throw new XtepsException("key arg is null"); }
+    this.entries.remove(key);
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public final synchronized void invalidateAll() {
+    this.entries.clear();
+  }
+
+  /**
+   * Returns the number of entries, including expired but not removed yet.
+   *
+   * @return the number of entries
+   */
+  public final synchronized int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Cache entry.
+   */
+  public static final class Entry {
+    private final Object key;
+    private final Object value;
+    private final long createdNanos;
+    private final long ttlNanos;
+
+    private Entry(final Object key,
+                  final Object value,
+                  final long createdNanos,
+                  final long ttlNanos) {
+      this.key = key;
+      this.value = value;
+      this.createdNanos = createdNanos;
+      this.ttlNanos = ttlNanos;
+    }
+
+    /**
+     * Returns cached value.
+     *
+     * @return cached value
+     */
+    public Object value() {
+      return this.value;
+    }
+
+    /**
+     * Returns entry age.
+     *
+     * @return entry age
+     */
+    public Duration age() {
+      return Duration.ofNanos(System.nanoTime() - this.createdNanos);
+    }
+
+    /**
+     * Returns step params of the cache hit: the string representation of the cache key and the entry age.
+     *
+     * @return step params
+     */
+    public Map<String, Object> hitParams() {
+      final Map<String, Object> params = new LinkedHashMap<>();
+      params.put("cache key", String.valueOf(this.key));
+      params.put("cache age", this.age());
+      return params;
+    }
+
+    private boolean isExpired(final long nowNanos) {
+      return nowNanos - this.createdNanos >= this.ttlNanos;
+    }
+  }
+}
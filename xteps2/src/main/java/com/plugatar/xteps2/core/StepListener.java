@@ -19,9 +19,17 @@ import com.plugatar.xteps2.Artifacts;
 import com.plugatar.xteps2.Keywords;
 import com.plugatar.xteps2.XtepsBase;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Step listener.
@@ -47,6 +55,18 @@ public interface StepListener {
    */
   void stepFailed(Throwable exception);
 
+  /**
+   * Invoked each time a step fails with the exception that has already been passed to {@link #stepFailed(Throwable)}
+   * for the nested step. Invoked instead of {@link #stepFailed(Throwable)} only if the propagated failures mode is
+   * enabled. Implementations may skip expensive exception details processing and refer to the nested step.
+   * Delegates to {@link #stepFailed(Throwable)} by default.
+   *
+   * @param exception the nested step exception (not null)
+   */
+  default void stepFailedByNestedStep(final Throwable exception) {
+    this.stepFailed(exception);
+  }
+
   /**
    * {@link StepListener} implementation for {@link System#out}.
    */
@@ -91,6 +111,534 @@ public interface StepListener {
     }
   }
 
+  /**
+   * {@link StepListener} decorator that isolates the origin listener. Exceptions thrown by the origin listener are
+   * contained and counted. If the share of failed or slow calls within the window reaches the max failure rate,
+   * the origin listener is bypassed for the cooldown period. Steps started while the origin listener is bypassed
+   * and all their nested steps are not reported to it at all, so the origin listener always gets balanced start and
+   * finish events. Errors thrown by the origin listener are not contained, they are propagated to the caller.
+   * Use {@link Filtering} for {@link FilteringStepListener} origin listeners to keep their filter.
+   */
+  class Isolated implements StepListener {
+    private final StepListener listener;
+    private final long latencyBudgetNanos;
+    private final double maxFailureRate;
+    private final int windowSize;
+    private final long cooldownNanos;
+    private final ThreadLocal<Deque<Boolean>> reportedSteps;
+    private final AtomicLong errorsCount;
+    private final AtomicLong slowCallsCount;
+    private final AtomicLong bypassedCallsCount;
+    private final AtomicInteger windowCalls;
+    private final AtomicInteger windowFailures;
+    private volatile long bypassedSince;
+    private volatile boolean bypassed;
+
+    /**
+     * Ctor.
+     *
+     * @param listener       the origin listener
+     * @param latencyBudget  the latency budget of one call in milliseconds
+     * @param maxFailureRate the max share of failed or slow calls within the window
+     * @param windowSize     the window size in calls
+     * @param cooldown       the cooldown period in milliseconds
+     * @throws XtepsException if {@code listener} arg is null
+     *                        or if {@code latencyBudget} arg is not positive
+     *                        or if {@code maxFailureRate} arg is not in (0, 1] range
+     *                        or if {@code windowSize} arg is not positive
+     *                        or if {@code cooldown} arg is negative
+     */
+    public Isolated(final StepListener listener,
+                    final long latencyBudget,
+                    final double maxFailureRate,
+                    final int windowSize,
+                    final long cooldown) {
+      if (listener == null) { throw new XtepsException("listener arg is null"); }
+      if (latencyBudget <= 0) { throw new XtepsException("latencyBudget arg is not positive"); }
+      if (!(maxFailureRate > 0 && maxFailureRate <= 1)) { throw new XtepsException("maxFailureRate arg is not in (0, 1] range"); }
+      if (windowSize <= 0) { throw new XtepsException("windowSize arg is not positive"); }
+      if (cooldown < 0) { throw new XtepsException("cooldown arg is negative"); }
+      this.listener = listener;
+      this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudget);
+      this.maxFailureRate = maxFailureRate;
+      this.windowSize = windowSize;
+      this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldown);
+      this.reportedSteps = ThreadLocal.withInitial(ArrayDeque::new);
+      this.errorsCount = new AtomicLong();
+      this.slowCallsCount = new AtomicLong();
+      this.bypassedCallsCount = new AtomicLong();
+      this.windowCalls = new AtomicInteger();
+      this.windowFailures = new AtomicInteger();
+      this.bypassedSince = 0L;
+      this.bypassed = false;
+    }
+
+    /**
+     * Returns origin listener.
+     *
+     * @return origin listener
+     */
+    public final StepListener listener() {
+      return this.listener;
+    }
+
+    /**
+     * Returns count of exceptions thrown by the origin listener.
+     *
+     * @return count of exceptions
+     */
+    public final long errorsCount() {
+      return this.errorsCount.get();
+    }
+
+    /**
+     * Returns count of the origin listener calls that exceeded the latency budget.
+     *
+     * @return count of slow calls
+     */
+    public final long slowCallsCount() {
+      return this.slowCallsCount.get();
+    }
+
+    /**
+     * Returns count of the origin listener calls skipped while the origin listener was bypassed.
+     *
+     * @return count of bypassed calls
+     */
+    public final long bypassedCallsCount() {
+      return this.bypassedCallsCount.get();
+    }
+
+    @Override
+    public final void stepStarted(final Map<String, ?> artifacts) {
+      final Deque<Boolean> steps = this.reportedSteps.get();
+      if (Boolean.FALSE.equals(steps.peek()) || this.isBypassed()) {
+        this.bypassedCallsCount.incrementAndGet();
+        steps.push(Boolean.FALSE);
+        return;
+      }
+      final long start = System.nanoTime();
+      boolean reported = false;
+      boolean error = false;
+      try {
+        this.listener.stepStarted(artifacts);
+        reported = true;
+      } catch (final Exception ex) {
+        error = true;
+      } finally {
+        steps.push(reported);
+      }
+      this.record(System.nanoTime() - start, error);
+    }
+
+    @Override
+    public final void stepPassed() {
+      if (this.isStepReported()) {
+        final long start = System.nanoTime();
+        boolean error = false;
+        try {
+          this.listener.stepPassed();
+        } catch (final Exception ex) {
+          error = true;
+        }
+        this.record(System.nanoTime() - start, error);
+      }
+    }
+
+    @Override
+    public final void stepFailed(final Throwable exception) {
+      if (this.isStepReported()) {
+        final long start = System.nanoTime();
+        boolean error = false;
+        try {
+          this.listener.stepFailed(exception);
+        } catch (final Exception ex) {
+          error = true;
+        }
+        this.record(System.nanoTime() - start, error);
+      }
+    }
+
+    @Override
+    public final void stepFailedByNestedStep(final Throwable exception) {
+      if (this.isStepReported()) {
+        final long start = System.nanoTime();
+        boolean error = false;
+        try {
+          this.listener.stepFailedByNestedStep(exception);
+        } catch (final Exception ex) {
+          error = true;
+        }
+        this.record(System.nanoTime() - start, error);
+      }
+    }
+
+    private boolean isStepReported() {
+      final Deque<Boolean> steps = this.reportedSteps.get();
+      if (steps.isEmpty() || steps.pop()) {
+        return true;
+      }
+      this.bypassedCallsCount.incrementAndGet();
+      return false;
+    }
+
+    private boolean isBypassed() {
+      if (this.bypassed) {
+        if (System.nanoTime() - this.bypassedSince < this.cooldownNanos) {
+          return true;
+        }
+        this.windowCalls.set(0);
+        this.windowFailures.set(0);
+        this.bypassed = false;
+      }
+      return false;
+    }
+
+    private void record(final long durationNanos,
+                        final boolean error) {
+      boolean failure = error;
+      if (error) {
+        this.errorsCount.incrementAndGet();
+      }
+      if (durationNanos > this.latencyBudgetNanos) {
+        this.slowCallsCount.incrementAndGet();
+        failure = true;
+      }
+      final int failures = failure ? this.windowFailures.incrementAndGet() : this.windowFailures.get();
+      final int calls = this.windowCalls.incrementAndGet();
+      if (calls >= this.windowSize) {
+        this.windowCalls.set(0);
+        this.windowFailures.set(0);
+        if (failures >= this.maxFailureRate * calls && !this.bypassed) {
+          this.bypassedSince = System.nanoTime();
+          this.bypassed = true;
+          System.out.println("The Xteps2 framework bypasses " + this.listener.getClass().getTypeName() +
+            " for " + TimeUnit.NANOSECONDS.toMillis(this.cooldownNanos) + " ms cause of " + failures +
+            " failed or slow calls out of " + calls);
+        }
+      }
+    }
+
+    /**
+     * {@code Isolated} decorator of the {@link FilteringStepListener} that uses the origin listener filter.
+     */
+    public static class Filtering extends Isolated implements FilteringStepListener {
+      private final FilteringStepListener filteringListener;
+
+      /**
+       * Ctor.
+       *
+       * @param listener       the origin listener
+       * @param latencyBudget  the latency budget of one call in milliseconds
+       * @param maxFailureRate the max share of failed or slow calls within the window
+       * @param windowSize     the window size in calls
+       * @param cooldown       the cooldown period in milliseconds
+       * @throws XtepsException if {@code listener} arg is null
+       *                        or if {@code latencyBudget} arg is not positive
+       *                        or if {@code maxFailureRate} arg is not in (0, 1] range
+       *                        or if {@code windowSize} arg is not positive
+       *                        or if {@code cooldown} arg is negative
+       */
+      public Filtering(final FilteringStepListener listener,
+                       final long latencyBudget,
+                       final double maxFailureRate,
+                       final int windowSize,
+                       final long cooldown) {
+        super(listener, latencyBudget, maxFailureRate, windowSize, cooldown);
+        this.filteringListener = listener;
+      }
+
+      @Override
+      public final boolean isAccepted(final Map<String, ?> artifacts,
+                                      final int depth) {
+        return this.filteringListener.isAccepted(artifacts, depth);
+      }
+    }
+  }
+
+  /**
+   * {@code StepListener} decorator that buffers step events of the current thread until the top-level step is
+   * finished and then reports them to the origin listener according to the flush policy. If the test boundaries are
+   * marked via {@link #testStarted()} and {@link #testFinished()} in the test thread, events of all top-level steps
+   * of the test are buffered until the test is finished, so the flush policy is applied to the whole test. The test
+   * boundaries are not marked by the integrations; without them the flush policy is applied to each top-level step.
+   * <p>
+   * Buffered events keep references to the origin artifacts and exceptions. If the number of buffered events reaches
+   * the limit, buffered events are reported and the rest of the top-level step is reported without buffering.
+   * Events are reported to the origin listener at flush time, so listeners that measure durations by the current time
+   * (for example, Allure listener) report buffered steps with close to zero durations.
+   * If the origin listener is a {@link FilteringStepListener}, its filter is used.
+   */
+  class Buffered implements FilteringStepListener {
+    private static final byte STARTED = 0;
+    private static final byte PASSED = 1;
+    private static final byte FAILED = 2;
+    private static final byte FAILED_BY_NESTED_STEP = 3;
+    private static final ThreadLocal<List<Buffered>> TEST_SCOPE = new ThreadLocal<>();
+    private final StepListener listener;
+    private final FlushPolicy flushPolicy;
+    private final int maxBufferedEvents;
+    private final ThreadLocal<Arena> arena;
+
+    /**
+     * Ctor.
+     *
+     * @param listener          the origin listener
+     * @param flushPolicy       the flush policy
+     * @param maxBufferedEvents the max number of buffered events of one top-level step or test
+     * @throws XtepsException if {@code listener} arg is null
+     *                        or if {@code flushPolicy} arg is null
+     *                        or if {@code maxBufferedEvents} arg is not positive
+     */
+    public Buffered(final StepListener listener,
+                    final FlushPolicy flushPolicy,
+                    final int maxBufferedEvents) {
+      if (listener == null) { throw new XtepsException("listener arg is null"); }
+      if (flushPolicy == null) { throw new XtepsException("flushPolicy arg is null"); }
+      if (maxBufferedEvents <= 0) { throw new XtepsException("maxBufferedEvents arg is not positive"); }
+      this.listener = listener;
+      this.flushPolicy = flushPolicy;
+      this.maxBufferedEvents = maxBufferedEvents;
+      this.arena = ThreadLocal.withInitial(Arena::new);
+    }
+
+    /**
+     * Returns origin listener.
+     *
+     * @return origin listener
+     */
+    public final StepListener listener() {
+      return this.listener;
+    }
+
+    /**
+     * Marks the start of the test in the current thread. Events of all top-level steps of the test are buffered by all
+     * {@code Buffered} listeners until {@link #testFinished()} call. Finishes the previous test of the current thread
+     * if it is not finished.
+     */
+    public static void testStarted() {
+      testFinished();
+      TEST_SCOPE.set(new ArrayList<>());
+    }
+
+    /**
+     * Marks the end of the test in the current thread and reports buffered events of the test according to the flush
+     * policy. Does nothing if the test is not started.
+     */
+    public static void testFinished() {
+      final List<Buffered> listeners = TEST_SCOPE.get();
+      if (listeners == null) {
+        return;
+      }
+      TEST_SCOPE.remove();
+      RuntimeException flushException = null;
+      for (final Buffered listener : listeners) {
+        try {
+          listener.testFlush();
+        } catch (final RuntimeException ex) {
+          if (flushException == null) {
+            flushException = ex;
+          } else {
+            flushException.addSuppressed(ex);
+          }
+        }
+      }
+      if (flushException != null) {
+        throw flushException;
+      }
+    }
+
+    private void testFlush() {
+      final Arena currentArena = this.arena.get();
+      currentArena.inTestScope = false;
+      if (currentArena.depth != 0) {
+        /* the top-level step is not finished, events are reported when it finishes */
+        return;
+      }
+      try {
+        if (!currentArena.passThrough) {
+          this.flush(currentArena);
+        }
+      } finally {
+        currentArena.clear();
+      }
+    }
+
+    @Override
+    public final boolean isAccepted(final Map<String, ?> artifacts,
+                                    final int depth) {
+      return !(this.listener instanceof FilteringStepListener)
+        || ((FilteringStepListener) this.listener).isAccepted(artifacts, depth);
+    }
+
+    @Override
+    public final void stepStarted(final Map<String, ?> artifacts) {
+      final Arena currentArena = this.arena.get();
+      ++currentArena.depth;
+      this.event(currentArena, STARTED, artifacts);
+    }
+
+    @Override
+    public final void stepPassed() {
+      this.stepFinished(PASSED, null);
+    }
+
+    @Override
+    public final void stepFailed(final Throwable exception) {
+      this.stepFinished(FAILED, exception);
+    }
+
+    @Override
+    public final void stepFailedByNestedStep(final Throwable exception) {
+      this.stepFinished(FAILED_BY_NESTED_STEP, exception);
+    }
+
+    private void stepFinished(final byte type,
+                              final Object payload) {
+      final Arena currentArena = this.arena.get();
+      if (currentArena.depth == 0) {
+        this.report(type, payload);
+        return;
+      }
+      if (type != PASSED) {
+        currentArena.failed = true;
+      }
+      this.event(currentArena, type, payload);
+      if (--currentArena.depth == 0) {
+        final List<Buffered> testScope = TEST_SCOPE.get();
+        if (testScope != null && !currentArena.passThrough) {
+          if (!currentArena.inTestScope) {
+            currentArena.inTestScope = true;
+            testScope.add(this);
+          }
+          return;
+        }
+        try {
+          if (!currentArena.passThrough) {
+            this.flush(currentArena);
+          }
+        } finally {
+          currentArena.clear();
+        }
+      }
+    }
+
+    private void event(final Arena currentArena,
+                       final byte type,
+                       final Object payload) {
+      if (currentArena.passThrough) {
+        this.report(type, payload);
+        return;
+      }
+      currentArena.add(type, payload);
+      if (currentArena.size >= this.maxBufferedEvents) {
+        currentArena.passThrough = true;
+        final int size = currentArena.size;
+        try {
+          for (int idx = 0; idx < size; ++idx) {
+            this.report(currentArena.types[idx], currentArena.payloads[idx]);
+          }
+        } finally {
+          currentArena.clearEvents();
+        }
+      }
+    }
+
+    private void flush(final Arena currentArena) {
+      if (currentArena.failed || this.flushPolicy == FlushPolicy.ALWAYS) {
+        for (int idx = 0; idx < currentArena.size; ++idx) {
+          this.report(currentArena.types[idx], currentArena.payloads[idx]);
+        }
+      } else if (this.flushPolicy == FlushPolicy.SUMMARY_ON_PASS) {
+        int depth = 0;
+        for (int idx = 0; idx < currentArena.size; ++idx) {
+          final byte type = currentArena.types[idx];
+          if (type == STARTED) {
+            if (depth++ == 0) {
+              this.report(type, currentArena.payloads[idx]);
+            }
+          } else if (--depth == 0) {
+            this.report(type, currentArena.payloads[idx]);
+          }
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void report(final byte type,
+                        final Object payload) {
+      switch (type) {
+        case STARTED:
+          this.listener.stepStarted((Map<String, ?>) payload);
+          break;
+        case PASSED:
+          this.listener.stepPassed();
+          break;
+        case FAILED:
+          this.listener.stepFailed((Throwable) payload);
+          break;
+        default:
+          this.listener.stepFailedByNestedStep((Throwable) payload);
+      }
+    }
+
+    /**
+     * Flush policy.
+     */
+    public enum FlushPolicy {
+
+      /**
+       * All events are reported.
+       */
+      ALWAYS,
+
+      /**
+       * Events are reported only if one of the buffered steps failed.
+       */
+      ON_FAILURE,
+
+      /**
+       * All events are reported if one of the buffered steps failed, otherwise only the top-level steps are reported.
+       */
+      SUMMARY_ON_PASS
+    }
+
+    /**
+     * Per-thread events buffer, reused for each top-level step or test.
+     */
+    private static final class Arena {
+      private byte[] types = new byte[64];
+      private Object[] payloads = new Object[64];
+      private int size = 0;
+      private int depth = 0;
+      private boolean failed = false;
+      private boolean passThrough = false;
+      private boolean inTestScope = false;
+
+      private void add(final byte type,
+                       final Object payload) {
+        if (this.size == this.types.length) {
+          this.types = Arrays.copyOf(this.types, this.size * 2);
+          this.payloads = Arrays.copyOf(this.payloads, this.size * 2);
+        }
+        this.types[this.size] = type;
+        this.payloads[this.size] = payload;
+        ++this.size;
+      }
+
+      private void clearEvents() {
+        Arrays.fill(this.payloads, 0, this.size, null);
+        this.size = 0;
+      }
+
+      private void clear() {
+        this.clearEvents();
+        this.failed = false;
+        this.passThrough = false;
+      }
+    }
+  }
+
   /**
    * Step listener utils.
    */
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recorded steps of an action performed by {@link StepReporter#record(com.plugatar.xteps2.core.function.ThRunnable)}.
+ * The recorded steps can be reported later in any thread, for example, steps recorded in worker threads can be
+ * reported as nested steps of the step that started the workers.
+ */
+public final class StepRecording {
+  private static final Object PASSED = new Object();
+  private final List<Object> events;
+  private final Throwable exception;
+
+  private StepRecording(final List<Object> events,
+                        final Throwable exception) {
+    this.events = events;
+    this.exception = exception;
+  }
+
+  /**
+   * Returns recording without steps.
+   *
+   * @param exception the action exception, null if the action passed
+   * @return recording without steps
+   */
+  public static StepRecording empty(final Throwable exception) {
+    return new StepRecording(Collections.emptyList(), exception);
+  }
+
+  /**
+   * Returns the action exception.
+   *
+   * @return the action exception, null if the action passed
+   */
+  public Throwable exception() {
+    return this.exception;
+  }
+
+  /**
+   * Returns the number of recorded steps.
+   *
+   * @return the number of recorded steps
+   */
+  public int stepsCount() {
+    int count = 0;
+    for (final Object event : this.events) {
+      if (event instanceof Map) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Reports the recorded steps to given step reporter as nested steps of its current step.
+   *
+   * @param stepReporter the step reporter
+   * @throws XtepsException if {@code stepReporter} arg is null
+   */
+  @SuppressWarnings("unchecked")
+  public void replay(final StepReporter stepReporter) {
+    if (stepReporter == null) { throw new XtepsException("stepReporter arg is null"); }
+    StepReporter target = stepReporter;
+    while (target instanceof StepReporter.Recorded) {
+      target = ((StepReporter.Recorded) target).origin();
+    }
+    for (final Object event : this.events) {
+      if (event == PASSED) {
+        target.passStep();
+      } else if (event instanceof Throwable) {
+        target.failStep((Throwable) event);
+      } else {
+        target.startStep((Map<String, ?>) event);
+      }
+    }
+  }
+
+  /**
+   * Recording builder.
+   */
+  static final class Builder {
+    private final List<Object> events = new ArrayList<>();
+
+    void started(final Map<String, ?> artifacts) {
+      this.events.add(artifacts);
+    }
+
+    void passed() {
+      this.events.add(PASSED);
+    }
+
+    void failed(final Throwable exception) {
+      this.events.add(exception);
+    }
+
+    StepRecording build(final Throwable exception) {
+      return new StepRecording(this.events, exception);
+    }
+  }
+}
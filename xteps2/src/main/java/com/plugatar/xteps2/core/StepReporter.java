@@ -15,8 +15,17 @@
  */
 package com.plugatar.xteps2.core;
 
+import com.plugatar.xteps2.Artifacts;
+import com.plugatar.xteps2.core.function.ThRunnable;
 import com.plugatar.xteps2.core.function.ThSupplier;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -57,11 +66,57 @@ public interface StepReporter {
                     ThSupplier<? extends R, ?> action);
 
   /**
-   * Default {@code StepReporter} implementation.
+   * Performs given action and records its steps instead of reporting them. The action exception is not thrown, it is
+   * available via {@link StepRecording#exception()}. Default implementation reports steps of the action and returns
+   * recording without steps.
+   *
+   * @param action the action
+   * @return recording
+   * @throws XtepsException if {@code action} arg is null
+   */
+  default StepRecording record(final ThRunnable<?> action) {
+    if (action == null) { throw new XtepsException("action arg is null"); }
+    try {
+      action.run();
+      return StepRecording.empty(null);
+    } catch (final Throwable ex) {
+      return StepRecording.empty(ex);
+    }
+  }
+
+  /**
+   * Marks the start of the test in the current thread. Finishes the previous test of the current thread if it is not
+   * finished. Default implementation does nothing.
+   */
+  default void testStarted() {
+  }
+
+  /**
+   * Marks the end of the test in the current thread. Does nothing if the test is not started. Default implementation
+   * does nothing.
+   */
+  default void testFinished() {
+  }
+
+  /**
+   * Default {@code StepReporter} implementation. Test boundaries marked via {@link #testStarted()} and
+   * {@link #testFinished()} are also passed to {@link StepListener.Buffered} listeners. Without test boundaries the
+   * steps limit is applied to each top-level step and only nested sibling steps are folded.
    */
   class Default implements StepReporter {
     private final ExceptionHandler exceptionHandler;
+    private final SecretMasker secretMasker;
     private final StepListener[] listeners;
+    private final FilteringStepListener[] filteringListeners;
+    private final boolean filtering;
+    private final boolean propagatedFailures;
+    private final ReportingOverhead overhead;
+    private final boolean measuring;
+    private final String[] listenerNames;
+    private final boolean loopFolding;
+    private final int maxStepsPerTest;
+    private final boolean tracking;
+    private final ThreadLocal<ThreadState> threadState;
 
     /**
      * Ctor.
@@ -73,33 +128,496 @@ public interface StepReporter {
      */
     public Default(final ExceptionHandler exceptionHandler,
                    final StepListener[] listeners) {
+      this(exceptionHandler, new SecretMasker.Fake(), listeners);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param exceptionHandler the exception handler
+     * @param secretMasker     the secret masker
+     * @param listeners        the listeners list
+     * @throws XtepsException if {@code exceptionHandler} arg is null
+     *                        or if {@code secretMasker} arg is null
+     *                        or if {@code listeners} arg is null
+     */
+    public Default(final ExceptionHandler exceptionHandler,
+                   final SecretMasker secretMasker,
+                   final StepListener[] listeners) {
+      this(exceptionHandler, secretMasker, listeners, false);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param exceptionHandler   the exception handler
+     * @param secretMasker       the secret masker
+     * @param listeners          the listeners list
+     * @param propagatedFailures the propagated failures mode flag, if true then listeners of the steps failed by
+     *                           the exception of the nested step will be notified via
+     *                           {@link StepListener#stepFailedByNestedStep(Throwable)} method
+     * @throws XtepsException if {@code exceptionHandler} arg is null
+     *                        or if {@code secretMasker} arg is null
+     *                        or if {@code listeners} arg is null
+     *                        or if {@code listeners} arg contains more than 64 {@link FilteringStepListener}
+     */
+    public Default(final ExceptionHandler exceptionHandler,
+                   final SecretMasker secretMasker,
+                   final StepListener[] listeners,
+                   final boolean propagatedFailures) {
+      this(exceptionHandler, secretMasker, listeners, propagatedFailures, new ReportingOverhead.Fake());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param exceptionHandler   the exception handler
+     * @param secretMasker       the secret masker
+     * @param listeners          the listeners list
+     * @param propagatedFailures the propagated failures mode flag, if true then listeners of the steps failed by
+     *                           the exception of the nested step will be notified via
+     *                           {@link StepListener#stepFailedByNestedStep(Throwable)} method
+     * @param overhead           the reporting overhead, the time of each listener call is recorded by the listener
+     *                           class name and the time of top-level steps is recorded as
+     *                           {@link ReportingOverhead#STEPS}
+     * @throws XtepsException if {@code exceptionHandler} arg is null
+     *                        or if {@code secretMasker} arg is null
+     *                        or if {@code listeners} arg is null
+     *                        or if {@code overhead} arg is null
+     *                        or if {@code listeners} arg contains more than 64 {@link FilteringStepListener}
+     */
+    public Default(final ExceptionHandler exceptionHandler,
+                   final SecretMasker secretMasker,
+                   final StepListener[] listeners,
+                   final boolean propagatedFailures,
+                   final ReportingOverhead overhead) {
+      this(exceptionHandler, secretMasker, listeners, propagatedFailures, overhead, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param exceptionHandler   the exception handler
+     * @param secretMasker       the secret masker
+     * @param listeners          the listeners list
+     * @param propagatedFailures the propagated failures mode flag, if true then listeners of the steps failed by
+     *                           the exception of the nested step will be notified via
+     *                           {@link StepListener#stepFailedByNestedStep(Throwable)} method
+     * @param overhead           the reporting overhead, the time of each listener call is recorded by the listener
+     *                           class name and the time of top-level steps is recorded as
+     *                           {@link ReportingOverhead#STEPS}
+     * @param loopFolding        the loop folding mode flag, if true then consecutive sibling steps with the same
+     *                           keyword and name are reported as the first occurrence and one summary step with
+     *                           the repetitions count and min/avg/max duration, failed occurrence is reported in full;
+     *                           top-level steps are folded only within test boundaries
+     * @param maxStepsPerTest    the max number of reported steps per test, next steps are not reported and their count
+     *                           is reported as the last top-level step of the test; without test boundaries the limit
+     *                           is applied to each top-level step and the count is reported as its last nested step
+     * @throws XtepsException if {@code exceptionHandler} arg is null
+     *                        or if {@code secretMasker} arg is null
+     *                        or if {@code listeners} arg is null
+     *                        or if {@code overhead} arg is null
+     *                        or if {@code maxStepsPerTest} arg is not positive
+     *                        or if {@code listeners} arg contains more than 64 {@link FilteringStepListener}
+     */
+    public Default(final ExceptionHandler exceptionHandler,
+                   final SecretMasker secretMasker,
+                   final StepListener[] listeners,
+                   final boolean propagatedFailures,
+                   final ReportingOverhead overhead,
+                   final boolean loopFolding,
+                   final int maxStepsPerTest) {
       if (exceptionHandler == null) { throw new XtepsException("exceptionHandler arg is null"); }
+      if (secretMasker == null) { throw new XtepsException("secretMasker arg is null"); }
       if (listeners == null) { throw new XtepsException("listeners arg is null"); }
+      if (overhead == null) { throw new XtepsException("overhead arg is null"); }
+      if (maxStepsPerTest <= 0) { throw new XtepsException("maxStepsPerTest arg is not positive"); }
       this.exceptionHandler = exceptionHandler;
-      this.listeners = listeners;
+      this.secretMasker = secretMasker;
+      this.listeners = listeners.clone();
+      this.filteringListeners = new FilteringStepListener[this.listeners.length];
+      int filteringCount = 0;
+      for (int idx = 0; idx < this.listeners.length; ++idx) {
+        if (this.listeners[idx] instanceof FilteringStepListener) {
+          this.filteringListeners[idx] = (FilteringStepListener) this.listeners[idx];
+          ++filteringCount;
+        }
+      }
+      if (filteringCount > Long.SIZE) {
+        throw new XtepsException("listeners arg contains more than " + Long.SIZE + " FilteringStepListener");
+      }
+      this.filtering = filteringCount != 0;
+      this.propagatedFailures = propagatedFailures;
+      this.overhead = overhead;
+      this.measuring = overhead.isEnabled();
+      this.listenerNames = new String[this.listeners.length];
+      for (int idx = 0; idx < this.listeners.length; ++idx) {
+        this.listenerNames[idx] = listenerName(this.listeners[idx]);
+      }
+      this.loopFolding = loopFolding;
+      this.maxStepsPerTest = maxStepsPerTest;
+      this.tracking = loopFolding || maxStepsPerTest != Integer.MAX_VALUE;
+      this.threadState = ThreadLocal.withInitial(ThreadState::new);
     }
 
     @Override
     public final void startStep(final Map<String, ?> artifacts) {
       if (artifacts == null) { throw new XtepsException("artifacts arg is null"); }
-      for (final StepListener listener : this.listeners) {
-        listener.stepStarted(artifacts);
+      final ThreadState state = this.threadState.get();
+      if (this.propagatedFailures) {
+        state.lastFailedStepException = null;
+      }
+      if (this.tracking || state.openSteps != 0) {
+        this.startTrackedStep(state, this.secretMasker.maskArtifacts(artifacts));
+      } else {
+        if (this.measuring && state.depth == 0) {
+          state.topLevelStepStartNanos = System.nanoTime();
+        }
+        this.stepStarted(state, this.secretMasker.maskArtifacts(artifacts));
+      }
+    }
+
+    private void stepStarted(final ThreadState state,
+                             final Map<String, ?> maskedArtifacts) {
+      if (this.filtering) {
+        final int depth = state.depth + 1;
+        long acceptedMask = 0L;
+        int filterIdx = 0;
+        for (int idx = 0; idx < this.listeners.length; ++idx) {
+          final FilteringStepListener filteringListener = this.filteringListeners[idx];
+          if (filteringListener != null && filteringListener.isAccepted(maskedArtifacts, depth)) {
+            acceptedMask |= 1L << filterIdx;
+          }
+          if (filteringListener != null) {
+            ++filterIdx;
+          }
+        }
+        state.push(acceptedMask);
+        filterIdx = 0;
+        int idx = 0;
+        try {
+          for (; idx < this.listeners.length; ++idx) {
+            if (this.filteringListeners[idx] == null || (acceptedMask & (1L << filterIdx++)) != 0L) {
+              final long startNanos = this.measuring ? System.nanoTime() : 0L;
+              this.listeners[idx].stepStarted(maskedArtifacts);
+              this.recordListenerCall(idx, startNanos);
+            }
+          }
+        } catch (final Throwable ex) {
+          this.unwindStepStarted(state, acceptedMask, idx, ex);
+          throw ex;
+        }
+      } else {
+        ++state.depth;
+        int idx = 0;
+        try {
+          for (; idx < this.listeners.length; ++idx) {
+            final long startNanos = this.measuring ? System.nanoTime() : 0L;
+            this.listeners[idx].stepStarted(maskedArtifacts);
+            this.recordListenerCall(idx, startNanos);
+          }
+        } catch (final Throwable ex) {
+          this.unwindStepStarted(state, -1L, idx, ex);
+          throw ex;
+        }
+      }
+    }
+
+    /**
+     * Fails the step for the listeners notified before the listener that threw given exception and removes the step
+     * from the thread state, so the step is not started for all listeners.
+     */
+    private void unwindStepStarted(final ThreadState state,
+                                   final long acceptedMask,
+                                   final int failedListenerIdx,
+                                   final Throwable exception) {
+      state.pop(this.filtering);
+      int filterIdx = 0;
+      for (int idx = 0; idx < failedListenerIdx; ++idx) {
+        if (this.filteringListeners[idx] == null || (acceptedMask & (1L << filterIdx++)) != 0L) {
+          try {
+            this.listeners[idx].stepFailed(exception);
+          } catch (final Throwable ex) {
+            if (ex != exception) {
+              exception.addSuppressed(ex);
+            }
+          }
+        }
+      }
+    }
+
+    private void startTrackedStep(final ThreadState state,
+                                  final Map<String, ?> maskedArtifacts) {
+      final int level = state.openSteps + 1;
+      final byte parentMode = level == 1 ? ThreadState.REPORTED : state.modes[level - 2];
+      final byte mode;
+      if (parentMode == ThreadState.DROPPED) {
+        mode = ThreadState.DROPPED;
+      } else if (parentMode != ThreadState.REPORTED) {
+        if (state.bufferedSteps < this.maxStepsPerTest) {
+          mode = ThreadState.BUFFERED;
+          ++state.bufferedSteps;
+          state.buffer.add(maskedArtifacts);
+        } else {
+          mode = ThreadState.DROPPED;
+        }
+      } else {
+        if (level == 1) {
+          if (!state.inTest) {
+            state.reportedSteps = 0;
+            state.droppedSteps = 0;
+          }
+          if (this.measuring) {
+            state.topLevelStepStartNanos = System.nanoTime();
+          }
+        }
+        if (this.loopFolding && (level > 1 || state.inTest) && state.isRepetition(level, maskedArtifacts)) {
+          mode = ThreadState.FOLDED;
+          state.bufferedSteps = 1;
+          state.buffer.clear();
+          state.buffer.add(maskedArtifacts);
+        } else {
+          this.foldRun(state, level);
+          if (state.reportedSteps < this.maxStepsPerTest) {
+            mode = ThreadState.REPORTED;
+            this.stepStarted(state, maskedArtifacts);
+            ++state.reportedSteps;
+          } else {
+            mode = ThreadState.DROPPED;
+            ++state.droppedSteps;
+          }
+        }
+      }
+      state.open(mode, maskedArtifacts);
+    }
+
+    private void recordListenerCall(final int idx,
+                                    final long startNanos) {
+      if (this.measuring) {
+        this.overhead.record(this.listenerNames[idx], System.nanoTime() - startNanos);
+      }
+    }
+
+    private void recordTopLevelStep(final ThreadState state,
+                                    final boolean topLevelStep) {
+      if (this.measuring && topLevelStep) {
+        this.overhead.record(ReportingOverhead.STEPS, System.nanoTime() - state.topLevelStepStartNanos);
+      }
+    }
+
+    private static String listenerName(final StepListener listener) {
+      StepListener origin = listener;
+      while (true) {
+        if (origin instanceof StepListener.Isolated) {
+          origin = ((StepListener.Isolated) origin).listener();
+        } else if (origin instanceof StepListener.Buffered) {
+          origin = ((StepListener.Buffered) origin).listener();
+        } else if (origin instanceof FilteringStepListener.Of) {
+          origin = ((FilteringStepListener.Of) origin).listener();
+        } else {
+          return origin.getClass().getTypeName();
+        }
       }
     }
 
     @Override
     public final void passStep() {
-      for (final StepListener listener : this.listeners) {
-        listener.stepPassed();
+      final ThreadState state = this.threadState.get();
+      if (this.propagatedFailures) {
+        state.lastFailedStepException = null;
+      }
+      if (this.tracking || state.openSteps != 0) {
+        this.finishTrackedStep(state, null);
+      } else {
+        final boolean topLevelStep = state.depth == 1;
+        this.stepPassed(state);
+        this.recordTopLevelStep(state, topLevelStep);
+      }
+    }
+
+    private void stepPassed(final ThreadState state) {
+      final long acceptedMask = state.pop(this.filtering);
+      int filterIdx = 0;
+      for (int idx = 0; idx < this.listeners.length; ++idx) {
+        if (this.filteringListeners[idx] == null || (acceptedMask & (1L << filterIdx++)) != 0L) {
+          final long startNanos = this.measuring ? System.nanoTime() : 0L;
+          this.listeners[idx].stepPassed();
+          this.recordListenerCall(idx, startNanos);
+        }
       }
     }
 
     @Override
     public final void failStep(final Throwable exception) {
       if (exception == null) { throw new XtepsException("exception arg is null"); }
-      for (final StepListener listener : this.listeners) {
-        listener.stepFailed(exception);
+      final ThreadState state = this.threadState.get();
+      if (this.tracking || state.openSteps != 0) {
+        this.finishTrackedStep(state, exception);
+      } else {
+        final boolean topLevelStep = state.depth == 1;
+        this.stepFailed(state, exception, this.isNestedStepException(state, exception));
+        this.recordTopLevelStep(state, topLevelStep);
+      }
+    }
+
+    private boolean isNestedStepException(final ThreadState state,
+                                          final Throwable exception) {
+      if (this.propagatedFailures) {
+        final WeakReference<Throwable> lastRef = state.lastFailedStepException;
+        final boolean nestedStepException = lastRef != null && lastRef.get() == exception;
+        if (!nestedStepException) {
+          state.lastFailedStepException = new WeakReference<>(exception);
+        }
+        return nestedStepException;
+      }
+      return false;
+    }
+
+    /**
+     * Fails the step. The nested step exception flag is decided per listener: the filtering listener receives
+     * {@link StepListener#stepFailedByNestedStep(Throwable)} only if it received the failure of the nested step,
+     * otherwise the exception is reported via {@link StepListener#stepFailed(Throwable)}.
+     */
+    private void stepFailed(final ThreadState state,
+                            final Throwable exception,
+                            final boolean nestedStepException) {
+      final long acceptedMask = state.pop(this.filtering);
+      final long nestedMask;
+      if (nestedStepException) {
+        nestedMask = state.failedMask;
+        state.failedMask |= acceptedMask;
+      } else {
+        nestedMask = 0L;
+        state.failedMask = acceptedMask;
+      }
+      int filterIdx = 0;
+      for (int idx = 0; idx < this.listeners.length; ++idx) {
+        final boolean filteringListener = this.filteringListeners[idx] != null;
+        final long listenerBit = filteringListener ? 1L << filterIdx++ : 0L;
+        if (!filteringListener || (acceptedMask & listenerBit) != 0L) {
+          final long startNanos = this.measuring ? System.nanoTime() : 0L;
+          if (nestedStepException && (!filteringListener || (nestedMask & listenerBit) != 0L)) {
+            this.listeners[idx].stepFailedByNestedStep(exception);
+          } else {
+            this.listeners[idx].stepFailed(exception);
+          }
+          this.recordListenerCall(idx, startNanos);
+        }
+      }
+    }
+
+    private void finishTrackedStep(final ThreadState state,
+                                   final Throwable exception) {
+      if (state.openSteps == 0) {
+        if (exception == null) {
+          this.stepPassed(state);
+        } else {
+          this.stepFailed(state, exception, this.isNestedStepException(state, exception));
+        }
+        return;
+      }
+      final int level = state.openSteps;
+      final long duration = System.nanoTime() - state.startNanos[level - 1];
+      final Map<String, ?> artifacts = state.stepArtifacts[level - 1];
+      final byte mode = state.close();
+      if (mode == ThreadState.DROPPED) {
+        return;
+      }
+      if (mode == ThreadState.BUFFERED) {
+        state.buffer.add(exception == null
+          ? ThreadState.PASSED_EVENT
+          : new FailedEvent(exception, this.isNestedStepException(state, exception)));
+        return;
+      }
+      if (mode == ThreadState.FOLDED) {
+        if (exception == null) {
+          state.addRunOccurrence(level, duration);
+          state.buffer.clear();
+        } else {
+          final boolean nestedStepException = this.isNestedStepException(state, exception);
+          this.foldRun(state, level);
+          this.replayBuffer(state);
+          this.stepFailed(state, exception, nestedStepException);
+        }
+        this.recordTopLevelStep(state, level == 1);
+        return;
+      }
+      this.foldRun(state, level + 1);
+      if (level == 1 && state.droppedSteps != 0 && !state.inTest) {
+        this.reportDroppedSteps(state, "top-level step");
+      }
+      if (exception == null) {
+        this.stepPassed(state);
+        if (this.loopFolding && (level > 1 || state.inTest)) {
+          state.startRun(level, artifacts, duration);
+        }
+      } else {
+        this.stepFailed(state, exception, this.isNestedStepException(state, exception));
+      }
+      this.recordTopLevelStep(state, level == 1);
+    }
+
+    /**
+     * Reports the summary step of the folded repetitions of given level and resets the level repetitions.
+     */
+    private void foldRun(final ThreadState state,
+                         final int level) {
+      if (level > state.runCounts.length) {
+        return;
+      }
+      final int idx = level - 1;
+      final int count = state.runCounts[idx];
+      if (count > 1) {
+        final Map<String, ?> firstArtifacts = state.runArtifacts[idx];
+        final Map<String, Object> summaryArtifacts = new HashMap<>();
+        final String keywordArtifact = Artifacts.keywordArtifact();
+        if (firstArtifacts.containsKey(keywordArtifact)) {
+          summaryArtifacts.put(keywordArtifact, firstArtifacts.get(keywordArtifact));
+        }
+        summaryArtifacts.put(Artifacts.nameArtifact(), StepListener.Utils.getName(firstArtifacts));
+        summaryArtifacts.put(Artifacts.descArtifact(),
+          "Step repeated " + count + " times, " + (count - 1) + " repetitions are folded");
+        final Map<String, Object> params = new LinkedHashMap<>();
+        params.put("repetitions", count);
+        params.put("min duration", durationText(state.runMinNanos[idx]));
+        params.put("avg duration", durationText(state.runTotalNanos[idx] / count));
+        params.put("max duration", durationText(state.runMaxNanos[idx]));
+        summaryArtifacts.put(Artifacts.paramsArtifact(), params);
+        this.stepStarted(state, summaryArtifacts);
+        this.stepPassed(state);
+      }
+      state.runCounts[idx] = 0;
+      state.runArtifacts[idx] = null;
+    }
+
+    private void reportDroppedSteps(final ThreadState state,
+                                    final String scope) {
+      final Map<String, Object> artifacts = new HashMap<>();
+      artifacts.put(Artifacts.nameArtifact(), state.droppedSteps + " steps are not reported");
+      artifacts.put(Artifacts.descArtifact(),
+        "The limit of " + this.maxStepsPerTest + " reported steps per " + scope + " is reached");
+      this.stepStarted(state, artifacts);
+      this.stepPassed(state);
+      state.droppedSteps = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replayBuffer(final ThreadState state) {
+      for (final Object event : state.buffer) {
+        if (event == ThreadState.PASSED_EVENT) {
+          this.stepPassed(state);
+        } else if (event instanceof FailedEvent) {
+          final FailedEvent failedEvent = (FailedEvent) event;
+          this.stepFailed(state, failedEvent.exception, failedEvent.nestedStepException);
+        } else {
+          this.stepStarted(state, (Map<String, ?>) event);
+        }
       }
+      state.buffer.clear();
+    }
+
+    private static String durationText(final long nanos) {
+      return String.format(Locale.ROOT, "%.3f ms", nanos / 1_000_000.0);
     }
 
     @Override
@@ -125,10 +643,321 @@ public interface StepReporter {
       }
     }
 
+    /**
+     * Marks the start of the test in the current thread. The steps limit is applied to the whole test and consecutive
+     * top-level sibling steps are folded until {@link #testFinished()} call.
+     */
+    @Override
+    public final void testStarted() {
+      this.testFinished();
+      final ThreadState state = this.threadState.get();
+      state.inTest = true;
+      state.reportedSteps = 0;
+      state.droppedSteps = 0;
+      StepListener.Buffered.testStarted();
+    }
+
+    /**
+     * Marks the end of the test in the current thread. Reports the summary step of the folded top-level repetitions
+     * and the count of not reported steps of the test.
+     */
+    @Override
+    public final void testFinished() {
+      final ThreadState state = this.threadState.get();
+      if (state.inTest) {
+        state.inTest = false;
+        if (this.tracking) {
+          if (state.openSteps == 0) {
+            this.foldRun(state, 1);
+            if (state.droppedSteps != 0) {
+              this.reportDroppedSteps(state, "test");
+            }
+          } else {
+            state.runCounts[0] = 0;
+            state.runArtifacts[0] = null;
+          }
+        }
+        state.reportedSteps = 0;
+        state.droppedSteps = 0;
+      }
+      StepListener.Buffered.testFinished();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final StepRecording record(final ThRunnable<?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      final ThreadState state = this.threadState.get();
+      final int bufferStart = state.buffer.size();
+      final int bufferedSteps = state.bufferedSteps;
+      state.bufferedSteps = 0;
+      state.open(ThreadState.RECORDING, null);
+      Throwable exception = null;
+      try {
+        action.run();
+      } catch (final Throwable ex) {
+        exception = ex;
+      }
+      state.close();
+      state.bufferedSteps = bufferedSteps;
+      final List<Object> events = state.buffer.subList(bufferStart, state.buffer.size());
+      final StepRecording.Builder builder = new StepRecording.Builder();
+      for (final Object event : events) {
+        if (event == ThreadState.PASSED_EVENT) {
+          builder.passed();
+        } else if (event instanceof FailedEvent) {
+          builder.failed(((FailedEvent) event).exception);
+        } else {
+          builder.started((Map<String, ?>) event);
+        }
+      }
+      events.clear();
+      return builder.build(exception);
+    }
+
     @SuppressWarnings("unchecked")
     private static <E extends Throwable> RuntimeException sneakyThrow(final Throwable exception) throws E {
       throw (E) exception;
     }
+
+    private static final class ThreadState {
+      private static final byte REPORTED = 0;
+      private static final byte FOLDED = 1;
+      private static final byte BUFFERED = 2;
+      private static final byte DROPPED = 3;
+      /* not reported pseudo step of the recorded action, nested steps are buffered */
+      private static final byte RECORDING = 4;
+      private static final Object PASSED_EVENT = new Object();
+      private int depth;
+      private long[] acceptedMasks;
+      private WeakReference<Throwable> lastFailedStepException;
+      /* filtering listeners that received the failure of the last failed step */
+      private long failedMask;
+      private long topLevelStepStartNanos;
+      /* test boundaries are marked */
+      private boolean inTest;
+      /* loop folding, steps limit and recording state, used only if one of these features is enabled */
+      private int openSteps;
+      private byte[] modes;
+      private long[] startNanos;
+      private Map<String, ?>[] stepArtifacts;
+      private int[] runCounts;
+      private long[] runMinNanos;
+      private long[] runMaxNanos;
+      private long[] runTotalNanos;
+      private Map<String, ?>[] runArtifacts;
+      private final List<Object> buffer;
+      private int bufferedSteps;
+      private int reportedSteps;
+      private int droppedSteps;
+
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      private ThreadState() {
+        this.depth = 0;
+        this.acceptedMasks = new long[16];
+        this.lastFailedStepException = null;
+        this.failedMask = 0L;
+        this.inTest = false;
+        this.openSteps = 0;
+        this.modes = new byte[16];
+        this.startNanos = new long[16];
+        this.stepArtifacts = new Map[16];
+        this.runCounts = new int[16];
+        this.runMinNanos = new long[16];
+        this.runMaxNanos = new long[16];
+        this.runTotalNanos = new long[16];
+        this.runArtifacts = new Map[16];
+        this.buffer = new ArrayList<>();
+      }
+
+      private void push(final long acceptedMask) {
+        if (this.depth == this.acceptedMasks.length) {
+          this.acceptedMasks = Arrays.copyOf(this.acceptedMasks, this.depth * 2);
+        }
+        this.acceptedMasks[this.depth++] = acceptedMask;
+      }
+
+      private long pop(final boolean filtering) {
+        if (this.depth == 0) {
+          return -1L;
+        }
+        --this.depth;
+        return filtering ? this.acceptedMasks[this.depth] : -1L;
+      }
+
+      private void open(final byte mode,
+                        final Map<String, ?> artifacts) {
+        if (this.openSteps + 1 == this.modes.length) {
+          final int newLength = this.modes.length * 2;
+          this.modes = Arrays.copyOf(this.modes, newLength);
+          this.startNanos = Arrays.copyOf(this.startNanos, newLength);
+          this.stepArtifacts = Arrays.copyOf(this.stepArtifacts, newLength);
+          this.runCounts = Arrays.copyOf(this.runCounts, newLength);
+          this.runMinNanos = Arrays.copyOf(this.runMinNanos, newLength);
+          this.runMaxNanos = Arrays.copyOf(this.runMaxNanos, newLength);
+          this.runTotalNanos = Arrays.copyOf(this.runTotalNanos, newLength);
+          this.runArtifacts = Arrays.copyOf(this.runArtifacts, newLength);
+        }
+        this.modes[this.openSteps] = mode;
+        this.stepArtifacts[this.openSteps] = artifacts;
+        this.startNanos[this.openSteps] = System.nanoTime();
+        ++this.openSteps;
+      }
+
+      private byte close() {
+        --this.openSteps;
+        this.stepArtifacts[this.openSteps] = null;
+        return this.modes[this.openSteps];
+      }
+
+      private boolean isRepetition(final int level,
+                                   final Map<String, ?> artifacts) {
+        final int idx = level - 1;
+        if (this.runCounts[idx] == 0) {
+          return false;
+        }
+        final Map<String, ?> runStepArtifacts = this.runArtifacts[idx];
+        return StepListener.Utils.getName(artifacts).equals(StepListener.Utils.getName(runStepArtifacts))
+          && StepListener.Utils.getKeyword(artifacts).toString()
+          .equals(StepListener.Utils.getKeyword(runStepArtifacts).toString());
+      }
+
+      private void startRun(final int level,
+                            final Map<String, ?> artifacts,
+                            final long durationNanos) {
+        final int idx = level - 1;
+        this.runArtifacts[idx] = artifacts;
+        this.runCounts[idx] = 1;
+        this.runMinNanos[idx] = durationNanos;
+        this.runMaxNanos[idx] = durationNanos;
+        this.runTotalNanos[idx] = durationNanos;
+      }
+
+      private void addRunOccurrence(final int level,
+                                    final long durationNanos) {
+        final int idx = level - 1;
+        ++this.runCounts[idx];
+        this.runMinNanos[idx] = Math.min(this.runMinNanos[idx], durationNanos);
+        this.runMaxNanos[idx] = Math.max(this.runMaxNanos[idx], durationNanos);
+        this.runTotalNanos[idx] += durationNanos;
+      }
+    }
+
+    private static final class FailedEvent {
+      private final Throwable exception;
+      private final boolean nestedStepException;
+
+      private FailedEvent(final Throwable exception,
+                          final boolean nestedStepException) {
+        this.exception = exception;
+        this.nestedStepException = nestedStepException;
+      }
+    }
+  }
+
+  /**
+   * {@code StepReporter} decorator that passes each step event to the recorder listener before the origin reporter, so
+   * the recorder gets all events regardless of the origin reporter loop folding and steps limit. Step artifacts are
+   * masked by the secret masker before they are passed to the recorder and to the origin reporter. Events of a
+   * {@link StepRecording} replayed into this reporter are passed only to the origin reporter, the recorder got them
+   * when they were recorded.
+   */
+  class Recorded implements StepReporter {
+    private final StepReporter origin;
+    private final StepListener recorder;
+    private final SecretMasker secretMasker;
+
+    /**
+     * Ctor.
+     *
+     * @param origin   the origin reporter
+     * @param recorder the recorder listener
+     * @throws XtepsException if {@code origin} arg is null
+     *                        or if {@code recorder} arg is null
+     */
+    public Recorded(final StepReporter origin,
+                    final StepListener recorder) {
+      this(origin, recorder, new SecretMasker.Fake());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param origin       the origin reporter
+     * @param recorder     the recorder listener
+     * @param secretMasker the secret masker
+     * @throws XtepsException if {@code origin} arg is null
+     *                        or if {@code recorder} arg is null
+     *                        or if {@code secretMasker} arg is null
+     */
+    public Recorded(final StepReporter origin,
+                    final StepListener recorder,
+                    final SecretMasker secretMasker) {
+      if (origin == null) { throw new XtepsException("origin arg is null"); }
+      if (recorder == null) { throw new XtepsException("recorder arg is null"); }
+      if (secretMasker == null) { throw new XtepsException("secretMasker arg is null"); }
+      this.origin = origin;
+      this.recorder = recorder;
+      this.secretMasker = secretMasker;
+    }
+
+    final StepReporter origin() {
+      return this.origin;
+    }
+
+    @Override
+    public final void startStep(final Map<String, ?> artifacts) {
+      if (artifacts == null) { throw new XtepsException("artifacts arg is null"); }
+      final Map<String, ?> maskedArtifacts = this.secretMasker.maskArtifacts(artifacts);
+      this.recorder.stepStarted(maskedArtifacts);
+      this.origin.startStep(maskedArtifacts);
+    }
+
+    @Override
+    public final void passStep() {
+      this.recorder.stepPassed();
+      this.origin.passStep();
+    }
+
+    @Override
+    public final void failStep(final Throwable exception) {
+      if (exception == null) { throw new XtepsException("exception arg is null"); }
+      this.recorder.stepFailed(exception);
+      this.origin.failStep(exception);
+    }
+
+    @Override
+    public final <R> R executeStep(final Map<String, ?> artifacts,
+                                   final ThSupplier<? extends R, ?> action) {
+      if (artifacts == null) { throw new XtepsException("artifacts arg is null"); }
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      final Map<String, ?> maskedArtifacts = this.secretMasker.maskArtifacts(artifacts);
+      this.recorder.stepStarted(maskedArtifacts);
+      final R result;
+      try {
+        result = this.origin.executeStep(maskedArtifacts, action);
+      } catch (final Throwable ex) {
+        this.recorder.stepFailed(ex);
+        throw ex;
+      }
+      this.recorder.stepPassed();
+      return result;
+    }
+
+    @Override
+    public final StepRecording record(final ThRunnable<?> action) {
+      return this.origin.record(action);
+    }
+
+    @Override
+    public final void testStarted() {
+      this.origin.testStarted();
+    }
+
+    @Override
+    public final void testFinished() {
+      this.origin.testFinished();
+    }
   }
 
   /**
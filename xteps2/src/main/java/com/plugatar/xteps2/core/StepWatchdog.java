@@ -0,0 +1,146 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Step watchdog. Monitors step deadlines on one shared daemon scheduler thread. When the deadline expires, the
+ * watchdog takes a stack snapshot of the step thread, dumps the flight recorder of the thread and interrupts it.
+ */
+public class StepWatchdog {
+  private final FlightRecorder flightRecorder;
+  private volatile ScheduledThreadPoolExecutor scheduler;
+
+  /**
+   * Ctor.
+   *
+   * @param flightRecorder the flight recorder
+   * @throws XtepsException if {@code flightRecorder} arg is null
+   */
+  public StepWatchdog(final FlightRecorder flightRecorder) {
+    if (flightRecorder == null) { throw new XtepsException("flightRecorder arg is null"); }
+    this.flightRecorder = flightRecorder;
+    this.scheduler = null;
+  }
+
+  /**
+   * Starts monitoring of the deadline of given thread step.
+   *
+   * @param thread  the step thread
+   * @param timeout the step timeout
+   * @return deadline
+   * @throws XtepsException if {@code thread} arg is null
+   *                        or if {@code timeout} arg is null
+   *                        or if {@code timeout} arg is not positive
+   */
+  public final Deadline watch(final Thread thread,
+                              final Duration timeout) {
+    if (thread == null) { throw new XtepsException("thread arg is null"); }
+    if (timeout == null) { throw new XtepsException("timeout arg is null"); }
+    if (timeout.isNegative() || timeout.isZero()) { throw new XtepsException("timeout arg is not positive"); }
+    final Deadline deadline = new Deadline(thread, timeout);
+    deadline.future = this.scheduler().schedule(() -> this.expire(deadline), timeout.toNanos(), TimeUnit.NANOSECONDS);
+    return deadline;
+  }
+
+  private ScheduledThreadPoolExecutor scheduler() {
+    ScheduledThreadPoolExecutor result;
+    if ((result = this.scheduler) == null) {
+      synchronized (this) {
+        if ((result = this.scheduler) == null) {
+          result = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "xteps2-step-watchdog");
+            thread.setDaemon(true);
+            return thread;
+          });
+          result.setRemoveOnCancelPolicy(true);
+          this.scheduler = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private void expire(final Deadline deadline) {
+    synchronized (deadline) {
+      if (deadline.state != Deadline.ACTIVE) {
+        return;
+      }
+      final StepTimeoutError error = new StepTimeoutError("Step timed out after " + deadline.timeout
+        + ", stack trace is the snapshot of the thread " + deadline.thread.getName() + " at the deadline");
+      error.setStackTrace(deadline.thread.getStackTrace());
+      deadline.error = error;
+      deadline.state = Deadline.EXPIRED;
+      deadline.thread.interrupt();
+    }
+    try {
+      this.flightRecorder.dump(deadline.thread, "Step timed out after " + deadline.timeout);
+    } catch (final RuntimeException ex) {
+      System.out.println("The Xteps2 framework can not dump the flight recorder: " + ex);
+    }
+  }
+
+  /**
+   * Step deadline.
+   */
+  public static final class Deadline {
+    private static final int ACTIVE = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private final Thread thread;
+    private final Duration timeout;
+    private volatile ScheduledFuture<?> future;
+    private int state;
+    private StepTimeoutError error;
+    private boolean interruptCleared;
+
+    private Deadline(final Thread thread,
+                     final Duration timeout) {
+      this.thread = thread;
+      this.timeout = timeout;
+      this.future = null;
+      this.state = ACTIVE;
+      this.error = null;
+      this.interruptCleared = false;
+    }
+
+    /**
+     * Stops monitoring of the deadline. Should be called by the step thread. If the deadline is expired then clears
+     * the interrupted status of the thread set by the watchdog.
+     *
+     * @return timeout error if the deadline is expired, otherwise null
+     */
+    public synchronized StepTimeoutError cancel() {
+      if (this.state == ACTIVE) {
+        this.state = CANCELLED;
+        final ScheduledFuture<?> currentFuture = this.future;
+        if (currentFuture != null) {
+          currentFuture.cancel(false);
+        }
+        return null;
+      }
+      if (this.state == EXPIRED && !this.interruptCleared && Thread.currentThread() == this.thread) {
+        Thread.interrupted();
+        this.interruptCleared = true;
+      }
+      return this.error;
+    }
+  }
+}
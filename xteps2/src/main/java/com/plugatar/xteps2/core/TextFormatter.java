@@ -19,7 +19,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -53,13 +53,16 @@ public interface TextFormatter {
                 Map<String, Object> replacements);
 
   /**
-   * Default {@code TextFormatter} implementation.
+   * Default {@code TextFormatter} implementation. Objects that are already being formatted by a type formatter up the
+   * call chain (e.g. a collection that contains itself directly or indirectly) are formatted as {@code [...]}.
    */
   class Default implements TextFormatter {
     private final ExceptionHandler exceptionHandler;
     private final Pattern replacementPattern;
     private final boolean fieldForceAccess;
     private final boolean methodForceAccess;
+    private final ClassValue<TypeFormatter<Object>> typeFormatters;
+    private final ThreadLocal<Map<Object, Boolean>> formattedObjects = ThreadLocal.withInitial(IdentityHashMap::new);
 
     /**
      * Ctor.
@@ -76,13 +79,61 @@ public interface TextFormatter {
                    final Pattern replacementPattern,
                    final boolean fieldForceAccess,
                    final boolean methodForceAccess) {
+      this(exceptionHandler, replacementPattern, fieldForceAccess, methodForceAccess, TypeFormatter.builtIn());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param exceptionHandler   the exception handler
+     * @param replacementPattern the replacement pattern
+     * @param fieldForceAccess   the field force access flag
+     * @param methodForceAccess  the method force access flag
+     * @param typeFormatters     the type formatters, the first formatter whose type is assignable from the object class
+     *                           is used, so formatters at the beginning of the array have higher priority
+     * @throws XtepsException if {@code exceptionHandler} is null
+     *                        or if {@code replacementPattern} is null
+     *                        or if {@code replacementPattern} contains less than one group
+     *                        or if {@code typeFormatters} is null
+     *                        or if one of type formatters or its type is null
+     */
+    public Default(final ExceptionHandler exceptionHandler,
+                   final Pattern replacementPattern,
+                   final boolean fieldForceAccess,
+                   final boolean methodForceAccess,
+                   final TypeFormatter<?>[] typeFormatters) {
       if (exceptionHandler == null) { throw new XtepsException("exceptionHandler arg is null"); }
       if (replacementPattern == null) { throw new XtepsException("replacementPattern arg is null"); }
+      if (typeFormatters == null) { throw new XtepsException("typeFormatters arg is null"); }
       checkThatPatternContainsCapturingGroups(replacementPattern);
       this.exceptionHandler = exceptionHandler;
       this.replacementPattern = replacementPattern;
       this.fieldForceAccess = fieldForceAccess;
       this.methodForceAccess = methodForceAccess;
+      this.typeFormatters = typeFormattersClassValue(typeFormatters);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ClassValue<TypeFormatter<Object>> typeFormattersClassValue(final TypeFormatter<?>[] typeFormatters) {
+      final TypeFormatter<Object>[] formatters = new TypeFormatter[typeFormatters.length];
+      for (int idx = 0; idx < typeFormatters.length; ++idx) {
+        final TypeFormatter<Object> formatter = (TypeFormatter<Object>) typeFormatters[idx];
+        if (formatter == null) { throw new XtepsException("One of type formatters is null"); }
+        final Class<?> type = formatter.type();
+        if (type == null) { throw new XtepsException("Type of " + formatter.getClass().getTypeName() + " is null"); }
+        formatters[idx] = formatter;
+      }
+      return new ClassValue<TypeFormatter<Object>>() {
+        @Override
+        protected TypeFormatter<Object> computeValue(final Class<?> cls) {
+          for (final TypeFormatter<Object> formatter : formatters) {
+            if (formatter.type().isAssignableFrom(cls)) {
+              return formatter;
+            }
+          }
+          return null;
+        }
+      };
     }
 
     private static void checkThatPatternContainsCapturingGroups(final Pattern pattern) {
@@ -98,31 +149,27 @@ public interface TextFormatter {
         return "null";
       }
       final Class<?> cls = obj.getClass();
-      try {
-        if (cls.isArray()) {
-          if (cls == byte[].class) {
-            return Arrays.toString((byte[]) obj);
-          } else if (cls == short[].class) {
-            return Arrays.toString((short[]) obj);
-          } else if (cls == int[].class) {
-            return Arrays.toString((int[]) obj);
-          } else if (cls == long[].class) {
-            return Arrays.toString((long[]) obj);
-          } else if (cls == char[].class) {
-            return Arrays.toString((char[]) obj);
-          } else if (cls == float[].class) {
-            return Arrays.toString((float[]) obj);
-          } else if (cls == double[].class) {
-            return Arrays.toString((double[]) obj);
-          } else if (cls == boolean[].class) {
-            return Arrays.toString((boolean[]) obj);
-          } else {
-            return Arrays.deepToString((Object[]) obj);
-          }
+      final TypeFormatter<Object> typeFormatter = this.typeFormatters.get(cls);
+      if (typeFormatter == null) {
+        try {
+          return obj.toString();
+        } catch (final Exception ex) {
+          throw handledEx(new TextFormatException(methodDesc(cls, "toString()") + " threw " + ex, ex));
         }
-        return obj.toString();
+      }
+      final Map<Object, Boolean> formattedObjects = this.formattedObjects.get();
+      if (formattedObjects.put(obj, Boolean.TRUE) != null) {
+        return "[...]";
+      }
+      try {
+        return typeFormatter.format(obj, this);
+      } catch (final TextFormatException ex) {
+        throw ex;
       } catch (final Exception ex) {
-        throw handledEx(new TextFormatException(methodDesc(cls, "toString()") + " threw " + ex, ex));
+        throw handledEx(new TextFormatException(typeFormatter.getClass().getTypeName() + " type formatter threw " +
+          ex + " for " + cls.getTypeName() + " object", ex));
+      } finally {
+        formattedObjects.remove(obj);
       }
     }
 
@@ -353,6 +400,51 @@ public interface TextFormatter {
     }
   }
 
+  /**
+   * {@code TextFormatter} decorator that records the time of each call as {@link ReportingOverhead#TEXT_FORMATTER}.
+   */
+  class Measured implements TextFormatter {
+    private final TextFormatter formatter;
+    private final ReportingOverhead overhead;
+
+    /**
+     * Ctor.
+     *
+     * @param formatter the origin formatter
+     * @param overhead  the reporting overhead
+     * @throws XtepsException if {@code formatter} arg is null
+     *                        or if {@code overhead} arg is null
+     */
+    public Measured(final TextFormatter formatter,
+                    final ReportingOverhead overhead) {
+      if (formatter == null) { throw new XtepsException("formatter arg is null"); }
+      if (overhead == null) { throw new XtepsException("overhead arg is null"); }
+      this.formatter = formatter;
+      this.overhead = overhead;
+    }
+
+    @Override
+    public final String format(final Object obj) {
+      final long startNanos = System.nanoTime();
+      try {
+        return this.formatter.format(obj);
+      } finally {
+        this.overhead.record(ReportingOverhead.TEXT_FORMATTER, System.nanoTime() - startNanos);
+      }
+    }
+
+    @Override
+    public final String format(final String text,
+                               final Map<String, Object> replacements) {
+      final long startNanos = System.nanoTime();
+      try {
+        return this.formatter.format(text, replacements);
+      } finally {
+        this.overhead.record(ReportingOverhead.TEXT_FORMATTER, System.nanoTime() - startNanos);
+      }
+    }
+  }
+
   /**
    * Fake {@code TextFormatter} implementation.
    */
@@ -0,0 +1,522 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Type-specific formatter used by {@link TextFormatter.Default}.
+ *
+ * @param <T> the type of the formatted objects
+ */
+public interface TypeFormatter<T> {
+
+  /**
+   * Returns the type of objects this formatter supports. The formatter is also applied to subtypes of this type.
+   *
+   * @return supported type
+   */
+  Class<T> type();
+
+  /**
+   * Returns an object as a string.
+   *
+   * @param obj           the object (not null)
+   * @param textFormatter the text formatter to format nested objects
+   * @return string representation
+   */
+  String format(T obj,
+                TextFormatter textFormatter);
+
+  /**
+   * Returns built-in type formatters.
+   *
+   * @return built-in type formatters
+   */
+  static TypeFormatter<?>[] builtIn() {
+    return new TypeFormatter<?>[]{
+      new ByteArrayHex(),
+      new ShortArray(),
+      new IntArray(),
+      new LongArray(),
+      new CharArray(),
+      new FloatArray(),
+      new DoubleArray(),
+      new BooleanArray(),
+      new ObjectArray(),
+      new ByteBufferHex(),
+      new PathOf(),
+      new DurationOf(),
+      new MapOf(),
+      new CollectionOf()
+    };
+  }
+
+  /**
+   * {@code byte[]} formatter. Returns hex preview of the array.
+   */
+  class ByteArrayHex implements TypeFormatter<byte[]> {
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+    private final int maxBytes;
+
+    /**
+     * Ctor.
+     *
+     * @param maxBytes the max count of bytes in the preview
+     * @throws XtepsException if {@code maxBytes} arg is negative
+     */
+    public ByteArrayHex(final int maxBytes) {
+      if (maxBytes < 0) { throw new XtepsException("maxBytes arg is negative"); }
+      this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Zero-argument public ctor.
+     */
+    public ByteArrayHex() {
+      this(32);
+    }
+
+    @Override
+    public final Class<byte[]> type() {
+      return byte[].class;
+    }
+
+    @Override
+    public final String format(final byte[] obj,
+                               final TextFormatter textFormatter) {
+      final int previewLength = Math.min(obj.length, this.maxBytes);
+      final StringBuilder sb = new StringBuilder(previewLength * 2 + 16);
+      appendHex(sb, obj, 0, previewLength);
+      if (previewLength != obj.length) {
+        sb.append("...");
+      }
+      return sb.append(" (").append(obj.length).append(" bytes)").toString();
+    }
+
+    static void appendHex(final StringBuilder sb,
+                          final byte[] bytes,
+                          final int offset,
+                          final int length) {
+      for (int idx = offset; idx < offset + length; ++idx) {
+        final int value = bytes[idx] & 0xFF;
+        sb.append(HEX_CHARS[value >>> 4]).append(HEX_CHARS[value & 0x0F]);
+      }
+    }
+  }
+
+  /**
+   * {@code byte[]} formatter. Returns Base64 preview of the array.
+   */
+  class ByteArrayBase64 implements TypeFormatter<byte[]> {
+    private final int maxBytes;
+
+    /**
+     * Ctor.
+     *
+     * @param maxBytes the max count of bytes in the preview
+     * @throws XtepsException if {@code maxBytes} arg is negative
+     */
+    public ByteArrayBase64(final int maxBytes) {
+      if (maxBytes < 0) { throw new XtepsException("maxBytes arg is negative"); }
+      this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Zero-argument public ctor.
+     */
+    public ByteArrayBase64() {
+      this(48);
+    }
+
+    @Override
+    public final Class<byte[]> type() {
+      return byte[].class;
+    }
+
+    @Override
+    public final String format(final byte[] obj,
+                               final TextFormatter textFormatter) {
+      final boolean cut = obj.length > this.maxBytes;
+      final String base64 = Base64.getEncoder().encodeToString(cut ? Arrays.copyOf(obj, this.maxBytes) : obj);
+      return base64 + (cut ? "..." : "") + " (" + obj.length + " bytes)";
+    }
+  }
+
+  /**
+   * {@code short[]} formatter.
+   */
+  class ShortArray implements TypeFormatter<short[]> {
+
+    @Override
+    public final Class<short[]> type() {
+      return short[].class;
+    }
+
+    @Override
+    public final String format(final short[] obj,
+                               final TextFormatter textFormatter) {
+      return Arrays.toString(obj);
+    }
+  }
+
+  /**
+   * {@code int[]} formatter.
+   */
+  class IntArray implements TypeFormatter<int[]> {
+
+    @Override
+    public final Class<int[]> type() {
+      return int[].class;
+    }
+
+    @Override
+    public final String format(final int[] obj,
+                               final TextFormatter textFormatter) {
+      return Arrays.toString(obj);
+    }
+  }
+
+  /**
+   * {@code long[]} formatter.
+   */
+  class LongArray implements TypeFormatter<long[]> {
+
+    @Override
+    public final Class<long[]> type() {
+      return long[].class;
+    }
+
+    @Override
+    public final String format(final long[] obj,
+                               final TextFormatter textFormatter) {
+      return Arrays.toString(obj);
+    }
+  }
+
+  /**
+   * {@code char[]} formatter.
+   */
+  class CharArray implements TypeFormatter<char[]> {
+
+    @Override
+    public final Class<char[]> type() {
+      return char[].class;
+    }
+
+    @Override
+    public final String format(final char[] obj,
+                               final TextFormatter textFormatter) {
+      return Arrays.toString(obj);
+    }
+  }
+
+  /**
+   * {@code float[]} formatter.
+   */
+  class FloatArray implements TypeFormatter<float[]> {
+
+    @Override
+    public final Class<float[]> type() {
+      return float[].class;
+    }
+
+    @Override
+    public final String format(final float[] obj,
+                               final TextFormatter textFormatter) {
+      return Arrays.toString(obj);
+    }
+  }
+
+  /**
+   * {@code double[]} formatter.
+   */
+  class DoubleArray implements TypeFormatter<double[]> {
+
+    @Override
+    public final Class<double[]> type() {
+      return double[].class;
+    }
+
+    @Override
+    public final String format(final double[] obj,
+                               final TextFormatter textFormatter) {
+      return Arrays.toString(obj);
+    }
+  }
+
+  /**
+   * {@code boolean[]} formatter.
+   */
+  class BooleanArray implements TypeFormatter<boolean[]> {
+
+    @Override
+    public final Class<boolean[]> type() {
+      return boolean[].class;
+    }
+
+    @Override
+    public final String format(final boolean[] obj,
+                               final TextFormatter textFormatter) {
+      return Arrays.toString(obj);
+    }
+  }
+
+  /**
+   * {@code Object[]} formatter. Elements are formatted by the text formatter.
+   */
+  class ObjectArray implements TypeFormatter<Object[]> {
+
+    @Override
+    public final Class<Object[]> type() {
+      return Object[].class;
+    }
+
+    @Override
+    public final String format(final Object[] obj,
+                               final TextFormatter textFormatter) {
+      final StringBuilder sb = new StringBuilder().append('[');
+      for (int idx = 0; idx < obj.length; ++idx) {
+        if (idx != 0) {
+          sb.append(", ");
+        }
+        sb.append(textFormatter.format(obj[idx]));
+      }
+      return sb.append(']').toString();
+    }
+  }
+
+  /**
+   * {@link ByteBuffer} formatter. Returns buffer state and hex preview of the remaining bytes, buffer position is not
+   * changed.
+   */
+  class ByteBufferHex implements TypeFormatter<ByteBuffer> {
+    private final int maxBytes;
+
+    /**
+     * Ctor.
+     *
+     * @param maxBytes the max count of bytes in the preview
+     * @throws XtepsException if {@code maxBytes} arg is negative
+     */
+    public ByteBufferHex(final int maxBytes) {
+      if (maxBytes < 0) { throw new XtepsException("maxBytes arg is negative"); }
+      this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Zero-argument public ctor.
+     */
+    public ByteBufferHex() {
+      this(32);
+    }
+
+    @Override
+    public final Class<ByteBuffer> type() {
+      return ByteBuffer.class;
+    }
+
+    @Override
+    public final String format(final ByteBuffer obj,
+                               final TextFormatter textFormatter) {
+      final int position = obj.position();
+      final int remaining = obj.limit() - position;
+      final int previewLength = Math.min(remaining, this.maxBytes);
+      final byte[] preview = new byte[previewLength];
+      for (int idx = 0; idx < previewLength; ++idx) {
+        preview[idx] = obj.get(position + idx);
+      }
+      final StringBuilder sb = new StringBuilder(previewLength * 2 + 64).append(obj).append(' ');
+      ByteArrayHex.appendHex(sb, preview, 0, previewLength);
+      if (previewLength != remaining) {
+        sb.append("...");
+      }
+      return sb.toString();
+    }
+  }
+
+  /**
+   * {@link Path} formatter. Returns the path as given, without normalization.
+   */
+  class PathOf implements TypeFormatter<Path> {
+
+    @Override
+    public final Class<Path> type() {
+      return Path.class;
+    }
+
+    @Override
+    public final String format(final Path obj,
+                               final TextFormatter textFormatter) {
+      return obj.toString();
+    }
+  }
+
+  /**
+   * {@link Duration} formatter. Returns human-readable duration like {@code 1h 2m 3s 400ms}.
+   */
+  class DurationOf implements TypeFormatter<Duration> {
+
+    @Override
+    public final Class<Duration> type() {
+      return Duration.class;
+    }
+
+    @Override
+    public final String format(final Duration obj,
+                               final TextFormatter textFormatter) {
+      if (obj.isZero()) {
+        return "0ms";
+      }
+      final Duration abs = obj.abs();
+      final StringBuilder sb = new StringBuilder();
+      if (obj.isNegative()) {
+        sb.append('-');
+      }
+      if (abs.compareTo(Duration.ofMillis(1)) < 0) {
+        return sb.append(abs.getNano()).append("ns").toString();
+      }
+      final long hours = abs.toHours();
+      final long minutes = abs.toMinutes() % 60;
+      final long seconds = abs.getSeconds() % 60;
+      final long millis = abs.getNano() / 1_000_000;
+      appendUnit(sb, hours, "h");
+      appendUnit(sb, minutes, "m");
+      appendUnit(sb, seconds, "s");
+      appendUnit(sb, millis, "ms");
+      return sb.toString();
+    }
+
+    private static void appendUnit(final StringBuilder sb,
+                                   final long value,
+                                   final String unit) {
+      if (value != 0) {
+        if (sb.length() != 0 && sb.charAt(sb.length() - 1) != '-') {
+          sb.append(' ');
+        }
+        sb.append(value).append(unit);
+      }
+    }
+  }
+
+  /**
+   * {@link Collection} formatter. Elements are formatted by the text formatter.
+   */
+  @SuppressWarnings("rawtypes")
+  class CollectionOf implements TypeFormatter<Collection> {
+    private final int maxElements;
+
+    /**
+     * Ctor.
+     *
+     * @param maxElements the max count of elements in the preview
+     * @throws XtepsException if {@code maxElements} arg is negative
+     */
+    public CollectionOf(final int maxElements) {
+      if (maxElements < 0) { throw new XtepsException("maxElements arg is negative"); }
+      this.maxElements = maxElements;
+    }
+
+    /**
+     * Zero-argument public ctor.
+     */
+    public CollectionOf() {
+      this(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public final Class<Collection> type() {
+      return Collection.class;
+    }
+
+    @Override
+    public final String format(final Collection obj,
+                               final TextFormatter textFormatter) {
+      final StringBuilder sb = new StringBuilder().append('[');
+      final Iterator<?> iterator = obj.iterator();
+      for (int idx = 0; iterator.hasNext(); ++idx) {
+        if (idx != 0) {
+          sb.append(", ");
+        }
+        if (idx == this.maxElements) {
+          sb.append("...(").append(obj.size()).append(" elements)");
+          break;
+        }
+        sb.append(textFormatter.format(iterator.next()));
+      }
+      return sb.append(']').toString();
+    }
+  }
+
+  /**
+   * {@link Map} formatter. Keys and values are formatted by the text formatter.
+   */
+  @SuppressWarnings("rawtypes")
+  class MapOf implements TypeFormatter<Map> {
+    private final int maxEntries;
+
+    /**
+     * Ctor.
+     *
+     * @param maxEntries the max count of entries in the preview
+     * @throws XtepsException if {@code maxEntries} arg is negative
+     */
+    public MapOf(final int maxEntries) {
+      if (maxEntries < 0) { throw new XtepsException("maxEntries arg is negative"); }
+      this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Zero-argument public ctor.
+     */
+    public MapOf() {
+      this(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public final Class<Map> type() {
+      return Map.class;
+    }
+
+    @Override
+    public final String format(final Map obj,
+                               final TextFormatter textFormatter) {
+      final StringBuilder sb = new StringBuilder().append('{');
+      final Iterator<?> iterator = obj.entrySet().iterator();
+      for (int idx = 0; iterator.hasNext(); ++idx) {
+        if (idx != 0) {
+          sb.append(", ");
+        }
+        if (idx == this.maxEntries) {
+          sb.append("...(").append(obj.size()).append(" entries)");
+          break;
+        }
+        final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) iterator.next();
+        sb.append(textFormatter.format(entry.getKey()))
+          .append('=')
+          .append(textFormatter.format(entry.getValue()));
+      }
+      return sb.append('}').toString();
+    }
+  }
+}
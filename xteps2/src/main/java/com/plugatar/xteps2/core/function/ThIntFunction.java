@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.function;
+
+/**
+ * The {@link java.util.function.IntFunction} specialization that might throw an exception.
+ *
+ * @param <R> the type of the result
+ * @param <E> the type of the throwing exception
+ * @see java.util.function.IntFunction
+ */
+@FunctionalInterface
+public interface ThIntFunction<R, E extends Throwable> {
+
+  /**
+   * Applies this function to the given argument.
+   *
+   * @param value the input argument
+   * @return result
+   * @throws E if function threw exception
+   */
+  R apply(int value) throws E;
+
+  /**
+   * Returns given {@code ThIntFunction} as unchecked or null if {@code function} arg is null.
+   *
+   * @param function the function
+   * @param <R>      the type of the {@code function} result
+   * @return unchecked {@code ThIntFunction} or null
+   */
+  @SuppressWarnings("unchecked")
+  static <R> ThIntFunction<R, RuntimeException> unchecked(final ThIntFunction<? extends R, ?> function) {
+    return (ThIntFunction<R, RuntimeException>) function;
+  }
+}
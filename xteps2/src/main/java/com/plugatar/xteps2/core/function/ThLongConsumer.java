@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.function;
+
+/**
+ * The {@link java.util.function.LongConsumer} specialization that might throw an exception.
+ *
+ * @param <E> the type of the throwing exception
+ * @see java.util.function.LongConsumer
+ */
+@FunctionalInterface
+public interface ThLongConsumer<E extends Throwable> {
+
+  /**
+   * Performs this operation on the given argument.
+   *
+   * @param value the input argument
+   * @throws E if consumer threw exception
+   */
+  void accept(long value) throws E;
+
+  /**
+   * Returns given {@code ThLongConsumer} as unchecked or null if {@code consumer} arg is null.
+   *
+   * @param consumer the consumer
+   * @return unchecked {@code ThLongConsumer} or null
+   */
+  @SuppressWarnings("unchecked")
+  static ThLongConsumer<RuntimeException> unchecked(final ThLongConsumer<?> consumer) {
+    return (ThLongConsumer<RuntimeException>) consumer;
+  }
+}
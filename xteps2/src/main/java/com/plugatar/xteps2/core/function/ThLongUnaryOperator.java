@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.function;
+
+/**
+ * The {@link java.util.function.LongUnaryOperator} specialization that might throw an exception.
+ *
+ * @param <E> the type of the throwing exception
+ * @see java.util.function.LongUnaryOperator
+ */
+@FunctionalInterface
+public interface ThLongUnaryOperator<E extends Throwable> {
+
+  /**
+   * Applies this operator to the given operand.
+   *
+   * @param operand the operand
+   * @return result
+   * @throws E if operator threw exception
+   */
+  long applyAsLong(long operand) throws E;
+
+  /**
+   * Returns given {@code ThLongUnaryOperator} as unchecked or null if {@code operator} arg is null.
+   *
+   * @param operator the operator
+   * @return unchecked {@code ThLongUnaryOperator} or null
+   */
+  @SuppressWarnings("unchecked")
+  static ThLongUnaryOperator<RuntimeException> unchecked(final ThLongUnaryOperator<?> operator) {
+    return (ThLongUnaryOperator<RuntimeException>) operator;
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.sc;
+
+import com.plugatar.xteps2.core.XtepsException;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * History of memorizing step contexts. Defines how {@link MemCtxSC}, {@link MemBiCtxSC}, {@link MemTriCtxSC} and
+ * {@link MemNoCtxSC} keep previous step contexts:
+ * <ul>
+ * <li>{@link #unbounded()} - all previous step contexts of the chain are strongly reachable</li>
+ * <li>{@link #weak()} - previous step context is weakly reachable and can be garbage collected</li>
+ * <li>{@link #bounded(int)} - only the given number of the nearest previous step contexts are strongly reachable</li>
+ * </ul>
+ * The {@code previous()} method of step context throws {@link XtepsException} if the previous step context is
+ * released or garbage collected.
+ */
+public final class ContextHistory {
+  private static final ContextHistory UNBOUNDED = new ContextHistory(0, false);
+  private static final ContextHistory WEAK = new ContextHistory(0, true);
+  private final int maxAncestors;
+  private final boolean weak;
+
+  private ContextHistory(final int maxAncestors,
+                         final boolean weak) {
+    this.maxAncestors = maxAncestors;
+    this.weak = weak;
+  }
+
+  /**
+   * Returns unbounded history.
+   *
+   * @return unbounded history
+   */
+  public static ContextHistory unbounded() {
+    return UNBOUNDED;
+  }
+
+  /**
+   * Returns weak history.
+   *
+   * @return weak history
+   */
+  public static ContextHistory weak() {
+    return WEAK;
+  }
+
+  /**
+   * Returns bounded history. Previous step contexts older than {@code maxAncestors} step contexts back from the last
+   * created step context of the chain are released.
+   *
+   * @param maxAncestors the max number of strongly reachable previous step contexts
+   * @return bounded history
+   * @throws XtepsException if {@code maxAncestors} arg is not positive
+   */
+  public static ContextHistory bounded(final int maxAncestors) {
+    if (maxAncestors <= 0) { throw new XtepsException("maxAncestors arg is not positive"); }
+    return new ContextHistory(maxAncestors, false);
+  }
+
+  /**
+   * Returns the link to the previous step context.
+   *
+   * @param previous     the previous step context
+   * @param previousLink the link of the previous step context or null
+   * @param <P>          the type of the previous step context
+   * @return link
+   */
+  <P> Link<P> link(final P previous,
+                   final Link<?> previousLink) {
+    if (this.weak && previous != null) {
+      return new Link<>(this, null, new WeakReference<>(previous), null);
+    }
+    if (this.weak || this.maxAncestors == 0) {
+      return new Link<>(this, previous, null, null);
+    }
+    final Link<P> link = new Link<>(this, previous, null, previousLink);
+    Link<?> ancestorLink = link;
+    for (int idx = 0; idx < this.maxAncestors && ancestorLink != null; ++idx) {
+      ancestorLink = ancestorLink.previousLink;
+    }
+    if (ancestorLink != null) {
+      ancestorLink.release();
+    }
+    return link;
+  }
+
+  @Override
+  public String toString() {
+    if (this.weak) {
+      return "weak";
+    }
+    return this.maxAncestors == 0 ? "unbounded" : "bounded(" + this.maxAncestors + ")";
+  }
+
+  /**
+   * Link to the previous step context.
+   *
+   * @param <P> the type of the previous step context
+   */
+  static final class Link<P> {
+    private final ContextHistory history;
+    private final WeakReference<P> weakPrevious;
+    private P previous;
+    private Link<?> previousLink;
+    private boolean released;
+
+    private Link(final ContextHistory history,
+                 final P previous,
+                 final WeakReference<P> weakPrevious,
+                 final Link<?> previousLink) {
+      this.history = history;
+      this.previous = previous;
+      this.weakPrevious = weakPrevious;
+      this.previousLink = previousLink;
+      this.released = false;
+    }
+
+    /**
+     * Returns the link of the next step context with the same history.
+     *
+     * @param context the step context that owns this link
+     * @param <N>     the type of the step context
+     * @return link
+     */
+    <N> Link<N> next(final N context) {
+      return this.history.link(context, this);
+    }
+
+    /**
+     * Returns the previous step context.
+     *
+     * @return the previous step context
+     * @throws XtepsException if the previous step context is released or garbage collected
+     */
+    P get() {
+      if (this.weakPrevious != null) {
+        final P weakReferent = this.weakPrevious.get();
+        if (weakReferent == null) {
+          throw new XtepsException("Previous step context is garbage collected, context history: " + this.history);
+        }
+        return weakReferent;
+      }
+      if (this.released) {
+        throw new XtepsException("Previous step context is released, context history: " + this.history);
+      }
+      return this.previous;
+    }
+
+    private void release() {
+      this.released = true;
+      this.previous = null;
+      this.previousLink = null;
+    }
+  }
+}
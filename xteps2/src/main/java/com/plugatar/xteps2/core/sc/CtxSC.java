@@ -18,8 +18,16 @@ package com.plugatar.xteps2.core.sc;
 import com.plugatar.xteps2.core.XtepsException;
 import com.plugatar.xteps2.core.function.ThConsumer;
 import com.plugatar.xteps2.core.function.ThFunction;
+import com.plugatar.xteps2.core.function.ThSupplier;
+import com.plugatar.xteps2.core.function.ThToDoubleFunction;
+import com.plugatar.xteps2.core.function.ThToIntFunction;
+import com.plugatar.xteps2.core.function.ThToLongFunction;
 import com.plugatar.xteps2.core.sc.base.BaseCtxSC;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Single context step context.
  *
@@ -33,6 +41,122 @@ public interface CtxSC<C> extends BaseCtxSC<C, CtxSC<C>> {
   @Override
   <R> MemCtxSC<R, CtxSC<C>> map(final ThFunction<? super C, ? extends R, ?> action);
 
+  /**
+   * Executes given action and returns new {@code int} context step context.
+   *
+   * @param action the action
+   * @return new {@code int} context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  IntCtxSC mapToInt(ThToIntFunction<? super C, ?> action);
+
+  /**
+   * Executes given action and returns new {@code long} context step context.
+   *
+   * @param action the action
+   * @return new {@code long} context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  LongCtxSC mapToLong(ThToLongFunction<? super C, ?> action);
+
+  /**
+   * Executes given action and returns new {@code double} context step context.
+   *
+   * @param action the action
+   * @return new {@code double} context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  DoubleCtxSC mapToDouble(ThToDoubleFunction<? super C, ?> action);
+
+  /**
+   * Executes given actions in parallel. Steps of the actions are reported in the actions order. If some actions fail,
+   * the first failed action exception is thrown, exceptions of other failed actions are suppressed by it.
+   *
+   * @param action1 the first action
+   * @param action2 the second action
+   * @return this step context
+   * @throws XtepsException if {@code action1} arg is null
+   *                        or if {@code action2} arg is null
+   */
+  CtxSC<C> parallelExec(ThConsumer<? super C, ?> action1,
+                        ThConsumer<? super C, ?> action2);
+
+  /**
+   * Executes given actions in parallel. Steps of the actions are reported in the actions order. If some actions fail,
+   * the first failed action exception is thrown, exceptions of other failed actions are suppressed by it.
+   *
+   * @param action1 the first action
+   * @param action2 the second action
+   * @param action3 the third action
+   * @return this step context
+   * @throws XtepsException if {@code action1} arg is null
+   *                        or if {@code action2} arg is null
+   *                        or if {@code action3} arg is null
+   */
+  CtxSC<C> parallelExec(ThConsumer<? super C, ?> action1,
+                        ThConsumer<? super C, ?> action2,
+                        ThConsumer<? super C, ?> action3);
+
+  /**
+   * Executes given actions in parallel. Steps of the actions are reported in the actions order. If some actions fail,
+   * the first failed action exception is thrown, exceptions of other failed actions are suppressed by it.
+   *
+   * @param actions the actions
+   * @return this step context
+   * @throws XtepsException if {@code actions} arg is null
+   *                        or if {@code actions} arg contains null
+   */
+  CtxSC<C> parallelExec(List<? extends ThConsumer<? super C, ?>> actions);
+
+  /**
+   * Executes given actions in parallel and returns new context step context with the actions results. Steps of the
+   * actions are reported in the actions order. If some actions fail, the first failed action exception is thrown,
+   * exceptions of other failed actions are suppressed by it.
+   *
+   * @param action1 the first action
+   * @param action2 the second action
+   * @param <R1>    the type of the first new context
+   * @param <R2>    the type of the second new context
+   * @return new context step context
+   * @throws XtepsException if {@code action1} arg is null
+   *                        or if {@code action2} arg is null
+   */
+  <R1, R2> MemBiCtxSC<R1, R2, CtxSC<C>> parallelMap(ThFunction<? super C, ? extends R1, ?> action1,
+                                                    ThFunction<? super C, ? extends R2, ?> action2);
+
+  /**
+   * Executes given actions in parallel and returns new context step context with the actions results. Steps of the
+   * actions are reported in the actions order. If some actions fail, the first failed action exception is thrown,
+   * exceptions of other failed actions are suppressed by it.
+   *
+   * @param action1 the first action
+   * @param action2 the second action
+   * @param action3 the third action
+   * @param <R1>    the type of the first new context
+   * @param <R2>    the type of the second new context
+   * @param <R3>    the type of the third new context
+   * @return new context step context
+   * @throws XtepsException if {@code action1} arg is null
+   *                        or if {@code action2} arg is null
+   *                        or if {@code action3} arg is null
+   */
+  <R1, R2, R3> MemTriCtxSC<R1, R2, R3, CtxSC<C>> parallelMap(ThFunction<? super C, ? extends R1, ?> action1,
+                                                             ThFunction<? super C, ? extends R2, ?> action2,
+                                                             ThFunction<? super C, ? extends R3, ?> action3);
+
+  /**
+   * Executes given actions in parallel and returns new context step context with the actions results. Steps of the
+   * actions are reported in the actions order. If some actions fail, the first failed action exception is thrown,
+   * exceptions of other failed actions are suppressed by it.
+   *
+   * @param actions the actions
+   * @param <R>     the type of the actions results
+   * @return new context step context
+   * @throws XtepsException if {@code actions} arg is null
+   *                        or if {@code actions} arg contains null
+   */
+  <R> MemCtxSC<List<R>, CtxSC<C>> parallelMap(List<? extends ThFunction<? super C, ? extends R, ?>> actions);
+
   /**
    * Default {@code CtxSC} implementation.
    *
@@ -88,11 +212,103 @@ public interface CtxSC<C> extends BaseCtxSC<C, CtxSC<C>> {
       return new MemCtxSC.Of<>(ThFunction.unchecked(action).apply(this.context), this);
     }
 
+    @Override
+    public final IntCtxSC mapToInt(final ThToIntFunction<? super C, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new IntCtxSC.Of(ThToIntFunction.unchecked(action).applyAsInt(this.context));
+    }
+
+    @Override
+    public final LongCtxSC mapToLong(final ThToLongFunction<? super C, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new LongCtxSC.Of(ThToLongFunction.unchecked(action).applyAsLong(this.context));
+    }
+
+    @Override
+    public final DoubleCtxSC mapToDouble(final ThToDoubleFunction<? super C, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new DoubleCtxSC.Of(ThToDoubleFunction.unchecked(action).applyAsDouble(this.context));
+    }
+
     @Override
     public final C context() {
       return this.context;
     }
 
+    @Override
+    public final CtxSC<C> parallelExec(final ThConsumer<? super C, ?> action1,
+                                       final ThConsumer<? super C, ?> action2) {
+      if (action1 == null) { throw new XtepsException("action1 arg is null"); }
+      if (action2 == null) { throw new XtepsException("action2 arg is null"); }
+      return this.parallelExec(Arrays.asList(action1, action2));
+    }
+
+    @Override
+    public final CtxSC<C> parallelExec(final ThConsumer<? super C, ?> action1,
+                                       final ThConsumer<? super C, ?> action2,
+                                       final ThConsumer<? super C, ?> action3) {
+      if (action1 == null) { throw new XtepsException("action1 arg is null"); }
+      if (action2 == null) { throw new XtepsException("action2 arg is null"); }
+      if (action3 == null) { throw new XtepsException("action3 arg is null"); }
+      return this.parallelExec(Arrays.asList(action1, action2, action3));
+    }
+
+    @Override
+    public final CtxSC<C> parallelExec(final List<? extends ThConsumer<? super C, ?>> actions) {
+      if (actions == null) { throw new XtepsException("actions arg is null"); }
+      final List<ThSupplier<?, ?>> suppliers = new ArrayList<>(actions.size());
+      for (final ThConsumer<? super C, ?> action : actions) {
+        if (action == null) { throw new XtepsException("actions arg contains null"); }
+        suppliers.add(() -> {
+          action.accept(this.context);
+          return null;
+        });
+      }
+      ParallelActions.perform(suppliers);
+      return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <R1, R2> MemBiCtxSC<R1, R2, CtxSC<C>> parallelMap(final ThFunction<? super C, ? extends R1, ?> action1,
+                                                                   final ThFunction<? super C, ? extends R2, ?> action2) {
+      if (action1 == null) { throw new XtepsException("action1 arg is null"); }
+      if (action2 == null) { throw new XtepsException("action2 arg is null"); }
+      final Object[] results = ParallelActions.perform(Arrays.<ThSupplier<?, ?>>asList(
+        () -> action1.apply(this.context),
+        () -> action2.apply(this.context)
+      ));
+      return new MemBiCtxSC.Of<>((R1) results[0], (R2) results[1], this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <R1, R2, R3> MemTriCtxSC<R1, R2, R3, CtxSC<C>> parallelMap(final ThFunction<? super C, ? extends R1, ?> action1,
+                                                                            final ThFunction<? super C, ? extends R2, ?> action2,
+                                                                            final ThFunction<? super C, ? extends R3, ?> action3) {
+      if (action1 == null) { throw new XtepsException("action1 arg is null"); }
+      if (action2 == null) { throw new XtepsException("action2 arg is null"); }
+      if (action3 == null) { throw new XtepsException("action3 arg is null"); }
+      final Object[] results = ParallelActions.perform(Arrays.<ThSupplier<?, ?>>asList(
+        () -> action1.apply(this.context),
+        () -> action2.apply(this.context),
+        () -> action3.apply(this.context)
+      ));
+      return new MemTriCtxSC.Of<>((R1) results[0], (R2) results[1], (R3) results[2], this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <R> MemCtxSC<List<R>, CtxSC<C>> parallelMap(final List<? extends ThFunction<? super C, ? extends R, ?>> actions) {
+      if (actions == null) { throw new XtepsException("actions arg is null"); }
+      final List<ThSupplier<?, ?>> suppliers = new ArrayList<>(actions.size());
+      for (final ThFunction<? super C, ? extends R, ?> action : actions) {
+        if (action == null) { throw new XtepsException("actions arg contains null"); }
+        suppliers.add(() -> action.apply(this.context));
+      }
+      return new MemCtxSC.Of<>((List<R>) Arrays.asList(ParallelActions.perform(suppliers)), this);
+    }
+
     @Override
     public final MemNoCtxSC<CtxSC<C>> noContext() {
       return new MemNoCtxSC.Of<>(this);
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.sc;
+
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.function.ThConsumer;
+import com.plugatar.xteps2.core.function.ThFunction;
+import com.plugatar.xteps2.core.function.ThDoubleConsumer;
+import com.plugatar.xteps2.core.function.ThDoubleFunction;
+import com.plugatar.xteps2.core.function.ThDoubleUnaryOperator;
+import com.plugatar.xteps2.core.sc.base.BaseAnyCtxSC;
+
+/**
+ * Single {@code double} context step context. The context is not boxed, {@link #map(ThDoubleUnaryOperator)} returns new
+ * non-memorizing step context. Primitive step contexts have no step reporting methods, actions are executed without
+ * steps. Use {@link #boxed()} to report steps with the context.
+ */
+public interface DoubleCtxSC extends BaseAnyCtxSC<DoubleCtxSC> {
+
+  /**
+   * Executes given action.
+   *
+   * @param action the action
+   * @return this step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  DoubleCtxSC exec(ThDoubleConsumer<?> action);
+
+  /**
+   * Executes given action and returns action result.
+   *
+   * @param action the action
+   * @param <R>    the type of the result
+   * @return action result
+   * @throws XtepsException if {@code action} arg is null
+   */
+  <R> R res(ThDoubleFunction<? extends R, ?> action);
+
+  /**
+   * Executes given action and returns new {@code double} context step context.
+   *
+   * @param action the action
+   * @return new context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  DoubleCtxSC map(ThDoubleUnaryOperator<?> action);
+
+  /**
+   * Executes given action and returns new context step context.
+   *
+   * @param action the action
+   * @param <R>    the type of the new context
+   * @return new context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  <R> CtxSC<R> mapToObj(ThDoubleFunction<? extends R, ?> action);
+
+  /**
+   * Returns boxed context step context.
+   *
+   * @return boxed context step context
+   */
+  CtxSC<Double> boxed();
+
+  /**
+   * Returns the context.
+   *
+   * @return the context
+   */
+  double context();
+
+  /**
+   * Default {@code DoubleCtxSC} implementation.
+   */
+  class Of implements DoubleCtxSC {
+    private final double context;
+
+    /**
+     * Ctor.
+     *
+     * @param context the context
+     */
+    public Of(final double context) {
+      this.context = context;
+    }
+
+    @Override
+    public final DoubleCtxSC exec(final ThDoubleConsumer<?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      ThDoubleConsumer.unchecked(action).accept(this.context);
+      return this;
+    }
+
+    @Override
+    public final <R> R res(final ThDoubleFunction<? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return ThDoubleFunction.unchecked(action).apply(this.context);
+    }
+
+    @Override
+    public final DoubleCtxSC it(final ThConsumer<? super DoubleCtxSC, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      ThConsumer.unchecked(action).accept(this);
+      return this;
+    }
+
+    @Override
+    public final <R> R itRes(final ThFunction<? super DoubleCtxSC, ? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return ThFunction.unchecked(action).apply(this);
+    }
+
+    @Override
+    public final DoubleCtxSC map(final ThDoubleUnaryOperator<?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new DoubleCtxSC.Of(ThDoubleUnaryOperator.unchecked(action).applyAsDouble(this.context));
+    }
+
+    @Override
+    public final <R> CtxSC<R> mapToObj(final ThDoubleFunction<? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new CtxSC.Of<>(ThDoubleFunction.unchecked(action).apply(this.context));
+    }
+
+    @Override
+    public final CtxSC<Double> boxed() {
+      return new CtxSC.Of<>(this.context);
+    }
+
+    @Override
+    public final double context() {
+      return this.context;
+    }
+
+    @Override
+    public final MemNoCtxSC<DoubleCtxSC> noContext() {
+      return new MemNoCtxSC.Of<>(this);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.sc;
+
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.function.ThConsumer;
+import com.plugatar.xteps2.core.function.ThFunction;
+import com.plugatar.xteps2.core.function.ThIntConsumer;
+import com.plugatar.xteps2.core.function.ThIntFunction;
+import com.plugatar.xteps2.core.function.ThIntUnaryOperator;
+import com.plugatar.xteps2.core.sc.base.BaseAnyCtxSC;
+
+/**
+ * Single {@code int} context step context. The context is not boxed, {@link #map(ThIntUnaryOperator)} returns new
+ * non-memorizing step context. Primitive step contexts have no step reporting methods, actions are executed without
+ * steps. Use {@link #boxed()} to report steps with the context.
+ */
+public interface IntCtxSC extends BaseAnyCtxSC<IntCtxSC> {
+
+  /**
+   * Executes given action.
+   *
+   * @param action the action
+   * @return this step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  IntCtxSC exec(ThIntConsumer<?> action);
+
+  /**
+   * Executes given action and returns action result.
+   *
+   * @param action the action
+   * @param <R>    the type of the result
+   * @return action result
+   * @throws XtepsException if {@code action} arg is null
+   */
+  <R> R res(ThIntFunction<? extends R, ?> action);
+
+  /**
+   * Executes given action and returns new {@code int} context step context.
+   *
+   * @param action the action
+   * @return new context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  IntCtxSC map(ThIntUnaryOperator<?> action);
+
+  /**
+   * Executes given action and returns new context step context.
+   *
+   * @param action the action
+   * @param <R>    the type of the new context
+   * @return new context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  <R> CtxSC<R> mapToObj(ThIntFunction<? extends R, ?> action);
+
+  /**
+   * Returns boxed context step context.
+   *
+   * @return boxed context step context
+   */
+  CtxSC<Integer> boxed();
+
+  /**
+   * Returns the context.
+   *
+   * @return the context
+   */
+  int context();
+
+  /**
+   * Default {@code IntCtxSC} implementation.
+   */
+  class Of implements IntCtxSC {
+    private final int context;
+
+    /**
+     * Ctor.
+     *
+     * @param context the context
+     */
+    public Of(final int context) {
+      this.context = context;
+    }
+
+    @Override
+    public final IntCtxSC exec(final ThIntConsumer<?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      ThIntConsumer.unchecked(action).accept(this.context);
+      return this;
+    }
+
+    @Override
+    public final <R> R res(final ThIntFunction<? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return ThIntFunction.unchecked(action).apply(this.context);
+    }
+
+    @Override
+    public final IntCtxSC it(final ThConsumer<? super IntCtxSC, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      ThConsumer.unchecked(action).accept(this);
+      return this;
+    }
+
+    @Override
+    public final <R> R itRes(final ThFunction<? super IntCtxSC, ? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return ThFunction.unchecked(action).apply(this);
+    }
+
+    @Override
+    public final IntCtxSC map(final ThIntUnaryOperator<?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new IntCtxSC.Of(ThIntUnaryOperator.unchecked(action).applyAsInt(this.context));
+    }
+
+    @Override
+    public final <R> CtxSC<R> mapToObj(final ThIntFunction<? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new CtxSC.Of<>(ThIntFunction.unchecked(action).apply(this.context));
+    }
+
+    @Override
+    public final CtxSC<Integer> boxed() {
+      return new CtxSC.Of<>(this.context);
+    }
+
+    @Override
+    public final int context() {
+      return this.context;
+    }
+
+    @Override
+    public final MemNoCtxSC<IntCtxSC> noContext() {
+      return new MemNoCtxSC.Of<>(this);
+    }
+  }
+}
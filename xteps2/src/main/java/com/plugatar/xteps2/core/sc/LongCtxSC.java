@@ -0,0 +1,153 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.sc;
+
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.function.ThConsumer;
+import com.plugatar.xteps2.core.function.ThFunction;
+import com.plugatar.xteps2.core.function.ThLongConsumer;
+import com.plugatar.xteps2.core.function.ThLongFunction;
+import com.plugatar.xteps2.core.function.ThLongUnaryOperator;
+import com.plugatar.xteps2.core.sc.base.BaseAnyCtxSC;
+
+/**
+ * Single {@code long} context step context. The context is not boxed, {@link #map(ThLongUnaryOperator)} returns new
+ * non-memorizing step context. Primitive step contexts have no step reporting methods, actions are executed without
+ * steps. Use {@link #boxed()} to report steps with the context.
+ */
+public interface LongCtxSC extends BaseAnyCtxSC<LongCtxSC> {
+
+  /**
+   * Executes given action.
+   *
+   * @param action the action
+   * @return this step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  LongCtxSC exec(ThLongConsumer<?> action);
+
+  /**
+   * Executes given action and returns action result.
+   *
+   * @param action the action
+   * @param <R>    the type of the result
+   * @return action result
+   * @throws XtepsException if {@code action} arg is null
+   */
+  <R> R res(ThLongFunction<? extends R, ?> action);
+
+  /**
+   * Executes given action and returns new {@code long} context step context.
+   *
+   * @param action the action
+   * @return new context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  LongCtxSC map(ThLongUnaryOperator<?> action);
+
+  /**
+   * Executes given action and returns new context step context.
+   *
+   * @param action the action
+   * @param <R>    the type of the new context
+   * @return new context step context
+   * @throws XtepsException if {@code action} arg is null
+   */
+  <R> CtxSC<R> mapToObj(ThLongFunction<? extends R, ?> action);
+
+  /**
+   * Returns boxed context step context.
+   *
+   * @return boxed context step context
+   */
+  CtxSC<Long> boxed();
+
+  /**
+   * Returns the context.
+   *
+   * @return the context
+   */
+  long context();
+
+  /**
+   * Default {@code LongCtxSC} implementation.
+   */
+  class Of implements LongCtxSC {
+    private final long context;
+
+    /**
+     * Ctor.
+     *
+     * @param context the context
+     */
+    public Of(final long context) {
+      this.context = context;
+    }
+
+    @Override
+    public final LongCtxSC exec(final ThLongConsumer<?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      ThLongConsumer.unchecked(action).accept(this.context);
+      return this;
+    }
+
+    @Override
+    public final <R> R res(final ThLongFunction<? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return ThLongFunction.unchecked(action).apply(this.context);
+    }
+
+    @Override
+    public final LongCtxSC it(final ThConsumer<? super LongCtxSC, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      ThConsumer.unchecked(action).accept(this);
+      return this;
+    }
+
+    @Override
+    public final <R> R itRes(final ThFunction<? super LongCtxSC, ? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return ThFunction.unchecked(action).apply(this);
+    }
+
+    @Override
+    public final LongCtxSC map(final ThLongUnaryOperator<?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new LongCtxSC.Of(ThLongUnaryOperator.unchecked(action).applyAsLong(this.context));
+    }
+
+    @Override
+    public final <R> CtxSC<R> mapToObj(final ThLongFunction<? extends R, ?> action) {
+      if (action == null) { throw new XtepsException("action arg is null"); }
+      return new CtxSC.Of<>(ThLongFunction.unchecked(action).apply(this.context));
+    }
+
+    @Override
+    public final CtxSC<Long> boxed() {
+      return new CtxSC.Of<>(this.context);
+    }
+
+    @Override
+    public final long context() {
+      return this.context;
+    }
+
+    @Override
+    public final MemNoCtxSC<LongCtxSC> noContext() {
+      return new MemNoCtxSC.Of<>(this);
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.plugatar.xteps2.core.sc;
 
+import com.plugatar.xteps2.XtepsBase;
 import com.plugatar.xteps2.core.XtepsException;
 import com.plugatar.xteps2.core.function.ThBiConsumer;
 import com.plugatar.xteps2.core.function.ThBiFunction;
@@ -52,7 +53,7 @@ public interface MemBiCtxSC<C1, C2, P extends StepContext<?>> extends
   class Of<C1, C2, P extends StepContext<?>> implements MemBiCtxSC<C1, C2, P> {
     private final C1 context1;
     private final C2 context2;
-    private final P previous;
+    private final ContextHistory.Link<P> previousLink;
 
     /**
      * Ctor.
@@ -60,13 +61,27 @@ public interface MemBiCtxSC<C1, C2, P extends StepContext<?>> extends
      * @param context1 the first context
      * @param context2 the second context
      * @param previous the previous step context
+     * @throws XtepsException if Xteps configuration is incorrect
      */
     public Of(final C1 context1,
               final C2 context2,
               final P previous) {
+      this(context1, context2, XtepsBase.contextHistory().link(previous, null));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param context1     the first context
+     * @param context2     the second context
+     * @param previousLink the link to the previous step context
+     */
+    Of(final C1 context1,
+       final C2 context2,
+       final ContextHistory.Link<P> previousLink) {
       this.context1 = context1;
       this.context2 = context2;
-      this.previous = previous;
+      this.previousLink = previousLink;
     }
 
     @Override
@@ -80,7 +95,7 @@ public interface MemBiCtxSC<C1, C2, P extends StepContext<?>> extends
     public final <R> MemTriCtxSC<R, C1, C2, MemBiCtxSC<C1, C2, P>> with(final ThBiFunction<? super C1, ? super C2, ? extends R, ?> action) {
       if (action == null) { throw new XtepsException("action arg is null"); }
       return new MemTriCtxSC.Of<>(ThBiFunction.unchecked(action).apply(this.context1, this.context2),
-        this.context1, this.context2, this);
+        this.context1, this.context2, this.previousLink.next(this));
     }
 
     @Override
@@ -110,7 +125,7 @@ public interface MemBiCtxSC<C1, C2, P extends StepContext<?>> extends
       return new MemBiCtxSC.Of<>(
         ThBiFunction.unchecked(action1).apply(this.context1, this.context2),
         ThBiFunction.unchecked(action2).apply(this.context1, this.context2),
-        this
+        this.previousLink.next(this)
       );
     }
 
@@ -126,12 +141,12 @@ public interface MemBiCtxSC<C1, C2, P extends StepContext<?>> extends
 
     @Override
     public final MemNoCtxSC<MemBiCtxSC<C1, C2, P>> noContext() {
-      return new MemNoCtxSC.Of<>(this);
+      return new MemNoCtxSC.Of<>(this.previousLink.next(this));
     }
 
     @Override
     public final P previous() {
-      return this.previous;
+      return this.previousLink.get();
     }
 
     @Override
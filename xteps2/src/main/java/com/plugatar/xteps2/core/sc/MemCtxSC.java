@@ -15,6 +15,7 @@
  */
 package com.plugatar.xteps2.core.sc;
 
+import com.plugatar.xteps2.XtepsBase;
 import com.plugatar.xteps2.core.XtepsException;
 import com.plugatar.xteps2.core.function.ThConsumer;
 import com.plugatar.xteps2.core.function.ThFunction;
@@ -46,18 +47,30 @@ public interface MemCtxSC<C, P extends StepContext<?>> extends
    */
   class Of<C, P extends StepContext<?>> implements MemCtxSC<C, P> {
     private final C context;
-    private final P previous;
+    private final ContextHistory.Link<P> previousLink;
 
     /**
      * Ctor.
      *
      * @param context  the context
      * @param previous the previous step context
+     * @throws XtepsException if Xteps configuration is incorrect
      */
     public Of(final C context,
               final P previous) {
+      this(context, XtepsBase.contextHistory().link(previous, null));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param context      the context
+     * @param previousLink the link to the previous step context
+     */
+    Of(final C context,
+       final ContextHistory.Link<P> previousLink) {
       this.context = context;
-      this.previous = previous;
+      this.previousLink = previousLink;
     }
 
     @Override
@@ -70,7 +83,7 @@ public interface MemCtxSC<C, P extends StepContext<?>> extends
     @Override
     public final <R> MemBiCtxSC<R, C, MemCtxSC<C, P>> with(final ThFunction<? super C, ? extends R, ?> action) {
       if (action == null) { throw new XtepsException("action arg is null"); }
-      return new MemBiCtxSC.Of<>(ThFunction.unchecked(action).apply(this.context), this.context, this);
+      return new MemBiCtxSC.Of<>(ThFunction.unchecked(action).apply(this.context), this.context, this.previousLink.next(this));
     }
 
     @Override
@@ -95,7 +108,7 @@ public interface MemCtxSC<C, P extends StepContext<?>> extends
     @Override
     public final <R> MemCtxSC<R, MemCtxSC<C, P>> map(final ThFunction<? super C, ? extends R, ?> action) {
       if (action == null) { throw new XtepsException("action arg is null"); }
-      return new MemCtxSC.Of<>(ThFunction.unchecked(action).apply(this.context), this);
+      return new MemCtxSC.Of<>(ThFunction.unchecked(action).apply(this.context), this.previousLink.next(this));
     }
 
     @Override
@@ -105,12 +118,12 @@ public interface MemCtxSC<C, P extends StepContext<?>> extends
 
     @Override
     public final MemNoCtxSC<MemCtxSC<C, P>> noContext() {
-      return new MemNoCtxSC.Of<>(this);
+      return new MemNoCtxSC.Of<>(this.previousLink.next(this));
     }
 
     @Override
     public final P previous() {
-      return this.previous;
+      return this.previousLink.get();
     }
 
     @Override
@@ -15,6 +15,7 @@
  */
 package com.plugatar.xteps2.core.sc;
 
+import com.plugatar.xteps2.XtepsBase;
 import com.plugatar.xteps2.core.XtepsException;
 import com.plugatar.xteps2.core.function.ThConsumer;
 import com.plugatar.xteps2.core.function.ThFunction;
@@ -42,15 +43,25 @@ public interface MemNoCtxSC<P extends StepContext<?>> extends
    * @param <P> the type of the previous step context
    */
   class Of<P extends StepContext<?>> implements MemNoCtxSC<P> {
-    private final P previous;
+    private final ContextHistory.Link<P> previousLink;
 
     /**
      * Ctor.
      *
      * @param previous the previous step context
+     * @throws XtepsException if Xteps configuration is incorrect
      */
     public Of(final P previous) {
-      this.previous = previous;
+      this(XtepsBase.contextHistory().link(previous, null));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param previousLink the link to the previous step context
+     */
+    Of(final ContextHistory.Link<P> previousLink) {
+      this.previousLink = previousLink;
     }
 
     @Override
@@ -63,7 +74,7 @@ public interface MemNoCtxSC<P extends StepContext<?>> extends
     @Override
     public final <R> MemCtxSC<R, P> with(final ThSupplier<? extends R, ?> action) {
       if (action == null) { throw new XtepsException("action arg is null"); }
-      return new MemCtxSC.Of<>(ThSupplier.unchecked(action).get(), this.previous);
+      return new MemCtxSC.Of<>(ThSupplier.unchecked(action).get(), this.previousLink);
     }
 
     @Override
@@ -87,7 +98,7 @@ public interface MemNoCtxSC<P extends StepContext<?>> extends
 
     @Override
     public final P previous() {
-      return this.previous;
+      return this.previousLink.get();
     }
 
     @Override
@@ -15,6 +15,7 @@
  */
 package com.plugatar.xteps2.core.sc;
 
+import com.plugatar.xteps2.XtepsBase;
 import com.plugatar.xteps2.core.XtepsException;
 import com.plugatar.xteps2.core.function.ThConsumer;
 import com.plugatar.xteps2.core.function.ThFunction;
@@ -56,7 +57,7 @@ public interface MemTriCtxSC<C1, C2, C3, P extends StepContext<?>> extends
     private final C1 context1;
     private final C2 context2;
     private final C3 context3;
-    private final P previous;
+    private final ContextHistory.Link<P> previousLink;
 
     /**
      * Ctor.
@@ -65,15 +66,31 @@ public interface MemTriCtxSC<C1, C2, C3, P extends StepContext<?>> extends
      * @param context2 the second context
      * @param context3 the third context
      * @param previous the previous step context
+     * @throws XtepsException if Xteps configuration is incorrect
      */
     public Of(final C1 context1,
               final C2 context2,
               final C3 context3,
               final P previous) {
+      this(context1, context2, context3, XtepsBase.contextHistory().link(previous, null));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param context1     the first context
+     * @param context2     the second context
+     * @param context3     the third context
+     * @param previousLink the link to the previous step context
+     */
+    Of(final C1 context1,
+       final C2 context2,
+       final C3 context3,
+       final ContextHistory.Link<P> previousLink) {
       this.context1 = context1;
       this.context2 = context2;
       this.context3 = context3;
-      this.previous = previous;
+      this.previousLink = previousLink;
     }
 
     @Override
@@ -87,7 +104,7 @@ public interface MemTriCtxSC<C1, C2, C3, P extends StepContext<?>> extends
     public final <R> MemTriCtxSC<R, C1, C2, MemTriCtxSC<C1, C2, C3, P>> with(final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R, ?> action) {
       if (action == null) { throw new XtepsException("action arg is null"); }
       return new MemTriCtxSC.Of<>(ThTriFunction.unchecked(action).apply(this.context1, this.context2, this.context3),
-        this.context1, this.context2, this);
+        this.context1, this.context2, this.previousLink.next(this));
     }
 
     @Override
@@ -120,7 +137,7 @@ public interface MemTriCtxSC<C1, C2, C3, P extends StepContext<?>> extends
         ThTriFunction.unchecked(action1).apply(this.context1, this.context2, this.context3),
         ThTriFunction.unchecked(action2).apply(this.context1, this.context2, this.context3),
         ThTriFunction.unchecked(action3).apply(this.context1, this.context2, this.context3),
-        this
+        this.previousLink.next(this)
       );
     }
 
@@ -141,12 +158,12 @@ public interface MemTriCtxSC<C1, C2, C3, P extends StepContext<?>> extends
 
     @Override
     public final MemNoCtxSC<MemTriCtxSC<C1, C2, C3, P>> noContext() {
-      return new MemNoCtxSC.Of<>(this);
+      return new MemNoCtxSC.Of<>(this.previousLink.next(this));
     }
 
     @Override
     public final P previous() {
-      return this.previous;
+      return this.previousLink.get();
     }
 
     @Override
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.sc;
+
+import com.plugatar.xteps2.XtepsBase;
+import com.plugatar.xteps2.core.StepRecording;
+import com.plugatar.xteps2.core.StepReporter;
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.function.ThSupplier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Performs step context actions in parallel. Steps of the actions are recorded in worker threads and reported in
+ * the actions order by the calling thread. If some actions fail, the first failed action exception is thrown,
+ * exceptions of other failed actions are suppressed by it.
+ * <p>
+ * Each call uses its own worker threads, the number of threads is limited by
+ * {@link XtepsBase#stepContextParallelism()}. The threads are stopped when the call is completed, so nested parallel
+ * actions don't wait for the threads of the outer call.
+ */
+final class ParallelActions {
+
+  private ParallelActions() {
+  }
+
+  static Object[] perform(final List<? extends ThSupplier<?, ?>> actions) {
+    final StepReporter stepReporter = XtepsBase.stepReporter();
+    final Object[] results = new Object[actions.size()];
+    final ExecutorService executor = newExecutor(Math.min(actions.size(), XtepsBase.stepContextParallelism()));
+    try {
+      final List<Future<StepRecording>> recordings = new ArrayList<>(actions.size());
+      for (int idx = 0; idx < actions.size(); ++idx) {
+        final int actionIdx = idx;
+        final ThSupplier<?, ?> action = actions.get(actionIdx);
+        recordings.add(executor.submit(() -> stepReporter.record(() -> results[actionIdx] = action.get())));
+      }
+      Throwable exception = null;
+      for (final Future<StepRecording> future : recordings) {
+        final StepRecording recording;
+        try {
+          recording = future.get();
+        } catch (final InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new XtepsException("Interrupted while waiting for parallel actions", ex);
+        } catch (final ExecutionException ex) {
+          throw new XtepsException("Parallel action cannot be performed", ex.getCause());
+        }
+        recording.replay(stepReporter);
+        final Throwable actionException = recording.exception();
+        if (actionException != null) {
+          if (exception == null) {
+            exception = actionException;
+          } else if (exception != actionException) {
+            exception.addSuppressed(actionException);
+          }
+        }
+      }
+      if (exception != null) {
+        throw sneakyThrow(exception);
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static ExecutorService newExecutor(final int threads) {
+    return Executors.newFixedThreadPool(Math.max(threads, 1), runnable -> {
+      final Thread thread = new Thread(runnable, "xteps2-parallel-actions");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Throwable> RuntimeException sneakyThrow(final Throwable exception) throws E {
+    throw (E) exception;
+  }
+}
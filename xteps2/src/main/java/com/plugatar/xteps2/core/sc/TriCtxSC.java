@@ -18,10 +18,15 @@ package com.plugatar.xteps2.core.sc;
 import com.plugatar.xteps2.core.XtepsException;
 import com.plugatar.xteps2.core.function.ThConsumer;
 import com.plugatar.xteps2.core.function.ThFunction;
+import com.plugatar.xteps2.core.function.ThSupplier;
 import com.plugatar.xteps2.core.function.ThTriConsumer;
 import com.plugatar.xteps2.core.function.ThTriFunction;
 import com.plugatar.xteps2.core.sc.base.BaseTriCtxSC;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Tri step context.
  *
@@ -39,6 +44,95 @@ public interface TriCtxSC<C1, C2, C3> extends BaseTriCtxSC<C1, C2, C3, TriCtxSC<
                                                                  final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R2, ?> action2,
                                                                  final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R3, ?> action3);
 
+  /**
+   * Executes given actions in parallel. Steps of the actions are reported in the actions order. If some actions fail,
+   * the first failed action exception is thrown, exceptions of other failed actions are suppressed by it.
+   *
+   * @param action1 the first action
+   * @param action2 the second action
+   * @return this step context
+   * @throws XtepsException if {@code action1} arg is null
+   *                        or if {@code action2} arg is null
+   */
+  TriCtxSC<C1, C2, C3> parallelExec(ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action1,
+                                    ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action2);
+
+  /**
+   * Executes given actions in parallel. Steps of the actions are reported in the actions order. If some actions fail,
+   * the first failed action exception is thrown, exceptions of other failed actions are suppressed by it.
+   *
+   * @param action1 the first action
+   * @param action2 the second action
+   * @param action3 the third action
+   * @return this step context
+   * @throws XtepsException if {@code action1} arg is null
+   *                        or if {@code action2} arg is null
+   *                        or if {@code action3} arg is null
+   */
+  TriCtxSC<C1, C2, C3> parallelExec(ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action1,
+                                    ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action2,
+                                    ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action3);
+
+  /**
+   * Executes given actions in parallel. Steps of the actions are reported in the actions order. If some actions fail,
+   * the first failed action exception is thrown, exceptions of other failed actions are suppressed by it.
+   *
+   * @param actions the actions
+   * @return this step context
+   * @throws XtepsException if {@code actions} arg is null
+   *                        or if {@code actions} arg contains null
+   */
+  TriCtxSC<C1, C2, C3> parallelExec(List<? extends ThTriConsumer<? super C1, ? super C2, ? super C3, ?>> actions);
+
+  /**
+   * Executes given actions in parallel and returns new context step context with the actions results. Steps of the
+   * actions are reported in the actions order. If some actions fail, the first failed action exception is thrown,
+   * exceptions of other failed actions are suppressed by it.
+   *
+   * @param action1 the first action
+   * @param action2 the second action
+   * @param <R1>    the type of the first new context
+   * @param <R2>    the type of the second new context
+   * @return new context step context
+   * @throws XtepsException if {@code action1} arg is null
+   *                        or if {@code action2} arg is null
+   */
+  <R1, R2> MemBiCtxSC<R1, R2, TriCtxSC<C1, C2, C3>> parallelMap(ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R1, ?> action1,
+                                                                ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R2, ?> action2);
+
+  /**
+   * Executes given actions in parallel and returns new context step context with the actions results. Steps of the
+   * actions are reported in the actions order. If some actions fail, the first failed action exception is thrown,
+   * exceptions of other failed actions are suppressed by it.
+   *
+   * @param action1 the first action
+   * @param action2 the second action
+   * @param action3 the third action
+   * @param <R1>    the type of the first new context
+   * @param <R2>    the type of the second new context
+   * @param <R3>    the type of the third new context
+   * @return new context step context
+   * @throws XtepsException if {@code action1} arg is null
+   *                        or if {@code action2} arg is null
+   *                        or if {@code action3} arg is null
+   */
+  <R1, R2, R3> MemTriCtxSC<R1, R2, R3, TriCtxSC<C1, C2, C3>> parallelMap(ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R1, ?> action1,
+                                                                         ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R2, ?> action2,
+                                                                         ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R3, ?> action3);
+
+  /**
+   * Executes given actions in parallel and returns new context step context with the actions results. Steps of the
+   * actions are reported in the actions order. If some actions fail, the first failed action exception is thrown,
+   * exceptions of other failed actions are suppressed by it.
+   *
+   * @param actions the actions
+   * @param <R>     the type of the actions results
+   * @return new context step context
+   * @throws XtepsException if {@code actions} arg is null
+   *                        or if {@code actions} arg contains null
+   */
+  <R> MemCtxSC<List<R>, TriCtxSC<C1, C2, C3>> parallelMap(List<? extends ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R, ?>> actions);
+
   /**
    * Default {@code TriCtxSC} implementation.
    *
@@ -129,6 +223,80 @@ public interface TriCtxSC<C1, C2, C3> extends BaseTriCtxSC<C1, C2, C3, TriCtxSC<
       return this.context3;
     }
 
+    @Override
+    public final TriCtxSC<C1, C2, C3> parallelExec(final ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action1,
+                                                   final ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action2) {
+      if (action1 == null) { throw new XtepsException("action1 arg is null"); }
+      if (action2 == null) { throw new XtepsException("action2 arg is null"); }
+      return this.parallelExec(Arrays.asList(action1, action2));
+    }
+
+    @Override
+    public final TriCtxSC<C1, C2, C3> parallelExec(final ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action1,
+                                                   final ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action2,
+                                                   final ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action3) {
+      if (action1 == null) { throw new XtepsException("action1 arg is null"); }
+      if (action2 == null) { throw new XtepsException("action2 arg is null"); }
+      if (action3 == null) { throw new XtepsException("action3 arg is null"); }
+      return this.parallelExec(Arrays.asList(action1, action2, action3));
+    }
+
+    @Override
+    public final TriCtxSC<C1, C2, C3> parallelExec(final List<? extends ThTriConsumer<? super C1, ? super C2, ? super C3, ?>> actions) {
+      if (actions == null) { throw new XtepsException("actions arg is null"); }
+      final List<ThSupplier<?, ?>> suppliers = new ArrayList<>(actions.size());
+      for (final ThTriConsumer<? super C1, ? super C2, ? super C3, ?> action : actions) {
+        if (action == null) { throw new XtepsException("actions arg contains null"); }
+        suppliers.add(() -> {
+          action.accept(this.context1, this.context2, this.context3);
+          return null;
+        });
+      }
+      ParallelActions.perform(suppliers);
+      return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <R1, R2> MemBiCtxSC<R1, R2, TriCtxSC<C1, C2, C3>> parallelMap(final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R1, ?> action1,
+                                                                               final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R2, ?> action2) {
+      if (action1 == null) { throw new XtepsException("action1 arg is null"); }
+      if (action2 == null) { throw new XtepsException("action2 arg is null"); }
+      final Object[] results = ParallelActions.perform(Arrays.<ThSupplier<?, ?>>asList(
+        () -> action1.apply(this.context1, this.context2, this.context3),
+        () -> action2.apply(this.context1, this.context2, this.context3)
+      ));
+      return new MemBiCtxSC.Of<>((R1) results[0], (R2) results[1], this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <R1, R2, R3> MemTriCtxSC<R1, R2, R3, TriCtxSC<C1, C2, C3>> parallelMap(final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R1, ?> action1,
+                                                                                        final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R2, ?> action2,
+                                                                                        final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R3, ?> action3) {
+      if (action1 == null) { throw new XtepsException("action1 arg is null"); }
+      if (action2 == null) { throw new XtepsException("action2 arg is null"); }
+      if (action3 == null) { throw new XtepsException("action3 arg is null"); }
+      final Object[] results = ParallelActions.perform(Arrays.<ThSupplier<?, ?>>asList(
+        () -> action1.apply(this.context1, this.context2, this.context3),
+        () -> action2.apply(this.context1, this.context2, this.context3),
+        () -> action3.apply(this.context1, this.context2, this.context3)
+      ));
+      return new MemTriCtxSC.Of<>((R1) results[0], (R2) results[1], (R3) results[2], this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <R> MemCtxSC<List<R>, TriCtxSC<C1, C2, C3>> parallelMap(final List<? extends ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R, ?>> actions) {
+      if (actions == null) { throw new XtepsException("actions arg is null"); }
+      final List<ThSupplier<?, ?>> suppliers = new ArrayList<>(actions.size());
+      for (final ThTriFunction<? super C1, ? super C2, ? super C3, ? extends R, ?> action : actions) {
+        if (action == null) { throw new XtepsException("actions arg contains null"); }
+        suppliers.add(() -> action.apply(this.context1, this.context2, this.context3));
+      }
+      return new MemCtxSC.Of<>((List<R>) Arrays.asList(ParallelActions.perform(suppliers)), this);
+    }
+
     @Override
     public final MemNoCtxSC<TriCtxSC<C1, C2, C3>> noContext() {
       return new MemNoCtxSC.Of<>(this);
@@ -15,6 +15,9 @@
  */
 package com.plugatar.xteps2.core.sc.base;
 
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.sc.ContextHistory;
+
 /**
  * Memorizing step context.
  *
@@ -27,6 +30,8 @@ public interface MemSC<P extends StepContext<?>, F extends StepContext<?>> {
    * Returns previous step context.
    *
    * @return previous step context
+   * @throws XtepsException if previous step context is released or garbage collected according to
+   *                        {@link ContextHistory}
    */
   P previous();
 
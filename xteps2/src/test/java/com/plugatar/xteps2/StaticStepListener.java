@@ -17,11 +17,15 @@ package com.plugatar.xteps2;
 
 import com.plugatar.xteps2.core.StepListener;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public final class StaticStepListener implements StepListener {
   private static Map<String, ?> stepStartedArtifacts = null;
   private static Throwable stepFailedException = null;
+  private static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<>());
 
   public StaticStepListener() {
   }
@@ -29,6 +33,13 @@ public final class StaticStepListener implements StepListener {
   public static void clear() {
     stepStartedArtifacts = null;
     stepFailedException = null;
+    EVENTS.clear();
+  }
+
+  public static List<String> events() {
+    synchronized (EVENTS) {
+      return new ArrayList<>(EVENTS);
+    }
   }
 
   public static Map<String, ?> stepStartedArtifacts() {
@@ -46,14 +57,17 @@ public final class StaticStepListener implements StepListener {
   @Override
   public void stepStarted(final Map<String, ?> artifacts) {
     stepStartedArtifacts = artifacts;
+    EVENTS.add("started " + Utils.getName(artifacts));
   }
 
   @Override
   public void stepPassed() {
+    EVENTS.add("passed");
   }
 
   @Override
   public void stepFailed(final Throwable exception) {
     stepFailedException = exception;
+    EVENTS.add("failed");
   }
 }
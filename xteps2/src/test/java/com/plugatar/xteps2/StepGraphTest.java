@@ -0,0 +1,232 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2;
+
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.step.BiFunctionStep;
+import com.plugatar.xteps2.core.step.FunctionStep;
+import com.plugatar.xteps2.core.step.RunnableStep;
+import com.plugatar.xteps2.core.step.SupplierStep;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link StepGraph}.
+ */
+final class StepGraphTest {
+
+  @BeforeAll
+  static void beforeAll() {
+    System.setProperty("xteps.listener.list", "com.plugatar.xteps2.StaticStepListener");
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    StaticStepListener.clear();
+  }
+
+  @Test
+  void ctorsThrowExceptionForInvalidArgs() {
+    assertThatCode(() -> new StepGraph(0))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> new StepGraph(null))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void nodeMethodThrowsExceptionForNodeOfOtherGraph() {
+    final StepGraph.Node<Void> otherNode = new StepGraph().node(new RunnableStep.Of("other", () -> { }));
+
+    assertThatCode(() -> new StepGraph().node(new RunnableStep.Of("step", () -> { }), otherNode))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> new StepGraph().node(otherNode, new FunctionStep.Of<Object, Object>("step", c -> c)))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void nodesPerformedInDependencyOrderAndReportedInDeclarationOrder() {
+    final List<String> performed = new CopyOnWriteArrayList<>();
+    final StepGraph graph = new StepGraph();
+    final StepGraph.Node<Integer> node1 = graph.node(new SupplierStep.Of<>("node 1", () -> {
+      performed.add("node 1");
+      return 1;
+    }));
+    final StepGraph.Node<Integer> node2 = graph.node(node1, new FunctionStep.Of<Integer, Integer>("node 2", c -> {
+      performed.add("node 2");
+      return c + 10;
+    }));
+    final StepGraph.Node<String> node3 = graph.node(node1, node2,
+      new BiFunctionStep.Of<Integer, Integer, String>("node 3", (c1, c2) -> {
+        performed.add("node 3");
+        return c1 + ":" + c2;
+      }));
+
+    graph.run("Graph");
+
+    assertThat(performed).containsExactly("node 1", "node 2", "node 3");
+    assertThat(node1.result()).isEqualTo(1);
+    assertThat(node2.result()).isEqualTo(11);
+    assertThat(node3.result()).isEqualTo("1:11");
+    assertThat(StaticStepListener.events()).containsExactly(
+      "started Graph",
+      "started node 1", "passed",
+      "started node 2", "passed",
+      "started node 3", "passed",
+      "passed"
+    );
+  }
+
+  @Test
+  void supplierNodeWithDependencies() {
+    final List<String> performed = new CopyOnWriteArrayList<>();
+    final StepGraph graph = new StepGraph();
+    final StepGraph.Node<Void> node1 = graph.node(new RunnableStep.Of("node 1", () -> performed.add("node 1")));
+    final StepGraph.Node<Void> node2 = graph.node(new RunnableStep.Of("node 2", () -> performed.add("node 2")));
+    final StepGraph.Node<Integer> node3 = graph.node(new SupplierStep.Of<>("node 3", performed::size), node1, node2);
+
+    graph.run("Graph");
+
+    assertThat(node3.result()).isEqualTo(2);
+    assertThatCode(() -> graph.node(new SupplierStep.Of<>("node", () -> 1), (StepGraph.Node<?>[]) null))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void independentNodesPerformedInParallel() {
+    final CountDownLatch latch = new CountDownLatch(3);
+    final StepGraph graph = new StepGraph();
+    final List<StepGraph.Node<Boolean>> nodes = new ArrayList<>();
+    for (int idx = 0; idx < 3; ++idx) {
+      nodes.add(graph.node(new SupplierStep.Of<>("node " + idx, () -> {
+        latch.countDown();
+        return latch.await(5, TimeUnit.SECONDS);
+      })));
+    }
+
+    graph.run("Graph");
+
+    assertThat(latch.getCount()).isZero();
+    for (final StepGraph.Node<Boolean> node : nodes) {
+      assertThat(node.result()).isTrue();
+    }
+  }
+
+  @Test
+  void parallelismLimitsConcurrentNodes() {
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger maxActive = new AtomicInteger();
+    final StepGraph graph = new StepGraph(2);
+    for (int idx = 0; idx < 6; ++idx) {
+      graph.node(new RunnableStep.Of("node " + idx, () -> {
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        Thread.sleep(30L);
+        active.decrementAndGet();
+      }));
+    }
+
+    graph.run("Graph");
+
+    assertThat(maxActive.get()).isBetween(1, 2);
+  }
+
+  @Test
+  void failedNodeSkipsDependants() {
+    final RuntimeException exception = new RuntimeException("node 1 failed");
+    final AtomicInteger dependantCalls = new AtomicInteger();
+    final StepGraph graph = new StepGraph();
+    final StepGraph.Node<Integer> node1 = graph.node(new SupplierStep.Of<>("node 1", () -> {
+      throw exception;
+    }));
+    final StepGraph.Node<Integer> node2 = graph.node(node1, new FunctionStep.Of<Integer, Integer>("node 2", c -> {
+      dependantCalls.incrementAndGet();
+      return c;
+    }));
+    final StepGraph.Node<Integer> node3 = graph.node(node2, new FunctionStep.Of<Integer, Integer>("node 3", c -> {
+      dependantCalls.incrementAndGet();
+      return c;
+    }));
+    final StepGraph.Node<String> node4 = graph.node(new SupplierStep.Of<>("node 4", () -> "independent"));
+
+    assertThatCode(() -> graph.run("Graph"))
+      .isSameAs(exception);
+    assertThat(dependantCalls).hasValue(0);
+    assertThat(node4.result()).isEqualTo("independent");
+    assertThatCode(node2::result)
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(node3::result)
+      .isInstanceOf(XtepsException.class);
+    assertThat(StaticStepListener.events()).containsExactly(
+      "started Graph",
+      "started node 1", "failed",
+      "started node 4", "passed",
+      "started 2 steps are not performed", "passed",
+      "failed"
+    );
+  }
+
+  @Test
+  void failedNodesExceptionsSuppressedByFirstException() {
+    final RuntimeException exception1 = new RuntimeException("node 1 failed");
+    final RuntimeException exception2 = new RuntimeException("node 2 failed");
+    final RuntimeException exception3 = new RuntimeException("node 3 failed");
+    final StepGraph graph = new StepGraph();
+    graph.node(new RunnableStep.Of("node 1", () -> { throw exception1; }));
+    graph.node(new RunnableStep.Of("node 2", () -> { throw exception2; }));
+    graph.node(new RunnableStep.Of("node 3", () -> { throw exception3; }));
+
+    assertThatCode(() -> graph.run("Graph"))
+      .isSameAs(exception1);
+    assertThat(exception1.getSuppressed()).containsExactly(exception2, exception3);
+  }
+
+  @Test
+  void graphCanBePerformedRepeatedly() {
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger failOn = new AtomicInteger(1);
+    final StepGraph graph = new StepGraph();
+    final StepGraph.Node<Integer> node1 = graph.node(new SupplierStep.Of<>("node 1", () -> {
+      final int call = calls.incrementAndGet();
+      if (call == failOn.get()) {
+        throw new IllegalStateException("call " + call);
+      }
+      return call;
+    }));
+    final StepGraph.Node<Integer> node2 = graph.node(node1, new FunctionStep.Of<Integer, Integer>("node 2", c -> c * 10));
+
+    assertThatCode(() -> graph.run("Graph"))
+      .isInstanceOf(IllegalStateException.class);
+    assertThatCode(node1::result)
+      .isInstanceOf(XtepsException.class);
+
+    graph.run("Graph");
+    assertThat(asList(node1.result(), node2.result())).containsExactly(2, 20);
+
+    graph.run("Graph");
+    assertThat(asList(node1.result(), node2.result())).containsExactly(3, 30);
+  }
+}
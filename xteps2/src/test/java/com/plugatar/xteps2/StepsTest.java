@@ -0,0 +1,390 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2;
+
+import com.plugatar.xteps2.core.Backoff;
+import com.plugatar.xteps2.core.SharedStepError;
+import com.plugatar.xteps2.core.StepListener;
+import com.plugatar.xteps2.core.StepTimeoutError;
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.function.ThRunnable;
+import com.plugatar.xteps2.core.step.FunctionStep;
+import com.plugatar.xteps2.core.step.SupplierStep;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for {@link Steps}.
+ */
+final class StepsTest {
+  private static final Backoff NO_DELAY = new Backoff.Fixed(Duration.ZERO);
+
+  @BeforeAll
+  static void beforeAll() {
+    System.setProperty("xteps.listener.list", "com.plugatar.xteps2.StaticStepListener");
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    StaticStepListener.clear();
+  }
+
+  @Test
+  void stepWithTimeoutThrowsExceptionForInvalidArgs() {
+    assertThatCode(() -> Steps.step("step", Duration.ZERO, () -> 1))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> Steps.step("step", (Duration) null, () -> 1))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void stepWithTimeoutCompletedInTime() {
+    final Integer result = Steps.step("Timed step", Duration.ofSeconds(5L), () -> 1);
+
+    assertThat(result).isEqualTo(1);
+    assertThat(StaticStepListener.events()).containsExactly("started Timed step", "passed");
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+  }
+
+  @Test
+  void stepWithTimeoutFailsWithThreadSnapshot() {
+    final Throwable exception = catchThrowable(() -> Steps.step("Timed step", Duration.ofMillis(100L), () -> {
+      Thread.sleep(10_000L);
+    }));
+
+    assertThat(exception)
+      .isInstanceOf(StepTimeoutError.class)
+      .hasCauseInstanceOf(InterruptedException.class)
+      .hasMessageContaining(Thread.currentThread().getName());
+    assertThat(exception.getStackTrace())
+      .anyMatch(element -> element.getClassName().equals(Thread.class.getName())
+        && element.getMethodName().startsWith("sleep"));
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    assertThat(StaticStepListener.events()).containsExactly("started Timed step", "failed");
+    assertThat(StaticStepListener.stepFailedException()).isSameAs(exception);
+  }
+
+  @Test
+  void stepWithTimeoutFailsIfActionIgnoresInterruption() {
+    final Throwable exception = catchThrowable(() -> Steps.step("Timed step", Duration.ofMillis(50L), () -> {
+      final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200L);
+      while (System.nanoTime() < end) {
+        Thread.yield();
+      }
+      return 1;
+    }));
+
+    assertThat(exception)
+      .isInstanceOf(StepTimeoutError.class)
+      .hasNoCause();
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+  }
+
+  @Test
+  void retryThrowsExceptionForInvalidArgs() {
+    assertThatCode(() -> Steps.retry(null, Duration.ZERO, () -> { }))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> Steps.retry("step", null, () -> { }))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> Steps.retry("step", Duration.ofMillis(-1L), () -> { }))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> Steps.retry("step", Duration.ZERO, null, () -> { }))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> Steps.retry("step", Duration.ZERO, (ThRunnable<?>) null))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void retryReportsStepsOfLastAttemptOnly() {
+    final AtomicInteger calls = new AtomicInteger();
+
+    final Integer result = Steps.retry("Retry", Duration.ofSeconds(5L), NO_DELAY, () -> {
+      final int call = calls.incrementAndGet();
+      Steps.step("Attempt " + call, () -> {
+        if (call < 3) {
+          throw new IllegalStateException("attempt " + call);
+        }
+      });
+      return call;
+    });
+
+    assertThat(result).isEqualTo(3);
+    assertThat(StaticStepListener.events()).containsExactly(
+      "started Retry",
+      "started Attempt 3", "passed",
+      "started Attempts statistics", "passed",
+      "passed"
+    );
+    final Map<String, ?> statistics = StaticStepListener.stepStartedArtifacts();
+    assertThat(StepListener.Utils.getParams(statistics)).contains(
+      entry("attempts", 3),
+      entry("failed attempts", 2)
+    );
+  }
+
+  @Test
+  void retryThrowsLastExceptionWhenTimeoutExpires() {
+    final AtomicInteger calls = new AtomicInteger();
+
+    assertThatCode(() -> Steps.retry("Retry", Duration.ofMillis(100L), new Backoff.Fixed(Duration.ofMillis(10L)), () -> {
+      final int call = calls.incrementAndGet();
+      Steps.step("Attempt", () -> {
+        throw new IllegalStateException("attempt " + call);
+      });
+    })).isInstanceOf(IllegalStateException.class)
+      .hasMessage("attempt " + calls.get());
+    assertThat(calls.get()).isGreaterThan(1);
+    assertThat(StaticStepListener.events()).containsExactly(
+      "started Retry",
+      "started Attempt", "failed",
+      "started Attempts statistics", "passed",
+      "failed"
+    );
+  }
+
+  @Test
+  void retryDoesNotRepeatErrors() {
+    final AtomicInteger calls = new AtomicInteger();
+    final Error error = new Error();
+
+    assertThatCode(() -> Steps.retry("Retry", Duration.ofSeconds(5L), NO_DELAY, () -> {
+      calls.incrementAndGet();
+      throw error;
+    })).isSameAs(error);
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void awaitReturnsWhenConditionIsMet() {
+    final AtomicInteger calls = new AtomicInteger();
+
+    Steps.await("Await", Duration.ofSeconds(5L), NO_DELAY, () -> {
+      final int call = calls.incrementAndGet();
+      Steps.emptyStep("Check " + call);
+      if (call == 2) {
+        throw new IllegalStateException();
+      }
+      return call >= 4;
+    });
+
+    assertThat(calls).hasValue(4);
+    assertThat(StaticStepListener.events()).containsExactly(
+      "started Await",
+      "started Check 4", "passed",
+      "started Attempts statistics", "passed",
+      "passed"
+    );
+  }
+
+  @Test
+  void awaitThrowsStepTimeoutErrorWhenConditionIsNotMet() {
+    final IllegalStateException conditionException = new IllegalStateException();
+
+    assertThatCode(() -> Steps.await("Await", Duration.ofMillis(50L), new Backoff.Fixed(Duration.ofMillis(5L)), () -> {
+      throw conditionException;
+    })).isInstanceOf(StepTimeoutError.class)
+      .hasCause(conditionException);
+    assertThatCode(() -> Steps.await("Await", Duration.ZERO, NO_DELAY, () -> false))
+      .isInstanceOf(StepTimeoutError.class)
+      .hasMessageContaining("attempts: 1");
+  }
+
+  @Test
+  void sharedWaitersReceiveOwnerResult() throws Throwable {
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    final Object ownerResult = new Object();
+    final SupplierStep<Object> step = new SupplierStep.Of<>("Shared step", () -> {
+      calls.incrementAndGet();
+      release.await();
+      return ownerResult;
+    });
+
+    final List<Object> results = sharedCalls("shared result key", step, release);
+
+    assertThat(calls).hasValue(1);
+    assertThat(results).containsOnly(ownerResult).hasSize(3);
+    assertThat(XtepsBase.singleFlight().size()).isZero();
+  }
+
+  @Test
+  void sharedWaitersReceiveOwnErrorsCausedByOwnerException() throws Throwable {
+    final RuntimeException ownerException = new RuntimeException("owner failed");
+    final CountDownLatch release = new CountDownLatch(1);
+    final SupplierStep<Object> step = new SupplierStep.Of<>("Shared step", () -> {
+      release.await();
+      throw ownerException;
+    });
+
+    final List<Object> results = sharedCalls("shared exception key", step, release);
+
+    assertThat(results).containsOnlyOnce(ownerException);
+    final List<Object> waiterResults = new ArrayList<>(results);
+    waiterResults.remove(ownerException);
+    assertThat(waiterResults).hasSize(2).allSatisfy(result -> assertThat((Throwable) result)
+      .isInstanceOf(SharedStepError.class)
+      .hasMessageContaining("shared exception key")
+      .cause()
+      .isNotSameAs(ownerException)
+      .hasMessage("owner failed")
+      .hasToString(ownerException.toString()));
+    assertThat(waiterResults.get(0)).isNotSameAs(waiterResults.get(1));
+    assertThat(((Throwable) waiterResults.get(0)).getCause())
+      .isNotSameAs(((Throwable) waiterResults.get(1)).getCause());
+    assertThat(ownerException.getSuppressed()).isEmpty();
+  }
+
+  @Test
+  void forEachThrowsExceptionForInvalidArgs() {
+    final FunctionStep<Object, Object> step = new FunctionStep.Of<>("Row", row -> row);
+    assertThatCode(() -> Steps.forEach(null, Collections.emptyList(), step))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> Steps.forEach("For each", null, step))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> Steps.forEach("For each", Collections.emptyList(), null))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> Steps.forEach("For each", Collections.emptyList(), 0, false, step))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void forEachPerformsAllRowsInDataOrder() {
+    final RuntimeException exception = new RuntimeException("row 2");
+
+    assertThatCode(() -> Steps.forEach("For each", asList(1, 2, 3), new FunctionStep.Of<Integer, Integer>("Row", row -> {
+      Steps.emptyStep("item " + row);
+      if (row == 2) {
+        throw exception;
+      }
+      return row * 10;
+    }))).isSameAs(exception);
+    assertThat(StaticStepListener.events()).containsExactly(
+      "started For each",
+      "started Row", "started item 1", "passed", "passed",
+      "started Row", "started item 2", "passed", "failed",
+      "started Row", "started item 3", "passed", "passed",
+      "failed"
+    );
+
+    StaticStepListener.clear();
+    assertThat(Steps.forEach("For each", asList(1, 2, 3), new FunctionStep.Of<Integer, Integer>("Row", row -> row * 10)))
+      .containsExactly(10, 20, 30);
+  }
+
+  @Test
+  void forEachInParallelModeReportsRowsInDataOrder() {
+    final List<Integer> data = asList(1, 2, 3, 4);
+
+    final List<Integer> results = Steps.forEach("For each", data, 4, false,
+      new FunctionStep.Of<Integer, Integer>("Row", row -> {
+        Thread.sleep(20L * (data.size() - row));
+        Steps.emptyStep("item " + row);
+        return row * 10;
+      }));
+
+    assertThat(results).containsExactly(10, 20, 30, 40);
+    assertThat(StaticStepListener.events()).containsExactly(
+      "started For each",
+      "started Row", "started item 1", "passed", "passed",
+      "started Row", "started item 2", "passed", "passed",
+      "started Row", "started item 3", "passed", "passed",
+      "started Row", "started item 4", "passed", "passed",
+      "passed"
+    );
+  }
+
+  @Test
+  void forEachInCompactModeReportsFailedRowsOnly() {
+    final List<String> expectedEvents = asList(
+      "started For each",
+      "started Row", "started item 2", "passed", "failed",
+      "started Row", "started item 4", "passed", "failed",
+      "started 2 passed rows are not reported", "passed",
+      "failed"
+    );
+
+    for (final int parallelism : new int[]{1, 4}) {
+      StaticStepListener.clear();
+      final RuntimeException exception2 = new RuntimeException("row 2");
+      final RuntimeException exception4 = new RuntimeException("row 4");
+      final FunctionStep<Integer, Integer> step = new FunctionStep.Of<>("Row", row -> {
+        Thread.sleep(10L * (5 - row));
+        Steps.emptyStep("item " + row);
+        if (row == 2) {
+          throw exception2;
+        } else if (row == 4) {
+          throw exception4;
+        }
+        return row;
+      });
+
+      assertThatCode(() -> Steps.forEach("For each", asList(1, 2, 3, 4), parallelism, true, step))
+        .isSameAs(exception2);
+      assertThat(exception2.getSuppressed()).containsExactly(exception4);
+      assertThat(StaticStepListener.events()).containsExactlyElementsOf(expectedEvents);
+    }
+  }
+
+  /**
+   * Calls the shared step in 3 threads, releases the owner when other threads are waiting for the owner result and
+   * returns the results or exceptions of all threads.
+   */
+  private static List<Object> sharedCalls(final String key,
+                                          final SupplierStep<Object> step,
+                                          final CountDownLatch release) throws Throwable {
+    final List<Object> results = new CopyOnWriteArrayList<>();
+    final List<Thread> threads = new ArrayList<>();
+    for (int idx = 0; idx < 3; ++idx) {
+      threads.add(new Thread(() -> {
+        try {
+          results.add(Steps.shared(key, step));
+        } catch (final Throwable ex) {
+          results.add(ex);
+        }
+      }));
+    }
+    for (final Thread thread : threads) {
+      thread.start();
+    }
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+    while (threads.stream().filter(thread -> thread.getState() == Thread.State.WAITING).count() < 3
+      && System.nanoTime() < deadline) {
+      Thread.sleep(5L);
+    }
+    release.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    return results;
+  }
+}
@@ -17,16 +17,28 @@ package com.plugatar.xteps2.aspect;
 
 import com.plugatar.xteps2.Keywords;
 import com.plugatar.xteps2.StaticStepListener;
+import com.plugatar.xteps2.XtepsBase;
 import com.plugatar.xteps2.annotation.DefaultStep;
 import com.plugatar.xteps2.annotation.Param;
 import com.plugatar.xteps2.annotation.Step;
 import com.plugatar.xteps2.core.StepListener;
+import com.plugatar.xteps2.core.StepTimeoutError;
+import com.plugatar.xteps2.core.XtepsException;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.assertj.core.api.Assertions.entry;
 
 /**
@@ -137,6 +149,89 @@ final class StepAspectsTest {
     StaticStepListener.clear();
   }
 
+  @Test
+  void resourceStep() throws Throwable {
+    ClassWithResourceSteps.resourceMethod();
+
+    /* stepStarted method */
+    final Map<String, ?> artifacts = StaticStepListener.stepStartedArtifacts();
+    assertThat(StepListener.Utils.getParams(artifacts))
+      .containsEntry("resource", "aspect resource")
+      .containsKey("queue time");
+    assertThat(StepListener.Utils.getParams(artifacts).get("queue time")).isInstanceOf(Duration.class);
+
+    /* concurrent steps */
+    final ExecutorService executor = Executors.newFixedThreadPool(6);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int idx = 0; idx < 6; ++idx) {
+        futures.add(executor.submit(ClassWithResourceSteps::resourceMethod));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(ClassWithResourceSteps.CALLS.get()).isEqualTo(7);
+    assertThat(ClassWithResourceSteps.MAX_ACTIVE.get()).isBetween(1, 2);
+    assertThat(XtepsBase.bulkheads().queueLength("aspect resource")).isZero();
+    StaticStepListener.clear();
+  }
+
+  @Test
+  void nestedResourceStepWithSameResource() {
+    assertThat(ClassWithResourceSteps.outerNestedResourceMethod()).isEqualTo(1);
+
+    assertThat(StepListener.Utils.getName(StaticStepListener.stepStartedArtifacts())).isEqualTo("Inner nested step");
+    assertThat(StaticStepListener.stepFailedException()).isNull();
+    assertThat(XtepsBase.bulkheads().queueLength("nested resource")).isZero();
+    ClassWithResourceSteps.innerNestedResourceMethod();
+    StaticStepListener.clear();
+  }
+
+  @Test
+  void resourceStepWithDifferentMaxConcurrent() {
+    ClassWithResourceSteps.mismatchResourceMethod1();
+    StaticStepListener.clear();
+
+    assertThatCode(ClassWithResourceSteps::mismatchResourceMethod2)
+      .isInstanceOf(XtepsException.class);
+    /* the step is not started and is not failed */
+    assertThat(StaticStepListener.stepStartedArtifacts()).isNull();
+    assertThat(StaticStepListener.stepFailedException()).isNull();
+
+    /* next steps are reported */
+    ClassWithResourceSteps.mismatchResourceMethod1();
+    assertThat(StepListener.Utils.getParams(StaticStepListener.stepStartedArtifacts()))
+      .containsEntry("resource", "mismatch resource");
+    StaticStepListener.clear();
+  }
+
+  @Test
+  void timeoutStepCompletedInTime() {
+    assertThat(ClassWithTimeoutSteps.fastMethod()).isEqualTo(1);
+
+    assertThat(StepListener.Utils.getName(StaticStepListener.stepStartedArtifacts())).isEqualTo("Fast step");
+    assertThat(StaticStepListener.stepFailedException()).isNull();
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+  }
+
+  @Test
+  void timeoutStepFailsWithThreadSnapshot() {
+    final Throwable exception = catchThrowable(ClassWithTimeoutSteps::slowMethod);
+
+    assertThat(exception)
+      .isInstanceOf(StepTimeoutError.class)
+      .hasCauseInstanceOf(InterruptedException.class);
+    assertThat(exception.getStackTrace())
+      .anyMatch(element -> element.getClassName().equals(Thread.class.getName())
+        && element.getMethodName().startsWith("sleep"));
+    assertThat(StepListener.Utils.getName(StaticStepListener.stepStartedArtifacts())).isEqualTo("Slow step");
+    assertThat(StaticStepListener.stepFailedException()).isSameAs(exception);
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+  }
+
   @DefaultStep(
     keyword = Keywords.AND,
     name = "Default name",
@@ -163,4 +258,55 @@ final class StepAspectsTest {
                              final Object methodArg2) {
     }
   }
+
+  static final class ClassWithResourceSteps {
+    static final AtomicInteger CALLS = new AtomicInteger();
+    static final AtomicInteger ACTIVE = new AtomicInteger();
+    static final AtomicInteger MAX_ACTIVE = new AtomicInteger();
+
+    @Step(name = "Resource step", resource = "aspect resource", maxConcurrent = 2)
+    static void resourceMethod() {
+      CALLS.incrementAndGet();
+      final int active = ACTIVE.incrementAndGet();
+      MAX_ACTIVE.accumulateAndGet(active, Math::max);
+      try {
+        Thread.sleep(50L);
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } finally {
+        ACTIVE.decrementAndGet();
+      }
+    }
+
+    @Step(name = "Outer nested step", resource = "nested resource", maxConcurrent = 1)
+    static int outerNestedResourceMethod() {
+      return innerNestedResourceMethod();
+    }
+
+    @Step(name = "Inner nested step", resource = "nested resource", maxConcurrent = 1)
+    static int innerNestedResourceMethod() {
+      return 1;
+    }
+
+    @Step(name = "Mismatch resource step 1", resource = "mismatch resource", maxConcurrent = 1)
+    static void mismatchResourceMethod1() {
+    }
+
+    @Step(name = "Mismatch resource step 2", resource = "mismatch resource", maxConcurrent = 2)
+    static void mismatchResourceMethod2() {
+    }
+  }
+
+  static final class ClassWithTimeoutSteps {
+
+    @Step(name = "Fast step", timeout = 5000L)
+    static int fastMethod() {
+      return 1;
+    }
+
+    @Step(name = "Slow step", timeout = 100L)
+    static void slowMethod() throws InterruptedException {
+      Thread.sleep(10_000L);
+    }
+  }
 }
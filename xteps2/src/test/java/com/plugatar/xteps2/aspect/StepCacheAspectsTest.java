@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.aspect;
+
+import com.plugatar.xteps2.StaticStepListener;
+import com.plugatar.xteps2.XtepsBase;
+import com.plugatar.xteps2.annotation.Step;
+import com.plugatar.xteps2.core.StepListener;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link StepCacheAspects}.
+ */
+final class StepCacheAspectsTest {
+
+  @BeforeAll
+  static void beforeAll() {
+    System.setProperty("xteps.listener.list", "com.plugatar.xteps2.StaticStepListener");
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    XtepsBase.stepCache().invalidateAll();
+    ClassWithCachedSteps.CALLS.set(0);
+    StaticStepListener.clear();
+  }
+
+  @Test
+  void cacheMiss() {
+    assertThat(ClassWithCachedSteps.cachedMethod("a", new int[]{1, 2})).isEqualTo("a1");
+    assertThat(ClassWithCachedSteps.cachedMethod("b", new int[]{1, 2})).isEqualTo("b1");
+
+    assertThat(ClassWithCachedSteps.CALLS).hasValue(2);
+    final Map<String, ?> artifacts = StaticStepListener.stepStartedArtifacts();
+    assertThat(StepListener.Utils.getName(artifacts)).isEqualTo("Cached step b");
+    assertThat(StepListener.Utils.getDesc(artifacts)).isNotEqualTo("Cached");
+  }
+
+  @Test
+  void cacheHit() {
+    final String secret = "secret value";
+    assertThat(ClassWithCachedSteps.cachedMethod(secret, new int[]{1, 2})).isEqualTo(secret + "1");
+    StaticStepListener.clear();
+    assertThat(ClassWithCachedSteps.cachedMethod(new String(secret), new int[]{1, 2})).isEqualTo(secret + "1");
+
+    assertThat(ClassWithCachedSteps.CALLS).hasValue(1);
+    final Map<String, ?> artifacts = StaticStepListener.stepStartedArtifacts();
+    assertThat(StepListener.Utils.getName(artifacts)).isEqualTo("Cached step " + secret);
+    assertThat(StepListener.Utils.getDesc(artifacts)).isEqualTo("Cached");
+    final Map<String, Object> params = new HashMap<>(StepListener.Utils.getParams(artifacts));
+    assertThat(params).containsEntry("cache key", "aspect cache");
+    assertThat(params.get("cache age")).isInstanceOf(Duration.class);
+    assertThat(params.values()).noneMatch(value -> String.valueOf(value).contains(secret));
+  }
+
+  @Test
+  void cacheHitComparesArgumentsByEquals() {
+    ClassWithCachedSteps.cachedMethod("a", new int[]{1, 2});
+    ClassWithCachedSteps.cachedMethod("a", new int[]{1, 2});
+    ClassWithCachedSteps.cachedMethod("a", new int[]{2, 1});
+    ClassWithCachedSteps.cachedMethod("a", null);
+    ClassWithCachedSteps.cachedMethod("a", null);
+
+    assertThat(ClassWithCachedSteps.CALLS).hasValue(3);
+  }
+
+  @Test
+  void cacheTtlExpiry() throws Throwable {
+    assertThat(ClassWithCachedSteps.expiringMethod()).isEqualTo(1);
+    assertThat(ClassWithCachedSteps.expiringMethod()).isEqualTo(1);
+    Thread.sleep(150L);
+    assertThat(ClassWithCachedSteps.expiringMethod()).isEqualTo(2);
+
+    assertThat(ClassWithCachedSteps.CALLS).hasValue(2);
+    final Map<String, ?> artifacts = StaticStepListener.stepStartedArtifacts();
+    assertThat(StepListener.Utils.getDesc(artifacts)).isNotEqualTo("Cached");
+  }
+
+  static final class ClassWithCachedSteps {
+    static final AtomicInteger CALLS = new AtomicInteger();
+
+    @Step(name = "Cached step {0}", cache = "aspect cache")
+    static String cachedMethod(final String value,
+                               final int[] array) {
+      CALLS.incrementAndGet();
+      return value + (array == null ? "" : array[0]);
+    }
+
+    @Step(name = "Expiring cached step", cache = "aspect expiring cache", cacheTtl = 100L)
+    static int expiringMethod() {
+      return CALLS.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link Backoff}.
+ */
+final class BackoffTest {
+
+  @Test
+  void fixedCtorThrowsExceptionForNegativeDelay() {
+    assertThatCode(() -> new Backoff.Fixed(Duration.ofMillis(-1L)))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void fixedReturnsDelay() {
+    final Backoff backoff = new Backoff.Fixed(Duration.ofMillis(100L));
+
+    assertThat(backoff.delayMillis(1)).isEqualTo(100L);
+    assertThat(backoff.delayMillis(10)).isEqualTo(100L);
+  }
+
+  @Test
+  void exponentialCtorThrowsExceptionForIncorrectArgs() {
+    assertThatCode(() -> new Backoff.Exponential(Duration.ofMillis(10L), 0.5, Duration.ofMillis(100L)))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> new Backoff.Exponential(Duration.ofMillis(10L), 2.0, Duration.ofMillis(5L)))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void exponentialReturnsDelayLimitedByMaxDelay() {
+    final Backoff backoff = new Backoff.Exponential(Duration.ofMillis(10L), 2.0, Duration.ofMillis(50L));
+
+    assertThat(backoff.delayMillis(1)).isEqualTo(10L);
+    assertThat(backoff.delayMillis(2)).isEqualTo(20L);
+    assertThat(backoff.delayMillis(3)).isEqualTo(40L);
+    assertThat(backoff.delayMillis(4)).isEqualTo(50L);
+    assertThat(backoff.delayMillis(1000)).isEqualTo(50L);
+  }
+
+  @Test
+  void jitteredReturnsDelayBetweenHalfAndFullOriginDelay() {
+    final Backoff backoff = new Backoff.Jittered(new Backoff.Fixed(Duration.ofMillis(100L)));
+
+    for (int idx = 0; idx < 100; ++idx) {
+      assertThat(backoff.delayMillis(1)).isBetween(50L, 100L);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link Bulkheads}.
+ */
+final class BulkheadsTest {
+
+  @Test
+  void acquireThrowsExceptionForNullResource() {
+    assertThatCode(() -> new Bulkheads().acquire(null, 1))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void acquireThrowsExceptionForNotPositiveMaxConcurrent() {
+    assertThatCode(() -> new Bulkheads().acquire("resource", 0))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void acquireThrowsExceptionForDifferentMaxConcurrent() {
+    final Bulkheads bulkheads = new Bulkheads();
+    bulkheads.acquire("resource", 2).release();
+
+    assertThatCode(() -> bulkheads.acquire("resource", 3))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void permitParams() {
+    final Bulkheads.Permit permit = new Bulkheads().acquire("resource", 1);
+
+    assertThat(permit.resource()).isEqualTo("resource");
+    assertThat(permit.params())
+      .containsEntry("resource", "resource")
+      .containsEntry("queue time", permit.queueTime());
+  }
+
+  @Test
+  void acquireWaitsForReleasedPermit() throws InterruptedException {
+    final Bulkheads bulkheads = new Bulkheads();
+    final Bulkheads.Permit permit = bulkheads.acquire("resource", 1);
+    final Thread waiter = new Thread(() -> bulkheads.acquire("resource", 1).release());
+    waiter.start();
+    while (bulkheads.queueLength("resource") == 0) {
+      TimeUnit.MILLISECONDS.sleep(1L);
+    }
+    assertThat(waiter.isAlive()).isTrue();
+
+    permit.release();
+    permit.release();
+    waiter.join();
+    assertThat(bulkheads.queueLength("resource")).isZero();
+    bulkheads.acquire("resource", 1).release();
+  }
+
+  @Test
+  void acquireIsReentrantForCurrentThread() throws InterruptedException {
+    final Bulkheads bulkheads = new Bulkheads();
+    final Bulkheads.Permit outerPermit = bulkheads.acquire("resource", 1);
+    final Bulkheads.Permit innerPermit = bulkheads.acquire("resource", 1);
+    assertThat(innerPermit.queueTime()).isZero();
+
+    innerPermit.release();
+    innerPermit.release();
+    final Thread waiter = new Thread(() -> bulkheads.acquire("resource", 1).release());
+    waiter.start();
+    while (bulkheads.queueLength("resource") == 0) {
+      TimeUnit.MILLISECONDS.sleep(1L);
+    }
+    assertThat(waiter.isAlive()).isTrue();
+
+    outerPermit.release();
+    waiter.join();
+    assertThat(bulkheads.queueLength("resource")).isZero();
+  }
+
+  @Test
+  void acquireThrowsExceptionForInterruptedThread() throws InterruptedException {
+    final Bulkheads bulkheads = new Bulkheads();
+    final Thread holder = new Thread(() -> bulkheads.acquire("resource", 1));
+    holder.start();
+    holder.join();
+    Thread.currentThread().interrupt();
+
+    assertThatCode(() -> bulkheads.acquire("resource", 1))
+      .isInstanceOf(XtepsException.class)
+      .hasCauseInstanceOf(InterruptedException.class);
+    assertThat(Thread.interrupted()).isTrue();
+  }
+}
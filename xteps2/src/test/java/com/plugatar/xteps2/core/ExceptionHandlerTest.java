@@ -19,6 +19,7 @@ import org.assertj.core.api.Condition;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -54,6 +55,94 @@ final class ExceptionHandlerTest {
     assertThat(suppressedCauseException).isNot(containsXtepsStackTrace());
   }
 
+  @Test
+  void handleMethodHandlesExceptionOnlyOnce() {
+    final ExceptionHandler handler = new ExceptionHandler.CleanStackTrace();
+    final Throwable exception = new Throwable("exception");
+    final StackTraceElement[] xtepsStackTrace = new StackTraceElement[]{
+      new StackTraceElement("com.plugatar.xteps2.Class", "method", "Class.java", 1)
+    };
+
+    handler.handle(exception);
+    assertThat(exception).isNot(containsXtepsStackTrace());
+    exception.setStackTrace(xtepsStackTrace);
+    for (int idx = 0; idx < 20; ++idx) {
+      handler.handle(exception);
+    }
+    assertThat(exception.getStackTrace()).isEqualTo(xtepsStackTrace);
+  }
+
+  @Test
+  void handleMethodForNewExceptionWithHandledCause() {
+    final ExceptionHandler handler = new ExceptionHandler.CleanStackTrace();
+    final Throwable causeException = new Throwable("cause exception");
+    handler.handle(causeException);
+    final Throwable baseException = new Throwable("base exception", causeException);
+
+    handler.handle(baseException);
+    assertThat(baseException).isNot(containsXtepsStackTrace());
+    assertThat(causeException).isNot(containsXtepsStackTrace());
+  }
+
+  @Test
+  void handleMethodForHandledExceptionWithSuppressedAndCauseAddedLater() {
+    final ExceptionHandler handler = new ExceptionHandler.CleanStackTrace();
+    final Throwable baseException = new Throwable("base exception");
+    final Throwable nestedException = new Throwable("nested exception");
+    baseException.addSuppressed(nestedException);
+    handler.handle(baseException);
+    final Throwable suppressedException = new Throwable("suppressed exception");
+    final Throwable causeException = new Throwable("cause exception");
+    final Throwable nestedSuppressedException = new Throwable("nested suppressed exception");
+    baseException.addSuppressed(suppressedException);
+    baseException.initCause(causeException);
+    nestedException.addSuppressed(nestedSuppressedException);
+
+    handler.handle(baseException);
+    assertThat(suppressedException).isNot(containsXtepsStackTrace());
+    assertThat(causeException).isNot(containsXtepsStackTrace());
+    assertThat(nestedSuppressedException).isNot(containsXtepsStackTrace());
+  }
+
+  @Test
+  void handleMethodDoesNotWalkUnchangedHandledException() {
+    final ExceptionHandler handler = new ExceptionHandler.CleanStackTrace();
+    final AtomicInteger causeWalksCount = new AtomicInteger();
+    final Throwable causeException = new Throwable("cause exception") {
+      @Override
+      public synchronized Throwable getCause() {
+        causeWalksCount.incrementAndGet();
+        return super.getCause();
+      }
+    };
+    final Throwable baseException = new Throwable("base exception", causeException);
+    handler.handle(baseException);
+    assertThat(causeWalksCount.get()).isEqualTo(1);
+
+    for (int idx = 0; idx < 20; ++idx) {
+      handler.handle(baseException);
+    }
+    assertThat(causeWalksCount.get()).isEqualTo(1);
+    final Throwable suppressedException = new Throwable("suppressed exception");
+    baseException.addSuppressed(suppressedException);
+    handler.handle(baseException);
+    assertThat(causeWalksCount.get()).isEqualTo(2);
+    assertThat(suppressedException).isNot(containsXtepsStackTrace());
+  }
+
+  @Test
+  void handleMethodForCyclicExceptionGraph() {
+    final ExceptionHandler handler = new ExceptionHandler.CleanStackTrace();
+    final Throwable baseException = new Throwable("base exception");
+    final Throwable suppressedException = new Throwable("suppressed exception");
+    baseException.addSuppressed(suppressedException);
+    suppressedException.addSuppressed(baseException);
+
+    assertThatCode(() -> handler.handle(baseException)).doesNotThrowAnyException();
+    assertThatCode(() -> handler.handle(baseException)).doesNotThrowAnyException();
+    assertThat(suppressedException).isNot(containsXtepsStackTrace());
+  }
+
   private static Condition<Throwable> containsXtepsStackTrace() {
     return new Condition<>(
       t -> Arrays.stream(t.getStackTrace()).anyMatch(el -> el.getClassName().startsWith("com.plugatar.xteps")),
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import com.plugatar.xteps2.Artifacts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link FilteringStepListener}.
+ */
+final class FilteringStepListenerTest {
+
+  @Test
+  void ofCtorThrowsExceptionForNullListenerArg() {
+    assertThatCode(() -> new FilteringStepListener.Of(null, Collections.emptySet(), 0, null, Collections.emptySet()))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void ofAcceptsAnyStepWithoutFilters() {
+    final FilteringStepListener listener = new FilteringStepListener.Of(
+      mock(StepListener.class), Collections.emptySet(), 0, null, Collections.emptySet()
+    );
+
+    assertThat(listener.isAccepted(new HashMap<>(), 100)).isTrue();
+  }
+
+  @Test
+  void ofFiltersByDepth() {
+    final FilteringStepListener listener = new FilteringStepListener.Of(
+      mock(StepListener.class), Collections.emptySet(), 2, null, Collections.emptySet()
+    );
+
+    assertThat(listener.isAccepted(new HashMap<>(), 2)).isTrue();
+    assertThat(listener.isAccepted(new HashMap<>(), 3)).isFalse();
+  }
+
+  @Test
+  void ofFiltersByNameAndArtifacts() {
+    final FilteringStepListener listener = new FilteringStepListener.Of(
+      mock(StepListener.class), Collections.emptySet(), 0, Pattern.compile("Login.*"),
+      Collections.singleton("attachment")
+    );
+    final Map<String, Object> artifacts = new HashMap<>();
+    artifacts.put(Artifacts.nameArtifact(), "Login as admin");
+
+    assertThat(listener.isAccepted(artifacts, 1)).isFalse();
+    artifacts.put("attachment", new Object());
+    assertThat(listener.isAccepted(artifacts, 1)).isTrue();
+    artifacts.put(Artifacts.nameArtifact(), "Logout");
+    assertThat(listener.isAccepted(artifacts, 1)).isFalse();
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import com.plugatar.xteps2.Artifacts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link FlightRecorder}.
+ */
+final class FlightRecorderTest {
+
+  @Test
+  void ctorThrowsExceptionForNotPositiveCapacity(@TempDir final Path dir) {
+    assertThatCode(() -> new FlightRecorder(0, dir, true))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void recorderKeepsMostRecentEvents(@TempDir final Path dir) {
+    final FlightRecorder recorder = new FlightRecorder(3, dir, false);
+
+    for (int idx = 0; idx < 3; ++idx) {
+      recorder.stepStarted(stepArtifacts("step " + idx));
+      recorder.stepPassed();
+    }
+
+    final List<String> events = recorder.events(Thread.currentThread());
+    assertThat(events).hasSize(3);
+    assertThat(events.get(0)).endsWith("PASSED");
+    assertThat(events.get(1)).contains("depth=1 STARTED name=\"step 2\"");
+    assertThat(events.get(2)).endsWith("PASSED");
+  }
+
+  @Test
+  void recorderDumpsEventsOnTopLevelStepFailure(@TempDir final Path dir) throws IOException {
+    final FlightRecorder recorder = new FlightRecorder(16, dir, true);
+
+    recorder.stepStarted(stepArtifacts("step 1"));
+    recorder.stepStarted(stepArtifacts("step 2"));
+    recorder.stepFailed(new IllegalStateException());
+    assertThat(dumpFiles(dir)).isEmpty();
+    recorder.stepFailed(new IllegalStateException());
+
+    final List<Path> files = dumpFiles(dir);
+    assertThat(files).hasSize(1);
+    final List<String> lines = Files.readAllLines(files.get(0), StandardCharsets.UTF_8);
+    assertThat(lines).hasSize(6);
+    assertThat(lines.get(0)).isEqualTo("Thread: " + Thread.currentThread().getName());
+    assertThat(lines.get(5)).endsWith("depth=1 FAILED exception=java.lang.IllegalStateException");
+  }
+
+  @Test
+  void recorderKeepsParamsCountWithoutParamsHashCode(@TempDir final Path dir) {
+    final FlightRecorder recorder = new FlightRecorder(16, dir, false);
+    final Object param = new Object() {
+      @Override
+      public int hashCode() {
+        throw new AssertionError("hashCode is called");
+      }
+    };
+    final Map<String, Object> artifacts = new HashMap<>();
+    artifacts.put(Artifacts.nameArtifact(), "step");
+    artifacts.put(Artifacts.paramsArtifact(), Collections.singletonMap("param", param));
+
+    recorder.stepStarted(artifacts);
+    recorder.stepPassed();
+    assertThat(recorder.events(Thread.currentThread()).get(0)).endsWith("STARTED name=\"step\" params=1");
+  }
+
+  private static List<Path> dumpFiles(final Path dir) throws IOException {
+    if (!Files.exists(dir)) {
+      return Collections.emptyList();
+    }
+    try (Stream<Path> stream = Files.list(dir)) {
+      return stream.collect(Collectors.toList());
+    }
+  }
+
+  private static Map<String, ?> stepArtifacts(final String name) {
+    final Map<String, Object> artifacts = new HashMap<>();
+    artifacts.put(Artifacts.nameArtifact(), name);
+    return artifacts;
+  }
+}
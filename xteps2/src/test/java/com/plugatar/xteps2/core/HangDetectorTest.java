@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import com.plugatar.xteps2.Artifacts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link HangDetector}.
+ */
+final class HangDetectorTest {
+
+  @Test
+  void ctorThrowsExceptionForNotPositiveThreshold(@TempDir final Path dir) {
+    assertThatCode(() -> new HangDetector(Duration.ZERO, Duration.ofSeconds(1L), false, dir))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void checkReportsLongRunningStepOnce(@TempDir final Path dir) throws Exception {
+    final HangDetector detector = new HangDetector(Duration.ofMillis(50L), Duration.ofSeconds(1L), false, dir);
+    detector.stepStarted(Collections.singletonMap(Artifacts.nameArtifact(), "parent step"));
+    detector.stepStarted(Collections.singletonMap(Artifacts.nameArtifact(), "stuck step"));
+    Thread.sleep(100L);
+
+    final List<Path> reports = detector.check();
+    assertThat(reports).hasSize(1);
+    final String report = new String(Files.readAllBytes(reports.get(0)), StandardCharsets.UTF_8);
+    assertThat(report)
+      .contains("Thread: " + Thread.currentThread().getName())
+      .contains("parent step")
+      .contains("stuck step")
+      .contains(HangDetectorTest.class.getName());
+    assertThat(detector.check()).isEmpty();
+    detector.stepPassed();
+    detector.stepPassed();
+  }
+
+  @Test
+  void checkDoesNotReportFinishedSteps(@TempDir final Path dir) throws IOException {
+    final HangDetector detector = new HangDetector(Duration.ofMillis(1L), Duration.ofSeconds(1L), false, dir);
+    detector.stepStarted(Collections.singletonMap(Artifacts.nameArtifact(), "step"));
+    detector.stepPassed();
+
+    assertThat(detector.check()).isEmpty();
+  }
+
+  @Test
+  void checkReportsRecordedStepViaRecordedReporter(@TempDir final Path dir) {
+    final HangDetector detector = new HangDetector(Duration.ofMillis(50L), Duration.ofSeconds(1L), false, dir);
+    final StepReporter reporter = new StepReporter.Recorded(
+      new StepReporter.Default(mock(ExceptionHandler.class), new StepListener[0]), detector
+    );
+    final AtomicReference<List<Path>> reports = new AtomicReference<>();
+
+    final StepRecording recording = reporter.record(() ->
+      reporter.executeStep(Collections.singletonMap(Artifacts.nameArtifact(), "recorded step"), () -> {
+        Thread.sleep(100L);
+        reports.set(detector.check());
+        return null;
+      })
+    );
+    assertThat(recording.exception()).isNull();
+    assertThat(reports.get()).hasSize(1);
+    assertThat(detector.check()).isEmpty();
+  }
+
+  @Test
+  void closeStopsPeriodicChecks(@TempDir final Path dir) {
+    final HangDetector detector = new HangDetector(Duration.ofMillis(50L), Duration.ofMillis(10L), false, dir);
+
+    assertThat(detector.start()).isSameAs(detector);
+    assertThat(detector.start()).isSameAs(detector);
+    assertThatCode(detector::close).doesNotThrowAnyException();
+    assertThatCode(detector::close).doesNotThrowAnyException();
+  }
+}
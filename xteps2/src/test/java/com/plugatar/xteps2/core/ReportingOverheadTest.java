@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link ReportingOverhead}.
+ */
+final class ReportingOverheadTest {
+
+  @Test
+  void histogramCountsValues() {
+    final ReportingOverhead.Histogram histogram = new ReportingOverhead.Histogram();
+    histogram.add(0);
+    histogram.add(1);
+    histogram.add(3);
+    histogram.add(1000);
+
+    assertThat(histogram.count()).isEqualTo(4);
+    assertThat(histogram.totalNanos()).isEqualTo(1004);
+    assertThat(histogram.maxNanos()).isEqualTo(1000);
+    final long[] buckets = histogram.bucketCounts();
+    assertThat(buckets[0]).isEqualTo(2);
+    assertThat(buckets[1]).isEqualTo(1);
+    assertThat(buckets[9]).isEqualTo(1);
+    assertThat(histogram.percentileNanos(50)).isEqualTo(1);
+    assertThat(histogram.percentileNanos(100)).isEqualTo(1000);
+  }
+
+  @Test
+  void histogramPercentileThrowsExceptionForIncorrectArg() {
+    assertThatCode(() -> new ReportingOverhead.Histogram().percentileNanos(0))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void defaultRecordsByComponents() {
+    final ReportingOverhead overhead = new ReportingOverhead.Default();
+    overhead.record(ReportingOverhead.STEPS, 1000);
+    overhead.record("Listener", 10);
+    overhead.record("Listener", 20);
+
+    assertThat(overhead.histograms()).containsOnlyKeys(ReportingOverhead.STEPS, "Listener");
+    assertThat(overhead.histograms().get("Listener").totalNanos()).isEqualTo(30);
+    assertThat(overhead.summary()).contains("Listener: count 2");
+  }
+
+  @Test
+  void summaryDoesNotDependOnDefaultLocale() {
+    final Locale defaultLocale = Locale.getDefault();
+    Locale.setDefault(Locale.GERMANY);
+    try {
+      final ReportingOverhead overhead = new ReportingOverhead.Default();
+      overhead.record(ReportingOverhead.STEPS, 1_500_000);
+      overhead.record("Listener", 750_000);
+
+      assertThat(overhead.summary())
+        .contains("total 1.500ms")
+        .contains("50.00% of steps time");
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  void stepReporterRecordsListenersTime() {
+    final ReportingOverhead overhead = new ReportingOverhead.Default();
+    final StepListener listener = mock(StepListener.class);
+    final StepReporter reporter = new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}, false, overhead
+    );
+
+    reporter.executeStep(new HashMap<>(), () -> reporter.executeStep(new HashMap<>(), () -> null));
+    assertThat(overhead.histograms().get(ReportingOverhead.STEPS).count()).isEqualTo(1);
+    assertThat(overhead.histograms().get(listener.getClass().getTypeName()).count()).isEqualTo(4);
+  }
+
+  @Test
+  void measuredTextFormatterRecordsTime() {
+    final ReportingOverhead overhead = new ReportingOverhead.Default();
+    final TextFormatter formatter = new TextFormatter.Measured(new TextFormatter.Fake(), overhead);
+
+    assertThat(formatter.format("text")).isEqualTo("text");
+    assertThat(overhead.histograms().get(ReportingOverhead.TEXT_FORMATTER).count()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link SecretMasker}.
+ */
+final class SecretMaskerTest {
+
+  @Test
+  void ctorThrowsExceptionForNullSecretKeysArg() {
+    assertThatCode(() -> new SecretMasker.Default(null, Collections.emptyList(), "***"))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void ctorThrowsExceptionForNullSecretValuesArg() {
+    assertThatCode(() -> new SecretMasker.Default(Collections.emptyList(), null, "***"))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void ctorThrowsExceptionForNullMaskArg() {
+    assertThatCode(() -> new SecretMasker.Default(Collections.emptyList(), Collections.emptyList(), null))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void maskTextMethodForSecretKeys() {
+    final SecretMasker masker = new SecretMasker.Default(Arrays.asList("password", "token"), Collections.emptyList(), "***");
+
+    assertThat(masker.maskText("Login with password=qwerty and user=bob"))
+      .isEqualTo("Login with password=*** and user=bob");
+    assertThat(masker.maskText("Token: xyz, other"))
+      .isEqualTo("Token: ***, other");
+    assertThat(masker.maskText("token = 'a b c'"))
+      .isEqualTo("token = '***'");
+    assertThat(masker.maskText("mytoken=value"))
+      .isEqualTo("mytoken=value");
+  }
+
+  @Test
+  void maskTextMethodForSecretValues() {
+    final SecretMasker masker = new SecretMasker.Default(Collections.emptyList(), Arrays.asList("abc", "s3cr3t"), "***");
+
+    assertThat(masker.maskText("Value s3cr3t and abcabc but not ABC"))
+      .isEqualTo("Value *** and ****** but not ABC");
+  }
+
+  @Test
+  void maskTextMethodReturnsSameTextWithoutSecrets() {
+    final SecretMasker masker = new SecretMasker.Default(Arrays.asList("password"), Arrays.asList("s3cr3t"), "***");
+    final String text = "Text without secrets";
+
+    assertThat(masker.maskText(text)).isSameAs(text);
+  }
+
+  @Test
+  void maskParamMethod() {
+    final SecretMasker masker = new SecretMasker.Default(Arrays.asList("password"), Arrays.asList("s3cr3t"), "***");
+    final Object value = new Object();
+
+    assertThat(masker.maskParam("Password", value)).isEqualTo("***");
+    assertThat(masker.maskParam("passwordHint", "hint s3cr3t")).isEqualTo("hint ***");
+    assertThat(masker.maskParam("other", value)).isSameAs(value);
+  }
+
+  @Test
+  void maskTextMethodForSecretsWithSameLowercaseForm() {
+    final SecretMasker masker = new SecretMasker.Default(
+      Arrays.asList("token"), Arrays.asList("Token", "abc", "ABC"), "***");
+
+    assertThat(masker.maskText("Token=xyz"))
+      .isEqualTo("***=***");
+    assertThat(masker.maskText("Value abc and ABC but not aBc"))
+      .isEqualTo("Value *** and *** but not aBc");
+  }
+
+  @Test
+  void maskParamMethodForSecretKeyWithSameLowercaseFormAsSecretValue() {
+    final SecretMasker masker = new SecretMasker.Default(
+      Arrays.asList("password"), Arrays.asList("Password"), "***");
+
+    assertThat(masker.maskParam("password", 1)).isEqualTo("***");
+  }
+
+  @Test
+  void maskParamMethodForNonStringValuesWithObjectsScanning() {
+    final SecretMasker masker = new SecretMasker.Default(
+      Arrays.asList("password"), Arrays.asList("s3cr3t"), "***", true);
+    final Map<String, String> map = new LinkedHashMap<>();
+    map.put("user", "bob");
+    map.put("password", "qwerty");
+    final List<String> list = Arrays.asList("a", "s3cr3t");
+    final Object[] array = new Object[]{"a", new Object[]{"s3cr3t"}};
+    final List<String> listWithoutSecrets = Arrays.asList("a", "b");
+
+    assertThat(masker.maskParam("map", map)).isEqualTo("{user=bob, password=***}");
+    assertThat(masker.maskParam("list", list)).isEqualTo("[a, ***]");
+    assertThat(masker.maskParam("array", array)).isEqualTo("[a, [***]]");
+    assertThat(masker.maskParam("chars", "s3cr3t".toCharArray())).isEqualTo("***");
+    assertThat(masker.maskParam("list", listWithoutSecrets)).isSameAs(listWithoutSecrets);
+    assertThat(masker.maskParam("null", null)).isNull();
+  }
+
+  @Test
+  void maskParamMethodChecksOnlyTextValuesByDefault() {
+    final SecretMasker masker = new SecretMasker.Default(Arrays.asList("password"), Arrays.asList("s3cr3t"), "***");
+    final StringBuilder builder = new StringBuilder("a s3cr3t");
+    final StringBuilder builderWithoutSecrets = new StringBuilder("a b");
+    final List<String> list = Arrays.asList("a", "s3cr3t");
+    final Object value = new Object() {
+      @Override
+      public String toString() {
+        throw new AssertionError("toString is called");
+      }
+    };
+
+    assertThat(masker.maskParam("builder", builder)).isEqualTo("a ***");
+    assertThat(masker.maskParam("builder", builderWithoutSecrets)).isSameAs(builderWithoutSecrets);
+    assertThat(masker.maskParam("chars", "s3cr3t".toCharArray())).isEqualTo("***");
+    assertThat(masker.maskParam("list", list)).isSameAs(list);
+    assertThat(masker.maskParam("object", value)).isSameAs(value);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests for {@link SingleFlight}.
+ */
+final class SingleFlightTest {
+
+  @Test
+  void joinThrowsExceptionForNullKey() {
+    assertThatCode(() -> new SingleFlight().join(null))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void firstJoinOwnsFlight() {
+    final SingleFlight singleFlight = new SingleFlight();
+    final SingleFlight.Flight flight = singleFlight.join("key");
+
+    assertThat(flight.isOwner()).isTrue();
+    assertThat(flight.owner()).isSameAs(Thread.currentThread());
+    assertThat(singleFlight.size()).isEqualTo(1);
+    flight.complete("result");
+    assertThat(singleFlight.size()).isZero();
+  }
+
+  @Test
+  void ownerRepeatedJoinReturnsIndependentFlight() {
+    final SingleFlight singleFlight = new SingleFlight();
+    final SingleFlight.Flight flight = singleFlight.join("key");
+    final SingleFlight.Flight nestedFlight = singleFlight.join("key");
+
+    assertThat(nestedFlight).isNotSameAs(flight);
+    assertThat(nestedFlight.isOwner()).isTrue();
+    nestedFlight.complete("nested result");
+    assertThat(singleFlight.size()).isEqualTo(1);
+  }
+
+  @Test
+  void waiterReceivesOwnerResult() throws Throwable {
+    final SingleFlight singleFlight = new SingleFlight();
+    final SingleFlight.Flight flight = singleFlight.join("key");
+    final AtomicReference<SingleFlight.Flight> waiterFlight = new AtomicReference<>();
+    final AtomicReference<Object> waiterResult = new AtomicReference<>();
+    final CountDownLatch joined = new CountDownLatch(1);
+    final Thread waiter = new Thread(() -> {
+      waiterFlight.set(singleFlight.join("key"));
+      joined.countDown();
+      try {
+        waiterResult.set(waiterFlight.get().await());
+      } catch (final Throwable ex) {
+        waiterResult.set(ex);
+      }
+    });
+    waiter.start();
+    joined.await();
+    flight.complete("result");
+    waiter.join();
+
+    assertThat(waiterFlight.get()).isSameAs(flight);
+    assertThat(waiterResult.get()).isEqualTo("result");
+  }
+
+  @Test
+  void waiterReceivesOwnerException() throws Throwable {
+    final SingleFlight singleFlight = new SingleFlight();
+    final SingleFlight.Flight flight = singleFlight.join("key");
+    final RuntimeException exception = new RuntimeException("owner failed", new IllegalArgumentException("cause"));
+    exception.addSuppressed(new IllegalStateException("suppressed"));
+    final AtomicReference<Object> waiterResult = new AtomicReference<>();
+    final CountDownLatch joined = new CountDownLatch(1);
+    final Thread waiter = new Thread(() -> {
+      final SingleFlight.Flight waiterFlight = singleFlight.join("key");
+      joined.countDown();
+      try {
+        waiterResult.set(waiterFlight.await());
+      } catch (final Throwable ex) {
+        waiterResult.set(ex);
+      }
+    });
+    waiter.start();
+    joined.await();
+    flight.fail(exception);
+    waiter.join();
+
+    assertThat(singleFlight.size()).isZero();
+    final Throwable waiterException = (Throwable) waiterResult.get();
+    assertThat(waiterException).isInstanceOf(SharedStepError.class);
+    assertThat(waiterException.getCause())
+      .isNotSameAs(exception)
+      .hasMessage("owner failed")
+      .hasToString(exception.toString());
+    assertThat(waiterException.getCause().getStackTrace()).isEqualTo(exception.getStackTrace());
+    assertThat(waiterException.getCause().getCause())
+      .isNotSameAs(exception.getCause())
+      .hasToString(exception.getCause().toString());
+    assertThat(waiterException.getCause().getSuppressed()).hasSize(1);
+  }
+
+  @Test
+  void waiterExceptionIsNotChangedByOwnerExceptionChanges() throws Throwable {
+    final SingleFlight singleFlight = new SingleFlight();
+    final SingleFlight.Flight flight = singleFlight.join("key");
+    final RuntimeException exception = new RuntimeException("owner failed");
+    final AtomicReference<SingleFlight.Flight> waiterFlight = new AtomicReference<>();
+    final Thread waiter = new Thread(() -> waiterFlight.set(singleFlight.join("key")));
+    waiter.start();
+    waiter.join();
+    flight.fail(exception);
+    exception.addSuppressed(new IllegalStateException());
+    exception.setStackTrace(new StackTraceElement[0]);
+
+    final Throwable waiterException = catchThrowable(waiterFlight.get()::await);
+    assertThat(waiterFlight.get()).isSameAs(flight);
+    assertThat(waiterException.getCause().getSuppressed()).isEmpty();
+    assertThat(waiterException.getCause().getStackTrace()).isNotEmpty();
+  }
+}
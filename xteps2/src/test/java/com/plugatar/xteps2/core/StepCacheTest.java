@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link StepCache}.
+ */
+final class StepCacheTest {
+
+  @Test
+  void ctorThrowsExceptionForNotPositiveMaxSize() {
+    assertThatCode(() -> new StepCache(0))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void getReturnsPutValue() {
+    final StepCache cache = new StepCache(10);
+    cache.put("key", "value", Duration.ZERO);
+
+    final StepCache.Entry entry = cache.get("key");
+    assertThat(entry).isNotNull();
+    assertThat(entry.value()).isEqualTo("value");
+    assertThat(entry.hitParams()).containsEntry("cache key", "key");
+    assertThat(cache.get("other key")).isNull();
+  }
+
+  @Test
+  void getDoesNotReturnExpiredValue() throws InterruptedException {
+    final StepCache cache = new StepCache(10);
+    cache.put("key", "value", Duration.ofMillis(10L));
+    Thread.sleep(20L);
+
+    assertThat(cache.get("key")).isNull();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void putEvictsLeastRecentlyUsedEntry() {
+    final StepCache cache = new StepCache(2);
+    cache.put("key1", "value1", Duration.ZERO);
+    cache.put("key2", "value2", Duration.ZERO);
+    cache.get("key1");
+    cache.put("key3", "value3", Duration.ZERO);
+
+    assertThat(cache.get("key1")).isNotNull();
+    assertThat(cache.get("key2")).isNull();
+    assertThat(cache.get("key3")).isNotNull();
+  }
+
+  @Test
+  void invalidateRemovesEntries() {
+    final StepCache cache = new StepCache(10);
+    cache.put("key1", "value1", Duration.ZERO);
+    cache.put("key2", "value2", Duration.ZERO);
+
+    cache.invalidate("key1");
+    assertThat(cache.get("key1")).isNull();
+    cache.invalidateAll();
+    assertThat(cache.size()).isZero();
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link StepListener}.
+ */
+final class StepListenerTest {
+
+  @Test
+  void isolatedCtorThrowsExceptionForNullListenerArg() {
+    assertThatCode(() -> new StepListener.Isolated(null, 1000, 0.5, 20, 30000))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void isolatedCtorThrowsExceptionForIncorrectMaxFailureRateArg() {
+    assertThatCode(() -> new StepListener.Isolated(mock(StepListener.class), 1000, 1.5, 20, 30000))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void isolatedListenerDelegatesCalls() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Isolated(origin, 1000, 0.5, 20, 30000);
+    final Map<String, ?> artifacts = new HashMap<>();
+    final Throwable exception = new Throwable();
+
+    listener.stepStarted(artifacts);
+    listener.stepPassed();
+    listener.stepStarted(artifacts);
+    listener.stepFailed(exception);
+    verify(origin, times(2)).stepStarted(same(artifacts));
+    verify(origin).stepPassed();
+    verify(origin).stepFailed(same(exception));
+  }
+
+  @Test
+  void isolatedListenerContainsExceptions() {
+    final StepListener origin = mock(StepListener.class);
+    doThrow(new RuntimeException()).when(origin).stepPassed();
+    final StepListener.Isolated listener = new StepListener.Isolated(origin, 1000, 1, 20, 30000);
+
+    listener.stepStarted(new HashMap<>());
+    assertThatCode(listener::stepPassed).doesNotThrowAnyException();
+    assertThat(listener.errorsCount()).isEqualTo(1);
+  }
+
+  @Test
+  void isolatedListenerBypassesFailingListener() {
+    final StepListener origin = mock(StepListener.class);
+    doThrow(new RuntimeException()).when(origin).stepStarted(any());
+    final StepListener.Isolated listener = new StepListener.Isolated(origin, 1000, 0.5, 2, 30000);
+
+    for (int idx = 0; idx < 5; ++idx) {
+      listener.stepStarted(new HashMap<>());
+      listener.stepPassed();
+    }
+    verify(origin, times(2)).stepStarted(any());
+    verify(origin, never()).stepPassed();
+    assertThat(listener.errorsCount()).isEqualTo(2);
+    assertThat(listener.bypassedCallsCount()).isEqualTo(8);
+  }
+
+  @Test
+  void isolatedListenerDoesNotReportNestedStepsOfBypassedStep() {
+    final StepListener origin = mock(StepListener.class);
+    doThrow(new RuntimeException()).doNothing().when(origin).stepStarted(any());
+    final StepListener.Isolated listener = new StepListener.Isolated(origin, 1000, 1, 1, 0);
+    final Map<String, ?> artifacts = new HashMap<>();
+
+    listener.stepStarted(artifacts);
+    listener.stepStarted(artifacts);
+    listener.stepPassed();
+    listener.stepPassed();
+    verify(origin, times(1)).stepStarted(any());
+    verify(origin, never()).stepPassed();
+    assertThat(listener.bypassedCallsCount()).isEqualTo(3);
+  }
+
+  @Test
+  void isolatedListenerPropagatesErrorsAndKeepsStepsBalanced() {
+    final StepListener origin = mock(StepListener.class);
+    final Error error = new Error();
+    doThrow(error).when(origin).stepStarted(any());
+    final StepListener.Isolated listener = new StepListener.Isolated(origin, 1000, 0.5, 20, 30000);
+
+    assertThatCode(() -> listener.stepStarted(new HashMap<>())).isSameAs(error);
+    listener.stepPassed();
+    verify(origin, never()).stepPassed();
+    assertThat(listener.errorsCount()).isZero();
+  }
+
+  @Test
+  void isolatedListenerUsesFilterOfFilteringListenerOnly() {
+    final FilteringStepListener origin = mock(FilteringStepListener.class);
+    final Map<String, ?> artifacts = new HashMap<>();
+    when(origin.isAccepted(same(artifacts), eq(1))).thenReturn(false);
+
+    assertThat(new StepListener.Isolated(mock(StepListener.class), 1000, 0.5, 20, 30000))
+      .isNotInstanceOf(FilteringStepListener.class);
+    assertThat(new StepListener.Isolated.Filtering(origin, 1000, 0.5, 20, 30000).isAccepted(artifacts, 1))
+      .isFalse();
+  }
+
+  @Test
+  void bufferedListenerReportsPassedStepsOnlyForAlwaysPolicy() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Buffered(origin, StepListener.Buffered.FlushPolicy.ALWAYS, 100);
+    final Map<String, ?> artifacts = new HashMap<>();
+
+    listener.stepStarted(artifacts);
+    listener.stepStarted(artifacts);
+    listener.stepPassed();
+    verify(origin, never()).stepStarted(any());
+    listener.stepPassed();
+    verify(origin, times(2)).stepStarted(same(artifacts));
+    verify(origin, times(2)).stepPassed();
+  }
+
+  @Test
+  void bufferedListenerDropsPassedStepsForOnFailurePolicy() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Buffered(origin, StepListener.Buffered.FlushPolicy.ON_FAILURE, 100);
+    final Map<String, ?> artifacts = new HashMap<>();
+    final Throwable exception = new Throwable();
+
+    listener.stepStarted(artifacts);
+    listener.stepStarted(artifacts);
+    listener.stepPassed();
+    listener.stepPassed();
+    verify(origin, never()).stepStarted(any());
+    listener.stepStarted(artifacts);
+    listener.stepStarted(artifacts);
+    listener.stepFailed(exception);
+    listener.stepFailed(exception);
+    verify(origin, times(2)).stepStarted(same(artifacts));
+    verify(origin, times(2)).stepFailed(same(exception));
+  }
+
+  @Test
+  void bufferedListenerReportsTopLevelStepForSummaryOnPassPolicy() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Buffered(origin, StepListener.Buffered.FlushPolicy.SUMMARY_ON_PASS, 100);
+    final Map<String, ?> topLevelArtifacts = new HashMap<>();
+    final Map<String, ?> nestedArtifacts = new HashMap<>();
+
+    listener.stepStarted(topLevelArtifacts);
+    listener.stepStarted(nestedArtifacts);
+    listener.stepPassed();
+    listener.stepPassed();
+    verify(origin).stepStarted(same(topLevelArtifacts));
+    verify(origin, never()).stepStarted(same(nestedArtifacts));
+    verify(origin).stepPassed();
+  }
+
+  @Test
+  void bufferedListenerStopsBufferingWhenLimitIsReached() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Buffered(origin, StepListener.Buffered.FlushPolicy.ON_FAILURE, 2);
+    final Map<String, ?> artifacts = new HashMap<>();
+
+    listener.stepStarted(artifacts);
+    listener.stepStarted(artifacts);
+    verify(origin, times(2)).stepStarted(same(artifacts));
+    listener.stepPassed();
+    listener.stepPassed();
+    verify(origin, times(2)).stepPassed();
+  }
+
+  @Test
+  void bufferedListenerReportsAllStepsOfFailedTestForOnFailurePolicy() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Buffered(origin, StepListener.Buffered.FlushPolicy.ON_FAILURE, 100);
+    final Map<String, ?> passedArtifacts = new HashMap<>();
+    final Map<String, ?> failedArtifacts = new HashMap<>();
+    final Throwable exception = new Throwable();
+
+    StepListener.Buffered.testStarted();
+    try {
+      listener.stepStarted(passedArtifacts);
+      listener.stepPassed();
+      listener.stepStarted(failedArtifacts);
+      listener.stepFailed(exception);
+      verify(origin, never()).stepStarted(any());
+    } finally {
+      StepListener.Buffered.testFinished();
+    }
+    final InOrder inOrder = inOrder(origin);
+    inOrder.verify(origin).stepStarted(same(passedArtifacts));
+    inOrder.verify(origin).stepPassed();
+    inOrder.verify(origin).stepStarted(same(failedArtifacts));
+    inOrder.verify(origin).stepFailed(same(exception));
+  }
+
+  @Test
+  void bufferedListenerDropsStepsOfPassedTestForOnFailurePolicy() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Buffered(origin, StepListener.Buffered.FlushPolicy.ON_FAILURE, 100);
+    final Map<String, ?> artifacts = new HashMap<>();
+
+    StepListener.Buffered.testStarted();
+    try {
+      listener.stepStarted(artifacts);
+      listener.stepPassed();
+      listener.stepStarted(artifacts);
+      listener.stepPassed();
+    } finally {
+      StepListener.Buffered.testFinished();
+    }
+    verifyNoInteractions(origin);
+  }
+
+  @Test
+  void bufferedListenerReportsTopLevelStepsOfTestForSummaryOnPassPolicy() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Buffered(origin, StepListener.Buffered.FlushPolicy.SUMMARY_ON_PASS, 100);
+    final Map<String, ?> topLevelArtifacts1 = new HashMap<>();
+    final Map<String, ?> topLevelArtifacts2 = new HashMap<>();
+    final Map<String, ?> nestedArtifacts = new HashMap<>();
+
+    StepListener.Buffered.testStarted();
+    try {
+      listener.stepStarted(topLevelArtifacts1);
+      listener.stepStarted(nestedArtifacts);
+      listener.stepPassed();
+      listener.stepPassed();
+      listener.stepStarted(topLevelArtifacts2);
+      listener.stepStarted(nestedArtifacts);
+      listener.stepPassed();
+      listener.stepPassed();
+    } finally {
+      StepListener.Buffered.testFinished();
+    }
+    final InOrder inOrder = inOrder(origin);
+    inOrder.verify(origin).stepStarted(same(topLevelArtifacts1));
+    inOrder.verify(origin).stepPassed();
+    inOrder.verify(origin).stepStarted(same(topLevelArtifacts2));
+    inOrder.verify(origin).stepPassed();
+    verify(origin, never()).stepStarted(same(nestedArtifacts));
+  }
+
+  @Test
+  void bufferedListenerTestStartedFinishesPreviousTest() {
+    final StepListener origin = mock(StepListener.class);
+    final StepListener listener = new StepListener.Buffered(origin, StepListener.Buffered.FlushPolicy.ALWAYS, 100);
+    final Map<String, ?> artifacts = new HashMap<>();
+
+    StepListener.Buffered.testStarted();
+    listener.stepStarted(artifacts);
+    listener.stepPassed();
+    verify(origin, never()).stepStarted(any());
+    StepListener.Buffered.testStarted();
+    StepListener.Buffered.testFinished();
+    verify(origin).stepStarted(same(artifacts));
+    verify(origin).stepPassed();
+  }
+}
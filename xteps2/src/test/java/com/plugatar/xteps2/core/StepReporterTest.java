@@ -15,15 +15,22 @@
  */
 package com.plugatar.xteps2.core;
 
+import com.plugatar.xteps2.Artifacts;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -66,6 +73,32 @@ final class StepReporterTest {
     verify(stepListener2).stepPassed();
   }
 
+  @Test
+  void reportStepWithSecrets() {
+    final StepListener stepListener = mock(StepListener.class);
+    final ExceptionHandler handler = mock(ExceptionHandler.class);
+    final SecretMasker secretMasker = new SecretMasker.Default(
+      Collections.singletonList("password"), Collections.singletonList("s3cr3t"), "***"
+    );
+    final StepReporter executor = new StepReporter.Default(handler, secretMasker, new StepListener[]{stepListener});
+    final Map<String, Object> params = new LinkedHashMap<>();
+    params.put("password", "qwerty");
+    params.put("user", "bob");
+    final Map<String, Object> artifacts = new HashMap<>();
+    artifacts.put(Artifacts.nameArtifact(), "Login with s3cr3t");
+    artifacts.put(Artifacts.paramsArtifact(), params);
+    final Map<String, Object> expectedParams = new LinkedHashMap<>();
+    expectedParams.put("password", "***");
+    expectedParams.put("user", "bob");
+    final Map<String, Object> expectedArtifacts = new HashMap<>();
+    expectedArtifacts.put(Artifacts.nameArtifact(), "Login with ***");
+    expectedArtifacts.put(Artifacts.paramsArtifact(), expectedParams);
+
+    executor.executeStep(artifacts, () -> null);
+    verify(stepListener).stepStarted(eq(expectedArtifacts));
+    verify(stepListener).stepPassed();
+  }
+
   @Test
   void reportStepWithException() {
     final StepListener stepListener1 = mock(StepListener.class);
@@ -82,4 +115,414 @@ final class StepReporterTest {
     verify(stepListener2).stepStarted(same(artifacts));
     verify(stepListener2).stepFailed(same(expectedException));
   }
+
+  @Test
+  void reportNestedStepsWithExceptionInPropagatedFailuresMode() {
+    final StepListener stepListener = mock(StepListener.class);
+    final ExceptionHandler handler = mock(ExceptionHandler.class);
+    final StepReporter executor = new StepReporter.Default(
+      handler, new SecretMasker.Fake(), new StepListener[]{stepListener}, true
+    );
+    final Map<String, ?> artifacts = new HashMap<>();
+    final RuntimeException expectedException = new RuntimeException();
+
+    assertThatCode(() -> executor.executeStep(artifacts, () ->
+      executor.executeStep(artifacts, () ->
+        executor.executeStep(artifacts, () -> { throw expectedException; })
+      )
+    )).isSameAs(expectedException);
+    verify(stepListener, times(3)).stepStarted(same(artifacts));
+    verify(stepListener).stepFailed(same(expectedException));
+    verify(stepListener, times(2)).stepFailedByNestedStep(same(expectedException));
+  }
+
+  @Test
+  void reportNestedStepsWithFilteringListener() {
+    final StepListener filteredListener = mock(StepListener.class);
+    final StepListener stepListener = mock(StepListener.class);
+    final StepListener filteringListener = new FilteringStepListener.Of(
+      filteredListener, Collections.emptySet(), 1, null, Collections.emptySet()
+    );
+    final StepReporter executor = new StepReporter.Default(
+      mock(ExceptionHandler.class), new StepListener[]{filteringListener, stepListener}
+    );
+    final Map<String, ?> artifacts = new HashMap<>();
+
+    executor.executeStep(artifacts, () -> executor.executeStep(artifacts, () -> null));
+    verify(filteredListener).stepStarted(same(artifacts));
+    verify(filteredListener).stepPassed();
+    verify(stepListener, times(2)).stepStarted(same(artifacts));
+    verify(stepListener, times(2)).stepPassed();
+  }
+
+  @Test
+  void reportNestedStepsWithExceptionInPropagatedFailuresModeWithFilteringListener() {
+    final StepListener filteredListener1 = mock(StepListener.class);
+    final StepListener filteredListener2 = mock(StepListener.class);
+    final StepListener stepListener = mock(StepListener.class);
+    final StepReporter executor = new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{
+      new FilteringStepListener.Of(filteredListener1, Collections.emptySet(), 1, null, Collections.emptySet()),
+      new FilteringStepListener.Of(filteredListener2, Collections.emptySet(), 2, null, Collections.emptySet()),
+      stepListener
+    }, true
+    );
+    final Map<String, ?> artifacts = new HashMap<>();
+    final RuntimeException expectedException = new RuntimeException();
+
+    assertThatCode(() -> executor.executeStep(artifacts, () ->
+      executor.executeStep(artifacts, () ->
+        executor.executeStep(artifacts, () -> { throw expectedException; })
+      )
+    )).isSameAs(expectedException);
+    verify(filteredListener1).stepStarted(same(artifacts));
+    verify(filteredListener1).stepFailed(same(expectedException));
+    verify(filteredListener1, times(0)).stepFailedByNestedStep(same(expectedException));
+    verify(filteredListener2, times(2)).stepStarted(same(artifacts));
+    verify(filteredListener2).stepFailed(same(expectedException));
+    verify(filteredListener2).stepFailedByNestedStep(same(expectedException));
+    verify(stepListener, times(3)).stepStarted(same(artifacts));
+    verify(stepListener).stepFailed(same(expectedException));
+    verify(stepListener, times(2)).stepFailedByNestedStep(same(expectedException));
+  }
+
+  @Test
+  void reportRepeatedNestedStepsInLoopFoldingMode() {
+    final RecordingListener listener = new RecordingListener();
+    final StepReporter executor = new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}, false,
+      new ReportingOverhead.Fake(), true, Integer.MAX_VALUE
+    );
+
+    executor.executeStep(artifacts("parent"), () -> {
+      for (int idx = 0; idx < 5; ++idx) {
+        executor.executeStep(artifacts("check status"), () -> null);
+      }
+      return executor.executeStep(artifacts("other"), () -> null);
+    });
+    assertThat(listener.events).containsExactly(
+      "started parent",
+      "started check status",
+      "passed",
+      "started check status repetitions=5",
+      "passed",
+      "started other",
+      "passed",
+      "passed"
+    );
+  }
+
+  @Test
+  void reportFailedRepetitionInLoopFoldingMode() {
+    final RecordingListener listener = new RecordingListener();
+    final StepReporter executor = new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}, false,
+      new ReportingOverhead.Fake(), true, Integer.MAX_VALUE
+    );
+    final RuntimeException expectedException = new RuntimeException();
+
+    assertThatCode(() -> executor.executeStep(artifacts("parent"), () -> {
+      for (int idx = 0; idx < 3; ++idx) {
+        executor.executeStep(artifacts("check status"), () -> null);
+      }
+      return executor.executeStep(artifacts("check status"), () ->
+        executor.executeStep(artifacts("nested"), () -> { throw expectedException; })
+      );
+    })).isSameAs(expectedException);
+    assertThat(listener.events).containsExactly(
+      "started parent",
+      "started check status",
+      "passed",
+      "started check status repetitions=3",
+      "passed",
+      "started check status",
+      "started nested",
+      "failed",
+      "failed",
+      "failed"
+    );
+  }
+
+  @Test
+  void reportStepsWithMaxStepsPerTest() {
+    final RecordingListener listener = new RecordingListener();
+    final StepReporter executor = new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}, false,
+      new ReportingOverhead.Fake(), false, 3
+    );
+
+    executor.executeStep(artifacts("parent"), () -> {
+      for (int idx = 0; idx < 4; ++idx) {
+        executor.executeStep(artifacts("step " + idx), () -> null);
+      }
+      return null;
+    });
+    assertThat(listener.events).containsExactly(
+      "started parent",
+      "started step 0",
+      "passed",
+      "started step 1",
+      "passed",
+      "started 2 steps are not reported",
+      "passed",
+      "passed"
+    );
+  }
+
+  @Test
+  void reportRepeatedTopLevelStepsInLoopFoldingModeWithinTest() {
+    final RecordingListener listener = new RecordingListener();
+    final StepReporter executor = new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}, false,
+      new ReportingOverhead.Fake(), true, Integer.MAX_VALUE
+    );
+
+    executor.testStarted();
+    for (int idx = 0; idx < 5; ++idx) {
+      executor.executeStep(artifacts("check status"), () -> null);
+    }
+    assertThat(listener.events).containsExactly(
+      "started check status",
+      "passed"
+    );
+    executor.testFinished();
+    assertThat(listener.events).containsExactly(
+      "started check status",
+      "passed",
+      "started check status repetitions=5",
+      "passed"
+    );
+  }
+
+  @Test
+  void reportStepsWithMaxStepsPerTestWithinTest() {
+    final RecordingListener listener = new RecordingListener();
+    final StepReporter executor = new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}, false,
+      new ReportingOverhead.Fake(), false, 2
+    );
+
+    executor.testStarted();
+    for (int idx = 0; idx < 4; ++idx) {
+      executor.executeStep(artifacts("step " + idx), () -> null);
+    }
+    executor.testFinished();
+    executor.testStarted();
+    executor.executeStep(artifacts("next test step"), () -> null);
+    executor.testFinished();
+    assertThat(listener.events).containsExactly(
+      "started step 0",
+      "passed",
+      "started step 1",
+      "passed",
+      "started 2 steps are not reported",
+      "passed",
+      "started next test step",
+      "passed"
+    );
+  }
+
+  @Test
+  void recordStepsInOtherThreadAndReplayThem() throws InterruptedException {
+    final RecordingListener listener = new RecordingListener();
+    final StepReporter executor = new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}, false,
+      new ReportingOverhead.Fake(), false, Integer.MAX_VALUE
+    );
+    final RuntimeException expectedException = new RuntimeException();
+    final List<StepRecording> recordings = new ArrayList<>();
+    final Thread thread = new Thread(() -> recordings.add(executor.record(() ->
+      executor.executeStep(artifacts("row"), () ->
+        executor.executeStep(artifacts("nested"), () -> { throw expectedException; })
+      )
+    )));
+    thread.start();
+    thread.join();
+
+    assertThat(listener.events).isEmpty();
+    final StepRecording recording = recordings.get(0);
+    assertThat(recording.exception()).isSameAs(expectedException);
+    assertThat(recording.stepsCount()).isEqualTo(2);
+    executor.executeStep(artifacts("parent"), () -> {
+      recording.replay(executor);
+      return null;
+    });
+    assertThat(listener.events).containsExactly(
+      "started parent",
+      "started row",
+      "started nested",
+      "failed",
+      "failed",
+      "passed"
+    );
+  }
+
+  @Test
+  void listenerExceptionOnStepStartedDoesNotCorruptReporterState() {
+    final RecordingListener listener1 = new RecordingListener();
+    final RecordingListener listener2 = new RecordingListener();
+    final RecordingListener listener3 = new RecordingListener();
+    final RuntimeException listenerException = new RuntimeException();
+    final StepListener throwingListener = new StepListener() {
+      @Override
+      public void stepStarted(final Map<String, ?> artifacts) {
+        if (Utils.getName(artifacts).equals("bad")) {
+          throw listenerException;
+        }
+      }
+
+      @Override
+      public void stepPassed() {
+      }
+
+      @Override
+      public void stepFailed(final Throwable exception) {
+      }
+    };
+    final StepListener filteringListener = new FilteringStepListener.Of(
+      listener2, Collections.emptySet(), Integer.MAX_VALUE, null, Collections.emptySet()
+    );
+    final StepListener[] listeners = {listener1, filteringListener, throwingListener, listener3};
+    final StepReporter[] reporters = {
+      new StepReporter.Default(mock(ExceptionHandler.class), listeners),
+      new StepReporter.Default(mock(ExceptionHandler.class), new StepListener[]{listener1, throwingListener, listener3}),
+      new StepReporter.Default(mock(ExceptionHandler.class), new SecretMasker.Fake(), listeners, false,
+        new ReportingOverhead.Fake(), true, 100)
+    };
+
+    for (final StepReporter executor : reporters) {
+      listener1.events.clear();
+      listener2.events.clear();
+      listener3.events.clear();
+      executor.executeStep(artifacts("parent"), () -> {
+        assertThatCode(() -> executor.executeStep(artifacts("bad"), () -> null))
+          .isSameAs(listenerException);
+        return executor.executeStep(artifacts("child"), () -> null);
+      });
+      executor.executeStep(artifacts("next"), () -> null);
+
+      assertThat(listener1.events).containsExactly(
+        "started parent", "started bad", "failed", "started child", "passed", "passed", "started next", "passed"
+      );
+      assertThat(listener3.events).containsExactly(
+        "started parent", "started child", "passed", "passed", "started next", "passed"
+      );
+    }
+    assertThat(listener2.events).containsExactly(
+      "started parent", "started bad", "failed", "started child", "passed", "passed", "started next", "passed"
+    );
+  }
+
+  @Test
+  void recordedReporterPassesAllEventsToRecorderBeforeFoldingAndLimit() {
+    final RecordingListener listener = new RecordingListener();
+    final RecordingListener recorder = new RecordingListener();
+    final StepReporter reporter = new StepReporter.Recorded(new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}, false,
+      new ReportingOverhead.Fake(), true, 3
+    ), recorder);
+    final RuntimeException expectedException = new RuntimeException();
+
+    final StepRecording recording = reporter.record(() ->
+      reporter.executeStep(artifacts("recorded"), () -> { throw expectedException; })
+    );
+    assertThatCode(() -> reporter.executeStep(artifacts("parent"), () -> {
+      for (int idx = 0; idx < 3; ++idx) {
+        reporter.executeStep(artifacts("check status"), () -> null);
+      }
+      recording.replay(reporter);
+      reporter.startStep(artifacts("manual"));
+      reporter.passStep();
+      return null;
+    })).doesNotThrowAnyException();
+    assertThat(recorder.events).containsExactly(
+      "started recorded",
+      "failed",
+      "started parent",
+      "started check status",
+      "passed",
+      "started check status",
+      "passed",
+      "started check status",
+      "passed",
+      "started manual",
+      "passed",
+      "passed"
+    );
+    assertThat(listener.events).containsExactly(
+      "started parent",
+      "started check status",
+      "passed",
+      "started check status repetitions=3",
+      "passed",
+      "started recorded",
+      "failed",
+      "started 1 steps are not reported",
+      "passed",
+      "passed"
+    );
+  }
+
+  @Test
+  void recordedReporterMasksArtifactsBeforeRecorder() {
+    final RecordingListener listener = new RecordingListener();
+    final RecordingListener recorder = new RecordingListener();
+    final SecretMasker secretMasker = new SecretMasker.Default(
+      Collections.singletonList("password"), Collections.emptyList(), "***");
+    final StepReporter reporter = new StepReporter.Recorded(new StepReporter.Default(
+      mock(ExceptionHandler.class), new SecretMasker.Fake(), new StepListener[]{listener}
+    ), recorder, secretMasker);
+
+    reporter.executeStep(artifacts("login password=qwerty"), () -> null);
+    reporter.startStep(artifacts("manual password=qwerty"));
+    reporter.passStep();
+    assertThat(recorder.events).containsExactly(
+      "started login password=***",
+      "passed",
+      "started manual password=***",
+      "passed"
+    );
+    assertThat(listener.events).isEqualTo(recorder.events);
+  }
+
+  @Test
+  void recordedReporterPassesEventsToRecorderWithFakeOrigin() {
+    final RecordingListener recorder = new RecordingListener();
+    final StepReporter reporter = new StepReporter.Recorded(new StepReporter.Fake(mock(ExceptionHandler.class)), recorder);
+    final RuntimeException expectedException = new RuntimeException();
+
+    assertThatCode(() -> reporter.executeStep(artifacts("parent"), () ->
+      reporter.executeStep(artifacts("nested"), () -> { throw expectedException; })
+    )).isSameAs(expectedException);
+    assertThat(recorder.events).containsExactly(
+      "started parent",
+      "started nested",
+      "failed",
+      "failed"
+    );
+  }
+
+  private static Map<String, ?> artifacts(final String name) {
+    return Collections.singletonMap(Artifacts.nameArtifact(), name);
+  }
+
+  private static final class RecordingListener implements StepListener {
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    public void stepStarted(final Map<String, ?> artifacts) {
+      final Object repetitions = Utils.getParams(artifacts).get("repetitions");
+      this.events.add("started " + Utils.getName(artifacts) + (repetitions == null ? "" : " repetitions=" + repetitions));
+    }
+
+    @Override
+    public void stepPassed() {
+      this.events.add("passed");
+    }
+
+    @Override
+    public void stepFailed(final Throwable exception) {
+      this.events.add("failed");
+    }
+  }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link StepWatchdog}.
+ */
+final class StepWatchdogTest {
+
+  @Test
+  void watchThrowsExceptionForNotPositiveTimeout(@TempDir final Path dir) {
+    final StepWatchdog watchdog = new StepWatchdog(new FlightRecorder(16, dir, false));
+
+    assertThatCode(() -> watchdog.watch(Thread.currentThread(), Duration.ZERO))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void cancelReturnsNullIfDeadlineIsNotExpired(@TempDir final Path dir) {
+    final StepWatchdog watchdog = new StepWatchdog(new FlightRecorder(16, dir, false));
+    final StepWatchdog.Deadline deadline = watchdog.watch(Thread.currentThread(), Duration.ofSeconds(10L));
+
+    assertThat(deadline.cancel()).isNull();
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+  }
+
+  @Test
+  void expiredDeadlineInterruptsThread(@TempDir final Path dir) {
+    final StepWatchdog watchdog = new StepWatchdog(new FlightRecorder(16, dir, false));
+    final StepWatchdog.Deadline deadline = watchdog.watch(Thread.currentThread(), Duration.ofMillis(50L));
+
+    assertThatCode(() -> Thread.sleep(10000L))
+      .isInstanceOf(InterruptedException.class);
+    final StepTimeoutError error = deadline.cancel();
+    assertThat(error).isNotNull();
+    assertThat(error.getMessage()).startsWith("Step timed out after PT0.05S");
+    assertThat(error.getStackTrace()).isNotEmpty();
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+  }
+}
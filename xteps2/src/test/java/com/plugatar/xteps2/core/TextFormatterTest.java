@@ -17,8 +17,11 @@ package com.plugatar.xteps2.core;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -71,6 +74,124 @@ final class TextFormatterTest {
     verifyNoInteractions(exceptionHandler);
   }
 
+  @Test
+  void formatMethodForTypeFormatter() {
+    final ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+    final TextFormatter formatter = new TextFormatter.Default(exceptionHandler, DEFAULT_PATTEN, false, false,
+      new TypeFormatter<?>[]{new ObjTypeFormatter()});
+    final Map<String, Object> replacements = new HashMap<>();
+    replacements.put("rep", new Obj());
+
+    assertThat(formatter.format("Text {rep}", replacements))
+      .isEqualTo("Text obj type formatter string");
+    verifyNoInteractions(exceptionHandler);
+  }
+
+  @Test
+  void formatMethodForTypeFormatterPriority() {
+    final ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+    final TextFormatter formatter = new TextFormatter.Default(exceptionHandler, DEFAULT_PATTEN, false, false,
+      new TypeFormatter<?>[]{new TypeFormatter.ByteArrayBase64(), new TypeFormatter.ByteArrayHex(32)});
+
+    assertThat(formatter.format(new byte[]{1, 2, 3}))
+      .isEqualTo("AQID (3 bytes)");
+    verifyNoInteractions(exceptionHandler);
+  }
+
+  @Test
+  void formatMethodForTypeFormatterPriorityOverSuperclass() {
+    final ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+    final TypeFormatter<Object> objectFormatter = new TypeFormatter<Object>() {
+      @Override
+      public Class<Object> type() {
+        return Object.class;
+      }
+
+      @Override
+      public String format(final Object obj, final TextFormatter textFormatter) {
+        return "object type formatter string";
+      }
+    };
+    final TextFormatter formatter = new TextFormatter.Default(exceptionHandler, DEFAULT_PATTEN, false, false,
+      new TypeFormatter<?>[]{objectFormatter, new ObjTypeFormatter()});
+
+    assertThat(formatter.format(new Obj()))
+      .isEqualTo("object type formatter string");
+    verifyNoInteractions(exceptionHandler);
+  }
+
+  @Test
+  void formatMethodForDirectCycle() {
+    final ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+    final TextFormatter formatter = new TextFormatter.Default(exceptionHandler, DEFAULT_PATTEN, false, false);
+    final Object[] array = new Object[2];
+    array[0] = "a";
+    array[1] = array;
+    final List<Object> list = new ArrayList<>();
+    list.add(list);
+
+    assertThat(formatter.format(array))
+      .isEqualTo("[a, [...]]");
+    assertThat(formatter.format(list))
+      .isEqualTo("[[...]]");
+    verifyNoInteractions(exceptionHandler);
+  }
+
+  @Test
+  void formatMethodForIndirectCycle() {
+    final ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+    final TextFormatter formatter = new TextFormatter.Default(exceptionHandler, DEFAULT_PATTEN, false, false);
+    final List<Object> list = new ArrayList<>();
+    final Map<String, Object> map = new LinkedHashMap<>();
+    final Object[] array = new Object[]{list};
+    list.add(map);
+    map.put("array", array);
+
+    assertThat(formatter.format(list))
+      .isEqualTo("[{array=[[...]]}]");
+    assertThat(formatter.format(map))
+      .isEqualTo("{array=[[[...]]]}");
+    verifyNoInteractions(exceptionHandler);
+  }
+
+  @Test
+  void formatMethodForRepeatedElements() {
+    final ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+    final TextFormatter formatter = new TextFormatter.Default(exceptionHandler, DEFAULT_PATTEN, false, false);
+    final List<String> element = Arrays.asList("a", "b");
+
+    assertThat(formatter.format(Arrays.asList(element, element)))
+      .isEqualTo("[[a, b], [a, b]]");
+    verifyNoInteractions(exceptionHandler);
+  }
+
+  @Test
+  void formatMethodForTypeFormatterException() {
+    final ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
+    final TypeFormatter<Obj> typeFormatter = new TypeFormatter<Obj>() {
+      @Override
+      public Class<Obj> type() {
+        return Obj.class;
+      }
+
+      @Override
+      public String format(final Obj obj, final TextFormatter textFormatter) {
+        throw new RuntimeException();
+      }
+    };
+    final TextFormatter formatter = new TextFormatter.Default(exceptionHandler, DEFAULT_PATTEN, false, false,
+      new TypeFormatter<?>[]{typeFormatter});
+
+    Throwable exception = null;
+    try {
+      formatter.format(new Obj());
+    } catch (final Throwable ex) {
+      exception = ex;
+    }
+    assertThat(exception).isInstanceOf(TextFormatException.class);
+    verify(exceptionHandler).handle(same(exception));
+  }
+
   @Test
   void formatMethodFieldForceAccessTrue() {
     final ExceptionHandler exceptionHandler = mock(ExceptionHandler.class);
@@ -189,6 +310,20 @@ final class TextFormatterTest {
     verifyNoInteractions(exceptionHandler);
   }
 
+  static final class ObjTypeFormatter implements TypeFormatter<Obj> {
+
+    @Override
+    public Class<Obj> type() {
+      return Obj.class;
+    }
+
+    @Override
+    public String format(final Obj obj,
+                         final TextFormatter textFormatter) {
+      return "obj type formatter string";
+    }
+  }
+
   static final class Obj {
     public int publicIntField = 1;
     private int privateIntField = 2;
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link TypeFormatter}.
+ */
+final class TypeFormatterTest {
+  private static final TextFormatter TEXT_FORMATTER = new TextFormatter.Fake();
+
+  @Test
+  void ctorThrowsExceptionForNegativeMaxBytesArg() {
+    assertThatCode(() -> new TypeFormatter.ByteArrayHex(-1))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void zeroArgCtors() {
+    assertThat(new TypeFormatter.ByteArrayHex().format(new byte[40], TEXT_FORMATTER))
+      .isEqualTo(new TypeFormatter.ByteArrayHex(32).format(new byte[40], TEXT_FORMATTER));
+    assertThat(new TypeFormatter.ByteBufferHex().format(ByteBuffer.allocate(40), TEXT_FORMATTER))
+      .isEqualTo(new TypeFormatter.ByteBufferHex(32).format(ByteBuffer.allocate(40), TEXT_FORMATTER));
+    assertThat(new TypeFormatter.CollectionOf().format(Arrays.asList("a", "b", "c"), TEXT_FORMATTER))
+      .isEqualTo("[a, b, c]");
+    assertThat(new TypeFormatter.MapOf().format(Collections.singletonMap("a", 1), TEXT_FORMATTER))
+      .isEqualTo("{a=1}");
+  }
+
+  @Test
+  void byteArrayHexFormatter() {
+    final TypeFormatter.ByteArrayHex formatter = new TypeFormatter.ByteArrayHex(2);
+
+    assertThat(formatter.format(new byte[]{1, (byte) 0xFF}, TEXT_FORMATTER))
+      .isEqualTo("01ff (2 bytes)");
+    assertThat(formatter.format(new byte[]{1, 2, 3}, TEXT_FORMATTER))
+      .isEqualTo("0102... (3 bytes)");
+  }
+
+  @Test
+  void byteBufferHexFormatterDoesNotChangePosition() {
+    final ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1, 2, 3});
+    buffer.get();
+
+    assertThat(new TypeFormatter.ByteBufferHex(32).format(buffer, TEXT_FORMATTER))
+      .endsWith(" 0203");
+    assertThat(buffer.position()).isEqualTo(1);
+  }
+
+  @Test
+  void pathFormatter() {
+    assertThat(new TypeFormatter.PathOf().format(Paths.get("a", ".", "b", "..", "c"), TEXT_FORMATTER))
+      .isEqualTo(Paths.get("a", ".", "b", "..", "c").toString());
+  }
+
+  @Test
+  void durationFormatter() {
+    final TypeFormatter.DurationOf formatter = new TypeFormatter.DurationOf();
+
+    assertThat(formatter.format(Duration.ZERO, TEXT_FORMATTER)).isEqualTo("0ms");
+    assertThat(formatter.format(Duration.ofMillis(3_723_400), TEXT_FORMATTER)).isEqualTo("1h 2m 3s 400ms");
+    assertThat(formatter.format(Duration.ofSeconds(-61), TEXT_FORMATTER)).isEqualTo("-1m 1s");
+    assertThat(formatter.format(Duration.ofNanos(500), TEXT_FORMATTER)).isEqualTo("500ns");
+  }
+
+  @Test
+  void collectionFormatter() {
+    final TypeFormatter.CollectionOf formatter = new TypeFormatter.CollectionOf(2);
+
+    assertThat(formatter.format(Arrays.asList("a", "b"), TEXT_FORMATTER)).isEqualTo("[a, b]");
+    assertThat(formatter.format(Arrays.asList("a", "b", "c"), TEXT_FORMATTER)).isEqualTo("[a, b, ...(3 elements)]");
+  }
+
+  @Test
+  void mapFormatter() {
+    final Map<String, Object> map = new LinkedHashMap<>();
+    map.put("a", 1);
+    map.put("b", 2);
+
+    assertThat(new TypeFormatter.MapOf(Integer.MAX_VALUE).format(map, TEXT_FORMATTER)).isEqualTo("{a=1, b=2}");
+    assertThat(new TypeFormatter.MapOf(1).format(map, TEXT_FORMATTER)).isEqualTo("{a=1, ...(2 entries)}");
+  }
+}
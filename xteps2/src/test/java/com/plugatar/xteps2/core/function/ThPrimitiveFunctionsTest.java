@@ -0,0 +1,97 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.function;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for primitive specializations of throwing functions: {@link ThIntConsumer}, {@link ThLongConsumer},
+ * {@link ThDoubleConsumer}, {@link ThIntFunction}, {@link ThLongFunction}, {@link ThDoubleFunction},
+ * {@link ThIntUnaryOperator}, {@link ThLongUnaryOperator}, {@link ThDoubleUnaryOperator}, {@link ThToIntFunction},
+ * {@link ThToLongFunction} and {@link ThToDoubleFunction}.
+ */
+final class ThPrimitiveFunctionsTest {
+
+  @Test
+  void uncheckedMethodsReturnNullForNullArg() {
+    assertThat(ThIntConsumer.unchecked(null)).isNull();
+    assertThat(ThLongConsumer.unchecked(null)).isNull();
+    assertThat(ThDoubleConsumer.unchecked(null)).isNull();
+    assertThat(ThIntFunction.unchecked(null)).isNull();
+    assertThat(ThLongFunction.unchecked(null)).isNull();
+    assertThat(ThDoubleFunction.unchecked(null)).isNull();
+    assertThat(ThIntUnaryOperator.unchecked(null)).isNull();
+    assertThat(ThLongUnaryOperator.unchecked(null)).isNull();
+    assertThat(ThDoubleUnaryOperator.unchecked(null)).isNull();
+    assertThat(ThToIntFunction.unchecked(null)).isNull();
+    assertThat(ThToLongFunction.unchecked(null)).isNull();
+    assertThat(ThToDoubleFunction.unchecked(null)).isNull();
+  }
+
+  @Test
+  void uncheckedMethodsLambdaResults() {
+    final List<Object> accepted = new ArrayList<>();
+    ThIntConsumer.unchecked(accepted::add).accept(1);
+    ThLongConsumer.unchecked(accepted::add).accept(2L);
+    ThDoubleConsumer.unchecked(accepted::add).accept(3.0);
+    assertThat(accepted).containsExactly(1, 2L, 3.0);
+
+    assertThat(ThIntFunction.unchecked(value -> "i" + value).apply(1)).isEqualTo("i1");
+    assertThat(ThLongFunction.unchecked(value -> "l" + value).apply(2L)).isEqualTo("l2");
+    assertThat(ThDoubleFunction.unchecked(value -> "d" + value).apply(3.0)).isEqualTo("d3.0");
+    assertThat(ThIntUnaryOperator.unchecked(value -> value + 1).applyAsInt(1)).isEqualTo(2);
+    assertThat(ThLongUnaryOperator.unchecked(value -> value + 1L).applyAsLong(2L)).isEqualTo(3L);
+    assertThat(ThDoubleUnaryOperator.unchecked(value -> value / 2).applyAsDouble(3.0)).isEqualTo(1.5);
+    assertThat(ThToIntFunction.<String>unchecked(String::length).applyAsInt("ab")).isEqualTo(2);
+    assertThat(ThToLongFunction.<String>unchecked(Long::parseLong).applyAsLong("3")).isEqualTo(3L);
+    assertThat(ThToDoubleFunction.<String>unchecked(Double::parseDouble).applyAsDouble("4.5")).isEqualTo(4.5);
+  }
+
+  @Test
+  void uncheckedMethodsExceptionLambdaResults() {
+    final Throwable throwable = new Throwable();
+    assertThatCode(() -> ThIntConsumer.unchecked(value -> { throw throwable; }).accept(1))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThLongConsumer.unchecked(value -> { throw throwable; }).accept(1L))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThDoubleConsumer.unchecked(value -> { throw throwable; }).accept(1.0))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThIntFunction.unchecked(value -> { throw throwable; }).apply(1))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThLongFunction.unchecked(value -> { throw throwable; }).apply(1L))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThDoubleFunction.unchecked(value -> { throw throwable; }).apply(1.0))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThIntUnaryOperator.unchecked(value -> { throw throwable; }).applyAsInt(1))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThLongUnaryOperator.unchecked(value -> { throw throwable; }).applyAsLong(1L))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThDoubleUnaryOperator.unchecked(value -> { throw throwable; }).applyAsDouble(1.0))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThToIntFunction.unchecked(value -> { throw throwable; }).applyAsInt(new Object()))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThToLongFunction.unchecked(value -> { throw throwable; }).applyAsLong(new Object()))
+      .isSameAs(throwable);
+    assertThatCode(() -> ThToDoubleFunction.unchecked(value -> { throw throwable; }).applyAsDouble(new Object()))
+      .isSameAs(throwable);
+  }
+}
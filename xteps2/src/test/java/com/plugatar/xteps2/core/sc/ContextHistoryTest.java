@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.sc;
+
+import com.plugatar.xteps2.core.XtepsException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link ContextHistory}.
+ */
+final class ContextHistoryTest {
+  private static final int PAYLOAD_SIZE = 1024 * 1024;
+  private static final int CHAIN_LENGTH = 16;
+
+  @Test
+  void boundedThrowsExceptionForNotPositiveMaxAncestors() {
+    assertThatCode(() -> ContextHistory.bounded(0))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> ContextHistory.bounded(-1))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void unboundedHistoryKeepsAllPreviousContexts() {
+    final CtxSC<String> root = new CtxSC.Of<>("root");
+    final MemCtxSC<String, CtxSC<String>> first = new MemCtxSC.Of<>("first",
+      ContextHistory.unbounded().link(root, null));
+    final MemCtxSC<String, MemCtxSC<String, CtxSC<String>>> second = first.map(context -> "second");
+    second.map(context -> "third").map(context -> "fourth");
+
+    assertThat(second.previous()).isSameAs(first);
+    assertThat(first.previous()).isSameAs(root);
+  }
+
+  @Test
+  void boundedHistoryReleasesOldPreviousContexts() {
+    final CtxSC<String> root = new CtxSC.Of<>("root");
+    final MemCtxSC<String, CtxSC<String>> first = new MemCtxSC.Of<>("first",
+      ContextHistory.bounded(2).link(root, null));
+    final MemCtxSC<String, MemCtxSC<String, CtxSC<String>>> second = first.map(context -> "second");
+    final MemBiCtxSC<String, String, MemCtxSC<String, MemCtxSC<String, CtxSC<String>>>> third =
+      second.with(context -> "third");
+    final MemNoCtxSC<?> fourth = third.noContext();
+
+    assertThat(fourth.previous()).isSameAs(third);
+    assertThat(third.previous()).isSameAs(second);
+    assertThatCode(second::previous)
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(first::previous)
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void noContextWithKeepsSamePreviousContext() {
+    final CtxSC<String> root = new CtxSC.Of<>("root");
+    final MemNoCtxSC<CtxSC<String>> noContext = new MemNoCtxSC.Of<>(ContextHistory.bounded(1).link(root, null));
+    final MemCtxSC<String, CtxSC<String>> context = noContext.with(() -> "context");
+
+    assertThat(context.previous()).isSameAs(root);
+  }
+
+  @Test
+  void weakHistoryAllowsPreviousContextsToBeCollected() {
+    final List<WeakReference<byte[]>> payloads = new ArrayList<>();
+    final MemCtxSC<byte[], ?> last = chain(ContextHistory.weak(), payloads);
+
+    assertThat(awaitCleared(payloads.get(CHAIN_LENGTH - 2))).isTrue();
+    assertThat(last.context()).hasSize(PAYLOAD_SIZE);
+    assertThatCode(last::previous)
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void boundedHistoryAllowsOldContextsToBeCollected() {
+    final List<WeakReference<byte[]>> payloads = new ArrayList<>();
+    final MemCtxSC<byte[], ?> last = chain(ContextHistory.bounded(4), payloads);
+
+    assertThat(awaitCleared(payloads.get(0))).isTrue();
+    assertThat(last.context()).hasSize(PAYLOAD_SIZE);
+  }
+
+  private static MemCtxSC<byte[], ?> chain(final ContextHistory history,
+                                           final List<WeakReference<byte[]>> payloads) {
+    final byte[] firstPayload = new byte[PAYLOAD_SIZE];
+    payloads.add(new WeakReference<>(firstPayload));
+    MemCtxSC<byte[], ?> last = new MemCtxSC.Of<>(firstPayload,
+      history.link(NoCtxSC.instance(), null));
+    for (int idx = 1; idx < CHAIN_LENGTH; ++idx) {
+      last = last.map(context -> {
+        final byte[] payload = new byte[PAYLOAD_SIZE];
+        payloads.add(new WeakReference<>(payload));
+        return payload;
+      });
+    }
+    return last;
+  }
+
+  private static boolean awaitCleared(final WeakReference<?> reference) {
+    final long deadline = System.currentTimeMillis() + 5000L;
+    while (reference.get() != null) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      System.gc();
+      try {
+        Thread.sleep(10L);
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.sc;
+
+import com.plugatar.xteps2.StaticStepListener;
+import com.plugatar.xteps2.XtepsBase;
+import com.plugatar.xteps2.core.XtepsException;
+import com.plugatar.xteps2.core.function.ThBiConsumer;
+import com.plugatar.xteps2.core.function.ThBiFunction;
+import com.plugatar.xteps2.core.function.ThConsumer;
+import com.plugatar.xteps2.core.function.ThFunction;
+import com.plugatar.xteps2.core.function.ThTriConsumer;
+import com.plugatar.xteps2.core.function.ThTriFunction;
+import com.plugatar.xteps2.core.step.RunnableStep;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link CtxSC}, {@link BiCtxSC} and {@link TriCtxSC} parallel methods.
+ */
+final class ParallelActionsTest {
+
+  @BeforeAll
+  static void beforeAll() {
+    System.setProperty("xteps.listener.list", "com.plugatar.xteps2.StaticStepListener");
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    StaticStepListener.clear();
+  }
+
+  @Test
+  void parallelMethodsThrowExceptionForNullArgs() {
+    final CtxSC<String> ctxSC = new CtxSC.Of<>("c");
+    final BiCtxSC<String, String> biCtxSC = new BiCtxSC.Of<>("c1", "c2");
+    final TriCtxSC<String, String, String> triCtxSC = new TriCtxSC.Of<>("c1", "c2", "c3");
+
+    assertThatCode(() -> ctxSC.parallelExec(null, c -> { }))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> ctxSC.parallelExec((List<ThConsumer<String, ?>>) null))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> ctxSC.parallelMap(Arrays.<ThFunction<String, String, ?>>asList(c -> c, null)))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> biCtxSC.parallelExec((c1, c2) -> { }, null))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> biCtxSC.parallelMap((List<ThBiFunction<String, String, String, ?>>) null))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> triCtxSC.parallelExec((c1, c2, c3) -> { }, (c1, c2, c3) -> { }, null))
+      .isInstanceOf(XtepsException.class);
+    assertThatCode(() -> triCtxSC.parallelMap(Collections.<ThTriFunction<String, String, String, String, ?>>singletonList(null)))
+      .isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void ctxSCParallelMapResultsInActionsOrder() {
+    final CtxSC<Integer> ctxSC = new CtxSC.Of<>(10);
+
+    final MemBiCtxSC<Integer, Integer, CtxSC<Integer>> biResult = ctxSC.parallelMap(
+      c -> delayed(60L, c + 1),
+      c -> delayed(0L, c + 2)
+    );
+    assertThat(biResult.context1()).isEqualTo(11);
+    assertThat(biResult.context2()).isEqualTo(12);
+    assertThat(biResult.previous()).isSameAs(ctxSC);
+
+    final MemTriCtxSC<Integer, Integer, Integer, CtxSC<Integer>> triResult = ctxSC.parallelMap(
+      c -> delayed(60L, c + 1),
+      c -> delayed(30L, c + 2),
+      c -> delayed(0L, c + 3)
+    );
+    assertThat(triResult.context1()).isEqualTo(11);
+    assertThat(triResult.context2()).isEqualTo(12);
+    assertThat(triResult.context3()).isEqualTo(13);
+
+    final List<ThFunction<Integer, Integer, ?>> actions = new ArrayList<>();
+    for (int idx = 0; idx < 5; ++idx) {
+      final int actionIdx = idx;
+      actions.add(c -> delayed(10L * (5 - actionIdx), c + actionIdx));
+    }
+    assertThat(ctxSC.parallelMap(actions).context()).containsExactly(10, 11, 12, 13, 14);
+  }
+
+  @Test
+  void biCtxSCAndTriCtxSCParallelMapResultsInActionsOrder() {
+    final BiCtxSC<Integer, Integer> biCtxSC = new BiCtxSC.Of<>(1, 2);
+    final TriCtxSC<Integer, Integer, Integer> triCtxSC = new TriCtxSC.Of<>(1, 2, 3);
+
+    final MemBiCtxSC<Integer, Integer, BiCtxSC<Integer, Integer>> biResult = biCtxSC.parallelMap(
+      (c1, c2) -> delayed(60L, c1 + c2),
+      (c1, c2) -> delayed(0L, c1 * c2)
+    );
+    assertThat(biResult.context1()).isEqualTo(3);
+    assertThat(biResult.context2()).isEqualTo(2);
+    assertThat(biCtxSC.parallelMap(Arrays.<ThBiFunction<Integer, Integer, Integer, ?>>asList(
+      (c1, c2) -> delayed(60L, c1),
+      (c1, c2) -> delayed(30L, c2),
+      (c1, c2) -> delayed(0L, c1 + c2)
+    )).context()).containsExactly(1, 2, 3);
+
+    final MemTriCtxSC<Integer, Integer, Integer, TriCtxSC<Integer, Integer, Integer>> triResult = triCtxSC.parallelMap(
+      (c1, c2, c3) -> delayed(60L, c1 + c2 + c3),
+      (c1, c2, c3) -> delayed(30L, c1 * c2 * c3),
+      (c1, c2, c3) -> delayed(0L, c3 - c1)
+    );
+    assertThat(triResult.context1()).isEqualTo(6);
+    assertThat(triResult.context2()).isEqualTo(6);
+    assertThat(triResult.context3()).isEqualTo(2);
+    assertThat(triCtxSC.parallelMap(Arrays.<ThTriFunction<Integer, Integer, Integer, Integer, ?>>asList(
+      (c1, c2, c3) -> delayed(60L, c1),
+      (c1, c2, c3) -> delayed(0L, c3)
+    )).context()).containsExactly(1, 3);
+  }
+
+  @Test
+  void stepsReplayedInActionsOrder() {
+    new CtxSC.Of<>("c").parallelExec(
+      c -> nestedStep("step 1", 80L),
+      c -> nestedStep("step 2", 40L),
+      c -> nestedStep("step 3", 0L)
+    );
+    new BiCtxSC.Of<>("c1", "c2").parallelExec(Arrays.<ThBiConsumer<String, String, ?>>asList(
+      (c1, c2) -> nestedStep("step 4", 40L),
+      (c1, c2) -> nestedStep("step 5", 0L)
+    ));
+    new TriCtxSC.Of<>("c1", "c2", "c3").parallelExec(
+      (c1, c2, c3) -> nestedStep("step 6", 40L),
+      (c1, c2, c3) -> nestedStep("step 7", 0L)
+    );
+
+    assertThat(StaticStepListener.events()).containsExactly(
+      "started step 1", "passed",
+      "started step 2", "passed",
+      "started step 3", "passed",
+      "started step 4", "passed",
+      "started step 5", "passed",
+      "started step 6", "passed",
+      "started step 7", "passed"
+    );
+  }
+
+  @Test
+  void failedActionsExceptionsSuppressedByFirstException() {
+    final RuntimeException exception1 = new RuntimeException("1");
+    final RuntimeException exception2 = new RuntimeException("2");
+    final RuntimeException exception3 = new RuntimeException("3");
+    final AtomicInteger passedActions = new AtomicInteger();
+    assertThatCode(() -> new CtxSC.Of<>("c").parallelExec(
+      c -> delayedThrow(60L, exception1),
+      c -> passedActions.incrementAndGet(),
+      c -> delayedThrow(0L, exception2)
+    )).isSameAs(exception1);
+    assertThat(exception1.getSuppressed()).containsExactly(exception2);
+    assertThat(passedActions).hasValue(1);
+
+    final RuntimeException exception4 = new RuntimeException("4");
+    assertThatCode(() -> new BiCtxSC.Of<>("c1", "c2").parallelMap(
+      (c1, c2) -> delayedThrow(0L, exception3),
+      (c1, c2) -> delayedThrow(30L, exception4)
+    )).isSameAs(exception3);
+    assertThat(exception3.getSuppressed()).containsExactly(exception4);
+
+    final RuntimeException exception5 = new RuntimeException("5");
+    final RuntimeException exception6 = new RuntimeException("6");
+    final RuntimeException exception7 = new RuntimeException("7");
+    assertThatCode(() -> new TriCtxSC.Of<>("c1", "c2", "c3").parallelExec(Arrays.<ThTriConsumer<String, String, String, ?>>asList(
+      (c1, c2, c3) -> delayedThrow(30L, exception5),
+      (c1, c2, c3) -> delayedThrow(0L, exception6),
+      (c1, c2, c3) -> delayedThrow(60L, exception7)
+    ))).isSameAs(exception5);
+    assertThat(exception5.getSuppressed()).containsExactly(exception6, exception7);
+  }
+
+  @Test
+  void parallelActionsThreadsAreLimited() {
+    final int parallelism = XtepsBase.stepContextParallelism();
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger maxActive = new AtomicInteger();
+    final List<ThConsumer<String, ?>> actions = new ArrayList<>();
+    for (int idx = 0; idx < parallelism * 2; ++idx) {
+      actions.add(c -> {
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        Thread.sleep(20L);
+        active.decrementAndGet();
+      });
+    }
+
+    new CtxSC.Of<>("c").parallelExec(actions);
+
+    assertThat(maxActive.get()).isBetween(1, parallelism);
+  }
+
+  private static <T> T delayed(final long millis,
+                               final T value) throws InterruptedException {
+    Thread.sleep(millis);
+    return value;
+  }
+
+  private static <T> T delayedThrow(final long millis,
+                                    final RuntimeException exception) throws InterruptedException {
+    Thread.sleep(millis);
+    throw exception;
+  }
+
+  private static void nestedStep(final String name,
+                                 final long millis) throws InterruptedException {
+    Thread.sleep(millis);
+    new RunnableStep.Of(name, () -> { }).run();
+  }
+}
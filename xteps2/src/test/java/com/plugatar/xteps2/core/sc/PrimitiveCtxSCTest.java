@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023 Evgenii Plugatar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.plugatar.xteps2.core.sc;
+
+import com.plugatar.xteps2.core.XtepsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Tests for {@link IntCtxSC}, {@link LongCtxSC} and {@link DoubleCtxSC}.
+ */
+final class PrimitiveCtxSCTest {
+
+  @Test
+  void methodsThrowExceptionForNullAction() {
+    final IntCtxSC intCtxSC = new IntCtxSC.Of(1);
+    final LongCtxSC longCtxSC = new LongCtxSC.Of(1L);
+    final DoubleCtxSC doubleCtxSC = new DoubleCtxSC.Of(1.0);
+
+    assertThatCode(() -> intCtxSC.exec(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> intCtxSC.res(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> intCtxSC.map(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> intCtxSC.mapToObj(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> longCtxSC.exec(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> longCtxSC.res(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> longCtxSC.map(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> longCtxSC.mapToObj(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> doubleCtxSC.exec(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> doubleCtxSC.res(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> doubleCtxSC.map(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> doubleCtxSC.mapToObj(null)).isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void mapMethodReturnsNewStepContextAndKeepsContext() {
+    final IntCtxSC intCtxSC = new IntCtxSC.Of(0);
+    IntCtxSC intResult = intCtxSC;
+    for (int idx = 0; idx < 10; ++idx) {
+      intResult = intResult.map(value -> value + 2);
+    }
+    assertThat(intResult).isNotSameAs(intCtxSC);
+    assertThat(intResult.context()).isEqualTo(20);
+    assertThat(intCtxSC.context()).isZero();
+
+    final LongCtxSC longCtxSC = new LongCtxSC.Of(1L);
+    final LongCtxSC longResult = longCtxSC.map(value -> value * 3L).map(value -> value * 3L);
+    assertThat(longResult).isNotSameAs(longCtxSC);
+    assertThat(longResult.context()).isEqualTo(9L);
+    assertThat(longCtxSC.context()).isEqualTo(1L);
+
+    final DoubleCtxSC doubleCtxSC = new DoubleCtxSC.Of(1.0);
+    final DoubleCtxSC doubleResult = doubleCtxSC.map(value -> value / 2).map(value -> value / 2);
+    assertThat(doubleResult).isNotSameAs(doubleCtxSC);
+    assertThat(doubleResult.context()).isEqualTo(0.25);
+    assertThat(doubleCtxSC.context()).isEqualTo(1.0);
+  }
+
+  @Test
+  void mapMethodKeepsContextIfActionThrowsException() {
+    final RuntimeException exception = new RuntimeException();
+    final IntCtxSC intCtxSC = new IntCtxSC.Of(5);
+
+    assertThatCode(() -> intCtxSC.map(value -> { throw exception; }))
+      .isSameAs(exception);
+    assertThat(intCtxSC.context()).isEqualTo(5);
+  }
+
+  @Test
+  void execAndResMethodsPassContext() {
+    final List<Object> accepted = new ArrayList<>();
+    final IntCtxSC intCtxSC = new IntCtxSC.Of(1);
+    final LongCtxSC longCtxSC = new LongCtxSC.Of(2L);
+    final DoubleCtxSC doubleCtxSC = new DoubleCtxSC.Of(3.0);
+
+    assertThat(intCtxSC.exec(accepted::add)).isSameAs(intCtxSC);
+    assertThat(longCtxSC.exec(accepted::add)).isSameAs(longCtxSC);
+    assertThat(doubleCtxSC.exec(accepted::add)).isSameAs(doubleCtxSC);
+    assertThat(accepted).containsExactly(1, 2L, 3.0);
+
+    assertThat(intCtxSC.<String>res(value -> "i" + value)).isEqualTo("i1");
+    assertThat(longCtxSC.<String>res(value -> "l" + value)).isEqualTo("l2");
+    assertThat(doubleCtxSC.<String>res(value -> "d" + value)).isEqualTo("d3.0");
+  }
+
+  @Test
+  void mapToObjAndBoxedMethodsReturnCtxSC() {
+    assertThat(new IntCtxSC.Of(1).<String>mapToObj(value -> "i" + value).context()).isEqualTo("i1");
+    assertThat(new LongCtxSC.Of(2L).<String>mapToObj(value -> "l" + value).context()).isEqualTo("l2");
+    assertThat(new DoubleCtxSC.Of(3.0).<String>mapToObj(value -> "d" + value).context()).isEqualTo("d3.0");
+    assertThat(new IntCtxSC.Of(1).boxed().context()).isEqualTo(1);
+    assertThat(new LongCtxSC.Of(2L).boxed().context()).isEqualTo(2L);
+    assertThat(new DoubleCtxSC.Of(3.0).boxed().context()).isEqualTo(3.0);
+  }
+
+  @Test
+  void ctxSCMapToPrimitiveMethods() {
+    final CtxSC<String> ctxSC = new CtxSC.Of<>("12");
+
+    assertThat(ctxSC.mapToInt(Integer::parseInt).context()).isEqualTo(12);
+    assertThat(ctxSC.mapToLong(Long::parseLong).context()).isEqualTo(12L);
+    assertThat(ctxSC.mapToDouble(Double::parseDouble).context()).isEqualTo(12.0);
+    assertThatCode(() -> ctxSC.mapToInt(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> ctxSC.mapToLong(null)).isInstanceOf(XtepsException.class);
+    assertThatCode(() -> ctxSC.mapToDouble(null)).isInstanceOf(XtepsException.class);
+  }
+
+  @Test
+  void itAndNoContextMethods() {
+    final IntCtxSC intCtxSC = new IntCtxSC.Of(1);
+    final List<Object> accepted = new ArrayList<>();
+
+    assertThat(intCtxSC.it(accepted::add)).isSameAs(intCtxSC);
+    assertThat(accepted).containsExactly(intCtxSC);
+    assertThat(intCtxSC.<IntCtxSC>itRes(sc -> sc)).isSameAs(intCtxSC);
+    assertThat(intCtxSC.noContext().previous()).isSameAs(intCtxSC);
+  }
+}